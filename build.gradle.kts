@@ -1,6 +1,7 @@
 plugins {
     `maven-publish`
     id("hytale-mod") version "0.+"
+    alias(libs.plugins.jmh)
 }
 
 group = "to.dstn.hytale"
@@ -28,6 +29,10 @@ dependencies {
     compileOnly(libs.jspecify)
 
     runtimeOnly(libs.bettermodlist)
+
+    testImplementation(platform(libs.junit.bom))
+    testImplementation(libs.junit.jupiter)
+    testRuntimeOnly(libs.junit.platform.launcher)
 }
 
 java {
@@ -64,6 +69,52 @@ hytale {
 
 }
 
+val loadtest by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+// Tests, benchmarks and the load generator run outside the server, so they
+// need the server API on their classpath instead of relying on it being
+// provided at runtime.
+listOf(
+    "testCompileClasspath",
+    "testRuntimeClasspath",
+    "jmhCompileClasspath",
+    "jmhRuntimeClasspath",
+    loadtest.compileClasspathConfigurationName,
+    loadtest.runtimeClasspathConfigurationName
+).forEach { name ->
+    configurations.named(name) {
+        extendsFrom(configurations.compileOnly.get())
+    }
+}
+
+tasks.named<Test>("test") {
+    useJUnitPlatform()
+}
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the socket load generator; pass options with --args."
+    classpath = loadtest.runtimeClasspath
+    mainClass = "to.dstn.hytale.hyrcon.LoadGenerator"
+}
+
+tasks.register<JavaExec>("auditQuery") {
+    group = "help"
+    description = "Prints records from an audit journal; pass options with --args."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass = "to.dstn.hytale.hyrcon.AuditJournalReader"
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    findProperty("jmh.includes")?.let { includes = listOf(it.toString()) }
+}
+
 tasks.withType<Jar> {
     manifest {
         attributes["Specification-Title"] = rootProject.name
@@ -0,0 +1,92 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link AnsiLineScanner} with the regex pipeline it replaced
+ * ({@code split("\\R")}, {@code replaceAll} of CSI sequences and
+ * {@code strip()}) on colored, multi-line command output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnsiLineScannerBenchmark {
+
+    private static final Pattern ANSI_PATTERN = Pattern.compile(
+        "\\u001B\\[[;\\d]*[ -/]*[@-~]"
+    );
+
+    @Param({ "1", "20", "200" })
+    public int lines;
+
+    private String text;
+    private AnsiLineScanner scanner;
+    private Consumer<String> sink;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                builder.append(i % 7 == 0 ? "\r\n" : "\n");
+            }
+            switch (i % 4) {
+                case 0 -> builder
+                    .append("\u001B[32m[INFO]\u001B[0m Player \u001B[1;33m")
+                    .append("Builder_")
+                    .append(i)
+                    .append("\u001B[0m joined the world at \u001B[36m")
+                    .append(i * 31)
+                    .append(", 64, ")
+                    .append(i * 17)
+                    .append("\u001B[0m");
+                case 1 -> builder
+                    .append("  \u001B[90m-\u001B[0m entity count: ")
+                    .append(i * 113)
+                    .append("   ");
+                case 2 -> builder
+                    .append("\u001B[38;5;208mWARN\u001B[0m chunk ")
+                    .append(i)
+                    .append(" took \u001B[1m")
+                    .append(i % 50)
+                    .append("ms\u001B[0m to tick");
+                default -> builder.append("plain output line ").append(i);
+            }
+        }
+        text = builder.toString();
+        scanner = new AnsiLineScanner();
+        sink = blackhole::consume;
+    }
+
+    @Benchmark
+    public void scanner() {
+        scanner.scan(text, sink);
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String part : text.split("\\R", -1)) {
+            String line = ANSI_PATTERN.matcher(part).replaceAll("").strip();
+            if (!line.isEmpty()) {
+                blackhole.consume(line);
+            }
+        }
+    }
+}
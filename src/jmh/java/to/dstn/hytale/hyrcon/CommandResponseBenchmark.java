@@ -0,0 +1,66 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of {@link CommandResponse} instances and their conversion into
+ * display lines, which happens once per executed command.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandResponseBenchmark {
+
+    @Param({ "1", "20", "500" })
+    public int lines;
+
+    private List<String> output;
+    private CommandResponse success;
+    private CommandResponse failure;
+
+    @Setup
+    public void setUp() {
+        output = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            output.add("entity " + i + " at 12.5, 64.0, -3.25");
+        }
+        success = CommandResponse.success(output);
+        failure = CommandResponse.failure("Command timed out", output);
+    }
+
+    @Benchmark
+    public CommandResponse constructSuccess() {
+        return CommandResponse.success(output);
+    }
+
+    @Benchmark
+    public CommandResponse constructFailure() {
+        return CommandResponse.failure("Command timed out", output);
+    }
+
+    @Benchmark
+    public List<String> displaySuccess() {
+        return ClientSession.toDisplayLines("list", success, true);
+    }
+
+    @Benchmark
+    public List<String> displayFailure() {
+        return ClientSession.toDisplayLines("list", failure, false);
+    }
+}
@@ -0,0 +1,149 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full request/response cycle of a session without sockets: one request frame
+ * is decoded, dispatched to a canned response and the response is encoded,
+ * chunked and handed to a connection that discards it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponsePathBenchmark {
+
+    @Param({ "source", "hyrcon" })
+    public String protocol;
+
+    @Param({ "64", "4096", "65536" })
+    public int responseBytes;
+
+    private HyRconServer server;
+    private ClientSession session;
+    private DiscardingConnection connection;
+    private ByteBuffer request;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> lines = new ArrayList<>();
+        int remaining = responseBytes;
+        for (int i = 0; remaining > 0; i++) {
+            String line = ("line " + i + " ").repeat(8);
+            line = line.substring(0, Math.min(line.length(), remaining));
+            lines.add(line);
+            remaining -= line.length() + 1;
+        }
+        CommandResponse response = CommandResponse.success(lines);
+
+        // Sessions only decode while the server runs, so bind a free port.
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        server = new HyRconServer(
+            HyRconConfiguration.fromEnvironment(
+                Map.of(
+                    HyRconConfiguration.ENV_ENABLED,
+                    "true",
+                    HyRconConfiguration.ENV_HOST,
+                    "127.0.0.1",
+                    HyRconConfiguration.ENV_PORT,
+                    Integer.toString(port),
+                    HyRconConfiguration.ENV_PROTOCOL,
+                    protocol
+                )
+            ),
+            command -> response
+        );
+        server.start();
+
+        connection = new DiscardingConnection();
+        session = server.createSession(connection);
+        session.open();
+        request = protocol.equals("source") ? sourceRequest() : lineRequest();
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public long roundTrip() {
+        session.receive(request.duplicate());
+        return connection.written;
+    }
+
+    private static ByteBuffer sourceRequest() {
+        byte[] command = "list".getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer frame = ByteBuffer.allocate(
+            SourceRconCodec.HEADER_SIZE +
+                command.length +
+                SourceRconCodec.TRAILER_SIZE
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        frame.put(
+            SourceRconCodec.encodeHeader(
+                ByteBuffer.allocate(SourceRconCodec.HEADER_SIZE),
+                7,
+                SourceRconCodec.TYPE_EXECCOMMAND,
+                command.length
+            )
+        );
+        return frame.put(command).put((byte) 0).put((byte) 0).flip();
+    }
+
+    private static ByteBuffer lineRequest() {
+        return ByteBuffer.wrap("list\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class DiscardingConnection
+        implements ClientConnection
+    {
+
+        private long written;
+
+        @Override
+        public String remoteAddress() {
+            return "benchmark";
+        }
+
+        @Override
+        public void write(ByteBuffer data) {
+            written += data.remaining();
+            data.position(data.limit());
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void setReadInterest(boolean enabled) {}
+
+        @Override
+        public void close() {}
+    }
+}
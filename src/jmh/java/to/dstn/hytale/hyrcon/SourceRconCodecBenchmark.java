@@ -0,0 +1,86 @@
+package to.dstn.hytale.hyrcon;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding and encoding of a single Source RCON frame with
+ * {@link SourceRconCodec}, the per-packet work of every Source session.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SourceRconCodecBenchmark {
+
+    @Param({ "16", "256", "4000" })
+    public int payloadBytes;
+
+    private ByteBuffer frame;
+    private String payload;
+    private byte[] expected;
+    private ByteBuffer header;
+    private ByteBuffer body;
+
+    @Setup
+    public void setUp() {
+        payload = "say ".repeat(payloadBytes / 4 + 1).substring(0, payloadBytes);
+        expected = SourceRconCodec.latin1OrNull(payload);
+        frame = ByteBuffer.allocate(
+            SourceRconCodec.HEADER_SIZE +
+                payloadBytes +
+                SourceRconCodec.TRAILER_SIZE
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        frame.put(
+            SourceRconCodec.encodeHeader(
+                ByteBuffer.allocate(SourceRconCodec.HEADER_SIZE),
+                42,
+                SourceRconCodec.TYPE_EXECCOMMAND,
+                payloadBytes
+            )
+        );
+        frame.put(expected).put((byte) 0).put((byte) 0).flip();
+        header = ByteBuffer.allocate(SourceRconCodec.HEADER_SIZE);
+        body = ByteBuffer.allocate(SourceRconCodec.MAX_PAYLOAD);
+    }
+
+    @Benchmark
+    public String decode() throws Exception {
+        int size = SourceRconCodec.frameSize(frame, false, 16 * 1024);
+        if (size == 0 || SourceRconCodec.requestId(frame) != 42) {
+            throw new IllegalStateException("frame not decoded");
+        }
+        return SourceRconCodec.payloadString(frame);
+    }
+
+    @Benchmark
+    public boolean authenticate() {
+        return SourceRconCodec.payloadEquals(frame, expected);
+    }
+
+    @Benchmark
+    public int encode() {
+        SourceRconCodec.encodeHeader(
+            header,
+            42,
+            SourceRconCodec.TYPE_RESPONSE_VALUE,
+            payloadBytes
+        );
+        body.clear();
+        return SourceRconCodec.encodeLatin1(payload, 0, body) + header.limit();
+    }
+}
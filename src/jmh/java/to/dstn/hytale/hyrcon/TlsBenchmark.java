@@ -0,0 +1,290 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the TLS layer without sockets: a client engine and an engine of a
+ * listener's {@link TlsContext} exchange records through memory.
+ *
+ * {@code fullHandshake} is what every connection of a one-shot CLI would pay
+ * without session resumption and {@code resumedHandshake} what it pays with
+ * it; {@code transfer} encrypts a response on the server side and decrypts it
+ * on the client side over an established connection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TlsBenchmark {
+
+    private static final String STORE_PASSWORD = "benchmark";
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private Path directory;
+    private TlsContext serverContext;
+    private SSLContext clientContext;
+    private EnginePair pair;
+
+    @Setup
+    public void setUp() throws IOException, GeneralSecurityException {
+        directory = Files.createTempDirectory("hyrcon-tls-benchmark");
+        Path keystore = directory.resolve("server.p12");
+        generateKeystore(keystore);
+
+        HyRconTlsConfiguration tls = HyRconConfiguration.fromEnvironment(
+            Map.of(
+                HyRconConfiguration.ENV_TLS_KEYSTORE,
+                keystore.toString(),
+                HyRconConfiguration.ENV_TLS_KEYSTORE_PASSWORD,
+                STORE_PASSWORD
+            )
+        ).tls();
+        serverContext = TlsContext.load(tls, directory);
+
+        TrustManagerFactory trust = TrustManagerFactory.getInstance(
+            TrustManagerFactory.getDefaultAlgorithm()
+        );
+        char[] password = STORE_PASSWORD.toCharArray();
+        trust.init(KeyStore.getInstance(keystore.toFile(), password));
+        clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, trust.getTrustManagers(), null);
+
+        // Leaves a session behind for resumedHandshake to resume.
+        resumedHandshake();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public EnginePair fullHandshake() throws SSLException {
+        // Without a peer host and port the client never offers a session.
+        pair = new EnginePair(
+            clientContext.createSSLEngine(),
+            serverContext.createEngine()
+        );
+        pair.handshake();
+        return pair;
+    }
+
+    @Benchmark
+    public EnginePair resumedHandshake() throws SSLException {
+        pair = new EnginePair(
+            clientContext.createSSLEngine("hyrcon.benchmark", 5522),
+            serverContext.createEngine()
+        );
+        pair.handshake();
+        return pair;
+    }
+
+    /**
+     * An established connection sending responses of {@code responseBytes}.
+     */
+    @State(Scope.Thread)
+    public static class Connection {
+
+        @Param({ "64", "4096", "65536" })
+        public int responseBytes;
+
+        private EnginePair pair;
+        private ByteBuffer response;
+
+        @Setup(Level.Trial)
+        public void setUp(TlsBenchmark benchmark) throws SSLException {
+            pair = benchmark.fullHandshake();
+            response = ByteBuffer.allocate(responseBytes);
+            while (response.hasRemaining()) {
+                response.put((byte) ('a' + response.position() % 26));
+            }
+            response.flip();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public long transfer(Connection connection) throws SSLException {
+        return connection.pair.transfer(connection.response.duplicate());
+    }
+
+    private static void generateKeystore(Path keystore) throws IOException {
+        Path keytool = Path.of(
+            System.getProperty("java.home"),
+            "bin",
+            "keytool"
+        );
+        Process process = new ProcessBuilder(
+            List.of(
+                keytool.toString(),
+                "-genkeypair",
+                "-alias",
+                "hyrcon",
+                "-keyalg",
+                "EC",
+                "-dname",
+                "CN=hyrcon.benchmark",
+                "-validity",
+                "1",
+                "-storetype",
+                "PKCS12",
+                "-keystore",
+                keystore.toString(),
+                "-storepass",
+                STORE_PASSWORD
+            )
+        )
+            .redirectErrorStream(true)
+            .start();
+        String output = new String(process.getInputStream().readAllBytes());
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("keytool failed: " + output);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running keytool", ex);
+        }
+    }
+
+    /**
+     * Client and server engine connected by two in-memory record buffers.
+     */
+    public static final class EnginePair {
+
+        private final SSLEngine client;
+        private final SSLEngine server;
+        // Records in flight, in write mode.
+        private final ByteBuffer toServer;
+        private final ByteBuffer toClient;
+        // Decrypted bytes, discarded after every step.
+        private final ByteBuffer clientApp;
+        private final ByteBuffer serverApp;
+
+        EnginePair(SSLEngine client, SSLEngine server) {
+            this.client = client;
+            this.server = server;
+            client.setUseClientMode(true);
+            int packet = client.getSession().getPacketBufferSize();
+            int application = client.getSession().getApplicationBufferSize();
+            // Room for a whole flight of handshake messages.
+            this.toServer = ByteBuffer.allocate(packet * 4);
+            this.toClient = ByteBuffer.allocate(packet * 4);
+            this.clientApp = ByteBuffer.allocate(application);
+            this.serverApp = ByteBuffer.allocate(application);
+        }
+
+        void handshake() throws SSLException {
+            client.beginHandshake();
+            server.beginHandshake();
+            while (
+                isHandshaking(client) ||
+                isHandshaking(server) ||
+                toServer.position() > 0 ||
+                toClient.position() > 0
+            ) {
+                boolean progress = step(client, toClient, toServer, clientApp);
+                progress |= step(server, toServer, toClient, serverApp);
+                if (!progress) {
+                    throw new IllegalStateException("TLS handshake stalled");
+                }
+            }
+        }
+
+        long transfer(ByteBuffer response) throws SSLException {
+            long received = 0;
+            while (response.hasRemaining()) {
+                server.wrap(response, toClient);
+                toClient.flip();
+                while (toClient.hasRemaining()) {
+                    clientApp.clear();
+                    received += client
+                        .unwrap(toClient, clientApp)
+                        .bytesProduced();
+                }
+                toClient.clear();
+            }
+            return received;
+        }
+
+        /**
+         * Takes one handshake step of {@code engine}, or consumes records that
+         * arrive once its handshake is over, such as session tickets.
+         *
+         * @return whether anything happened
+         */
+        private static boolean step(
+            SSLEngine engine,
+            ByteBuffer in,
+            ByteBuffer out,
+            ByteBuffer app
+        ) throws SSLException {
+            switch (engine.getHandshakeStatus()) {
+                case NEED_TASK -> {
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    return true;
+                }
+                case NEED_WRAP -> {
+                    return engine.wrap(EMPTY, out).getStatus() == Status.OK;
+                }
+                default -> {
+                    if (in.position() == 0) {
+                        return false;
+                    }
+                    in.flip();
+                    app.clear();
+                    SSLEngineResult result = engine.unwrap(in, app);
+                    in.compact();
+                    return result.bytesConsumed() > 0;
+                }
+            }
+        }
+
+        private static boolean isHandshaking(SSLEngine engine) {
+            HandshakeStatus status = engine.getHandshakeStatus();
+            return (
+                status != HandshakeStatus.NOT_HANDSHAKING &&
+                status != HandshakeStatus.FINISHED
+            );
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted set of commands the {@link LoadGenerator} picks from for every
+ * request.
+ */
+final class CommandMix {
+
+    private final String[] commands;
+    private final long[] cumulativeWeights;
+
+    private CommandMix(String[] commands, long[] cumulativeWeights) {
+        this.commands = commands;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    /**
+     * Parses entries of the form {@code [<weight>:]<command>}. Entries without
+     * a numeric weight prefix have weight 1.
+     */
+    static CommandMix parse(List<String> entries) {
+        String[] commands = new String[entries.size()];
+        long[] cumulativeWeights = new long[entries.size()];
+        long total = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            String entry = entries.get(i);
+            int separator = entry.indexOf(':');
+            long weight = 1;
+            String command = entry;
+            if (separator > 0 && isDigits(entry, separator)) {
+                weight = Long.parseLong(entry, 0, separator, 10);
+                command = entry.substring(separator + 1);
+            }
+            command = command.trim();
+            if (command.isEmpty() || weight < 1) {
+                throw new IllegalArgumentException(
+                    "Invalid command mix entry: " + entry
+                );
+            }
+            total += weight;
+            commands[i] = command;
+            cumulativeWeights[i] = total;
+        }
+        return new CommandMix(commands, cumulativeWeights);
+    }
+
+    String next() {
+        if (commands.length == 1) {
+            return commands[0];
+        }
+        long pick = ThreadLocalRandom.current().nextLong(
+            cumulativeWeights[cumulativeWeights.length - 1]
+        );
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return commands[i];
+            }
+        }
+        return commands[commands.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        long previous = 0;
+        for (int i = 0; i < commands.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder
+                .append(cumulativeWeights[i] - previous)
+                .append(':')
+                .append(commands[i]);
+            previous = cumulativeWeights[i];
+        }
+        return builder.toString();
+    }
+
+    private static boolean isDigits(String value, int end) {
+        for (int i = 0; i < end; i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of latency samples in nanoseconds. Each connection records
+ * into its own instance; instances are merged once the run is over, so no
+ * synchronization is needed.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private boolean sorted;
+
+    void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+        sorted = false;
+    }
+
+    void addAll(LatencyRecorder other) {
+        if (size + other.size > samples.length) {
+            samples = Arrays.copyOf(
+                samples,
+                Math.max(samples.length * 2, size + other.size)
+            );
+        }
+        System.arraycopy(other.samples, 0, samples, size, other.size);
+        size += other.size;
+        sorted = false;
+    }
+
+    int count() {
+        return size;
+    }
+
+    /**
+     * Returns the sample at {@code percentile} (0-100) using the nearest-rank
+     * method, or {@code 0} if nothing was recorded.
+     */
+    long percentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(samples, 0, size);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil((percentile / 100.0) * size);
+        return samples[Math.min(size, Math.max(rank, 1)) - 1];
+    }
+}
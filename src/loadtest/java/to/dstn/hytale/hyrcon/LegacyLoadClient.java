@@ -0,0 +1,95 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * HyRCON line protocol load client. Every response, including the greeting,
+ * ends with a lone {@code .} line.
+ */
+final class LegacyLoadClient extends LoadClient {
+
+    private final StringBuilder line = new StringBuilder();
+    private long lineBytes;
+
+    LegacyLoadClient(String host, int port, Duration timeout)
+        throws IOException {
+        super(host, port, timeout);
+    }
+
+    @Override
+    protected void open(String password) throws IOException {
+        readResponse();
+        if (password == null) {
+            return;
+        }
+        writeLine("AUTH " + password);
+        readLine();
+        boolean accepted = line.toString().equals("AUTH OK");
+        skipToTerminator();
+        if (!accepted) {
+            throw new IOException("Authentication rejected");
+        }
+    }
+
+    @Override
+    Result execute(String command) throws IOException {
+        writeLine(command);
+        return readResponse();
+    }
+
+    private Result readResponse() throws IOException {
+        long bytes = 0;
+        boolean failed = false;
+        boolean first = true;
+        while (true) {
+            readLine();
+            bytes += lineBytes;
+            if (line.length() == 1 && line.charAt(0) == '.') {
+                return new Result(failed, bytes);
+            }
+            failed |=
+                (first && line.toString().equals("ERR")) ||
+                (line.length() > 6 && line.toString().startsWith("ERROR "));
+            first = false;
+        }
+    }
+
+    private void skipToTerminator() throws IOException {
+        while (!(line.length() == 1 && line.charAt(0) == '.')) {
+            readLine();
+        }
+    }
+
+    private void writeLine(String text) throws IOException {
+        output.write(text.getBytes(StandardCharsets.UTF_8));
+        output.write('\n');
+        output.flush();
+    }
+
+    /**
+     * Reads one line into {@link #line}. Only the terminator matters to the
+     * load generator, so bytes are widened as Latin-1 instead of decoded.
+     */
+    private void readLine() throws IOException {
+        line.setLength(0);
+        lineBytes = 0;
+        while (true) {
+            int value = input.read();
+            if (value < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+            lineBytes++;
+            if (value == '\n') {
+                int end = line.length();
+                if (end > 0 && line.charAt(end - 1) == '\r') {
+                    line.setLength(end - 1);
+                }
+                return;
+            }
+            line.append((char) value);
+        }
+    }
+}
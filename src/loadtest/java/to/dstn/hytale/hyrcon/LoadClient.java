@@ -0,0 +1,88 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+
+/**
+ * Blocking client connection used by the {@link LoadGenerator}. Subclasses
+ * implement one wire protocol each and keep at most one request in flight.
+ */
+abstract class LoadClient implements AutoCloseable {
+
+    private final Socket socket;
+    protected final InputStream input;
+    protected final OutputStream output;
+
+    protected LoadClient(String host, int port, Duration timeout)
+        throws IOException {
+        this.socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) timeout.toMillis());
+            socket.connect(
+                new InetSocketAddress(host, port),
+                (int) timeout.toMillis()
+            );
+            this.input = new BufferedInputStream(socket.getInputStream());
+            this.output = new BufferedOutputStream(socket.getOutputStream());
+        } catch (IOException ex) {
+            socket.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens a connection speaking {@code options.protocol} and authenticates
+     * it if a password was given.
+     */
+    static LoadClient connect(LoadOptions options) throws IOException {
+        LoadClient client = options.protocol.isSourceCompatible()
+            ? new SourceLoadClient(options.host, options.port, options.timeout)
+            : new LegacyLoadClient(options.host, options.port, options.timeout);
+        try {
+            client.open(options.password.orElse(null));
+            return client;
+        } catch (IOException | RuntimeException ex) {
+            client.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Performs the protocol handshake.
+     *
+     * @param password password to authenticate with, or {@code null}
+     * @throws IOException if the server rejects the password
+     */
+    protected abstract void open(String password) throws IOException;
+
+    /**
+     * Sends {@code command} and reads the complete response.
+     *
+     * @return outcome of the command
+     */
+    abstract Result execute(String command) throws IOException;
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Nothing left to clean up.
+        }
+    }
+
+    /**
+     * Outcome of a single request.
+     *
+     * @param failed whether the server reported the command as failed
+     * @param bytes number of response bytes received
+     */
+    record Result(boolean failed, long bytes) {}
+}
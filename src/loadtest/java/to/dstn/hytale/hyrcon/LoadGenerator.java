@@ -0,0 +1,316 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Socket load generator for HyRCON and Source RCON servers.
+ *
+ * Every connection issues requests on a fixed open-loop schedule derived from
+ * the target rate instead of waiting for the previous response before
+ * planning the next one. Latency is measured from the time a request was
+ * scheduled to be sent, so a server that falls behind shows up as growing
+ * latency rather than as a silently reduced request rate. Requests started
+ * more than one interval after their scheduled time are reported as late.
+ *
+ * With {@code --embedded} an in-process {@link HyRconServer} backed by a
+ * {@link SimulatedDispatchBackend} is started first, which measures the
+ * transport and session handling without a game server.
+ */
+public final class LoadGenerator {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    // Gives every connection time to be scheduled before the first request.
+    private static final long START_DELAY_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LoadOptions options;
+    private final AtomicReference<String> firstError = new AtomicReference<>();
+
+    private LoadGenerator(LoadOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.out.println(LoadOptions.USAGE);
+            return;
+        }
+
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        HyRconServer server;
+        try {
+            server = options.embedded ? startEmbedded(options) : null;
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(2);
+            return;
+        }
+        boolean clean;
+        try {
+            clean = new LoadGenerator(options).run().print(System.out);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+        System.exit(clean ? 0 : 1);
+    }
+
+    private static HyRconServer startEmbedded(LoadOptions options) {
+        DispatchBackend backend = SimulatedDispatchBackend.parse(
+            options.backend
+        );
+        Map<String, String> environment = new HashMap<>(System.getenv());
+        environment.put(HyRconConfiguration.ENV_ENABLED, "true");
+        environment.put(HyRconConfiguration.ENV_HOST, options.host);
+        environment.put(
+            HyRconConfiguration.ENV_PORT,
+            Integer.toString(options.port)
+        );
+        environment.put(
+            HyRconConfiguration.ENV_PROTOCOL,
+            options.protocol.configToken()
+        );
+        environment.remove(HyRconConfiguration.ENV_BIND);
+        options.password.ifPresentOrElse(
+            password ->
+                environment.put(HyRconConfiguration.ENV_PASSWORD, password),
+            () -> environment.remove(HyRconConfiguration.ENV_PASSWORD)
+        );
+
+        DispatcherCommandExecutor executor = new DispatcherCommandExecutor(
+            backend,
+            options.commandTimeout,
+            10_000
+        );
+        HyRconServer server = new HyRconServer(
+            HyRconConfiguration.fromEnvironment(environment),
+            executor
+        );
+        server.metrics().trackCommandTimeouts(executor::timedOutCommands);
+        server.start();
+        return server;
+    }
+
+    private Report run() throws InterruptedException {
+        long interval = Math.max(
+            1,
+            Math.round((options.connections * NANOS_PER_SECOND) / options.rate)
+        );
+        long start = System.nanoTime() + START_DELAY_NANOS;
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+
+        List<Worker> workers = new ArrayList<>(options.connections);
+        List<Thread> threads = new ArrayList<>(options.connections);
+        for (int i = 0; i < options.connections; i++) {
+            // Staggered so the connections do not fire in lockstep.
+            Worker worker = new Worker(
+                start + (interval * i) / options.connections,
+                interval,
+                measureFrom,
+                end
+            );
+            workers.add(worker);
+            threads.add(
+                Thread.ofVirtual().name("hyrcon-load-" + i).start(worker)
+            );
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Report report = new Report();
+        for (Worker worker : workers) {
+            report.add(worker);
+        }
+        return report;
+    }
+
+    private void recordError(Exception ex) {
+        firstError.compareAndSet(
+            null,
+            ex.getClass().getSimpleName() + ": " + ex.getMessage()
+        );
+    }
+
+    private final class Worker implements Runnable {
+
+        private final long firstSend;
+        private final long interval;
+        private final long measureFrom;
+        private final long end;
+        private final LatencyRecorder latencies = new LatencyRecorder();
+        private long completed;
+        private long failed;
+        private long ioErrors;
+        private long late;
+        private long bytes;
+
+        private Worker(
+            long firstSend,
+            long interval,
+            long measureFrom,
+            long end
+        ) {
+            this.firstSend = firstSend;
+            this.interval = interval;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            LoadClient client = null;
+            try {
+                client = LoadClient.connect(options);
+            } catch (IOException ex) {
+                recordError(ex);
+            }
+
+            try {
+                for (
+                    long scheduled = firstSend;
+                    scheduled < end;
+                    scheduled += interval
+                ) {
+                    long wait;
+                    while ((wait = scheduled - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    boolean measured = scheduled >= measureFrom;
+                    if (measured && -wait > interval) {
+                        late++;
+                    }
+                    try {
+                        if (client == null) {
+                            client = LoadClient.connect(options);
+                        }
+                        LoadClient.Result result = client.execute(
+                            options.mix.next()
+                        );
+                        long latency = System.nanoTime() - scheduled;
+                        if (measured) {
+                            latencies.record(latency);
+                            completed++;
+                            bytes += result.bytes();
+                            if (result.failed()) {
+                                failed++;
+                            }
+                        }
+                    } catch (IOException ex) {
+                        recordError(ex);
+                        if (measured) {
+                            ioErrors++;
+                        }
+                        if (client != null) {
+                            client.close();
+                            client = null;
+                        }
+                    }
+                }
+            } finally {
+                if (client != null) {
+                    client.close();
+                }
+            }
+        }
+    }
+
+    private final class Report {
+
+        private final LatencyRecorder latencies = new LatencyRecorder();
+        private long completed;
+        private long failed;
+        private long ioErrors;
+        private long late;
+        private long bytes;
+
+        private void add(Worker worker) {
+            latencies.addAll(worker.latencies);
+            completed += worker.completed;
+            failed += worker.failed;
+            ioErrors += worker.ioErrors;
+            late += worker.late;
+            bytes += worker.bytes;
+        }
+
+        /**
+         * Prints the report.
+         *
+         * @return {@code true} if every measured request succeeded
+         */
+        private boolean print(PrintStream out) {
+            double seconds = options.duration.toNanos() / (double) NANOS_PER_SECOND;
+            out.printf(
+                Locale.ROOT,
+                "Target:     %s://%s:%d, %d connection(s), %.1f req/s, %d s measured after %d s warm-up%n",
+                options.protocol.configToken(),
+                options.host,
+                options.port,
+                options.connections,
+                options.rate,
+                options.duration.toSeconds(),
+                options.warmup.toSeconds()
+            );
+            out.printf(Locale.ROOT, "Commands:   %s%n", options.mix);
+            if (options.embedded) {
+                out.printf(
+                    Locale.ROOT,
+                    "Backend:    %s%n",
+                    SimulatedDispatchBackend.parse(options.backend)
+                );
+            }
+            out.printf(
+                Locale.ROOT,
+                "Requests:   %d completed, %d failed, %d I/O error(s), %d late%n",
+                completed,
+                failed,
+                ioErrors,
+                late
+            );
+            out.printf(
+                Locale.ROOT,
+                "Throughput: %.1f req/s, %.2f MiB/s received%n",
+                completed / seconds,
+                bytes / seconds / (1024 * 1024)
+            );
+            out.printf(
+                Locale.ROOT,
+                "Latency:    p50=%s p90=%s p99=%s p99.9=%s max=%s%n",
+                millis(latencies.percentile(50)),
+                millis(latencies.percentile(90)),
+                millis(latencies.percentile(99)),
+                millis(latencies.percentile(99.9)),
+                millis(latencies.percentile(100))
+            );
+            String error = firstError.get();
+            if (error != null) {
+                out.printf(Locale.ROOT, "First error: %s%n", error);
+            }
+            return failed == 0 && ioErrors == 0 && latencies.count() > 0;
+        }
+
+        private static String millis(long nanos) {
+            return String.format(Locale.ROOT, "%.3fms", nanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package to.dstn.hytale.hyrcon;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Command line options of the {@link LoadGenerator}.
+ *
+ * Every option is given as {@code --name=value}; {@code --command} may be
+ * repeated to build a weighted command mix.
+ */
+final class LoadOptions {
+
+    static final String USAGE = String.join(
+        System.lineSeparator(),
+        "Usage: LoadGenerator [options]",
+        "  --host=<host>            server to connect to (default 127.0.0.1)",
+        "  --port=<port>            server port (default: protocol default)",
+        "  --protocol=<token>       source or hyrcon (default source)",
+        "  --password=<password>    password to authenticate with",
+        "  --connections=<n>        concurrent connections (default 16)",
+        "  --rate=<n>               requests per second across all connections (default 1000)",
+        "  --duration=<seconds>     measured run time (default 30)",
+        "  --warmup=<seconds>       unmeasured run time before measuring (default 5)",
+        "  --timeout=<seconds>      socket read timeout (default 5)",
+        "  --command=[<weight>:]<command>",
+        "                           command to send, repeatable (default list)",
+        "  --embedded               start an in-process server backed by a",
+        "                           simulated command dispatcher; HYRCON_*",
+        "                           environment variables configure it",
+        "  --backend=<spec>         simulated dispatcher settings, for example",
+        "                           latency=lognormal:2ms:0.5,lines=20,",
+        "                           stall=0.01:500ms,timeout=0.001,failure=0.001",
+        "  --command-timeout=<ms>   embedded command timeout (default 5000)",
+        "  --help                   print this message"
+    );
+
+    final String host;
+    final int port;
+    final HyRconProtocol protocol;
+    final Optional<String> password;
+    final int connections;
+    final double rate;
+    final Duration duration;
+    final Duration warmup;
+    final Duration timeout;
+    final CommandMix mix;
+    final boolean embedded;
+    final String backend;
+    final Duration commandTimeout;
+
+    private LoadOptions(
+        String host,
+        int port,
+        HyRconProtocol protocol,
+        Optional<String> password,
+        int connections,
+        double rate,
+        Duration duration,
+        Duration warmup,
+        Duration timeout,
+        CommandMix mix,
+        boolean embedded,
+        String backend,
+        Duration commandTimeout
+    ) {
+        this.host = host;
+        this.port = port;
+        this.protocol = protocol;
+        this.password = password;
+        this.connections = connections;
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.timeout = timeout;
+        this.mix = mix;
+        this.embedded = embedded;
+        this.backend = backend;
+        this.commandTimeout = commandTimeout;
+    }
+
+    /**
+     * Parses {@code args}.
+     *
+     * @throws IllegalArgumentException if an option is unknown or invalid
+     */
+    static LoadOptions parse(String[] args) {
+        String host = "127.0.0.1";
+        Integer port = null;
+        HyRconProtocol protocol = HyRconProtocol.SOURCE_RCON;
+        String password = null;
+        int connections = 16;
+        double rate = 1000;
+        long duration = 30;
+        long warmup = 5;
+        long timeout = 5;
+        List<String> commands = new ArrayList<>();
+        boolean embedded = false;
+        String backend = "";
+        long commandTimeout = 5000;
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            String name = (separator < 0
+                    ? arg.substring(2)
+                    : arg.substring(2, separator)
+            ).toLowerCase(Locale.ROOT);
+            String value = separator < 0 ? null : arg.substring(separator + 1);
+            if (name.equals("embedded")) {
+                embedded = value == null || Boolean.parseBoolean(value);
+                continue;
+            }
+            if (value == null) {
+                throw new IllegalArgumentException(
+                    "Option --" + name + " requires a value"
+                );
+            }
+            switch (name) {
+                case "host" -> host = value;
+                case "port" -> port = parseInt(name, value, 1);
+                case "protocol" -> protocol = HyRconProtocol.fromToken(value);
+                case "password" -> password = value;
+                case "connections" -> connections = parseInt(name, value, 1);
+                case "rate" -> rate = parseRate(value);
+                case "duration" -> duration = parseInt(name, value, 1);
+                case "warmup" -> warmup = parseInt(name, value, 0);
+                case "timeout" -> timeout = parseInt(name, value, 1);
+                case "command" -> commands.add(value);
+                case "backend" -> backend = value;
+                case "command-timeout" -> commandTimeout = parseInt(
+                    name,
+                    value,
+                    1
+                );
+                default -> throw new IllegalArgumentException(
+                    "Unknown option: --" + name
+                );
+            }
+        }
+
+        return new LoadOptions(
+            host,
+            port != null ? port : protocol.defaultPort(),
+            protocol,
+            Optional.ofNullable(password).filter(value -> !value.isEmpty()),
+            connections,
+            rate,
+            Duration.ofSeconds(duration),
+            Duration.ofSeconds(warmup),
+            Duration.ofSeconds(timeout),
+            CommandMix.parse(commands.isEmpty() ? List.of("list") : commands),
+            embedded,
+            backend,
+            Duration.ofMillis(commandTimeout)
+        );
+    }
+
+    private static int parseInt(String name, String value, int minimum) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= minimum) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException(
+            "Option --" + name + " must be an integer >= " + minimum
+        );
+    }
+
+    private static double parseRate(String value) {
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            if (parsed > 0 && Double.isFinite(parsed)) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException(
+            "Option --rate must be a positive number"
+        );
+    }
+}
@@ -0,0 +1,326 @@
+package to.dstn.hytale.hyrcon;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Stand-in for the game's command manager used to benchmark and soak test
+ * {@link HyRconServer} without a game server.
+ *
+ * Every command prints a fixed number of lines and completes after a delay
+ * drawn from a latency distribution. A configurable share of commands stalls
+ * for an extra delay, never completes (and so runs into the executor's
+ * timeout) or completes exceptionally. The first line is printed on the
+ * dispatching thread, the rest once the delay has elapsed, so streaming
+ * clients see output of commands that are still running.
+ *
+ * Instances are configured from a specification such as
+ * {@code latency=lognormal:2ms:0.5,lines=20,stall=0.01:500ms,timeout=0.001};
+ * see {@link #parse(String)}.
+ */
+final class SimulatedDispatchBackend implements DispatchBackend {
+
+    private final Latency latency;
+    private final String[] lines;
+    private final double stallProbability;
+    private final long stallNanos;
+    private final double timeoutProbability;
+    private final double failureProbability;
+
+    private SimulatedDispatchBackend(
+        Latency latency,
+        int lineCount,
+        int lineLength,
+        boolean ansi,
+        double stallProbability,
+        long stallNanos,
+        double timeoutProbability,
+        double failureProbability
+    ) {
+        this.latency = latency;
+        this.lines = new String[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            lines[i] = outputLine(i, lineLength, ansi);
+        }
+        this.stallProbability = stallProbability;
+        this.stallNanos = stallNanos;
+        this.timeoutProbability = timeoutProbability;
+        this.failureProbability = failureProbability;
+    }
+
+    /**
+     * Parses a comma-separated list of {@code key=value} settings. Omitted
+     * settings keep their defaults.
+     *
+     * <ul>
+     *   <li>{@code latency}: {@code fixed:<duration>} or
+     *   {@code lognormal:<median>:<sigma>}; defaults to {@code fixed:0ms}</li>
+     *   <li>{@code lines}: lines printed per command; defaults to 1</li>
+     *   <li>{@code line_length}: characters per line; defaults to 64</li>
+     *   <li>{@code ansi}: whether lines carry colour escapes; defaults to
+     *   false</li>
+     *   <li>{@code stall}: {@code <probability>:<duration>} added on top of
+     *   the latency</li>
+     *   <li>{@code timeout}: probability that a command never completes</li>
+     *   <li>{@code failure}: probability that a command fails</li>
+     * </ul>
+     *
+     * Durations take an {@code us}, {@code ms} or {@code s} suffix.
+     *
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    static SimulatedDispatchBackend parse(String spec) {
+        Objects.requireNonNull(spec, "spec");
+        Latency latency = new Latency(0, 0);
+        int lineCount = 1;
+        int lineLength = 64;
+        boolean ansi = false;
+        double stallProbability = 0;
+        long stallNanos = 0;
+        double timeoutProbability = 0;
+        double failureProbability = 0;
+
+        for (String setting : spec.split(",")) {
+            if (setting.isBlank()) {
+                continue;
+            }
+            int separator = setting.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException(
+                    "Invalid simulated backend setting: " + setting
+                );
+            }
+            String key = setting
+                .substring(0, separator)
+                .trim()
+                .toLowerCase(Locale.ROOT);
+            String value = setting.substring(separator + 1).trim();
+            String[] parts = value.split(":");
+            switch (key) {
+                case "latency" -> latency = parseLatency(parts, value);
+                case "lines" -> lineCount = parseCount(key, value);
+                case "line_length" -> lineLength = parseCount(key, value);
+                case "ansi" -> ansi = Boolean.parseBoolean(value);
+                case "stall" -> {
+                    if (parts.length != 2) {
+                        throw new IllegalArgumentException(
+                            "stall must be <probability>:<duration>: " + value
+                        );
+                    }
+                    stallProbability = parseProbability(key, parts[0]);
+                    stallNanos = parseNanos(parts[1]);
+                }
+                case "timeout" -> timeoutProbability = parseProbability(
+                    key,
+                    value
+                );
+                case "failure" -> failureProbability = parseProbability(
+                    key,
+                    value
+                );
+                default -> throw new IllegalArgumentException(
+                    "Unknown simulated backend setting: " + key
+                );
+            }
+        }
+
+        return new SimulatedDispatchBackend(
+            latency,
+            lineCount,
+            lineLength,
+            ansi,
+            stallProbability,
+            stallNanos,
+            timeoutProbability,
+            failureProbability
+        );
+    }
+
+    @Override
+    public CompletableFuture<Void> dispatch(
+        String command,
+        Consumer<CharSequence> output
+    ) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (lines.length > 0) {
+            output.accept(lines[0]);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        double outcome = random.nextDouble();
+        if (outcome < timeoutProbability) {
+            return future;
+        }
+        boolean fail = outcome < timeoutProbability + failureProbability;
+
+        long delay = latency.sample(random);
+        if (random.nextDouble() < stallProbability) {
+            delay += stallNanos;
+        }
+        if (delay <= 0) {
+            finish(future, output, fail, command);
+            return future;
+        }
+        CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(
+            () -> finish(future, output, fail, command)
+        );
+        return future;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT,
+            "SimulatedDispatchBackend{latency=%s, lines=%d, stall=%.4f:%dms, timeout=%.4f, failure=%.4f}",
+            latency,
+            lines.length,
+            stallProbability,
+            TimeUnit.NANOSECONDS.toMillis(stallNanos),
+            timeoutProbability,
+            failureProbability
+        );
+    }
+
+    private void finish(
+        CompletableFuture<Void> future,
+        Consumer<CharSequence> output,
+        boolean fail,
+        String command
+    ) {
+        // A cancelled (timed out) command stops printing.
+        for (int i = 1; i < lines.length && !future.isDone(); i++) {
+            output.accept(lines[i]);
+        }
+        if (fail) {
+            future.completeExceptionally(
+                new IllegalStateException("Simulated failure: " + command)
+            );
+        } else {
+            future.complete(null);
+        }
+    }
+
+    private static String outputLine(int index, int length, boolean ansi) {
+        StringBuilder text = new StringBuilder("simulated output line ")
+            .append(index);
+        while (text.length() < length) {
+            text.append('.');
+        }
+        text.setLength(length);
+        return ansi ? "\u001B[32m" + text + "\u001B[0m" : text.toString();
+    }
+
+    private static Latency parseLatency(String[] parts, String value) {
+        switch (parts[0].trim().toLowerCase(Locale.ROOT)) {
+            case "fixed" -> {
+                if (parts.length == 2) {
+                    return new Latency(parseNanos(parts[1]), 0);
+                }
+            }
+            case "lognormal" -> {
+                if (parts.length == 3) {
+                    double sigma = parseDouble("latency sigma", parts[2]);
+                    if (sigma >= 0) {
+                        return new Latency(parseNanos(parts[1]), sigma);
+                    }
+                }
+            }
+            default -> {}
+        }
+        throw new IllegalArgumentException(
+            "latency must be fixed:<duration> or lognormal:<median>:<sigma>: " +
+                value
+        );
+    }
+
+    private static long parseNanos(String raw) {
+        String value = raw.trim().toLowerCase(Locale.ROOT);
+        TimeUnit unit;
+        int suffix;
+        if (value.endsWith("us")) {
+            unit = TimeUnit.MICROSECONDS;
+            suffix = 2;
+        } else if (value.endsWith("ms")) {
+            unit = TimeUnit.MILLISECONDS;
+            suffix = 2;
+        } else if (value.endsWith("s")) {
+            unit = TimeUnit.SECONDS;
+            suffix = 1;
+        } else {
+            throw new IllegalArgumentException(
+                "Duration needs a us, ms or s suffix: " + raw
+            );
+        }
+        double amount = parseDouble(
+            "duration",
+            value.substring(0, value.length() - suffix)
+        );
+        if (amount < 0) {
+            throw new IllegalArgumentException(
+                "Duration must not be negative: " + raw
+            );
+        }
+        return Math.round(amount * unit.toNanos(1));
+    }
+
+    private static int parseCount(String key, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException(
+            key + " must be a non-negative integer: " + value
+        );
+    }
+
+    private static double parseProbability(String key, String value) {
+        double parsed = parseDouble(key, value);
+        if (parsed < 0 || parsed > 1) {
+            throw new IllegalArgumentException(
+                key + " probability must be between 0 and 1: " + value
+            );
+        }
+        return parsed;
+    }
+
+    private static double parseDouble(String key, String value) {
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            if (Double.isFinite(parsed)) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException(key + " must be a number: " + value);
+    }
+
+    /**
+     * Fixed latency if {@code sigma} is zero, otherwise log-normal with the
+     * given median.
+     */
+    private record Latency(long medianNanos, double sigma) {
+        long sample(ThreadLocalRandom random) {
+            if (sigma == 0 || medianNanos == 0) {
+                return medianNanos;
+            }
+            return (long) (medianNanos * Math.exp(sigma * random.nextGaussian()));
+        }
+
+        @Override
+        public String toString() {
+            long micros = TimeUnit.NANOSECONDS.toMicros(medianNanos);
+            return sigma == 0
+                ? "fixed:" + micros + "us"
+                : "lognormal:" + micros + "us:" + sigma;
+        }
+    }
+}
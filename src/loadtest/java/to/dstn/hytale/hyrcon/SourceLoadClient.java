@@ -0,0 +1,140 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Source RCON load client. Responses are read until the empty packet HyRCON
+ * writes after the payload; an empty response consists of two empty packets.
+ */
+final class SourceLoadClient extends LoadClient {
+
+    private static final int MAX_TAIL = 256;
+
+    private final ByteBuffer header = ByteBuffer.allocate(
+        SourceRconCodec.HEADER_SIZE
+    ).order(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] payload = new byte[SourceRconCodec.MAX_PAYLOAD];
+    // Last line of the current response, used to detect reported failures.
+    private final StringBuilder tail = new StringBuilder();
+    private int nextRequestId = 1;
+
+    SourceLoadClient(String host, int port, Duration timeout)
+        throws IOException {
+        super(host, port, timeout);
+    }
+
+    @Override
+    protected void open(String password) throws IOException {
+        if (password == null) {
+            return;
+        }
+        int requestId = nextRequestId();
+        writePacket(requestId, SourceRconCodec.TYPE_AUTH, password);
+        do {
+            readPacket();
+        } while (
+            SourceRconCodec.type(header) != SourceRconCodec.TYPE_AUTH_RESPONSE
+        );
+        if (SourceRconCodec.requestId(header) != requestId) {
+            throw new IOException("Authentication rejected");
+        }
+    }
+
+    @Override
+    Result execute(String command) throws IOException {
+        int requestId = nextRequestId();
+        writePacket(requestId, SourceRconCodec.TYPE_EXECCOMMAND, command);
+        tail.setLength(0);
+        long bytes = 0;
+        boolean sawPayload = false;
+        int emptyPackets = 0;
+        while (true) {
+            int length = readPacket();
+            if (SourceRconCodec.requestId(header) != requestId) {
+                throw new IOException(
+                    "Unexpected response id " + SourceRconCodec.requestId(header)
+                );
+            }
+            bytes +=
+                SourceRconCodec.HEADER_SIZE +
+                length +
+                SourceRconCodec.TRAILER_SIZE;
+            if (length > 0) {
+                sawPayload = true;
+                appendTail(length);
+            } else if (sawPayload || ++emptyPackets == 2) {
+                break;
+            }
+        }
+        String lastLine = tail.toString();
+        return new Result(
+            lastLine.startsWith("ERROR ") ||
+                lastLine.equals("Command execution failed"),
+            bytes
+        );
+    }
+
+    private int nextRequestId() {
+        int requestId = nextRequestId;
+        nextRequestId = requestId == Integer.MAX_VALUE ? 1 : requestId + 1;
+        return requestId;
+    }
+
+    private void writePacket(int requestId, int type, String body)
+        throws IOException {
+        byte[] encoded = body.getBytes(StandardCharsets.ISO_8859_1);
+        SourceRconCodec.encodeHeader(header, requestId, type, encoded.length);
+        output.write(header.array(), 0, header.limit());
+        output.write(encoded);
+        output.write(0);
+        output.write(0);
+        output.flush();
+    }
+
+    /**
+     * Reads the next packet, leaving its header in {@link #header} and its
+     * payload in {@link #payload}.
+     *
+     * @return payload length
+     */
+    private int readPacket() throws IOException {
+        readFully(header.array(), SourceRconCodec.HEADER_SIZE);
+        header.clear();
+        int length = header.getInt(0) - SourceRconCodec.MIN_BODY_LENGTH;
+        if (length < 0 || length > payload.length) {
+            throw new IOException("Invalid packet length " + header.getInt(0));
+        }
+        readFully(payload, length);
+        if (input.read() < 0 || input.read() < 0) {
+            throw new EOFException("Connection closed mid-packet");
+        }
+        return length;
+    }
+
+    private void readFully(byte[] target, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int read = input.read(target, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+            offset += read;
+        }
+    }
+
+    private void appendTail(int length) {
+        for (int i = 0; i < length; i++) {
+            char c = (char) (payload[i] & 0xFF);
+            if (c == '\n') {
+                tail.setLength(0);
+            } else if (tail.length() < MAX_TAIL) {
+                tail.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package to.dstn.hytale.hyrcon;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured log of connections, authentication attempts and errors.
+ *
+ * When a file is configured, session threads publish records into a bounded
+ * lock-free ring buffer and return immediately; a single daemon thread drains
+ * the buffer in batches and appends them to the file as JSON lines, rotating
+ * it once it grows past a size limit. If the writer falls behind and the
+ * buffer fills up, records are either dropped and counted or the publishing
+ * thread waits for room, depending on the {@link HyRconAccessLogOverflow}
+ * policy. Without a file, records are written to the server log as they
+ * happen, as HyRCON always did.
+ */
+final class AccessLog {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int BATCH_SIZE = 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(
+        100
+    );
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(
+        50
+    );
+
+    /** Kinds of records, named by their {@code event} field. */
+    enum Kind {
+        CONNECT("connect"),
+        DISCONNECT("disconnect"),
+        IO_ERROR("io_error"),
+        AUTH_SUCCESS("auth_success"),
+        AUTH_FAILURE("auth_failure"),
+        REJECTED("rejected"),
+        EVICTED("evicted"),
+        BANNED("banned"),
+        COMMAND_ERROR("command_error");
+
+        private final String token;
+
+        Kind(String token) {
+            this.token = token;
+        }
+    }
+
+    // Null when records go to the server log.
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final HyRconAccessLogOverflow overflow;
+    // Both null when records go to the server log.
+    private final Slot[] slots;
+    // Vyukov-style sequence per slot: equal to the publishing position when
+    // free, one past it once the record is readable.
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    // Only touched by the writer thread.
+    private final StringBuilder batch = new StringBuilder(BATCH_SIZE * 160);
+    private long head;
+    // Records arrive in bursts, so consecutive ones usually share a timestamp.
+    private long formattedMillis = Long.MIN_VALUE;
+    private String formattedTime = "";
+    private FileChannel channel;
+    private long fileSize;
+    private boolean failing;
+
+    private volatile Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+
+    private AccessLog(
+        Path file,
+        long maxBytes,
+        int maxFiles,
+        int capacity,
+        HyRconAccessLogOverflow overflow
+    ) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        this.overflow = Objects.requireNonNull(overflow, "overflow");
+        if (file == null) {
+            this.slots = null;
+            this.sequences = null;
+            this.mask = 0;
+            return;
+        }
+        int size =
+            capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns an access log that writes every record to the server log.
+     */
+    static AccessLog serverLog() {
+        return new AccessLog(null, 0, 0, 1, HyRconAccessLogOverflow.DROP);
+    }
+
+    /**
+     * Opens {@code file} for appending and starts the writer thread.
+     *
+     * @param maxBytes size at which the file is rotated, or {@code 0} to never
+     *     rotate it
+     * @param maxFiles rotated files to keep
+     * @param capacity records that may wait for the writer, rounded up to a
+     *     power of two
+     * @throws IOException if the file cannot be opened
+     */
+    static AccessLog open(
+        Path file,
+        long maxBytes,
+        int maxFiles,
+        int capacity,
+        HyRconAccessLogOverflow overflow
+    ) throws IOException {
+        AccessLog log = new AccessLog(
+            Objects.requireNonNull(file, "file"),
+            maxBytes,
+            maxFiles,
+            capacity,
+            overflow
+        );
+        log.openFile();
+        Thread thread = new Thread(log::writeLoop, "hyrcon-access-log");
+        thread.setDaemon(true);
+        log.writer = thread;
+        thread.start();
+        return log;
+    }
+
+    boolean isBuffered() {
+        return slots != null;
+    }
+
+    /**
+     * Returns how many records were lost, either because the buffer was full
+     * or because writing them to the file failed.
+     */
+    long droppedRecords() {
+        return dropped.sum();
+    }
+
+    /**
+     * Records an event. Never blocks unless the buffer is full and the
+     * overflow policy is {@link HyRconAccessLogOverflow#BLOCK}.
+     *
+     * @param remote remote address of the client, if known
+     * @param command command line the record refers to, if any
+     * @param detail free-form detail such as an exception
+     */
+    void record(
+        Kind kind,
+        HyRconProtocol protocol,
+        String remote,
+        String command,
+        String detail
+    ) {
+        if (slots == null) {
+            logToServer(kind, protocol, remote, command, detail);
+            return;
+        }
+        long position = claim();
+        if (position < 0) {
+            dropped.increment();
+            return;
+        }
+        int index = (int) position & mask;
+        Slot slot = slots[index];
+        slot.timeMillis = System.currentTimeMillis();
+        slot.kind = kind;
+        slot.protocol = protocol;
+        slot.remote = remote;
+        slot.command = command;
+        slot.detail = detail;
+        // Volatile so it is ordered before reading writerParked below.
+        sequences.set(index, position + 1);
+        if (writerParked) {
+            Thread thread = writer;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * Drains every buffered record, closes the file and stops the writer.
+     * Records published afterwards are dropped.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Claims the next slot.
+     *
+     * @return position of the claimed slot, or {@code -1} if the record has to
+     *     be dropped
+     */
+    private long claim() {
+        long position = tail.get();
+        while (true) {
+            if (closed) {
+                return -1;
+            }
+            long sequence = sequences.getAcquire((int) position & mask);
+            long difference = sequence - position;
+            if (difference == 0) {
+                if (tail.weakCompareAndSetVolatile(position, position + 1)) {
+                    return position;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                if (overflow == HyRconAccessLogOverflow.DROP) {
+                    return -1;
+                }
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                position = tail.get();
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            if (drain() > 0) {
+                continue;
+            }
+            if (closed) {
+                // Publishers that claimed a slot before close() may still be
+                // filling it in.
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                if (drain() == 0) {
+                    break;
+                }
+                continue;
+            }
+            writerParked = true;
+            if (!hasPending()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            writerParked = false;
+        }
+        closeFile();
+    }
+
+    private boolean hasPending() {
+        return sequences.get((int) head & mask) == head + 1;
+    }
+
+    /**
+     * Moves up to {@link #BATCH_SIZE} records from the buffer to the file.
+     *
+     * @return number of records drained
+     */
+    private int drain() {
+        batch.setLength(0);
+        int count = 0;
+        while (count < BATCH_SIZE) {
+            int index = (int) head & mask;
+            if (sequences.getAcquire(index) != head + 1) {
+                break;
+            }
+            Slot slot = slots[index];
+            appendJson(batch, slot);
+            slot.clear();
+            sequences.setRelease(index, head + mask + 1);
+            head++;
+            count++;
+        }
+        if (count > 0) {
+            writeBatch(count);
+        }
+        return count;
+    }
+
+    private void writeBatch(int count) {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(
+            CharBuffer.wrap(batch)
+        );
+        try {
+            if (
+                maxBytes > 0 &&
+                fileSize > 0 &&
+                fileSize + bytes.remaining() > maxBytes
+            ) {
+                rotate();
+            }
+            FileChannel target = channel;
+            if (target == null) {
+                openFile();
+                target = channel;
+            }
+            while (bytes.hasRemaining()) {
+                fileSize += target.write(bytes);
+            }
+            failing = false;
+        } catch (IOException ex) {
+            dropped.add(count);
+            if (!failing) {
+                failing = true;
+                LOGGER.atInfo().log(
+                    "HyRCON access log write to %s failed: %s",
+                    file,
+                    ex.toString()
+                );
+            }
+            closeFile();
+        }
+    }
+
+    private void openFile() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel opened = FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        );
+        channel = opened;
+        fileSize = opened.size();
+    }
+
+    /**
+     * Renames {@code file} to {@code file.1}, shifting older files up by one
+     * and deleting the oldest beyond {@code maxFiles}.
+     */
+    private void rotate() throws IOException {
+        closeFile();
+        if (maxFiles == 0) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.deleteIfExists(rotated(file, maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rotated(file, i);
+            if (Files.exists(source)) {
+                Files.move(
+                    source,
+                    rotated(file, i + 1),
+                    StandardCopyOption.REPLACE_EXISTING
+                );
+            }
+        }
+        Files.move(
+            file,
+            rotated(file, 1),
+            StandardCopyOption.REPLACE_EXISTING
+        );
+    }
+
+    private static Path rotated(Path file, int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeFile() {
+        FileChannel current = channel;
+        channel = null;
+        fileSize = 0;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private void appendJson(StringBuilder out, Slot slot) {
+        if (slot.timeMillis != formattedMillis) {
+            formattedMillis = slot.timeMillis;
+            formattedTime = DateTimeFormatter.ISO_INSTANT.format(
+                Instant.ofEpochMilli(slot.timeMillis)
+            );
+        }
+        out
+            .append("{\"ts\":\"")
+            .append(formattedTime)
+            .append("\",\"event\":\"")
+            .append(slot.kind.token)
+            .append("\",\"protocol\":\"")
+            .append(slot.protocol.configToken())
+            .append('"');
+        appendField(out, "remote", slot.remote);
+        appendField(out, "command", slot.command);
+        appendField(out, "detail", slot.detail);
+        out.append("}\n");
+    }
+
+    private static void appendField(
+        StringBuilder out,
+        String name,
+        String value
+    ) {
+        if (value == null) {
+            return;
+        }
+        out.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out
+                            .append("\\u00")
+                            .append(HEX[c >> 4])
+                            .append(HEX[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    private static void logToServer(
+        Kind kind,
+        HyRconProtocol protocol,
+        String remote,
+        String command,
+        String detail
+    ) {
+        String token = protocol.configToken();
+        switch (kind) {
+            case CONNECT -> LOGGER.atInfo().log(
+                "HyRCON[%s] client connected: %s",
+                token,
+                remote
+            );
+            case DISCONNECT -> LOGGER.atInfo().log(
+                "HyRCON[%s] client disconnected: %s",
+                token,
+                remote
+            );
+            case IO_ERROR -> LOGGER.atInfo().log(
+                "HyRCON[%s] client %s disconnected due to I/O error: %s",
+                token,
+                remote,
+                detail
+            );
+            case AUTH_FAILURE -> LOGGER.atInfo().log(
+                "HyRCON[%s] authentication failed",
+                token
+            );
+            case REJECTED -> LOGGER.atInfo().log(
+                "Rejecting HyRCON client %s - %s",
+                remote,
+                detail
+            );
+            case EVICTED -> LOGGER.atInfo().log(
+                "Evicting HyRCON client %s - %s",
+                remote,
+                detail
+            );
+            case BANNED -> LOGGER.atInfo().log(
+                "Banning HyRCON client address %s - %s",
+                remote,
+                detail
+            );
+            case COMMAND_ERROR -> LOGGER.atInfo().log(
+                "Exception while executing command \"%s\": %s",
+                command,
+                detail
+            );
+            // Successful logins were never worth a server log line.
+            case AUTH_SUCCESS -> {}
+        }
+    }
+
+    /** Preallocated record, reused once the writer has consumed it. */
+    private static final class Slot {
+
+        private long timeMillis;
+        private Kind kind;
+        private HyRconProtocol protocol;
+        private String remote;
+        private String command;
+        private String detail;
+
+        void clear() {
+            kind = null;
+            protocol = null;
+            remote = null;
+            command = null;
+            detail = null;
+        }
+    }
+}
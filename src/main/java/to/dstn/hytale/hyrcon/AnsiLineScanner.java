@@ -0,0 +1,119 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.function.Consumer;
+
+/**
+ * Single-pass scanner that strips ANSI CSI escape sequences from command
+ * output and splits it into trimmed lines.
+ *
+ * The result matches splitting on {@code \R}, removing every match of
+ * {@code ESC [ [;0-9]* [ -/]* [@-~]} and calling {@link String#strip()} on
+ * each line, but traverses the text once and only allocates the emitted line
+ * strings. Instances reuse an internal buffer and are not thread-safe.
+ */
+final class AnsiLineScanner {
+
+    private static final char ESC = '\u001B';
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    /**
+     * Hands every non-blank line of {@code text} to {@code sink}, in order.
+     *
+     * @param text output possibly containing escape sequences
+     * @param sink receives stripped, non-empty lines
+     */
+    void scan(CharSequence text, Consumer<String> sink) {
+        int length = text.length();
+        int segmentStart = 0;
+        int index = 0;
+        line.setLength(0);
+        while (index < length) {
+            char c = text.charAt(index);
+            if (c == ESC) {
+                int end = csiEnd(text, index, length);
+                if (end > 0) {
+                    line.append(text, segmentStart, index);
+                    index = end;
+                    segmentStart = index;
+                    continue;
+                }
+            } else if (isLineTerminator(c)) {
+                line.append(text, segmentStart, index);
+                emit(sink);
+                index +=
+                    c == '\r' &&
+                        index + 1 < length &&
+                        text.charAt(index + 1) == '\n'
+                        ? 2
+                        : 1;
+                segmentStart = index;
+                continue;
+            }
+            index++;
+        }
+        line.append(text, segmentStart, length);
+        emit(sink);
+    }
+
+    private void emit(Consumer<String> sink) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        if (start < end) {
+            sink.accept(line.substring(start, end));
+        }
+        line.setLength(0);
+    }
+
+    /**
+     * Returns the index just past the CSI sequence starting at {@code start},
+     * or {@code -1} if the escape does not begin a complete sequence.
+     */
+    private static int csiEnd(CharSequence text, int start, int length) {
+        int index = start + 1;
+        if (index >= length || text.charAt(index) != '[') {
+            return -1;
+        }
+        index++;
+        while (index < length) {
+            char c = text.charAt(index);
+            if ((c < '0' || c > '9') && c != ';') {
+                break;
+            }
+            index++;
+        }
+        while (index < length) {
+            char c = text.charAt(index);
+            if (c < ' ' || c > '/') {
+                break;
+            }
+            index++;
+        }
+        if (index < length) {
+            char c = text.charAt(index);
+            if (c >= '@' && c <= '~') {
+                return index + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return switch (c) {
+            case '\n',
+                '\u000B',
+                '\f',
+                '\r',
+                '\u0085',
+                '\u2028',
+                '\u2029' -> true;
+            default -> false;
+        };
+    }
+}
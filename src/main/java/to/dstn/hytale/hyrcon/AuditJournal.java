@@ -0,0 +1,300 @@
+package to.dstn.hytale.hyrcon;
+
+import static to.dstn.hytale.hyrcon.AuditJournalReader.RECORD_HEADER_SIZE;
+import static to.dstn.hytale.hyrcon.AuditJournalReader.SEGMENT_HEADER_SIZE;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only binary journal of every command executed over RCON, in the
+ * format described by {@link AuditJournalReader}.
+ *
+ * Records are copied straight into a memory-mapped segment file, so appending
+ * is a short critical section without system calls and a record survives a
+ * crash of the server process as soon as {@link #append} returns. A record's
+ * length is written last, which keeps a torn record invisible to readers. A
+ * daemon thread forces dirty segments to disk periodically; with a sync
+ * interval of zero every record is forced before {@link #append} returns
+ * instead. Full segments are replaced by a new file, and segments that only
+ * hold records older than the retention period are deleted.
+ */
+final class AuditJournal {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int MAX_REMOTE_BYTES = 0xFFFF;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long retentionMillis;
+    private final long syncNanos;
+    private final CRC32C crc = new CRC32C();
+
+    // Guarded by this.
+    private MappedByteBuffer segment;
+    private FileChannel channel;
+    private int position;
+    private long lastMillis;
+    private boolean dirty;
+    private boolean failed;
+    private boolean closed;
+
+    private volatile Thread syncThread;
+
+    private AuditJournal(
+        Path directory,
+        int segmentBytes,
+        int retentionDays,
+        long syncMillis
+    ) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.segmentBytes = segmentBytes;
+        this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+        this.syncNanos = TimeUnit.MILLISECONDS.toNanos(syncMillis);
+    }
+
+    /**
+     * Starts a new segment in {@code directory}, creating it if needed.
+     *
+     * @param segmentBytes size of each segment file
+     * @param retentionDays days full segments are kept, or {@code 0} to keep
+     *     them forever
+     * @param syncMillis interval between forcing segments to disk, or
+     *     {@code 0} to force after every record
+     * @throws IOException if the first segment cannot be created
+     */
+    static AuditJournal open(
+        Path directory,
+        int segmentBytes,
+        int retentionDays,
+        long syncMillis
+    ) throws IOException {
+        AuditJournal journal = new AuditJournal(
+            directory,
+            segmentBytes,
+            retentionDays,
+            syncMillis
+        );
+        Files.createDirectories(directory);
+        synchronized (journal) {
+            journal.startSegment(System.currentTimeMillis());
+        }
+        if (syncMillis > 0) {
+            Thread thread = new Thread(journal::syncLoop, "hyrcon-audit-sync");
+            thread.setDaemon(true);
+            journal.syncThread = thread;
+            thread.start();
+        }
+        return journal;
+    }
+
+    /**
+     * Appends a record of a completed command. Failures to start a new
+     * segment are logged once and stop the journal instead of failing the
+     * command.
+     *
+     * @param durationNanos time from dispatch until completion
+     */
+    synchronized void append(
+        HyRconProtocol protocol,
+        String remoteAddress,
+        String command,
+        boolean success,
+        long durationNanos
+    ) {
+        if (closed || failed) {
+            return;
+        }
+        byte[] remote = remoteAddress.getBytes(StandardCharsets.UTF_8);
+        if (remote.length > MAX_REMOTE_BYTES) {
+            remote = Arrays.copyOf(remote, MAX_REMOTE_BYTES);
+        }
+        byte[] text = command.getBytes(StandardCharsets.UTF_8);
+        int maxText = segmentBytes - SEGMENT_HEADER_SIZE - RECORD_HEADER_SIZE;
+        if (remote.length + text.length > maxText) {
+            // Only possible with frame limits close to the segment size.
+            text = Arrays.copyOf(text, maxText - remote.length);
+        }
+        int size = RECORD_HEADER_SIZE + remote.length + text.length;
+
+        long now = Math.max(System.currentTimeMillis(), lastMillis);
+        // Leave room for the zero length that terminates the segment.
+        if (position + size + 4 > segmentBytes) {
+            try {
+                rotate(now);
+            } catch (IOException ex) {
+                failed = true;
+                LOGGER.atInfo().log(
+                    "HyRCON audit journal stopped, unable to start a segment in %s: %s",
+                    directory,
+                    ex.toString()
+                );
+                return;
+            }
+        }
+        lastMillis = now;
+
+        int start = position;
+        segment.putLong(start + 8, now);
+        segment.putLong(start + 16, durationNanos);
+        segment.put(start + 24, AuditJournalReader.protocolCode(protocol));
+        segment.put(
+            start + 25,
+            success
+                ? AuditJournalReader.OUTCOME_SUCCESS
+                : AuditJournalReader.OUTCOME_FAILURE
+        );
+        segment.putShort(start + 26, (short) remote.length);
+        segment.putInt(start + 28, text.length);
+        segment.put(start + RECORD_HEADER_SIZE, remote);
+        segment.put(start + RECORD_HEADER_SIZE + remote.length, text);
+        crc.reset();
+        crc.update(segment.slice(start + 8, size - 8));
+        segment.putInt(start + 4, (int) crc.getValue());
+        segment.putInt(start, size - 4);
+        position = start + size;
+
+        if (syncNanos == 0) {
+            segment.force(start, size);
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Forces the current segment to disk and stops the sync thread. Records
+     * appended afterwards are ignored.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            closeSegment();
+        }
+        Thread thread = syncThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            LockSupport.parkNanos(this, syncNanos);
+            MappedByteBuffer toForce;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                toForce = dirty ? segment : null;
+                dirty = false;
+            }
+            // Forcing outside the lock keeps appends running meanwhile.
+            if (toForce != null) {
+                toForce.force();
+            }
+        }
+    }
+
+    private void rotate(long nowMillis) throws IOException {
+        closeSegment();
+        startSegment(nowMillis);
+        deleteExpiredSegments(nowMillis);
+    }
+
+    private void startSegment(long nowMillis) throws IOException {
+        // Names must be unique and ascending even if time stands still.
+        long start = Math.max(nowMillis, lastMillis);
+        Path file = AuditJournalReader.segmentPath(directory, start);
+        while (Files.exists(file)) {
+            start++;
+            file = AuditJournalReader.segmentPath(directory, start);
+        }
+        lastMillis = start;
+        FileChannel opened = FileChannel.open(
+            file,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+        try {
+            MappedByteBuffer mapped = opened.map(
+                FileChannel.MapMode.READ_WRITE,
+                0,
+                segmentBytes
+            );
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.putLong(0, AuditJournalReader.SEGMENT_MAGIC);
+            mapped.putInt(8, AuditJournalReader.FORMAT_VERSION);
+            mapped.force(0, SEGMENT_HEADER_SIZE);
+            channel = opened;
+            segment = mapped;
+            position = SEGMENT_HEADER_SIZE;
+        } catch (IOException | RuntimeException ex) {
+            try {
+                opened.close();
+            } catch (IOException ignored) {}
+            throw ex;
+        }
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        segment.force();
+        dirty = false;
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+        // The mapping itself is released once the buffer is collected.
+        segment = null;
+        channel = null;
+    }
+
+    /**
+     * Deletes segments whose successor started before the retention period,
+     * since every record they hold is older still. The active segment is
+     * never deleted.
+     */
+    private void deleteExpiredSegments(long nowMillis) {
+        if (retentionMillis == 0) {
+            return;
+        }
+        long cutoff = nowMillis - retentionMillis;
+        try {
+            List<Path> segments = AuditJournalReader.segments(directory);
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                Path next = segments.get(i + 1);
+                if (AuditJournalReader.segmentStart(next) > cutoff) {
+                    break;
+                }
+                Files.deleteIfExists(segments.get(i));
+            }
+        } catch (IOException ex) {
+            LOGGER.atInfo().log(
+                "Unable to delete expired HyRCON audit segments: %s",
+                ex.toString()
+            );
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads the command audit journal written by {@link AuditJournal}, both as a
+ * library and as a command line tool:
+ *
+ * <pre>
+ * java -cp HyRCON.jar to.dstn.hytale.hyrcon.AuditJournalReader \
+ *     --dir=mods/HyRCON/audit --from=2026-01-01T00:00:00Z --remote=10.0.0.7
+ * </pre>
+ *
+ * The journal is a directory of segment files named after the time their
+ * first record was written. Each segment starts with a 16 byte header (magic,
+ * format version, reserved) followed by records of the form:
+ *
+ * <pre>
+ * int   length of the rest of the record, 0 marks the end of the segment
+ * int   CRC32C of everything after this field
+ * long  completion time, epoch milliseconds
+ * long  duration, nanoseconds
+ * byte  protocol (1 hyrcon, 2 source)
+ * byte  outcome (0 success, 1 failure)
+ * short remote address length
+ * int   command length
+ * ...   remote address and command, UTF-8
+ * </pre>
+ *
+ * All integers are little-endian. Record times never decrease, within a
+ * segment or from one segment to the next, so a time range query skips whole
+ * segments by their names and stops at the first record past the range.
+ * Address filters compare raw bytes and only decode matching records. This
+ * class depends on nothing but the JDK so it runs outside the server.
+ */
+public final class AuditJournalReader {
+
+    /** {@code "HYRCAUD1"} in little-endian byte order. */
+    static final long SEGMENT_MAGIC = 0x3144554143525948L;
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 32;
+    static final byte OUTCOME_SUCCESS = 0;
+    static final byte OUTCOME_FAILURE = 1;
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".hjr";
+    private static final int SEGMENT_TIME_DIGITS = 16;
+
+    private AuditJournalReader() {}
+
+    /**
+     * A journaled command.
+     *
+     * @param time when the command completed
+     * @param duration time from dispatch until completion
+     * @param protocol protocol the client used
+     * @param remoteAddress address of the client that ran the command
+     * @param command command line as received
+     * @param success whether the command succeeded
+     */
+    public record Entry(
+        Instant time,
+        Duration duration,
+        HyRconProtocol protocol,
+        String remoteAddress,
+        String command,
+        boolean success
+    ) {}
+
+    /**
+     * Hands every record completed within {@code [from, to]} whose remote
+     * address contains {@code remoteFilter} to {@code consumer}, oldest first.
+     *
+     * @param remoteFilter text the remote address must contain, or
+     *     {@code null} to accept every address
+     * @return number of segments that ended in a damaged record; records
+     *     after the damage are skipped
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    public static int scan(
+        Path directory,
+        Instant from,
+        Instant to,
+        String remoteFilter,
+        Consumer<Entry> consumer
+    ) throws IOException {
+        Objects.requireNonNull(consumer, "consumer");
+        long fromMillis = epochMillis(from);
+        long toMillis = epochMillis(to);
+        byte[] filter =
+            remoteFilter == null || remoteFilter.isEmpty()
+                ? null
+                : remoteFilter.getBytes(StandardCharsets.UTF_8);
+
+        List<Path> segments = segments(directory);
+        int damaged = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            long start = segmentStart(segments.get(i));
+            if (start > toMillis) {
+                break;
+            }
+            // A later segment starting before the range means every record
+            // in this one is older than the range too.
+            if (
+                i + 1 < segments.size() &&
+                segmentStart(segments.get(i + 1)) < fromMillis
+            ) {
+                continue;
+            }
+            switch (
+                scanSegment(
+                    segments.get(i),
+                    fromMillis,
+                    toMillis,
+                    filter,
+                    consumer
+                )
+            ) {
+                case DAMAGED -> damaged++;
+                case PAST_RANGE -> {
+                    return damaged;
+                }
+                case COMPLETE -> {}
+            }
+        }
+        return damaged;
+    }
+
+    /**
+     * Lists the segment files of a journal, oldest first.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files
+                .filter(file -> segmentStart(file) >= 0)
+                .forEach(segments::add);
+        }
+        // Fixed-width names sort chronologically.
+        segments.sort(null);
+        return segments;
+    }
+
+    static Path segmentPath(Path directory, long startMillis) {
+        return directory.resolve(
+            SEGMENT_PREFIX +
+                String.format(
+                    Locale.ROOT,
+                    "%0" + SEGMENT_TIME_DIGITS + "d",
+                    startMillis
+                ) +
+                SEGMENT_SUFFIX
+        );
+    }
+
+    /**
+     * Returns the time encoded in a segment file name, or {@code -1} if the
+     * file is not a segment.
+     */
+    static long segmentStart(Path file) {
+        String name = file.getFileName().toString();
+        if (
+            name.length() !=
+                SEGMENT_PREFIX.length() +
+                    SEGMENT_TIME_DIGITS +
+                    SEGMENT_SUFFIX.length() ||
+            !name.startsWith(SEGMENT_PREFIX) ||
+            !name.endsWith(SEGMENT_SUFFIX)
+        ) {
+            return -1;
+        }
+        long value = 0;
+        int end = name.length() - SEGMENT_SUFFIX.length();
+        for (int i = SEGMENT_PREFIX.length(); i < end; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /** Converts {@code instant}, saturating at the range of a long. */
+    private static long epochMillis(Instant instant) {
+        try {
+            return instant.toEpochMilli();
+        } catch (ArithmeticException ex) {
+            return instant.isBefore(Instant.EPOCH)
+                ? Long.MIN_VALUE
+                : Long.MAX_VALUE;
+        }
+    }
+
+    static byte protocolCode(HyRconProtocol protocol) {
+        return switch (protocol) {
+            case HYRCON -> 1;
+            case SOURCE_RCON -> 2;
+            // Sessions of a detecting listener know their wire protocol.
+            case AUTO -> throw new IllegalArgumentException(
+                "No wire protocol: " + protocol
+            );
+        };
+    }
+
+    private static HyRconProtocol protocolForCode(byte code)
+        throws IOException {
+        return switch (code) {
+            case 1 -> HyRconProtocol.HYRCON;
+            case 2 -> HyRconProtocol.SOURCE_RCON;
+            default -> throw new IOException("Unknown protocol code " + code);
+        };
+    }
+
+    private enum SegmentResult {
+        COMPLETE,
+        DAMAGED,
+        PAST_RANGE,
+    }
+
+    private static SegmentResult scanSegment(
+        Path file,
+        long fromMillis,
+        long toMillis,
+        byte[] filter,
+        Consumer<Entry> consumer
+    ) throws IOException {
+        MappedByteBuffer buffer;
+        try (
+            FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.READ
+            )
+        ) {
+            buffer = channel.map(
+                FileChannel.MapMode.READ_ONLY,
+                0,
+                channel.size()
+            );
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int limit = buffer.limit();
+        if (
+            limit < SEGMENT_HEADER_SIZE ||
+            buffer.getLong(0) != SEGMENT_MAGIC ||
+            buffer.getInt(8) != FORMAT_VERSION
+        ) {
+            throw new IOException("Not a HyRCON audit segment: " + file);
+        }
+
+        CRC32C crc = new CRC32C();
+        boolean damaged = false;
+        int position = SEGMENT_HEADER_SIZE;
+        while (position + 4 <= limit) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (
+                length < RECORD_HEADER_SIZE - 4 ||
+                length > limit - position - 4
+            ) {
+                return SegmentResult.DAMAGED;
+            }
+            int next = position + 4 + length;
+            long time = buffer.getLong(position + 8);
+            if (time > toMillis) {
+                // A damaged segment is reported; the next one ends the scan.
+                return damaged
+                    ? SegmentResult.DAMAGED
+                    : SegmentResult.PAST_RANGE;
+            }
+            int remoteLength = Short.toUnsignedInt(
+                buffer.getShort(position + 26)
+            );
+            int commandLength = buffer.getInt(position + 28);
+            int remoteStart = position + RECORD_HEADER_SIZE;
+            if (
+                commandLength < 0 ||
+                RECORD_HEADER_SIZE - 4 + remoteLength + commandLength != length
+            ) {
+                return SegmentResult.DAMAGED;
+            }
+            if (
+                time < fromMillis ||
+                (filter != null &&
+                    !contains(buffer, remoteStart, remoteLength, filter))
+            ) {
+                position = next;
+                continue;
+            }
+
+            crc.reset();
+            crc.update(buffer.slice(position + 8, length - 4));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                // The framing is intact, so only this record is lost.
+                damaged = true;
+                position = next;
+                continue;
+            }
+            consumer.accept(
+                new Entry(
+                    Instant.ofEpochMilli(time),
+                    Duration.ofNanos(buffer.getLong(position + 16)),
+                    protocolForCode(buffer.get(position + 24)),
+                    decode(buffer, remoteStart, remoteLength),
+                    decode(buffer, remoteStart + remoteLength, commandLength),
+                    buffer.get(position + 25) == OUTCOME_SUCCESS
+                )
+            );
+            position = next;
+        }
+        return damaged ? SegmentResult.DAMAGED : SegmentResult.COMPLETE;
+    }
+
+    private static boolean contains(
+        MappedByteBuffer buffer,
+        int start,
+        int length,
+        byte[] filter
+    ) {
+        outer: for (int i = 0; i + filter.length <= length; i++) {
+            for (int j = 0; j < filter.length; j++) {
+                if (buffer.get(start + i + j) != filter[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String decode(
+        MappedByteBuffer buffer,
+        int start,
+        int length
+    ) {
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Prints matching records as tab separated lines of time, protocol,
+     * remote address, outcome, duration in milliseconds and command.
+     */
+    public static void main(String[] args) {
+        Path directory = null;
+        Instant from = Instant.EPOCH;
+        Instant to = Instant.MAX;
+        String remote = null;
+        try {
+            for (String arg : args) {
+                if (arg.equals("--help")) {
+                    usage(System.out);
+                    return;
+                }
+                int separator = arg.indexOf('=');
+                if (!arg.startsWith("--") || separator < 0) {
+                    throw new IllegalArgumentException("Unknown option " + arg);
+                }
+                String value = arg.substring(separator + 1);
+                switch (arg.substring(2, separator)) {
+                    case "dir" -> directory = Path.of(value);
+                    case "from" -> from = Instant.parse(value);
+                    case "to" -> to = Instant.parse(value);
+                    case "remote" -> remote = value;
+                    default -> throw new IllegalArgumentException(
+                        "Unknown option " + arg
+                    );
+                }
+            }
+            if (directory == null) {
+                throw new IllegalArgumentException("--dir is required");
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            System.err.println(ex.getMessage());
+            usage(System.err);
+            System.exit(2);
+            return;
+        }
+
+        StringBuilder line = new StringBuilder(256);
+        int damaged;
+        try {
+            damaged = scan(directory, from, to, remote, entry -> {
+                line.setLength(0);
+                line
+                    .append(entry.time())
+                    .append('\t')
+                    .append(entry.protocol().configToken())
+                    .append('\t')
+                    .append(entry.remoteAddress())
+                    .append('\t')
+                    .append(entry.success() ? "ok" : "failed")
+                    .append('\t')
+                    .append(
+                        String.format(
+                            Locale.ROOT,
+                            "%.3f",
+                            entry.duration().toNanos() / 1e6
+                        )
+                    )
+                    .append('\t');
+                appendEscaped(line, entry.command());
+                System.out.println(line);
+            });
+        } catch (IOException ex) {
+            System.err.println("Failed to read audit journal: " + ex);
+            System.exit(1);
+            return;
+        }
+        if (damaged > 0) {
+            System.err.println(
+                damaged + " segment(s) contained a damaged record"
+            );
+            System.exit(1);
+        }
+    }
+
+    private static void appendEscaped(StringBuilder out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\\' -> out.append("\\\\");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static void usage(PrintStream out) {
+        out.println(
+            "Usage: AuditJournalReader --dir=<journal directory> [options]"
+        );
+        out.println("  --from=<instant>   oldest completion time, for example");
+        out.println("                     2026-01-01T00:00:00Z");
+        out.println("  --to=<instant>     newest completion time");
+        out.println("  --remote=<text>    only clients whose address contains");
+        out.println("                     the text");
+        out.println("  --help             print this message");
+    }
+}
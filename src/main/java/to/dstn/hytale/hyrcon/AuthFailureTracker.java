@@ -0,0 +1,231 @@
+package to.dstn.hytale.hyrcon;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Failed authentications per client address, shared by every listener of a
+ * server.
+ *
+ * Each failure from an address holds back the answer twice as long as the one
+ * before, and once an address reaches the ban threshold its connections are
+ * refused at accept time until the ban expires. Failures are forgotten once
+ * an address has gone a ban duration without one.
+ *
+ * Recording and checking never lock: records live in a concurrent map and are
+ * updated with atomics, so a burst of guesses from many addresses never
+ * serializes the threads that accept and serve clients. The map is bounded
+ * by trimming it back below its capacity in one pass once it overflows by an
+ * eighth, dropping expired records first and then the least recently failed
+ * ones, which keeps the cost per failure constant on average.
+ */
+final class AuthFailureTracker {
+
+    // Upper bound for a single tarpit delay, whatever the failure count.
+    static final long MAX_TARPIT_MILLIS = 10_000;
+
+    private final long tarpitMillis;
+    private final int banFailures;
+    private final long banNanos;
+    private final int capacity;
+    private final ConcurrentHashMap<InetAddress, Record> records;
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    AuthFailureTracker(HyRconConfiguration configuration) {
+        this.tarpitMillis = configuration.authTarpitMillis();
+        this.banFailures = configuration.authBanFailures();
+        this.banNanos = TimeUnit.SECONDS.toNanos(
+            configuration.authBanSeconds()
+        );
+        this.capacity = configuration.authTrackedAddresses();
+        this.records = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns whether failures are tracked at all.
+     */
+    boolean isEnabled() {
+        return tarpitMillis > 0 || banFailures > 0;
+    }
+
+    /**
+     * Returns whether connections from {@code address} are refused right
+     * now. Unix domain socket clients, which have no address, never are.
+     */
+    boolean isBanned(InetAddress address) {
+        if (address == null || banFailures == 0) {
+            return false;
+        }
+        Record record = records.get(address);
+        return record != null && record.isBanned(System.nanoTime());
+    }
+
+    /**
+     * Records a failed authentication from {@code address}.
+     *
+     * @return the outcome, with the delay before the client is answered
+     */
+    Failure failed(InetAddress address) {
+        if (address == null || !isEnabled()) {
+            return Failure.NONE;
+        }
+        long now = System.nanoTime();
+        Record record = records.get(address);
+        if (record == null) {
+            Record created = new Record(now);
+            record = records.putIfAbsent(address, created);
+            if (record == null) {
+                record = created;
+                if (records.size() > capacity + capacity / 8) {
+                    trim(now);
+                }
+            }
+        }
+        int failures = record.fail(now, banNanos);
+        boolean banned = false;
+        if (banFailures > 0 && failures >= banFailures) {
+            // Failures while banned, on connections that were already open,
+            // do not extend the ban.
+            banned = record.ban(now, banNanos);
+        }
+        return new Failure(failures, delayMillis(failures), banned);
+    }
+
+    /**
+     * Forgets the failures of {@code address} after it authenticated.
+     */
+    void succeeded(InetAddress address) {
+        if (address != null) {
+            records.remove(address);
+        }
+    }
+
+    long banSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(banNanos);
+    }
+
+    /**
+     * Returns how many addresses are tracked.
+     */
+    int size() {
+        return records.size();
+    }
+
+    private long delayMillis(int failures) {
+        if (tarpitMillis == 0) {
+            return 0;
+        }
+        int doublings = Math.min(failures - 1, 30);
+        return Math.min(MAX_TARPIT_MILLIS, tarpitMillis << doublings);
+    }
+
+    private void trim(long now) {
+        // Concurrent overflows are left to the thread already trimming.
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            records
+                .values()
+                .removeIf(record -> record.isExpired(now, banNanos));
+            int excess = records.size() - capacity * 7 / 8;
+            if (excess <= 0) {
+                return;
+            }
+            long[] ages = records
+                .values()
+                .stream()
+                .mapToLong(record -> now - record.lastFailureNanos)
+                .toArray();
+            Arrays.sort(ages);
+            long oldest = ages[ages.length - excess];
+            records
+                .values()
+                .removeIf(record -> now - record.lastFailureNanos >= oldest);
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    /**
+     * Outcome of a failed authentication.
+     */
+    static final class Failure {
+
+        static final Failure NONE = new Failure(1, 0, false);
+
+        private final int failures;
+        private final long delayMillis;
+        private final boolean banned;
+
+        private Failure(int failures, long delayMillis, boolean banned) {
+            this.failures = failures;
+            this.delayMillis = delayMillis;
+            this.banned = banned;
+        }
+
+        /**
+         * Failures of the address within the window, this one included.
+         */
+        int failures() {
+            return failures;
+        }
+
+        /**
+         * Milliseconds to hold back the answer to the client.
+         */
+        long delayMillis() {
+            return delayMillis;
+        }
+
+        /**
+         * Whether this failure got the address banned.
+         */
+        boolean banned() {
+            return banned;
+        }
+    }
+
+    private static final class Record {
+
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long lastFailureNanos;
+        // Zero unless the address has been banned.
+        private volatile long bannedUntilNanos;
+
+        Record(long now) {
+            this.lastFailureNanos = now;
+        }
+
+        int fail(long now, long windowNanos) {
+            // Failures older than the window start the count over; racing
+            // resets only lose a failure or two, which the tarpit tolerates.
+            if (now - lastFailureNanos > windowNanos) {
+                failures.set(0);
+            }
+            lastFailureNanos = now;
+            return failures.incrementAndGet();
+        }
+
+        boolean ban(long now, long durationNanos) {
+            if (isBanned(now)) {
+                return false;
+            }
+            bannedUntilNanos = now + durationNanos;
+            return true;
+        }
+
+        boolean isBanned(long now) {
+            long until = bannedUntilNanos;
+            return until != 0 && until - now > 0;
+        }
+
+        boolean isExpired(long now, long windowNanos) {
+            return !isBanned(now) && now - lastFailureNanos > windowNanos;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package to.dstn.hytale.hyrcon;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Small lock-free pool of fixed-size byte buffers shared by every session of a
+ * server.
+ *
+ * Buffers are parked in a fixed array of slots, so acquiring and releasing a
+ * buffer never allocates once the pool is warm. When the pool is empty a fresh
+ * buffer is allocated; when it is full released buffers are simply dropped and
+ * left to the garbage collector.
+ */
+final class ByteBufferPool {
+
+    private final int bufferSize;
+    private final boolean direct;
+    private final AtomicReferenceArray<ByteBuffer> slots;
+
+    ByteBufferPool(int bufferSize, int maxPooled, boolean direct) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        if (maxPooled < 0) {
+            throw new IllegalArgumentException("maxPooled must not be negative");
+        }
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+        this.slots = new AtomicReferenceArray<>(maxPooled);
+    }
+
+    int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns a cleared, little-endian buffer of {@link #bufferSize()} bytes.
+     */
+    ByteBuffer acquire() {
+        int start = probe();
+        for (int i = 0; i < slots.length(); i++) {
+            int index = (start + i) % slots.length();
+            ByteBuffer candidate = slots.get(index);
+            if (candidate != null && slots.compareAndSet(index, candidate, null)) {
+                return candidate.clear().order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        ByteBuffer buffer = direct
+            ? ByteBuffer.allocateDirect(bufferSize)
+            : ByteBuffer.allocate(bufferSize);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Hands a buffer obtained from {@link #acquire()} back to the pool. The
+     * caller must not touch the buffer afterwards.
+     */
+    void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || buffer.isDirect() != direct) {
+            return;
+        }
+        int start = probe();
+        for (int i = 0; i < slots.length(); i++) {
+            int index = (start + i) % slots.length();
+            if (
+                slots.get(index) == null &&
+                slots.compareAndSet(index, null, buffer)
+            ) {
+                return;
+            }
+        }
+    }
+
+    private int probe() {
+        // Spread threads over the slots so concurrent callers rarely collide.
+        int length = slots.length();
+        if (length == 0) {
+            return 0;
+        }
+        long id = Thread.currentThread().threadId();
+        return (int) ((id ^ (id >>> 16)) & 0x7fffffff) % length;
+    }
+}
@@ -0,0 +1,104 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Transport-side view of a connected client.
+ *
+ * Sessions encode protocol frames into byte buffers and hand them to the
+ * connection; the transport decides whether bytes are written straight to the
+ * socket (blocking transport) or queued for the selector thread (NIO transport).
+ */
+interface ClientConnection {
+    /**
+     * Returns a printable representation of the remote peer.
+     *
+     * @return remote address, never {@code null}
+     */
+    String remoteAddress();
+
+    /**
+     * Returns the IP address of the remote peer, or {@code null} for clients
+     * of a Unix domain socket.
+     *
+     * @return remote IP address, or {@code null}
+     */
+    default InetAddress remoteInetAddress() {
+        return null;
+    }
+
+    /**
+     * Returns the subject of the client certificate verified during the TLS
+     * handshake, or {@code null} for plain connections and clients that
+     * presented no certificate.
+     *
+     * @return certificate subject, or {@code null}
+     */
+    default String clientPrincipal() {
+        return null;
+    }
+
+    /**
+     * Buffers the remaining bytes of {@code data}. The buffer is fully consumed
+     * and may be reused by the caller once this method returns.
+     *
+     * @param data bytes to send
+     * @throws IOException if the connection is no longer writable
+     */
+    void write(ByteBuffer data) throws IOException;
+
+    /**
+     * Buffers the remaining bytes of every buffer in {@code data}, in order.
+     * Transports that can hand the buffers to a gathering write override this
+     * to avoid copying each one separately.
+     *
+     * @param data bytes to send
+     * @throws IOException if the connection is no longer writable
+     */
+    default void write(ByteBuffer[] data) throws IOException {
+        for (ByteBuffer buffer : data) {
+            write(buffer);
+        }
+    }
+
+    /**
+     * Pushes all buffered bytes towards the peer.
+     *
+     * @throws IOException if the connection is no longer writable
+     */
+    void flush() throws IOException;
+
+    /**
+     * Enables or disables reading from the peer. Used by sessions to apply
+     * backpressure while a command is still being dispatched.
+     *
+     * @param enabled whether the transport should keep reading
+     */
+    void setReadInterest(boolean enabled);
+
+    /**
+     * Flushes any buffered output and closes the connection. Calling this
+     * method more than once has no effect.
+     */
+    void close();
+
+    /**
+     * Closes the connection at once, discarding buffered output. Unlike
+     * {@link #close()} this never waits for a writer, so it also frees a
+     * thread blocked writing to a client that stopped reading.
+     */
+    default void abort() {
+        close();
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} since which written bytes have
+     * been waiting for the peer to accept them without progress, or {@code 0}
+     * if nothing is waiting.
+     */
+    default long writeBlockedSinceNanos() {
+        return 0;
+    }
+}
@@ -0,0 +1,1037 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport independent protocol state machine for a single client.
+ *
+ * Transports feed raw inbound bytes through {@link #receive(ByteBuffer)} and
+ * the session decodes as many complete frames as are available. Commands are
+ * handed to {@link HyRconServer#submitCommand}; once {@code pipelineDepth}
+ * commands are in flight the session stops decoding further frames until the
+ * oldest response has been written. Replies are queued and written strictly in
+ * request order regardless of whether dispatch completes inline (blocking
+ * transport) or on another thread (NIO transport and pipelined sessions).
+ *
+ * All entry points are synchronized on the session, so transports and dispatch
+ * callbacks may call into it from any thread. Traffic and per-command timings
+ * are recorded into the server's {@link HyRconMetrics} as they happen, and the
+ * session emits the {@link HyRconEvents} of its connection.
+ */
+abstract class ClientSession {
+
+    // Answered by the session on either protocol. Upper case only, so a game
+    // command named "stats" is still reachable.
+    protected static final String STATS_COMMAND = "STATS";
+
+    private static final int INITIAL_INBOUND_CAPACITY = 1024;
+    private static final int SUSPEND_READ_THRESHOLD = 64 * 1024;
+    // Streamed output is written as soon as roughly one Source packet is ready.
+    private static final int STREAM_CHUNK_CHARS = 4094;
+
+    protected final HyRconServer server;
+    protected final HyRconListenerConfiguration listener;
+    protected final ClientConnection connection;
+    private final MeteredConnection meteredConnection;
+    private final HyRconMetrics metrics;
+    // Never AUTO, even when the listener detects protocols.
+    private final HyRconProtocol protocol;
+    private final String remote;
+
+    private final int maxInbound;
+    private final int suspendThreshold;
+    private final int pipelineDepth;
+    private final ArrayDeque<PendingReply> replies = new ArrayDeque<>();
+
+    // Allocated on first receive and charged against the server-wide budget.
+    private ByteBuffer inbound = ByteBuffer.allocate(0);
+    private boolean inputClosed;
+    private boolean draining;
+    private boolean readSuspended;
+    private boolean opened;
+    // Volatile for the deadline checks, which run without the lock.
+    private volatile boolean closed;
+    // Reply created by the frame currently being processed, if any.
+    private PendingReply dispatchedReply;
+    // Null unless the answer to a failed authentication is held back.
+    private PendingReply tarpitReply;
+
+    // Deadline state, read by the server's timer wheel without the lock.
+    // Zero unless the client still has to authenticate.
+    private volatile long authDeadlineNanos;
+    private volatile long lastActivityNanos;
+    // Zero unless part of a frame has been received.
+    private volatile long frameStartNanos;
+    private volatile int partialFrameBytes;
+    private volatile boolean busy;
+    private volatile boolean evicted;
+    // Null when no deadline is enforced.
+    private volatile TimerWheel.Timeout deadlineCheck;
+
+    ClientSession(
+        HyRconServer server,
+        HyRconListenerConfiguration listener,
+        ClientConnection connection,
+        HyRconProtocol protocol
+    ) {
+        this(server, listener, connection, protocol, 1);
+    }
+
+    ClientSession(
+        HyRconServer server,
+        HyRconListenerConfiguration listener,
+        ClientConnection connection,
+        HyRconProtocol protocol,
+        int pipelineDepth
+    ) {
+        if (pipelineDepth < 1) {
+            throw new IllegalArgumentException(
+                "pipelineDepth must be positive"
+            );
+        }
+        this.pipelineDepth = pipelineDepth;
+        this.server = Objects.requireNonNull(server, "server");
+        this.listener = Objects.requireNonNull(listener, "listener");
+        this.protocol = Objects.requireNonNull(protocol, "protocol");
+        this.metrics = server.metrics();
+        this.meteredConnection = new MeteredConnection(
+            Objects.requireNonNull(connection, "connection"),
+            metrics,
+            protocol
+        );
+        this.connection = meteredConnection;
+        this.remote = connection.remoteAddress();
+        this.maxInbound = server.maxConnectionBuffer();
+        this.suspendThreshold = Math.min(
+            SUSPEND_READ_THRESHOLD,
+            maxInbound / 2
+        );
+    }
+
+    /**
+     * Called once by the transport after the connection has been accepted.
+     */
+    final synchronized void open() {
+        String principal = connection.clientPrincipal();
+        server
+            .accessLog()
+            .record(
+                AccessLog.Kind.CONNECT,
+                protocol,
+                remote,
+                null,
+                principal == null ? null : "certificate " + principal
+            );
+        opened = true;
+        metrics.sessionOpened();
+        startDeadlines();
+        HyRconEvents.ConnectionAccept event =
+            new HyRconEvents.ConnectionAccept();
+        if (event.shouldCommit()) {
+            event.protocol = protocol.configToken();
+            event.remoteAddress = remote;
+            event.admitted = true;
+            event.commit();
+        }
+        if (!server.isRunning()) {
+            close();
+            return;
+        }
+        try {
+            onOpen();
+            connection.flush();
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * Appends inbound bytes and processes every complete frame.
+     *
+     * @param data bytes read from the peer; fully consumed by this call
+     */
+    final synchronized void receive(ByteBuffer data) {
+        if (closed) {
+            data.position(data.limit());
+            return;
+        }
+        metrics.bytesIn(protocol, data.remaining());
+        lastActivityNanos = System.nanoTime();
+        try {
+            ensureInboundCapacity(data.remaining());
+        } catch (IOException ex) {
+            data.position(data.limit());
+            fail(ex);
+            return;
+        }
+        inbound.put(data);
+        drain();
+    }
+
+    /**
+     * Signals that the peer will not send any more bytes. Frames that are
+     * already buffered are still processed before the session closes.
+     */
+    final synchronized void endOfStream() {
+        if (closed) {
+            return;
+        }
+        inputClosed = true;
+        drain();
+    }
+
+    /**
+     * Terminates the session because of a transport error.
+     *
+     * @param ex error raised by the transport
+     */
+    final synchronized void fail(IOException ex) {
+        if (closed) {
+            return;
+        }
+        // Evicted clients fail once their connection is aborted.
+        if (server.isRunning() && !evicted) {
+            server
+                .accessLog()
+                .record(
+                    AccessLog.Kind.IO_ERROR,
+                    protocol,
+                    remote,
+                    null,
+                    ex.toString()
+                );
+        }
+        close();
+    }
+
+    /**
+     * Closes the session and the underlying connection. Calling this method
+     * more than once has no effect.
+     */
+    final synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        TimerWheel.Timeout check = deadlineCheck;
+        if (check != null) {
+            check.cancel();
+        }
+        replies.clear();
+        server.releaseInboundBytes(inbound.capacity());
+        connection.close();
+        if (opened) {
+            metrics.sessionClosed();
+        }
+        server
+            .accessLog()
+            .record(
+                AccessLog.Kind.DISCONNECT,
+                protocol,
+                remote,
+                null,
+                null
+            );
+        notifyAll();
+    }
+
+    final synchronized boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Blocks until the session has closed, which after {@link #endOfStream()}
+     * happens once every in-flight reply has been written.
+     *
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    final synchronized void awaitClosed() throws InterruptedException {
+        while (!closed) {
+            wait();
+        }
+    }
+
+    /**
+     * Hook invoked when the connection is established, before any bytes have
+     * been read.
+     *
+     * @throws IOException if the greeting cannot be written
+     */
+    protected void onOpen() throws IOException {}
+
+    /**
+     * Decodes and handles at most one frame from {@code input}, which is in
+     * read mode and positioned at the first unconsumed byte.
+     *
+     * @param input buffered inbound bytes
+     * @param endOfInput whether the peer has closed its side of the connection
+     * @return {@code true} if a frame was consumed, {@code false} if more bytes
+     *     are required
+     * @throws IOException if the frame is malformed or cannot be answered
+     */
+    protected abstract boolean processFrame(
+        ByteBuffer input,
+        boolean endOfInput
+    ) throws IOException;
+
+    /**
+     * Hands a command to the server for execution. {@code handler} writes the
+     * response once it is available and every earlier reply has been written.
+     *
+     * @param command trimmed, non-empty command line
+     * @param handler writes the response for the command
+     */
+    protected final void dispatch(String command, ResponseHandler handler) {
+        dispatch(command, handler, null);
+    }
+
+    /**
+     * Hands a command to the server for execution, streaming its output
+     * through {@code output} while it runs if the server has output streaming
+     * enabled. Output lines are batched until roughly one packet's worth has
+     * accumulated or the configured linger expires, and are only written once
+     * every earlier reply has been written. Lines passed to {@code output} are
+     * not repeated in the response given to {@code handler}.
+     *
+     * @param command trimmed, non-empty command line
+     * @param handler writes the final response for the command
+     * @param output writes a batch of streamed output lines, or {@code null}
+     *     to receive all output with the response
+     */
+    protected final void dispatch(
+        String command,
+        ResponseHandler handler,
+        OutputHandler output
+    ) {
+        PendingReply reply = new PendingReply(
+            handler,
+            listener.streamOutput() ? output : null,
+            metrics.command(protocol, command)
+        );
+        replies.addLast(reply);
+        dispatchedReply = reply;
+        AuditJournal journal = server.auditJournal();
+        long startNanos = journal != null ? System.nanoTime() : 0L;
+        server.submitCommand(
+            protocol,
+            command,
+            reply.metrics,
+            reply.streamed != null ? line -> streamLine(reply, line) : null,
+            journal == null
+                ? response -> completeDispatch(reply, response)
+                : response -> {
+                    journal.append(
+                        protocol,
+                        remote,
+                        command,
+                        response.isSuccess(),
+                        System.nanoTime() - startNanos
+                    );
+                    completeDispatch(reply, response);
+                }
+        );
+    }
+
+    /**
+     * Returns the response to the built-in {@code STATS} command, which is
+     * answered by the session itself instead of the command executor.
+     */
+    protected final CommandResponse statsResponse() {
+        return CommandResponse.success(metrics.report());
+    }
+
+    /**
+     * Returns whether the client still has to send the listener password.
+     * Clients authenticated by a certificate during the TLS handshake never
+     * do.
+     */
+    protected final boolean isPasswordRequired() {
+        return (
+            listener.isPasswordRequired() &&
+            connection.clientPrincipal() == null
+        );
+    }
+
+    /**
+     * Records the outcome of an authentication attempt and writes the answer
+     * to it. After a failure the answer is held back by the tarpit delay of
+     * the client's address without occupying a thread, and no further frames
+     * are read until it has been written, whatever the pipeline depth. A
+     * failure that gets the address banned closes the connection once the
+     * answer is out.
+     *
+     * @param success whether the client supplied the right password
+     * @param answer writes the answer to the attempt
+     * @throws IOException if the answer cannot be written
+     */
+    protected final void authenticationAttempted(
+        boolean success,
+        ReplyWriter answer
+    ) throws IOException {
+        AuthFailureTracker tracker = server.authFailures();
+        InetAddress address = connection.remoteInetAddress();
+        AuthFailureTracker.Failure failure = null;
+        if (success) {
+            authDeadlineNanos = 0;
+            tracker.succeeded(address);
+        } else {
+            metrics.authenticationFailed();
+            failure = tracker.failed(address);
+        }
+        AccessLog accessLog = server.accessLog();
+        // The server log only gets the first failure of an address, so a
+        // guessing bot cannot flood it; the access log keeps all.
+        if (
+            failure == null ||
+            failure.failures() == 1 ||
+            accessLog.isBuffered()
+        ) {
+            accessLog.record(
+                success
+                    ? AccessLog.Kind.AUTH_SUCCESS
+                    : AccessLog.Kind.AUTH_FAILURE,
+                protocol,
+                remote,
+                null,
+                null
+            );
+        }
+        HyRconEvents.Authentication event = new HyRconEvents.Authentication();
+        if (event.shouldCommit()) {
+            event.protocol = protocol.configToken();
+            event.remoteAddress = remote;
+            event.success = success;
+            event.commit();
+        }
+
+        if (failure == null) {
+            reply(answer);
+            return;
+        }
+        if (failure.banned()) {
+            metrics.addressBanned();
+            accessLog.record(
+                AccessLog.Kind.BANNED,
+                protocol,
+                address.getHostAddress(),
+                null,
+                failure.failures() +
+                    " failed authentications, banned for " +
+                    tracker.banSeconds() +
+                    " seconds"
+            );
+        } else if (failure.delayMillis() == 0) {
+            reply(answer);
+            return;
+        }
+        TimerWheel timers = server.timers();
+        if (timers == null) {
+            // The server is stopping.
+            close();
+            return;
+        }
+        PendingReply reply = new PendingReply(
+            ignored -> answer.write(),
+            null,
+            null
+        );
+        replies.addLast(reply);
+        tarpitReply = reply;
+        busy = true;
+        boolean banned = failure.banned();
+        // Writing the answer may block, which the wheel thread must not.
+        timers.schedule(
+            () -> server.schedule(() -> releaseTarpit(reply, banned), 0),
+            failure.delayMillis()
+        );
+    }
+
+    /**
+     * Writes a reply that does not depend on command execution. It is written
+     * immediately unless earlier commands are still in flight, in which case it
+     * is queued behind them to preserve request order.
+     *
+     * @param writer writes the reply
+     * @throws IOException if the reply cannot be written
+     */
+    protected final void reply(ReplyWriter writer) throws IOException {
+        if (replies.isEmpty()) {
+            writer.write();
+            return;
+        }
+        PendingReply reply = new PendingReply(
+            ignored -> writer.write(),
+            null,
+            null
+        );
+        reply.complete(null);
+        replies.addLast(reply);
+    }
+
+    private synchronized void completeDispatch(
+        PendingReply reply,
+        CommandResponse response
+    ) {
+        if (closed) {
+            return;
+        }
+        reply.complete(response);
+        try {
+            PendingReply head;
+            while ((head = replies.peekFirst()) != null && head.completed) {
+                replies.removeFirst();
+                writeReply(head);
+            }
+            busy = !replies.isEmpty();
+            lastActivityNanos = System.nanoTime();
+            if (head != null) {
+                // The new head may have streamed output while it was queued.
+                writeOutput(head);
+            }
+        } catch (IOException ex) {
+            fail(ex);
+            return;
+        }
+        drain();
+    }
+
+    private synchronized void releaseTarpit(PendingReply reply, boolean close) {
+        // A banned client stays held back, so nothing it sent after the
+        // attempt is read before the connection closes.
+        if (!close) {
+            tarpitReply = null;
+        }
+        completeDispatch(reply, null);
+        if (close) {
+            close();
+        }
+    }
+
+    /**
+     * Queues a line of streamed output. Called by the game on whatever thread
+     * sends the output, so it never takes the session lock: the line is
+     * appended to the reply's capture buffer and written by a flush on the
+     * dispatch executor.
+     */
+    private void streamLine(PendingReply reply, String line) {
+        if (closed || reply.completed) {
+            return;
+        }
+        if (!reply.offerOutput(line)) {
+            return;
+        }
+        if (reply.streamedChars.get() >= STREAM_CHUNK_CHARS) {
+            if (reply.flushScheduled.compareAndSet(false, true)) {
+                server.schedule(() -> flushOutput(reply), 0);
+            }
+        } else if (reply.lingerScheduled.compareAndSet(false, true)) {
+            server.schedule(
+                () -> flushOutput(reply),
+                server.streamLingerMillis()
+            );
+        }
+    }
+
+    private synchronized void flushOutput(PendingReply reply) {
+        // Cleared before the buffer is read, so a line appended meanwhile
+        // either is written now or schedules another flush.
+        reply.flushScheduled.set(false);
+        reply.lingerScheduled.set(false);
+        if (closed || reply.completed || replies.peekFirst() != reply) {
+            return;
+        }
+        try {
+            writeOutput(reply);
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * Writes the final response of {@code reply} and records how long encoding
+     * and writing it took and how many bytes the whole response needed.
+     */
+    private void writeReply(PendingReply reply) throws IOException {
+        if (reply.metrics == null) {
+            reply.handler.handle(reply.response);
+            return;
+        }
+        HyRconEvents.ResponseFlush event = new HyRconEvents.ResponseFlush();
+        event.begin();
+        long startNanos = System.nanoTime();
+        long startBytes = meteredConnection.written;
+        writeOutput(reply);
+        reply.handler.handle(reply.response);
+        long responseBytes =
+            reply.writtenBytes + (meteredConnection.written - startBytes);
+        reply.metrics.encode.record(
+            reply.encodeNanos + (System.nanoTime() - startNanos)
+        );
+        reply.metrics.responseBytes.record(responseBytes);
+        event.end();
+        if (event.shouldCommit()) {
+            event.protocol = protocol.configToken();
+            event.responseBytes = responseBytes;
+            event.commit();
+        }
+    }
+
+    private void writeOutput(PendingReply reply) throws IOException {
+        if (reply.streamed == null) {
+            return;
+        }
+        List<String> lines = reply.takeOutput();
+        if (lines.isEmpty()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        long startBytes = meteredConnection.written;
+        reply.output.write(lines);
+        reply.encodeNanos += System.nanoTime() - startNanos;
+        reply.writtenBytes += meteredConnection.written - startBytes;
+    }
+
+    private void drain() {
+        if (draining) {
+            return;
+        }
+        draining = true;
+        // Inline commands run while the frames are drained.
+        busy = true;
+        boolean incomplete = false;
+        try {
+            inbound.flip();
+            try {
+                while (
+                    !closed &&
+                    tarpitReply == null &&
+                    replies.size() < pipelineDepth &&
+                    server.isRunning()
+                ) {
+                    int frameStart = inbound.position();
+                    dispatchedReply = null;
+                    HyRconEvents.PacketDecode event =
+                        new HyRconEvents.PacketDecode();
+                    event.begin();
+                    if (!processFrame(inbound, inputClosed)) {
+                        incomplete = true;
+                        break;
+                    }
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.protocol = protocol.configToken();
+                        event.frameBytes = inbound.position() - frameStart;
+                        event.commit();
+                    }
+                    if (dispatchedReply != null) {
+                        dispatchedReply.metrics.requestBytes.record(
+                            inbound.position() - frameStart
+                        );
+                        dispatchedReply = null;
+                    }
+                }
+            } finally {
+                inbound.compact();
+            }
+        } catch (IOException ex) {
+            fail(ex);
+            return;
+        } finally {
+            draining = false;
+        }
+        busy = !replies.isEmpty();
+        lastActivityNanos = System.nanoTime();
+        if (incomplete && inbound.position() > 0) {
+            partialFrameBytes = inbound.position();
+            if (frameStartNanos == 0) {
+                frameStartNanos = System.nanoTime();
+            }
+        } else {
+            frameStartNanos = 0;
+        }
+
+        if (closed) {
+            return;
+        }
+        if (!server.isRunning() || (inputClosed && replies.isEmpty())) {
+            close();
+            return;
+        }
+        shrinkInbound();
+        updateReadInterest();
+    }
+
+    private void startDeadlines() {
+        long now = System.nanoTime();
+        lastActivityNanos = now;
+        ConnectionDeadlines deadlines = server.deadlines();
+        if (!deadlines.isEnabled()) {
+            // The timer wheel may still run to hold back failed logins.
+            return;
+        }
+        if (isPasswordRequired() && deadlines.authNanos() > 0) {
+            authDeadlineNanos = now + deadlines.authNanos();
+        }
+        armDeadlineCheck(deadlines.checkIntervalMillis());
+    }
+
+    private void armDeadlineCheck(long delayMillis) {
+        TimerWheel timers = server.timers();
+        if (timers != null && !closed) {
+            deadlineCheck = timers.schedule(this::checkDeadlines, delayMillis);
+        }
+    }
+
+    /**
+     * Evicts the client if it missed a deadline, and otherwise checks again
+     * when the nearest running deadline expires. Runs on the timer wheel and
+     * never takes the session lock, which a writer blocked on this client
+     * may hold.
+     */
+    private void checkDeadlines() {
+        if (closed || evicted) {
+            return;
+        }
+        ConnectionDeadlines deadlines = server.deadlines();
+        long now = System.nanoTime();
+        long interval = deadlines.checkIntervalMillis();
+        long next = now + TimeUnit.MILLISECONDS.toNanos(interval);
+
+        long auth = authDeadlineNanos;
+        if (auth != 0) {
+            if (now - auth >= 0) {
+                evict(EvictionReason.AUTH_TIMEOUT);
+                return;
+            }
+            next = earlier(next, auth);
+        }
+        long frameStart = frameStartNanos;
+        if (frameStart != 0) {
+            long frameDeadline = frameStart + deadlines.frameNanos();
+            if (deadlines.frameNanos() > 0) {
+                if (now - frameDeadline >= 0) {
+                    evict(EvictionReason.FRAME_TIMEOUT);
+                    return;
+                }
+                next = earlier(next, frameDeadline);
+            }
+            if (deadlines.isTooSlow(partialFrameBytes, now - frameStart)) {
+                evict(EvictionReason.SLOW_INBOUND);
+                return;
+            }
+        }
+        if (deadlines.idleNanos() > 0 && !busy) {
+            long idleDeadline = lastActivityNanos + deadlines.idleNanos();
+            if (now - idleDeadline >= 0) {
+                evict(EvictionReason.IDLE_TIMEOUT);
+                return;
+            }
+            next = earlier(next, idleDeadline);
+        }
+        long blocked = connection.writeBlockedSinceNanos();
+        if (blocked != 0 && deadlines.writeNanos() > 0) {
+            long writeDeadline = blocked + deadlines.writeNanos();
+            if (now - writeDeadline >= 0) {
+                evict(EvictionReason.WRITE_STALL);
+                return;
+            }
+            next = earlier(next, writeDeadline);
+        }
+        armDeadlineCheck(
+            Math.max(0, TimeUnit.NANOSECONDS.toMillis(next - now))
+        );
+    }
+
+    private void evict(EvictionReason reason) {
+        evicted = true;
+        metrics.connectionEvicted(reason);
+        server
+            .accessLog()
+            .record(
+                AccessLog.Kind.EVICTED,
+                protocol,
+                remote,
+                null,
+                reason.description()
+            );
+        connection.abort();
+        // Closing takes the lock, so it waits for the aborted writer.
+        server.schedule(this::close, 0);
+    }
+
+    private static long earlier(long a, long b) {
+        return a - b <= 0 ? a : b;
+    }
+
+    private void updateReadInterest() {
+        boolean suspend =
+            !replies.isEmpty() && inbound.position() >= suspendThreshold;
+        if (suspend != readSuspended) {
+            readSuspended = suspend;
+            connection.setReadInterest(!suspend);
+        }
+    }
+
+    /**
+     * Grows the inbound buffer to hold {@code additional} more bytes, within
+     * both the per-connection limit and the server-wide budget.
+     *
+     * @throws IOException if either limit would be exceeded
+     */
+    private void ensureInboundCapacity(int additional) throws IOException {
+        if (inbound.remaining() >= additional) {
+            return;
+        }
+        long required = (long) inbound.position() + additional;
+        if (required > maxInbound) {
+            throw new IOException(
+                "Inbound buffer limit of " + maxInbound + " bytes exceeded"
+            );
+        }
+        int capacity = (int) Math.min(
+            maxInbound,
+            Math.max(
+                required,
+                Math.max(INITIAL_INBOUND_CAPACITY, inbound.capacity() * 2L)
+            )
+        );
+        if (!server.reserveInboundBytes(capacity - inbound.capacity())) {
+            throw new IOException("Server-wide inbound buffer budget exhausted");
+        }
+        ByteBuffer grown = ByteBuffer.allocate(capacity).order(
+            ByteOrder.LITTLE_ENDIAN
+        );
+        inbound.flip();
+        grown.put(inbound);
+        inbound = grown;
+    }
+
+    /**
+     * Returns an oversized inbound buffer to the budget once it has been fully
+     * drained, so a single burst does not pin memory for the session lifetime.
+     */
+    private void shrinkInbound() {
+        if (
+            inbound.position() == 0 &&
+            inbound.capacity() > INITIAL_INBOUND_CAPACITY
+        ) {
+            server.releaseInboundBytes(
+                inbound.capacity() - INITIAL_INBOUND_CAPACITY
+            );
+            inbound = ByteBuffer.allocate(INITIAL_INBOUND_CAPACITY).order(
+                ByteOrder.LITTLE_ENDIAN
+            );
+        }
+    }
+
+    static List<String> toDisplayLines(
+        String command,
+        CommandResponse response,
+        boolean includeSyntheticSuccess
+    ) {
+        List<String> lines = new ArrayList<>(response.lines());
+
+        if (response.isFailure()) {
+            if (response.hasErrorMessage()) {
+                String errorLine = "ERROR " + response.errorMessage();
+                if (!lines.contains(errorLine)) {
+                    lines.add(errorLine);
+                }
+            }
+            if (lines.isEmpty()) {
+                lines.add("Command execution failed");
+            }
+        } else if (lines.isEmpty() && includeSyntheticSuccess) {
+            lines.add("Command executed: " + command);
+        }
+
+        return lines;
+    }
+
+    @FunctionalInterface
+    protected interface ResponseHandler {
+        void handle(CommandResponse response) throws IOException;
+    }
+
+    @FunctionalInterface
+    protected interface ReplyWriter {
+        void write() throws IOException;
+    }
+
+    @FunctionalInterface
+    protected interface OutputHandler {
+        void write(List<String> lines) throws IOException;
+    }
+
+    /**
+     * Counts the bytes a session writes. Only used under the session lock.
+     */
+    private static final class MeteredConnection implements ClientConnection {
+
+        private final ClientConnection delegate;
+        private final HyRconMetrics metrics;
+        private final HyRconProtocol protocol;
+        private long written;
+
+        MeteredConnection(
+            ClientConnection delegate,
+            HyRconMetrics metrics,
+            HyRconProtocol protocol
+        ) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+            this.protocol = protocol;
+        }
+
+        @Override
+        public String remoteAddress() {
+            return delegate.remoteAddress();
+        }
+
+        @Override
+        public InetAddress remoteInetAddress() {
+            return delegate.remoteInetAddress();
+        }
+
+        @Override
+        public String clientPrincipal() {
+            return delegate.clientPrincipal();
+        }
+
+        @Override
+        public void write(ByteBuffer data) throws IOException {
+            int bytes = data.remaining();
+            delegate.write(data);
+            count(bytes);
+        }
+
+        @Override
+        public void write(ByteBuffer[] data) throws IOException {
+            long bytes = 0;
+            for (ByteBuffer buffer : data) {
+                bytes += buffer.remaining();
+            }
+            delegate.write(data);
+            count(bytes);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void setReadInterest(boolean enabled) {
+            delegate.setReadInterest(enabled);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public void abort() {
+            delegate.abort();
+        }
+
+        @Override
+        public long writeBlockedSinceNanos() {
+            return delegate.writeBlockedSinceNanos();
+        }
+
+        private void count(long bytes) {
+            written += bytes;
+            metrics.bytesOut(protocol, bytes);
+        }
+    }
+
+    private static final class PendingReply {
+
+        private final ResponseHandler handler;
+        private final OutputHandler output;
+        // Null for replies that do not belong to a dispatched command.
+        private final HyRconMetrics.CommandMetrics metrics;
+        private long encodeNanos;
+        private long writtenBytes;
+        private CommandResponse response;
+        // Volatile for the game threads streaming output without the lock.
+        private volatile boolean completed;
+        // Null unless output is streamed. Filled by the game threads without
+        // the lock and read under it from the offset of the first line that
+        // has not been written yet.
+        private final OutputCaptureBuffer streamed;
+        private int streamedOffset;
+        private final AtomicInteger streamedChars;
+        private final AtomicBoolean flushScheduled;
+        private final AtomicBoolean lingerScheduled;
+
+        PendingReply(
+            ResponseHandler handler,
+            OutputHandler output,
+            HyRconMetrics.CommandMetrics metrics
+        ) {
+            this.handler = handler;
+            this.output = output;
+            this.metrics = metrics;
+            boolean streaming = output != null;
+            this.streamed = streaming
+                ? new OutputCaptureBuffer(OutputCaptureBuffer.DEFAULT_CAPACITY)
+                : null;
+            this.streamedChars = streaming ? new AtomicInteger() : null;
+            this.flushScheduled = streaming ? new AtomicBoolean() : null;
+            this.lingerScheduled = streaming ? new AtomicBoolean() : null;
+        }
+
+        /**
+         * Buffers a streamed line unless the command already produced as many
+         * lines as a response may hold.
+         *
+         * @return {@code false} if the line was dropped
+         */
+        boolean offerOutput(String line) {
+            if (!streamed.append(line)) {
+                return false;
+            }
+            streamedChars.addAndGet(line.length() + 1);
+            return true;
+        }
+
+        /**
+         * Returns the lines buffered since the last call, followed by a
+         * truncation marker once the command has completed if lines had to be
+         * dropped.
+         */
+        List<String> takeOutput() {
+            List<String> lines = new ArrayList<>();
+            streamedOffset = streamed.read(streamedOffset, lines);
+            int chars = 0;
+            for (String line : lines) {
+                chars += line.length() + 1;
+            }
+            streamedChars.addAndGet(-chars);
+            if (completed) {
+                String marker = streamed.truncationMarker();
+                if (marker != null) {
+                    lines.add(marker);
+                }
+            }
+            return lines;
+        }
+
+        void complete(CommandResponse response) {
+            this.response = response;
+            this.completed = true;
+        }
+    }
+}
@@ -1,12 +1,52 @@
 package to.dstn.hytale.hyrcon;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 @FunctionalInterface
 public interface CommandExecutor {
     CommandResponse execute(String command);
 
+    /**
+     * Executes {@code command} without tying up the calling thread for the
+     * lifetime of the command. Implementations backed by an asynchronous
+     * dispatcher should override this; the default runs {@link #execute}
+     * on the calling thread and returns an already completed stage.
+     *
+     * @param command command line to execute
+     * @return stage completed with the response; never completed exceptionally
+     *     for failures the executor can describe as a {@link CommandResponse}
+     */
+    default CompletionStage<CommandResponse> executeAsync(String command) {
+        return CompletableFuture.completedFuture(execute(command));
+    }
+
+    /**
+     * Executes {@code command}, handing each line of output to {@code output}
+     * as soon as it is produced instead of collecting it into the response.
+     * Lines passed to {@code output} must not be repeated in the response.
+     * The default does not stream and returns all output with the response.
+     *
+     * @param command command line to execute
+     * @param output receives output lines, possibly from another thread
+     * @return stage completed with the response
+     */
+    default CompletionStage<CommandResponse> executeStreaming(
+        String command,
+        Consumer<String> output
+    ) {
+        return executeAsync(command);
+    }
+
     default CommandResponse executeValidated(String command) {
         return execute(Objects.requireNonNull(command, "command"));
     }
+
+    default CompletionStage<CommandResponse> executeValidatedAsync(
+        String command
+    ) {
+        return executeAsync(Objects.requireNonNull(command, "command"));
+    }
 }
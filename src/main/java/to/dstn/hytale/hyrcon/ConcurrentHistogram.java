@@ -0,0 +1,159 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative {@code long} values with log-linear
+ * buckets in the style of HdrHistogram.
+ *
+ * Values below 32 get a bucket each; above that every power of two is split
+ * into 16 equal sub-buckets, which bounds the relative error of a reported
+ * percentile to about 6% across the whole range. Recording is a single
+ * atomic increment plus two striped adders, so any number of threads may
+ * record concurrently without contending on a lock. Values above
+ * {@link #MAX_VALUE} are clamped.
+ */
+final class ConcurrentHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >>> 1;
+    // About 18 minutes in nanoseconds or 1 TiB in bytes.
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS =
+        SUB_BUCKETS + (MAX_BITS - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+    static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.getAndIncrement(bucketIndex(clamped));
+        sum.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    /**
+     * Copies the current state. Concurrent recordings may or may not be
+     * included, but the bucket counts of the copy are always consistent with
+     * its total count.
+     */
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum.sum(), max.get());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift =
+            (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int top = (int) (value >>> shift);
+        return (
+            SUB_BUCKETS +
+            (shift - 1) * HALF_SUB_BUCKETS +
+            (top - HALF_SUB_BUCKETS)
+        );
+    }
+
+    /**
+     * Returns the largest value that falls into bucket {@code index}.
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int offset = index - SUB_BUCKETS;
+        int shift = offset / HALF_SUB_BUCKETS + 1;
+        long top = offset % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of a histogram.
+     */
+    static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        long count() {
+            return count;
+        }
+
+        long sum() {
+            return sum;
+        }
+
+        long max() {
+            return max;
+        }
+
+        /**
+         * Returns, for every bound in {@code bounds}, how many values fall into
+         * buckets whose values are all at or below that bound. Values sharing
+         * a bucket with a bound are counted towards the next larger bound.
+         *
+         * @param bounds ascending upper bounds
+         */
+        long[] cumulativeCounts(long[] bounds) {
+            long[] cumulative = new long[bounds.length];
+            int bound = 0;
+            long seen = 0;
+            for (int i = 0; i < counts.length && bound < bounds.length; i++) {
+                while (
+                    bound < bounds.length && highestValue(i) > bounds[bound]
+                ) {
+                    cumulative[bound++] = seen;
+                }
+                seen += counts[i];
+            }
+            while (bound < bounds.length) {
+                cumulative[bound++] = seen;
+            }
+            return cumulative;
+        }
+
+        /**
+         * Returns the value below which {@code percentile} percent of the
+         * recorded values fall, or {@code 0} if nothing was recorded.
+         */
+        long valueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(
+                1,
+                (long) Math.ceil((percentile / 100.0) * count)
+            );
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
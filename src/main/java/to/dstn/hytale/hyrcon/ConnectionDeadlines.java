@@ -0,0 +1,109 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadlines every client session is held to, converted from the configuration
+ * into the nanosecond form sessions compare against {@link System#nanoTime()}.
+ * A limit of {@code 0} is disabled.
+ */
+final class ConnectionDeadlines {
+
+    /** Resolution of the timer wheel that enforces the deadlines. */
+    static final long TICK_MILLIS = 100;
+
+    // A frame has to be pending this long before its rate says anything.
+    private static final long RATE_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long authNanos;
+    private final long frameNanos;
+    private final long minInboundBytesPerSecond;
+    private final long idleNanos;
+    private final long writeNanos;
+    private final long checkIntervalMillis;
+
+    ConnectionDeadlines(HyRconConfiguration configuration) {
+        this.authNanos = nanos(configuration.authTimeoutMillis());
+        this.frameNanos = nanos(configuration.frameTimeoutMillis());
+        this.minInboundBytesPerSecond =
+            configuration.minInboundBytesPerSecond();
+        this.idleNanos = nanos(configuration.idleTimeoutMillis());
+        this.writeNanos = nanos(configuration.writeTimeoutMillis());
+
+        // Deadlines that start while a session waits for its next check,
+        // such as a stalled write, are noticed a quarter late at most.
+        long interval = Long.MAX_VALUE;
+        for (long limit : new long[] {
+            authNanos,
+            frameNanos,
+            idleNanos,
+            writeNanos,
+        }) {
+            if (limit > 0) {
+                interval = Math.min(interval, limit / 4);
+            }
+        }
+        if (minInboundBytesPerSecond > 0) {
+            interval = Math.min(interval, RATE_GRACE_NANOS);
+        }
+        this.checkIntervalMillis = Math.max(
+            TICK_MILLIS,
+            TimeUnit.NANOSECONDS.toMillis(interval)
+        );
+    }
+
+    /**
+     * Returns whether any deadline is enforced at all.
+     */
+    boolean isEnabled() {
+        return (
+            authNanos > 0 ||
+            frameNanos > 0 ||
+            minInboundBytesPerSecond > 0 ||
+            idleNanos > 0 ||
+            writeNanos > 0
+        );
+    }
+
+    long authNanos() {
+        return authNanos;
+    }
+
+    long frameNanos() {
+        return frameNanos;
+    }
+
+    long idleNanos() {
+        return idleNanos;
+    }
+
+    long writeNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * Returns whether a frame of which {@code bytes} arrived in
+     * {@code elapsedNanos} is arriving more slowly than the minimum inbound
+     * rate. Frames are given a second before they are judged.
+     */
+    boolean isTooSlow(long bytes, long elapsedNanos) {
+        return (
+            minInboundBytesPerSecond > 0 &&
+            elapsedNanos >= RATE_GRACE_NANOS &&
+            bytes * TimeUnit.SECONDS.toNanos(1) / elapsedNanos <
+            minInboundBytesPerSecond
+        );
+    }
+
+    /**
+     * Returns how long a session waits between checks while none of its
+     * deadlines is running.
+     */
+    long checkIntervalMillis() {
+        return checkIntervalMillis;
+    }
+
+    private static long nanos(int millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,31 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Runs command lines on behalf of {@link DispatcherCommandExecutor}.
+ *
+ * The executor owns everything around the command itself: timeouts, output
+ * capture limits, ANSI stripping and line splitting. A backend only starts the
+ * command and forwards whatever text it prints, which keeps the executor
+ * usable without a running game server.
+ */
+@FunctionalInterface
+public interface DispatchBackend {
+    /**
+     * Starts {@code command}.
+     *
+     * @param command trimmed, non-empty command line
+     * @param output receives every message the command prints, possibly
+     *     containing ANSI escape sequences and several lines; may be called
+     *     from any thread, concurrently, and even after the returned future
+     *     completed or was cancelled
+     * @return future completed once the command finished; cancelled by the
+     *     executor when the command times out
+     */
+    CompletableFuture<Void> dispatch(
+        String command,
+        Consumer<CharSequence> output
+    );
+}
@@ -1,175 +1,280 @@
 package to.dstn.hytale.hyrcon;
 
 import com.hypixel.hytale.logger.HytaleLogger;
-import com.hypixel.hytale.server.core.Message;
-import com.hypixel.hytale.server.core.command.system.CommandManager;
-import com.hypixel.hytale.server.core.command.system.CommandSender;
-import com.hypixel.hytale.server.core.console.ConsoleSender;
-import com.hypixel.hytale.server.core.util.MessageUtil;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
+/**
+ * Executes commands through a {@link DispatchBackend}, which defaults to the
+ * game's command manager, and turns their output into a
+ * {@link CommandResponse}. Each command is reported as a
+ * {@link HyRconEvents.CommandDispatch} flight recorder event when that event is
+ * enabled.
+ */
 public final class DispatcherCommandExecutor implements CommandExecutor {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-    private static final Pattern ANSI_PATTERN = Pattern.compile(
-        "\\u001B\\[[;\\d]*[ -/]*[@-~]"
-    );
+    // Output may arrive on several threads at once; each gets its own buffer.
+    private static final ThreadLocal<AnsiLineScanner> SCANNER =
+        ThreadLocal.withInitial(AnsiLineScanner::new);
 
+    private final DispatchBackend backend;
     private final Duration timeout;
+    private final int maxCapturedLines;
+    private final LongAdder timedOutCommands = new LongAdder();
 
     public DispatcherCommandExecutor() {
         this(Duration.ofSeconds(5));
     }
 
     public DispatcherCommandExecutor(Duration timeout) {
+        this(timeout, OutputCaptureBuffer.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param timeout how long a command may run before it is cancelled
+     * @param maxCapturedLines most output lines kept per command; further
+     *     lines are replaced by a truncation marker
+     */
+    public DispatcherCommandExecutor(Duration timeout, int maxCapturedLines) {
+        this(HytaleDispatchBackend.INSTANCE, timeout, maxCapturedLines);
+    }
+
+    /**
+     * @param backend runs the commands
+     * @param timeout how long a command may run before it is cancelled
+     * @param maxCapturedLines most output lines kept per command; further
+     *     lines are replaced by a truncation marker
+     */
+    public DispatcherCommandExecutor(
+        DispatchBackend backend,
+        Duration timeout,
+        int maxCapturedLines
+    ) {
+        this.backend = Objects.requireNonNull(backend, "backend");
         this.timeout = Objects.requireNonNull(timeout, "timeout");
         if (timeout.isZero() || timeout.isNegative()) {
             throw new IllegalArgumentException("timeout must be positive");
         }
+        if (maxCapturedLines < 1) {
+            throw new IllegalArgumentException(
+                "maxCapturedLines must be positive"
+            );
+        }
+        this.maxCapturedLines = maxCapturedLines;
+    }
+
+    /**
+     * Returns how many commands have been cancelled because they ran longer
+     * than the timeout.
+     */
+    public long timedOutCommands() {
+        return timedOutCommands.sum();
     }
 
     @Override
     public CommandResponse execute(String command) {
+        return executeAsync(command).toCompletableFuture().join();
+    }
+
+    @Override
+    public CompletionStage<CommandResponse> executeAsync(String command) {
+        return dispatch(command, null);
+    }
+
+    @Override
+    public CompletionStage<CommandResponse> executeStreaming(
+        String command,
+        Consumer<String> output
+    ) {
+        return dispatch(command, Objects.requireNonNull(output, "output"));
+    }
+
+    private CompletionStage<CommandResponse> dispatch(
+        String command,
+        Consumer<String> output
+    ) {
         Objects.requireNonNull(command, "command");
         String trimmed = command.trim();
         if (trimmed.isEmpty()) {
-            return CommandResponse.failure("No command provided");
+            return CompletableFuture.completedFuture(
+                CommandResponse.failure("No command provided")
+            );
         }
 
-        CollectingCommandSender sender = new CollectingCommandSender(
-            ConsoleSender.INSTANCE
+        HyRconEvents.CommandDispatch event =
+            new HyRconEvents.CommandDispatch();
+        event.begin();
+        OutputCollector collector = new OutputCollector(
+            output,
+            maxCapturedLines,
+            event.isEnabled()
         );
         CompletableFuture<Void> future;
         try {
-            future = CommandManager.get().handleCommand(sender, trimmed);
+            future = Objects.requireNonNull(
+                backend.dispatch(trimmed, collector),
+                "future"
+            );
         } catch (RuntimeException ex) {
             LOGGER.atInfo().log(
                 "Command dispatch failed before execution: %s",
                 ex.toString()
             );
-            return CommandResponse.failure(
+            CommandResponse response = CommandResponse.failure(
                 "Dispatch failed: " + ex.getMessage()
             );
+            commitEvent(event, trimmed, "error", collector);
+            return CompletableFuture.completedFuture(response);
         }
 
-        try {
-            future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
-            List<String> output = sender.snapshot();
-            if (output.isEmpty()) {
+        // The timeout is armed on the JDK's shared delay scheduler and
+        // cancelled as soon as the command completes; no thread waits on it.
+        return future
+            .copy()
+            .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+            .handle((ignored, error) ->
+                toResponse(trimmed, future, collector, error, event)
+            );
+    }
+
+    private CommandResponse toResponse(
+        String trimmed,
+        CompletableFuture<Void> future,
+        OutputCollector collector,
+        Throwable error,
+        HyRconEvents.CommandDispatch event
+    ) {
+        List<String> output = collector.snapshot();
+        if (error == null) {
+            commitEvent(event, trimmed, "success", collector);
+            if (output.isEmpty() && !collector.hasStreamed()) {
                 return CommandResponse.success("Command executed: " + trimmed);
             }
             return CommandResponse.success(output);
-        } catch (TimeoutException ex) {
+        }
+
+        Throwable cause = error;
+        while (
+            (cause instanceof CompletionException ||
+                cause instanceof ExecutionException) &&
+            cause.getCause() != null
+        ) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof TimeoutException) {
             future.cancel(true);
-            List<String> output = sender.snapshot();
+            timedOutCommands.increment();
+            commitEvent(event, trimmed, "timeout", collector);
             String message = String.format(
                 "Command timed out after %d ms",
                 timeout.toMillis()
             );
             return CommandResponse.failure(message, output);
-        } catch (ExecutionException ex) {
-            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
-            LOGGER.atInfo().log(
-                "Command execution threw an exception: %s",
-                cause.toString()
-            );
-            List<String> output = sender.snapshot();
-            return CommandResponse.failure(
-                "Execution failed: " + cause.getMessage(),
-                output
-            );
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            List<String> output = sender.snapshot();
-            return CommandResponse.failure(
-                "Command execution interrupted",
-                output
-            );
         }
-    }
 
-    private static final class CollectingCommandSender
-        implements CommandSender
-    {
-
-        private final CommandSender delegate;
-        private final List<String> lines = new ArrayList<>();
+        LOGGER.atInfo().log(
+            "Command execution threw an exception: %s",
+            cause.toString()
+        );
+        commitEvent(event, trimmed, "failure", collector);
+        return CommandResponse.failure(
+            "Execution failed: " + cause.getMessage(),
+            output
+        );
+    }
 
-        CollectingCommandSender(CommandSender delegate) {
-            this.delegate = Objects.requireNonNull(delegate, "delegate");
+    private static void commitEvent(
+        HyRconEvents.CommandDispatch event,
+        String command,
+        String outcome,
+        OutputCollector collector
+    ) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.verb = HyRconMetrics.verb(command);
+            event.outcome = outcome;
+            event.outputLines = collector.lineCount();
+            event.outputChars = collector.charCount();
+            event.commit();
         }
+    }
 
-        @Override
-        public void sendMessage(Message message) {
-            if (message != null) {
-                for (String line : extractLines(message)) {
-                    if (!line.isEmpty()) {
-                        lines.add(line);
-                    }
-                }
-            }
-            delegate.sendMessage(message);
-        }
+    private static final class OutputCollector
+        implements Consumer<CharSequence>
+    {
 
-        @Override
-        public String getDisplayName() {
-            return delegate.getDisplayName();
-        }
+        private final Consumer<String> output;
+        // The backend may deliver output from any thread, even after a
+        // timeout.
+        private final OutputCaptureBuffer captured;
+        private final Consumer<String> lineSink = this::acceptLine;
+        // Only allocated while the dispatch event is recorded.
+        private final LongAdder lines;
+        private final LongAdder chars;
+        private volatile boolean streamed;
 
-        @Override
-        public UUID getUuid() {
-            return delegate.getUuid();
+        /**
+         * @param output receives lines as they are sent, or {@code null} to
+         *     collect them for {@link #snapshot()}
+         * @param maxCapturedLines most lines collected when not streaming
+         * @param counted whether to count the lines and characters received
+         */
+        OutputCollector(
+            Consumer<String> output,
+            int maxCapturedLines,
+            boolean counted
+        ) {
+            this.output = output;
+            this.lines = counted ? new LongAdder() : null;
+            this.chars = counted ? new LongAdder() : null;
+            this.captured =
+                output == null
+                    ? new OutputCaptureBuffer(maxCapturedLines)
+                    : null;
         }
 
         @Override
-        public boolean hasPermission(String permission) {
-            return delegate.hasPermission(permission);
+        public void accept(CharSequence text) {
+            SCANNER.get().scan(text, lineSink);
         }
 
-        @Override
-        public boolean hasPermission(String permission, boolean defaultValue) {
-            return delegate.hasPermission(permission, defaultValue);
+        private void acceptLine(String line) {
+            if (lines != null) {
+                lines.increment();
+                chars.add(line.length());
+            }
+            if (output != null) {
+                streamed = true;
+                output.accept(line);
+            } else {
+                captured.append(line);
+            }
         }
 
-        List<String> snapshot() {
-            return Collections.unmodifiableList(new ArrayList<>(lines));
+        int lineCount() {
+            return lines == null ? 0 : lines.intValue();
         }
 
-        private static List<String> extractLines(Message message) {
-            String ansiText = MessageUtil.toAnsiString(message).toString();
-            if (ansiText != null && !ansiText.isEmpty()) {
-                return splitLines(ansiText);
-            }
-            String raw = message.getRawText();
-            if (raw != null && !raw.isEmpty()) {
-                return splitLines(raw);
-            }
-            String fallback = message.toString();
-            return fallback != null ? splitLines(fallback) : List.of();
+        long charCount() {
+            return chars == null ? 0 : chars.sum();
         }
 
-        private static List<String> splitLines(String text) {
-            String[] parts = text.split("\\R", -1);
-            List<String> result = new ArrayList<>(parts.length);
-            for (String part : parts) {
-                String sanitized = stripAnsi(part);
-                result.add(sanitized.strip());
-            }
-            return result;
+        boolean hasStreamed() {
+            return streamed;
         }
 
-        private static String stripAnsi(String text) {
-            return ANSI_PATTERN.matcher(text).replaceAll("");
+        List<String> snapshot() {
+            return captured == null ? List.of() : captured.snapshot();
         }
     }
 }
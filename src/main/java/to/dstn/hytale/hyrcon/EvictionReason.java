@@ -0,0 +1,59 @@
+package to.dstn.hytale.hyrcon;
+
+/**
+ * Enumerates the deadlines a connected client can miss. Each one disconnects
+ * the client and is counted separately.
+ */
+enum EvictionReason {
+    /**
+     * The client did not finish its TLS handshake in time.
+     */
+    HANDSHAKE_TIMEOUT("handshake_timeout", "TLS handshake timed out"),
+
+    /**
+     * The client did not authenticate in time.
+     */
+    AUTH_TIMEOUT("auth_timeout", "authentication timed out"),
+
+    /**
+     * The client started a frame and did not finish it in time.
+     */
+    FRAME_TIMEOUT("frame_timeout", "frame timed out"),
+
+    /**
+     * The client sent a frame more slowly than the minimum inbound rate.
+     */
+    SLOW_INBOUND("slow_inbound", "sending too slowly"),
+
+    /**
+     * The connection carried no traffic while no command was running.
+     */
+    IDLE_TIMEOUT("idle_timeout", "idle timeout"),
+
+    /**
+     * The client stopped reading the responses written to it.
+     */
+    WRITE_STALL("write_stall", "not reading responses");
+
+    private final String metricLabel;
+    private final String description;
+
+    EvictionReason(String metricLabel, String description) {
+        this.metricLabel = metricLabel;
+        this.description = description;
+    }
+
+    /**
+     * Returns the value of the {@code reason} label of the eviction counter.
+     */
+    String metricLabel() {
+        return metricLabel;
+    }
+
+    /**
+     * Returns the explanation written to the access log.
+     */
+    String description() {
+        return description;
+    }
+}
@@ -50,11 +50,13 @@ public final class HyRCON extends JavaPlugin {
         }
 
         LOGGER.atInfo().log(
-            "HyRCON configuration: enabled=%s host=%s port=%d protocol=%s password=%s",
+            "HyRCON configuration: enabled=%s host=%s port=%d protocol=%s transport=%s execution=%s password=%s",
             configuration.enabled(),
             configuration.host(),
             configuration.port(),
             configuration.protocol().configToken(),
+            configuration.transport().configToken(),
+            configuration.executionMode().configToken(),
             configuration.isPasswordRequired() ? "required" : "optional"
         );
 
@@ -78,7 +80,11 @@ public final class HyRCON extends JavaPlugin {
             return;
         }
 
-        hyRconServer = new HyRconServer(configuration, commandExecutor);
+        hyRconServer = new HyRconServer(
+            configuration,
+            commandExecutor,
+            getDataDirectory()
+        );
         bootstrapCommandExecutor();
         hyRconServer.start();
 
@@ -129,6 +135,9 @@ public final class HyRCON extends JavaPlugin {
             DispatcherCommandExecutor dispatcher =
                 new DispatcherCommandExecutor();
             commandExecutor.install(dispatcher);
+            hyRconServer
+                .metrics()
+                .trackCommandTimeouts(dispatcher::timedOutCommands);
             LOGGER.atInfo().log(
                 "Command dispatcher delegate installed: %s",
                 dispatcher.getClass().getName()
@@ -253,7 +262,249 @@ public final class HyRCON extends JavaPlugin {
                             value
                         );
                         break;
+                    case "transport":
+                        overrides.put(HyRconConfiguration.ENV_TRANSPORT, value);
+                        break;
+                    case "event_loop_threads":
+                        overrides.put(
+                            HyRconConfiguration.ENV_EVENT_LOOP_THREADS,
+                            value
+                        );
+                        break;
+                    case "execution_mode":
+                        overrides.put(
+                            HyRconConfiguration.ENV_EXECUTION_MODE,
+                            value
+                        );
+                        break;
+                    case "max_clients":
+                        overrides.put(HyRconConfiguration.ENV_MAX_CLIENTS, value);
+                        break;
+                    case "client_queue":
+                        overrides.put(
+                            HyRconConfiguration.ENV_CLIENT_QUEUE,
+                            value
+                        );
+                        break;
+                    case "direct_buffers":
+                        overrides.put(
+                            HyRconConfiguration.ENV_DIRECT_BUFFERS,
+                            value
+                        );
+                        break;
+                    case "pipeline_depth":
+                        overrides.put(
+                            HyRconConfiguration.ENV_PIPELINE_DEPTH,
+                            value
+                        );
+                        break;
+                    case "stream_output":
+                        overrides.put(
+                            HyRconConfiguration.ENV_STREAM_OUTPUT,
+                            value
+                        );
+                        break;
+                    case "stream_linger_ms":
+                        overrides.put(
+                            HyRconConfiguration.ENV_STREAM_LINGER_MS,
+                            value
+                        );
+                        break;
+                    case "max_frame_size":
+                        overrides.put(
+                            HyRconConfiguration.ENV_MAX_FRAME_SIZE,
+                            value
+                        );
+                        break;
+                    case "max_connection_buffer":
+                        overrides.put(
+                            HyRconConfiguration.ENV_MAX_CONNECTION_BUFFER,
+                            value
+                        );
+                        break;
+                    case "max_buffered_bytes":
+                        overrides.put(
+                            HyRconConfiguration.ENV_MAX_BUFFERED_BYTES,
+                            value
+                        );
+                        break;
+                    case "metrics_host":
+                        overrides.put(
+                            HyRconConfiguration.ENV_METRICS_HOST,
+                            value
+                        );
+                        break;
+                    case "metrics_port":
+                        overrides.put(
+                            HyRconConfiguration.ENV_METRICS_PORT,
+                            value
+                        );
+                        break;
+                    case "access_log_file":
+                        overrides.put(
+                            HyRconConfiguration.ENV_ACCESS_LOG_FILE,
+                            value
+                        );
+                        break;
+                    case "access_log_max_bytes":
+                        overrides.put(
+                            HyRconConfiguration.ENV_ACCESS_LOG_MAX_BYTES,
+                            value
+                        );
+                        break;
+                    case "access_log_max_files":
+                        overrides.put(
+                            HyRconConfiguration.ENV_ACCESS_LOG_MAX_FILES,
+                            value
+                        );
+                        break;
+                    case "access_log_buffer":
+                        overrides.put(
+                            HyRconConfiguration.ENV_ACCESS_LOG_BUFFER,
+                            value
+                        );
+                        break;
+                    case "access_log_overflow":
+                        overrides.put(
+                            HyRconConfiguration.ENV_ACCESS_LOG_OVERFLOW,
+                            value
+                        );
+                        break;
+                    case "audit_dir":
+                        overrides.put(
+                            HyRconConfiguration.ENV_AUDIT_DIR,
+                            value
+                        );
+                        break;
+                    case "audit_segment_bytes":
+                        overrides.put(
+                            HyRconConfiguration.ENV_AUDIT_SEGMENT_BYTES,
+                            value
+                        );
+                        break;
+                    case "audit_retention_days":
+                        overrides.put(
+                            HyRconConfiguration.ENV_AUDIT_RETENTION_DAYS,
+                            value
+                        );
+                        break;
+                    case "audit_sync_ms":
+                        overrides.put(
+                            HyRconConfiguration.ENV_AUDIT_SYNC_MS,
+                            value
+                        );
+                        break;
+                    case "detect_timeout_ms":
+                        overrides.put(
+                            HyRconConfiguration.ENV_DETECT_TIMEOUT_MS,
+                            value
+                        );
+                        break;
+                    case "tls_keystore":
+                        overrides.put(
+                            HyRconConfiguration.ENV_TLS_KEYSTORE,
+                            value
+                        );
+                        break;
+                    case "tls_keystore_password":
+                        overrides.put(
+                            HyRconConfiguration.ENV_TLS_KEYSTORE_PASSWORD,
+                            value
+                        );
+                        break;
+                    case "tls_client_auth":
+                        overrides.put(
+                            HyRconConfiguration.ENV_TLS_CLIENT_AUTH,
+                            value
+                        );
+                        break;
+                    case "tls_truststore":
+                        overrides.put(
+                            HyRconConfiguration.ENV_TLS_TRUSTSTORE,
+                            value
+                        );
+                        break;
+                    case "tls_truststore_password":
+                        overrides.put(
+                            HyRconConfiguration.ENV_TLS_TRUSTSTORE_PASSWORD,
+                            value
+                        );
+                        break;
+                    case "tls_handshake_timeout_ms":
+                        overrides.put(
+                            HyRconConfiguration.ENV_TLS_HANDSHAKE_TIMEOUT_MS,
+                            value
+                        );
+                        break;
+                    case "tls_session_timeout_seconds":
+                        overrides.put(
+                            HyRconConfiguration.ENV_TLS_SESSION_TIMEOUT_SECONDS,
+                            value
+                        );
+                        break;
+                    case "auth_timeout_ms":
+                        overrides.put(
+                            HyRconConfiguration.ENV_AUTH_TIMEOUT_MS,
+                            value
+                        );
+                        break;
+                    case "frame_timeout_ms":
+                        overrides.put(
+                            HyRconConfiguration.ENV_FRAME_TIMEOUT_MS,
+                            value
+                        );
+                        break;
+                    case "min_inbound_bytes_per_second":
+                        overrides.put(
+                            HyRconConfiguration.ENV_MIN_INBOUND_BYTES_PER_SECOND,
+                            value
+                        );
+                        break;
+                    case "idle_timeout_ms":
+                        overrides.put(
+                            HyRconConfiguration.ENV_IDLE_TIMEOUT_MS,
+                            value
+                        );
+                        break;
+                    case "write_timeout_ms":
+                        overrides.put(
+                            HyRconConfiguration.ENV_WRITE_TIMEOUT_MS,
+                            value
+                        );
+                        break;
+                    case "auth_tarpit_ms":
+                        overrides.put(
+                            HyRconConfiguration.ENV_AUTH_TARPIT_MS,
+                            value
+                        );
+                        break;
+                    case "auth_ban_failures":
+                        overrides.put(
+                            HyRconConfiguration.ENV_AUTH_BAN_FAILURES,
+                            value
+                        );
+                        break;
+                    case "auth_ban_seconds":
+                        overrides.put(
+                            HyRconConfiguration.ENV_AUTH_BAN_SECONDS,
+                            value
+                        );
+                        break;
+                    case "auth_tracked_addresses":
+                        overrides.put(
+                            HyRconConfiguration.ENV_AUTH_TRACKED_ADDRESSES,
+                            value
+                        );
+                        break;
+                    case "listeners":
+                        overrides.put(HyRconConfiguration.ENV_LISTENERS, value);
+                        break;
                     default:
+                        String listenerVariable =
+                            HyRconConfiguration.listenerVariable(key);
+                        if (listenerVariable != null) {
+                            overrides.put(listenerVariable, value);
+                        }
                         break;
                 }
             }
@@ -359,7 +610,9 @@ public final class HyRCON extends JavaPlugin {
                 .append("port: ")
                 .append(HyRconConfiguration.DEFAULT_PORT)
                 .append(newline)
-                .append("# Protocol to use: hyrcon (legacy) or source.")
+                .append(
+                    "# Protocol to use: hyrcon (legacy), source, or auto to detect per client."
+                )
                 .append(newline)
                 .append("protocol: \"")
                 .append(HyRconConfiguration.DEFAULT_PROTOCOL.configToken())
@@ -374,6 +627,310 @@ public final class HyRCON extends JavaPlugin {
                 )
                 .append(newline)
                 .append("password: \"hytale\"")
+                .append(newline)
+                .append(
+                    "# Socket transport: blocking (thread per client) or nio (event loop)."
+                )
+                .append(newline)
+                .append("transport: \"")
+                .append(HyRconConfiguration.DEFAULT_TRANSPORT.configToken())
+                .append('\"')
+                .append(newline)
+                .append(
+                    "# Event loop threads for the nio transport; 0 picks a default."
+                )
+                .append(newline)
+                .append("event_loop_threads: ")
+                .append(HyRconConfiguration.DEFAULT_EVENT_LOOP_THREADS)
+                .append(newline)
+                .append(
+                    "# Client threads: platform or virtual (cheap idle connections)."
+                )
+                .append(newline)
+                .append("execution_mode: \"")
+                .append(
+                    HyRconConfiguration.DEFAULT_EXECUTION_MODE.configToken()
+                )
+                .append('\"')
+                .append(newline)
+                .append("# Maximum concurrent clients; 0 means unbounded.")
+                .append(newline)
+                .append("max_clients: ")
+                .append(HyRconConfiguration.DEFAULT_MAX_CLIENTS)
+                .append(newline)
+                .append(
+                    "# Clients that may wait for a slot before being rejected as busy."
+                )
+                .append(newline)
+                .append("client_queue: ")
+                .append(HyRconConfiguration.DEFAULT_CLIENT_QUEUE)
+                .append(newline)
+                .append("# Allocate socket and response buffers off-heap.")
+                .append(newline)
+                .append("direct_buffers: ")
+                .append(HyRconConfiguration.DEFAULT_DIRECT_BUFFERS)
+                .append(newline)
+                .append(
+                    "# Source RCON commands a client may have in flight at once."
+                )
+                .append(newline)
+                .append("pipeline_depth: ")
+                .append(HyRconConfiguration.DEFAULT_PIPELINE_DEPTH)
+                .append(newline)
+                .append(
+                    "# Send command output while the command is still running."
+                )
+                .append(newline)
+                .append("stream_output: ")
+                .append(HyRconConfiguration.DEFAULT_STREAM_OUTPUT)
+                .append(newline)
+                .append(
+                    "# Milliseconds streamed output may wait for more lines."
+                )
+                .append(newline)
+                .append("stream_linger_ms: ")
+                .append(HyRconConfiguration.DEFAULT_STREAM_LINGER_MS)
+                .append(newline)
+                .append(
+                    "# Largest packet or command line a client may send, in bytes."
+                )
+                .append(newline)
+                .append("max_frame_size: ")
+                .append(HyRconConfiguration.DEFAULT_MAX_FRAME_SIZE)
+                .append(newline)
+                .append("# Inbound bytes a single client may have buffered.")
+                .append(newline)
+                .append("max_connection_buffer: ")
+                .append(HyRconConfiguration.DEFAULT_MAX_CONNECTION_BUFFER)
+                .append(newline)
+                .append(
+                    "# Inbound bytes buffered across all clients; 0 means unbounded."
+                )
+                .append(newline)
+                .append("max_buffered_bytes: ")
+                .append(HyRconConfiguration.DEFAULT_MAX_BUFFERED_BYTES)
+                .append(newline)
+                .append("# Address of the OpenMetrics endpoint.")
+                .append(newline)
+                .append("metrics_host: ")
+                .append(HyRconConfiguration.DEFAULT_METRICS_HOST)
+                .append(newline)
+                .append(
+                    "# Port serving OpenMetrics at /metrics; 0 disables the endpoint."
+                )
+                .append(newline)
+                .append("metrics_port: ")
+                .append(HyRconConfiguration.DEFAULT_METRICS_PORT)
+                .append(newline)
+                .append(
+                    "# JSON lines access log, relative to this directory; blank disables it."
+                )
+                .append(newline)
+                .append("access_log_file: \"\"")
+                .append(newline)
+                .append(
+                    "# Rotate the access log at this many bytes; 0 never rotates."
+                )
+                .append(newline)
+                .append("access_log_max_bytes: ")
+                .append(HyRconConfiguration.DEFAULT_ACCESS_LOG_MAX_BYTES)
+                .append(newline)
+                .append("# Rotated access log files to keep.")
+                .append(newline)
+                .append("access_log_max_files: ")
+                .append(HyRconConfiguration.DEFAULT_ACCESS_LOG_MAX_FILES)
+                .append(newline)
+                .append("# Access log records buffered for the writer thread.")
+                .append(newline)
+                .append("access_log_buffer: ")
+                .append(HyRconConfiguration.DEFAULT_ACCESS_LOG_BUFFER)
+                .append(newline)
+                .append(
+                    "# When the access log buffer is full: drop (count and discard) or block."
+                )
+                .append(newline)
+                .append("access_log_overflow: \"")
+                .append(
+                    HyRconConfiguration.DEFAULT_ACCESS_LOG_OVERFLOW.configToken()
+                )
+                .append('\"')
+                .append(newline)
+                .append(
+                    "# Directory for the binary command audit journal; blank disables it."
+                )
+                .append(newline)
+                .append("audit_dir: \"\"")
+                .append(newline)
+                .append("# Size of each audit journal segment file in bytes.")
+                .append(newline)
+                .append("audit_segment_bytes: ")
+                .append(HyRconConfiguration.DEFAULT_AUDIT_SEGMENT_BYTES)
+                .append(newline)
+                .append(
+                    "# Days to keep audit journal segments; 0 keeps them forever."
+                )
+                .append(newline)
+                .append("audit_retention_days: ")
+                .append(HyRconConfiguration.DEFAULT_AUDIT_RETENTION_DAYS)
+                .append(newline)
+                .append(
+                    "# Milliseconds between syncing the audit journal to disk; 0 syncs every command."
+                )
+                .append(newline)
+                .append("audit_sync_ms: ")
+                .append(HyRconConfiguration.DEFAULT_AUDIT_SYNC_MS)
+                .append(newline)
+                .append(
+                    "# Milliseconds to wait for a client's first bytes when protocol is auto."
+                )
+                .append(newline)
+                .append("detect_timeout_ms: ")
+                .append(HyRconConfiguration.DEFAULT_DETECT_TIMEOUT_MS)
+                .append(newline)
+                .append(
+                    "# Key store (JKS or PKCS#12) relative to this directory; blank disables TLS."
+                )
+                .append(newline)
+                .append("tls_keystore: \"\"")
+                .append(newline)
+                .append("tls_keystore_password: \"\"")
+                .append(newline)
+                .append(
+                    "# Ask clients for a certificate: none, optional or required."
+                )
+                .append(newline)
+                .append(
+                    "# Clients with a trusted certificate skip the password."
+                )
+                .append(newline)
+                .append("tls_client_auth: \"")
+                .append(
+                    HyRconConfiguration.DEFAULT_TLS_CLIENT_AUTH.configToken()
+                )
+                .append('"')
+                .append(newline)
+                .append(
+                    "# Trust store client certificates are verified against."
+                )
+                .append(newline)
+                .append("tls_truststore: \"\"")
+                .append(newline)
+                .append("tls_truststore_password: \"\"")
+                .append(newline)
+                .append(
+                    "# Milliseconds a client may take to complete the TLS handshake."
+                )
+                .append(newline)
+                .append("tls_handshake_timeout_ms: ")
+                .append(HyRconConfiguration.DEFAULT_TLS_HANDSHAKE_TIMEOUT_MS)
+                .append(newline)
+                .append(
+                    "# Seconds a reconnecting client may resume its TLS session."
+                )
+                .append(newline)
+                .append("tls_session_timeout_seconds: ")
+                .append(HyRconConfiguration.DEFAULT_TLS_SESSION_TIMEOUT_SECONDS)
+                .append(newline)
+                .append(
+                    "# Milliseconds a client may take to authenticate; 0 waits forever."
+                )
+                .append(newline)
+                .append("auth_timeout_ms: ")
+                .append(HyRconConfiguration.DEFAULT_AUTH_TIMEOUT_MS)
+                .append(newline)
+                .append(
+                    "# Milliseconds a client may take to send a whole frame; 0 waits forever."
+                )
+                .append(newline)
+                .append("frame_timeout_ms: ")
+                .append(HyRconConfiguration.DEFAULT_FRAME_TIMEOUT_MS)
+                .append(newline)
+                .append(
+                    "# Bytes per second a client must keep up while sending a frame; 0 disables."
+                )
+                .append(newline)
+                .append("min_inbound_bytes_per_second: ")
+                .append(HyRconConfiguration.DEFAULT_MIN_INBOUND_BYTES_PER_SECOND)
+                .append(newline)
+                .append(
+                    "# Milliseconds a connection may stay silent with no command running; 0 never."
+                )
+                .append(newline)
+                .append("idle_timeout_ms: ")
+                .append(HyRconConfiguration.DEFAULT_IDLE_TIMEOUT_MS)
+                .append(newline)
+                .append(
+                    "# Milliseconds a client may leave a response unread; 0 waits forever."
+                )
+                .append(newline)
+                .append("write_timeout_ms: ")
+                .append(HyRconConfiguration.DEFAULT_WRITE_TIMEOUT_MS)
+                .append(newline)
+                .append(
+                    "# Milliseconds the first failed login is held back, doubling per failure; 0 off."
+                )
+                .append(newline)
+                .append("auth_tarpit_ms: ")
+                .append(HyRconConfiguration.DEFAULT_AUTH_TARPIT_MS)
+                .append(newline)
+                .append(
+                    "# Failed logins after which an address is banned, such as 10; 0 never bans."
+                )
+                .append(newline)
+                .append("auth_ban_failures: ")
+                .append(HyRconConfiguration.DEFAULT_AUTH_BAN_FAILURES)
+                .append(newline)
+                .append(
+                    "# Seconds a ban lasts and failed logins are remembered."
+                )
+                .append(newline)
+                .append("auth_ban_seconds: ")
+                .append(HyRconConfiguration.DEFAULT_AUTH_BAN_SECONDS)
+                .append(newline)
+                .append(
+                    "# Most addresses whose failed logins are remembered at once."
+                )
+                .append(newline)
+                .append("auth_tracked_addresses: ")
+                .append(HyRconConfiguration.DEFAULT_AUTH_TRACKED_ADDRESSES)
+                .append(newline)
+                .append(
+                    "# Comma separated listener names to serve instead of the bind address above."
+                )
+                .append(newline)
+                .append(
+                    "# Each listener reads listener.<name>.<option> keys for bind, host, port,"
+                )
+                .append(newline)
+                .append(
+                    "# socket, socket_permissions, password, protocol, pipeline_depth,"
+                )
+                .append(newline)
+                .append(
+                    "# max_frame_size, stream_output, detect_timeout_ms and the tls_ options,"
+                )
+                .append(newline)
+                .append(
+                    "# and inherits the value above for any it leaves unset. A socket path,"
+                )
+                .append(newline)
+                .append(
+                    "# relative to this directory, serves a Unix domain socket whose clients"
+                )
+                .append(newline)
+                .append("# skip AUTH.")
+                .append(newline)
+                .append("listeners: \"\"")
+                .append(newline)
+                .append("# listener.local.bind: 127.0.0.1:25576")
+                .append(newline)
+                .append("# listener.local.protocol: hyrcon")
+                .append(newline)
+                .append("# listener.sidecar.socket: hyrcon.sock")
+                .append(newline)
+                .append("# listener.sidecar.socket_permissions: rw-rw----")
+                .append(newline)
+                .append("# listener.remote.tls_keystore: hyrcon.p12")
                 .append(newline);
 
             String templateBody = builder.toString();
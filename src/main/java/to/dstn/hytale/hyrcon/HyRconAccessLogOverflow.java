@@ -0,0 +1,74 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Enumerates what a session does when the access log writer has fallen behind
+ * and its buffer is full.
+ *
+ * Dropping keeps logging off the critical path under any load at the price of
+ * gaps in the log, which are counted so they can be noticed. Blocking keeps
+ * every record but lets a slow disk stall the session that produced it.
+ */
+public enum HyRconAccessLogOverflow {
+    /**
+     * Discard the record and count it as dropped.
+     */
+    DROP("drop"),
+
+    /**
+     * Wait until the writer has made room for the record.
+     */
+    BLOCK("block");
+
+    private final String configToken;
+
+    HyRconAccessLogOverflow(String configToken) {
+        this.configToken = normalize(
+            Objects.requireNonNull(configToken, "configToken")
+        );
+    }
+
+    /**
+     * Returns the canonical token that should be used in configuration files or
+     * environment variables to select this policy.
+     *
+     * @return configuration token
+     */
+    public String configToken() {
+        return configToken;
+    }
+
+    /**
+     * Attempts to resolve an overflow policy from a user-supplied token.
+     * Comparison is case-insensitive and falls back to dropping records if the
+     * input is {@code null} or blank.
+     *
+     * @param rawToken candidate token
+     * @return matching policy, never {@code null}
+     * @throws IllegalArgumentException if the token does not map to a policy
+     */
+    public static HyRconAccessLogOverflow fromToken(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return DROP;
+        }
+
+        String normalized = normalize(rawToken);
+        for (HyRconAccessLogOverflow policy : values()) {
+            if (policy.configToken.equals(normalized)) {
+                return policy;
+            }
+        }
+
+        throw new IllegalArgumentException(
+            "Unknown HyRCON access log overflow policy: " + rawToken
+        );
+    }
+
+    private static String normalize(String token) {
+        return Objects.requireNonNull(token, "token")
+            .trim()
+            .toLowerCase(Locale.ROOT);
+    }
+}
@@ -4,15 +4,21 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 public final class HyRconConfiguration {
 
@@ -22,6 +28,70 @@ public final class HyRconConfiguration {
     public static final String ENV_PORT = "HYRCON_PORT";
     public static final String ENV_PASSWORD = "HYRCON_PASSWORD";
     public static final String ENV_PROTOCOL = "HYRCON_PROTOCOL";
+    public static final String ENV_TRANSPORT = "HYRCON_TRANSPORT";
+    public static final String ENV_EVENT_LOOP_THREADS =
+        "HYRCON_EVENT_LOOP_THREADS";
+    public static final String ENV_EXECUTION_MODE = "HYRCON_EXECUTION_MODE";
+    public static final String ENV_MAX_CLIENTS = "HYRCON_MAX_CLIENTS";
+    public static final String ENV_CLIENT_QUEUE = "HYRCON_CLIENT_QUEUE";
+    public static final String ENV_DIRECT_BUFFERS = "HYRCON_DIRECT_BUFFERS";
+    public static final String ENV_PIPELINE_DEPTH = "HYRCON_PIPELINE_DEPTH";
+    public static final String ENV_STREAM_OUTPUT = "HYRCON_STREAM_OUTPUT";
+    public static final String ENV_STREAM_LINGER_MS = "HYRCON_STREAM_LINGER_MS";
+    public static final String ENV_MAX_FRAME_SIZE = "HYRCON_MAX_FRAME_SIZE";
+    public static final String ENV_MAX_CONNECTION_BUFFER =
+        "HYRCON_MAX_CONNECTION_BUFFER";
+    public static final String ENV_MAX_BUFFERED_BYTES =
+        "HYRCON_MAX_BUFFERED_BYTES";
+    public static final String ENV_METRICS_HOST = "HYRCON_METRICS_HOST";
+    public static final String ENV_METRICS_PORT = "HYRCON_METRICS_PORT";
+    public static final String ENV_ACCESS_LOG_FILE = "HYRCON_ACCESS_LOG_FILE";
+    public static final String ENV_ACCESS_LOG_MAX_BYTES =
+        "HYRCON_ACCESS_LOG_MAX_BYTES";
+    public static final String ENV_ACCESS_LOG_MAX_FILES =
+        "HYRCON_ACCESS_LOG_MAX_FILES";
+    public static final String ENV_ACCESS_LOG_BUFFER =
+        "HYRCON_ACCESS_LOG_BUFFER";
+    public static final String ENV_ACCESS_LOG_OVERFLOW =
+        "HYRCON_ACCESS_LOG_OVERFLOW";
+    public static final String ENV_AUDIT_DIR = "HYRCON_AUDIT_DIR";
+    public static final String ENV_AUDIT_SEGMENT_BYTES =
+        "HYRCON_AUDIT_SEGMENT_BYTES";
+    public static final String ENV_AUDIT_RETENTION_DAYS =
+        "HYRCON_AUDIT_RETENTION_DAYS";
+    public static final String ENV_AUDIT_SYNC_MS = "HYRCON_AUDIT_SYNC_MS";
+    public static final String ENV_DETECT_TIMEOUT_MS =
+        "HYRCON_DETECT_TIMEOUT_MS";
+    public static final String ENV_TLS_KEYSTORE = "HYRCON_TLS_KEYSTORE";
+    public static final String ENV_TLS_KEYSTORE_PASSWORD =
+        "HYRCON_TLS_KEYSTORE_PASSWORD";
+    public static final String ENV_TLS_CLIENT_AUTH = "HYRCON_TLS_CLIENT_AUTH";
+    public static final String ENV_TLS_TRUSTSTORE = "HYRCON_TLS_TRUSTSTORE";
+    public static final String ENV_TLS_TRUSTSTORE_PASSWORD =
+        "HYRCON_TLS_TRUSTSTORE_PASSWORD";
+    public static final String ENV_TLS_HANDSHAKE_TIMEOUT_MS =
+        "HYRCON_TLS_HANDSHAKE_TIMEOUT_MS";
+    public static final String ENV_TLS_SESSION_TIMEOUT_SECONDS =
+        "HYRCON_TLS_SESSION_TIMEOUT_SECONDS";
+    public static final String ENV_AUTH_TIMEOUT_MS = "HYRCON_AUTH_TIMEOUT_MS";
+    public static final String ENV_FRAME_TIMEOUT_MS = "HYRCON_FRAME_TIMEOUT_MS";
+    public static final String ENV_MIN_INBOUND_BYTES_PER_SECOND =
+        "HYRCON_MIN_INBOUND_BYTES_PER_SECOND";
+    public static final String ENV_IDLE_TIMEOUT_MS = "HYRCON_IDLE_TIMEOUT_MS";
+    public static final String ENV_WRITE_TIMEOUT_MS = "HYRCON_WRITE_TIMEOUT_MS";
+    public static final String ENV_AUTH_TARPIT_MS = "HYRCON_AUTH_TARPIT_MS";
+    public static final String ENV_AUTH_BAN_FAILURES =
+        "HYRCON_AUTH_BAN_FAILURES";
+    public static final String ENV_AUTH_BAN_SECONDS = "HYRCON_AUTH_BAN_SECONDS";
+    public static final String ENV_AUTH_TRACKED_ADDRESSES =
+        "HYRCON_AUTH_TRACKED_ADDRESSES";
+    public static final String ENV_LISTENERS = "HYRCON_LISTENERS";
+    /**
+     * Prefix of the variables configuring a named listener, followed by the
+     * upper-cased listener name and option, such as
+     * {@code HYRCON_LISTENER_LOCAL_PORT}.
+     */
+    public static final String ENV_LISTENER_PREFIX = "HYRCON_LISTENER_";
 
     public static final String CONFIG_FILE_NAME = "config.yml";
     public static final String CONFIG_EXAMPLE_FILE_NAME = "config.yml.example";
@@ -47,25 +117,207 @@ public final class HyRconConfiguration {
     public static final int DEFAULT_PORT = 25575;
     public static final HyRconProtocol DEFAULT_PROTOCOL =
         HyRconProtocol.SOURCE_RCON;
+    public static final HyRconTransport DEFAULT_TRANSPORT =
+        HyRconTransport.BLOCKING;
+    public static final int DEFAULT_EVENT_LOOP_THREADS = 0;
+    public static final HyRconExecutionMode DEFAULT_EXECUTION_MODE =
+        HyRconExecutionMode.PLATFORM;
+    public static final int DEFAULT_MAX_CLIENTS = 0;
+    public static final int DEFAULT_CLIENT_QUEUE = 16;
+    public static final boolean DEFAULT_DIRECT_BUFFERS = false;
+    public static final int DEFAULT_PIPELINE_DEPTH = 1;
+    public static final boolean DEFAULT_STREAM_OUTPUT = false;
+    public static final int DEFAULT_STREAM_LINGER_MS = 20;
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024;
+    // Smallest Source RCON packet: length field plus an empty body.
+    private static final int MIN_FRAME_SIZE = 14;
+    public static final int DEFAULT_MAX_CONNECTION_BUFFER = 256 * 1024;
+    public static final long DEFAULT_MAX_BUFFERED_BYTES = 32L * 1024 * 1024;
+    public static final String DEFAULT_METRICS_HOST = "127.0.0.1";
+    public static final int DEFAULT_METRICS_PORT = 0;
+    public static final String DEFAULT_ACCESS_LOG_FILE = "";
+    public static final long DEFAULT_ACCESS_LOG_MAX_BYTES = 10L * 1024 * 1024;
+    public static final int DEFAULT_ACCESS_LOG_MAX_FILES = 5;
+    public static final int DEFAULT_ACCESS_LOG_BUFFER = 8192;
+    public static final HyRconAccessLogOverflow DEFAULT_ACCESS_LOG_OVERFLOW =
+        HyRconAccessLogOverflow.DROP;
+    public static final String DEFAULT_AUDIT_DIR = "";
+    public static final int DEFAULT_AUDIT_SEGMENT_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_AUDIT_RETENTION_DAYS = 90;
+    public static final long DEFAULT_AUDIT_SYNC_MS = 1000;
+    public static final int DEFAULT_DETECT_TIMEOUT_MS = 300;
+    public static final HyRconTlsClientAuth DEFAULT_TLS_CLIENT_AUTH =
+        HyRconTlsClientAuth.NONE;
+    public static final int DEFAULT_TLS_HANDSHAKE_TIMEOUT_MS = 10_000;
+    public static final int DEFAULT_TLS_SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+    public static final int DEFAULT_AUTH_TIMEOUT_MS = 30_000;
+    public static final int DEFAULT_FRAME_TIMEOUT_MS = 30_000;
+    public static final int DEFAULT_MIN_INBOUND_BYTES_PER_SECOND = 0;
+    public static final int DEFAULT_IDLE_TIMEOUT_MS = 0;
+    public static final int DEFAULT_WRITE_TIMEOUT_MS = 30_000;
+    public static final int DEFAULT_AUTH_TARPIT_MS = 500;
+    // Off, since clients behind a proxy or NAT share one address.
+    public static final int DEFAULT_AUTH_BAN_FAILURES = 0;
+    public static final int DEFAULT_AUTH_BAN_SECONDS = 10 * 60;
+    public static final int DEFAULT_AUTH_TRACKED_ADDRESSES = 4096;
+    public static final String DEFAULT_LISTENER_NAME = "default";
+    public static final String DEFAULT_SOCKET_PERMISSIONS = "rw-------";
+    private static final String LISTENER_KEY_PREFIX = "listener.";
+    private static final List<String> LISTENER_OPTIONS = List.of(
+        "bind",
+        "host",
+        "port",
+        "socket",
+        "socket_permissions",
+        "password",
+        "protocol",
+        "pipeline_depth",
+        "max_frame_size",
+        "stream_output",
+        "detect_timeout_ms",
+        "tls_keystore",
+        "tls_keystore_password",
+        "tls_client_auth",
+        "tls_truststore",
+        "tls_truststore_password",
+        "tls_handshake_timeout_ms",
+        "tls_session_timeout_seconds"
+    );
+    private static final int MIN_AUDIT_SEGMENT_BYTES = 64 * 1024;
+    private static final int MAX_ACCESS_LOG_BUFFER = 1 << 20;
 
     private final boolean enabled;
     private final String host;
     private final int port;
     private final Optional<String> password;
     private final HyRconProtocol protocol;
+    private final HyRconTransport transport;
+    private final int eventLoopThreads;
+    private final HyRconExecutionMode executionMode;
+    private final int maxClients;
+    private final int clientQueueDepth;
+    private final boolean directBuffers;
+    private final int pipelineDepth;
+    private final boolean streamOutput;
+    private final int streamLingerMillis;
+    private final int maxFrameSize;
+    private final int maxConnectionBuffer;
+    private final long maxBufferedBytes;
+    private final String metricsHost;
+    private final int metricsPort;
+    private final Optional<String> accessLogFile;
+    private final long accessLogMaxBytes;
+    private final int accessLogMaxFiles;
+    private final int accessLogBuffer;
+    private final HyRconAccessLogOverflow accessLogOverflow;
+    private final Optional<String> auditDir;
+    private final int auditSegmentBytes;
+    private final int auditRetentionDays;
+    private final long auditSyncMillis;
+    private final int detectTimeoutMillis;
+    private final HyRconTlsConfiguration tls;
+    private final int authTimeoutMillis;
+    private final int frameTimeoutMillis;
+    private final int minInboundBytesPerSecond;
+    private final int idleTimeoutMillis;
+    private final int writeTimeoutMillis;
+    private final int authTarpitMillis;
+    private final int authBanFailures;
+    private final int authBanSeconds;
+    private final int authTrackedAddresses;
+    private final List<HyRconListenerConfiguration> listeners;
 
     private HyRconConfiguration(
         boolean enabled,
         String host,
         int port,
         Optional<String> password,
-        HyRconProtocol protocol
+        HyRconProtocol protocol,
+        HyRconTransport transport,
+        int eventLoopThreads,
+        HyRconExecutionMode executionMode,
+        int maxClients,
+        int clientQueueDepth,
+        boolean directBuffers,
+        int pipelineDepth,
+        boolean streamOutput,
+        int streamLingerMillis,
+        int maxFrameSize,
+        int maxConnectionBuffer,
+        long maxBufferedBytes,
+        String metricsHost,
+        int metricsPort,
+        Optional<String> accessLogFile,
+        long accessLogMaxBytes,
+        int accessLogMaxFiles,
+        int accessLogBuffer,
+        HyRconAccessLogOverflow accessLogOverflow,
+        Optional<String> auditDir,
+        int auditSegmentBytes,
+        int auditRetentionDays,
+        long auditSyncMillis,
+        int detectTimeoutMillis,
+        HyRconTlsConfiguration tls,
+        int authTimeoutMillis,
+        int frameTimeoutMillis,
+        int minInboundBytesPerSecond,
+        int idleTimeoutMillis,
+        int writeTimeoutMillis,
+        int authTarpitMillis,
+        int authBanFailures,
+        int authBanSeconds,
+        int authTrackedAddresses,
+        List<HyRconListenerConfiguration> listeners
     ) {
         this.enabled = enabled;
         this.host = Objects.requireNonNull(host, "host");
         this.port = validatePort(port);
         this.password = Objects.requireNonNull(password, "password");
         this.protocol = Objects.requireNonNull(protocol, "protocol");
+        this.transport = Objects.requireNonNull(transport, "transport");
+        this.eventLoopThreads = eventLoopThreads;
+        this.executionMode = Objects.requireNonNull(
+            executionMode,
+            "executionMode"
+        );
+        this.maxClients = maxClients;
+        this.clientQueueDepth = clientQueueDepth;
+        this.directBuffers = directBuffers;
+        this.pipelineDepth = pipelineDepth;
+        this.streamOutput = streamOutput;
+        this.streamLingerMillis = streamLingerMillis;
+        this.maxFrameSize = maxFrameSize;
+        this.maxConnectionBuffer = maxConnectionBuffer;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.metricsHost = metricsHost;
+        this.metricsPort = metricsPort;
+        this.accessLogFile = Objects.requireNonNull(
+            accessLogFile,
+            "accessLogFile"
+        );
+        this.accessLogMaxBytes = accessLogMaxBytes;
+        this.accessLogMaxFiles = accessLogMaxFiles;
+        this.accessLogBuffer = accessLogBuffer;
+        this.accessLogOverflow = Objects.requireNonNull(
+            accessLogOverflow,
+            "accessLogOverflow"
+        );
+        this.auditDir = Objects.requireNonNull(auditDir, "auditDir");
+        this.auditSegmentBytes = auditSegmentBytes;
+        this.auditRetentionDays = auditRetentionDays;
+        this.auditSyncMillis = auditSyncMillis;
+        this.detectTimeoutMillis = detectTimeoutMillis;
+        this.tls = Objects.requireNonNull(tls, "tls");
+        this.authTimeoutMillis = authTimeoutMillis;
+        this.frameTimeoutMillis = frameTimeoutMillis;
+        this.minInboundBytesPerSecond = minInboundBytesPerSecond;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.authTarpitMillis = authTarpitMillis;
+        this.authBanFailures = authBanFailures;
+        this.authBanSeconds = authBanSeconds;
+        this.authTrackedAddresses = authTrackedAddresses;
+        this.listeners = List.copyOf(listeners);
     }
 
     public static HyRconConfiguration load(Path dataDirectory) {
@@ -124,8 +376,287 @@ public final class HyRconConfiguration {
         Optional<String> password = sanitizePassword(
             firstValue(environment, ENV_PASSWORD, LEGACY_ENV_PASSWORD)
         );
+        HyRconTransport transport = parseTransport(
+            environment.get(ENV_TRANSPORT)
+        );
+        int eventLoopThreads = resolveEventLoopThreads(
+            parseNonNegativeInt(
+                environment.get(ENV_EVENT_LOOP_THREADS),
+                DEFAULT_EVENT_LOOP_THREADS,
+                ENV_EVENT_LOOP_THREADS
+            )
+        );
+        HyRconExecutionMode executionMode = parseExecutionMode(
+            environment.get(ENV_EXECUTION_MODE)
+        );
+        int maxClients = parseNonNegativeInt(
+            environment.get(ENV_MAX_CLIENTS),
+            DEFAULT_MAX_CLIENTS,
+            ENV_MAX_CLIENTS
+        );
+        int clientQueueDepth = parseNonNegativeInt(
+            environment.get(ENV_CLIENT_QUEUE),
+            DEFAULT_CLIENT_QUEUE,
+            ENV_CLIENT_QUEUE
+        );
+        boolean directBuffers = parseBoolean(
+            environment.get(ENV_DIRECT_BUFFERS),
+            DEFAULT_DIRECT_BUFFERS,
+            ENV_DIRECT_BUFFERS
+        );
+        int pipelineDepth = parseNonNegativeInt(
+            environment.get(ENV_PIPELINE_DEPTH),
+            DEFAULT_PIPELINE_DEPTH,
+            ENV_PIPELINE_DEPTH
+        );
+        if (pipelineDepth < 1) {
+            throw new IllegalArgumentException(
+                ENV_PIPELINE_DEPTH + " must be at least 1"
+            );
+        }
+        boolean streamOutput = parseBoolean(
+            environment.get(ENV_STREAM_OUTPUT),
+            DEFAULT_STREAM_OUTPUT,
+            ENV_STREAM_OUTPUT
+        );
+        int streamLingerMillis = parseNonNegativeInt(
+            environment.get(ENV_STREAM_LINGER_MS),
+            DEFAULT_STREAM_LINGER_MS,
+            ENV_STREAM_LINGER_MS
+        );
+        int maxFrameSize = parseNonNegativeInt(
+            environment.get(ENV_MAX_FRAME_SIZE),
+            DEFAULT_MAX_FRAME_SIZE,
+            ENV_MAX_FRAME_SIZE
+        );
+        if (maxFrameSize < MIN_FRAME_SIZE) {
+            throw new IllegalArgumentException(
+                ENV_MAX_FRAME_SIZE + " must be at least " + MIN_FRAME_SIZE
+            );
+        }
+        int maxConnectionBuffer = parseNonNegativeInt(
+            environment.get(ENV_MAX_CONNECTION_BUFFER),
+            DEFAULT_MAX_CONNECTION_BUFFER,
+            ENV_MAX_CONNECTION_BUFFER
+        );
+        if (maxConnectionBuffer < maxFrameSize) {
+            throw new IllegalArgumentException(
+                ENV_MAX_CONNECTION_BUFFER +
+                    " must not be smaller than " +
+                    ENV_MAX_FRAME_SIZE
+            );
+        }
+        long maxBufferedBytes = parseNonNegativeLong(
+            environment.get(ENV_MAX_BUFFERED_BYTES),
+            DEFAULT_MAX_BUFFERED_BYTES,
+            ENV_MAX_BUFFERED_BYTES
+        );
 
-        return new HyRconConfiguration(enabled, host, port, password, protocol);
+        String metricsHost = sanitizeMetricsHost(
+            environment.get(ENV_METRICS_HOST)
+        );
+        int metricsPort = parseNonNegativeInt(
+            environment.get(ENV_METRICS_PORT),
+            DEFAULT_METRICS_PORT,
+            ENV_METRICS_PORT
+        );
+        if (metricsPort > 65535) {
+            throw new IllegalArgumentException(
+                ENV_METRICS_PORT + " must be in the range [0, 65535]"
+            );
+        }
+        Optional<String> accessLogFile = sanitizeOptional(
+            environment.get(ENV_ACCESS_LOG_FILE)
+        );
+        long accessLogMaxBytes = parseNonNegativeLong(
+            environment.get(ENV_ACCESS_LOG_MAX_BYTES),
+            DEFAULT_ACCESS_LOG_MAX_BYTES,
+            ENV_ACCESS_LOG_MAX_BYTES
+        );
+        int accessLogMaxFiles = parseNonNegativeInt(
+            environment.get(ENV_ACCESS_LOG_MAX_FILES),
+            DEFAULT_ACCESS_LOG_MAX_FILES,
+            ENV_ACCESS_LOG_MAX_FILES
+        );
+        int accessLogBuffer = parseNonNegativeInt(
+            environment.get(ENV_ACCESS_LOG_BUFFER),
+            DEFAULT_ACCESS_LOG_BUFFER,
+            ENV_ACCESS_LOG_BUFFER
+        );
+        if (accessLogBuffer < 1 || accessLogBuffer > MAX_ACCESS_LOG_BUFFER) {
+            throw new IllegalArgumentException(
+                ENV_ACCESS_LOG_BUFFER +
+                    " must be in the range [1, " +
+                    MAX_ACCESS_LOG_BUFFER +
+                    "]"
+            );
+        }
+        HyRconAccessLogOverflow accessLogOverflow = parseAccessLogOverflow(
+            environment.get(ENV_ACCESS_LOG_OVERFLOW)
+        );
+        Optional<String> auditDir = sanitizeOptional(
+            environment.get(ENV_AUDIT_DIR)
+        );
+        int auditSegmentBytes = parseNonNegativeInt(
+            environment.get(ENV_AUDIT_SEGMENT_BYTES),
+            DEFAULT_AUDIT_SEGMENT_BYTES,
+            ENV_AUDIT_SEGMENT_BYTES
+        );
+        if (auditSegmentBytes < MIN_AUDIT_SEGMENT_BYTES) {
+            throw new IllegalArgumentException(
+                ENV_AUDIT_SEGMENT_BYTES +
+                    " must be at least " +
+                    MIN_AUDIT_SEGMENT_BYTES
+            );
+        }
+        int auditRetentionDays = parseNonNegativeInt(
+            environment.get(ENV_AUDIT_RETENTION_DAYS),
+            DEFAULT_AUDIT_RETENTION_DAYS,
+            ENV_AUDIT_RETENTION_DAYS
+        );
+        long auditSyncMillis = parseNonNegativeLong(
+            environment.get(ENV_AUDIT_SYNC_MS),
+            DEFAULT_AUDIT_SYNC_MS,
+            ENV_AUDIT_SYNC_MS
+        );
+        int detectTimeoutMillis = parseNonNegativeInt(
+            environment.get(ENV_DETECT_TIMEOUT_MS),
+            DEFAULT_DETECT_TIMEOUT_MS,
+            ENV_DETECT_TIMEOUT_MS
+        );
+        if (detectTimeoutMillis == 0) {
+            throw new IllegalArgumentException(
+                ENV_DETECT_TIMEOUT_MS + " must be positive"
+            );
+        }
+        int authTimeoutMillis = parseNonNegativeInt(
+            environment.get(ENV_AUTH_TIMEOUT_MS),
+            DEFAULT_AUTH_TIMEOUT_MS,
+            ENV_AUTH_TIMEOUT_MS
+        );
+        int frameTimeoutMillis = parseNonNegativeInt(
+            environment.get(ENV_FRAME_TIMEOUT_MS),
+            DEFAULT_FRAME_TIMEOUT_MS,
+            ENV_FRAME_TIMEOUT_MS
+        );
+        int minInboundBytesPerSecond = parseNonNegativeInt(
+            environment.get(ENV_MIN_INBOUND_BYTES_PER_SECOND),
+            DEFAULT_MIN_INBOUND_BYTES_PER_SECOND,
+            ENV_MIN_INBOUND_BYTES_PER_SECOND
+        );
+        int idleTimeoutMillis = parseNonNegativeInt(
+            environment.get(ENV_IDLE_TIMEOUT_MS),
+            DEFAULT_IDLE_TIMEOUT_MS,
+            ENV_IDLE_TIMEOUT_MS
+        );
+        int writeTimeoutMillis = parseNonNegativeInt(
+            environment.get(ENV_WRITE_TIMEOUT_MS),
+            DEFAULT_WRITE_TIMEOUT_MS,
+            ENV_WRITE_TIMEOUT_MS
+        );
+        int authTarpitMillis = parseNonNegativeInt(
+            environment.get(ENV_AUTH_TARPIT_MS),
+            DEFAULT_AUTH_TARPIT_MS,
+            ENV_AUTH_TARPIT_MS
+        );
+        int authBanFailures = parseNonNegativeInt(
+            environment.get(ENV_AUTH_BAN_FAILURES),
+            DEFAULT_AUTH_BAN_FAILURES,
+            ENV_AUTH_BAN_FAILURES
+        );
+        int authBanSeconds = parseNonNegativeInt(
+            environment.get(ENV_AUTH_BAN_SECONDS),
+            DEFAULT_AUTH_BAN_SECONDS,
+            ENV_AUTH_BAN_SECONDS
+        );
+        if (authBanSeconds == 0) {
+            throw new IllegalArgumentException(
+                ENV_AUTH_BAN_SECONDS + " must be positive"
+            );
+        }
+        int authTrackedAddresses = parseNonNegativeInt(
+            environment.get(ENV_AUTH_TRACKED_ADDRESSES),
+            DEFAULT_AUTH_TRACKED_ADDRESSES,
+            ENV_AUTH_TRACKED_ADDRESSES
+        );
+        if (authTrackedAddresses == 0) {
+            throw new IllegalArgumentException(
+                ENV_AUTH_TRACKED_ADDRESSES + " must be positive"
+            );
+        }
+        HyRconTlsConfiguration tls = parseTls(
+            environment,
+            option -> "HYRCON_" + option.toUpperCase(Locale.ROOT),
+            new HyRconTlsConfiguration(
+                Optional.empty(),
+                Optional.empty(),
+                DEFAULT_TLS_CLIENT_AUTH,
+                Optional.empty(),
+                Optional.empty(),
+                DEFAULT_TLS_HANDSHAKE_TIMEOUT_MS,
+                DEFAULT_TLS_SESSION_TIMEOUT_SECONDS
+            )
+        );
+        List<HyRconListenerConfiguration> listeners = parseListeners(
+            environment,
+            new HyRconListenerConfiguration(
+                DEFAULT_LISTENER_NAME,
+                host,
+                port,
+                password,
+                protocol,
+                pipelineDepth,
+                maxFrameSize,
+                streamOutput,
+                detectTimeoutMillis,
+                Optional.empty(),
+                PosixFilePermissions.fromString(DEFAULT_SOCKET_PERMISSIONS),
+                tls
+            ),
+            maxConnectionBuffer
+        );
+        return new HyRconConfiguration(
+            enabled,
+            host,
+            port,
+            password,
+            protocol,
+            transport,
+            eventLoopThreads,
+            executionMode,
+            maxClients,
+            clientQueueDepth,
+            directBuffers,
+            pipelineDepth,
+            streamOutput,
+            streamLingerMillis,
+            maxFrameSize,
+            maxConnectionBuffer,
+            maxBufferedBytes,
+            metricsHost,
+            metricsPort,
+            accessLogFile,
+            accessLogMaxBytes,
+            accessLogMaxFiles,
+            accessLogBuffer,
+            accessLogOverflow,
+            auditDir,
+            auditSegmentBytes,
+            auditRetentionDays,
+            auditSyncMillis,
+            detectTimeoutMillis,
+            tls,
+            authTimeoutMillis,
+            frameTimeoutMillis,
+            minInboundBytesPerSecond,
+            idleTimeoutMillis,
+            writeTimeoutMillis,
+            authTarpitMillis,
+            authBanFailures,
+            authBanSeconds,
+            authTrackedAddresses,
+            listeners
+        );
     }
 
     public boolean enabled() {
@@ -148,6 +679,268 @@ public final class HyRconConfiguration {
         return protocol;
     }
 
+    public HyRconTransport transport() {
+        return transport;
+    }
+
+    public int eventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public HyRconExecutionMode executionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Maximum number of concurrently served clients, or {@code 0} when the
+     * number of clients is unbounded.
+     */
+    public int maxClients() {
+        return maxClients;
+    }
+
+    /**
+     * Number of accepted clients allowed to wait for a free slot once
+     * {@link #maxClients()} is reached; further clients are rejected as busy.
+     */
+    public int clientQueueDepth() {
+        return clientQueueDepth;
+    }
+
+    /**
+     * Whether socket and pooled response buffers are allocated off-heap.
+     */
+    public boolean directBuffers() {
+        return directBuffers;
+    }
+
+    /**
+     * Number of Source RCON commands a single client may have in flight at
+     * once; {@code 1} handles commands strictly one after another.
+     */
+    public int pipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * Whether command output is sent to clients while the command is still
+     * running rather than once it has completed.
+     */
+    public boolean streamOutput() {
+        return streamOutput;
+    }
+
+    /**
+     * How long streamed output may wait for more lines before it is sent.
+     */
+    public int streamLingerMillis() {
+        return streamLingerMillis;
+    }
+
+    /**
+     * Largest inbound Source RCON packet or HyRCON command line, in bytes,
+     * that a client may send before it is disconnected.
+     */
+    public int maxFrameSize() {
+        return maxFrameSize;
+    }
+
+    /**
+     * Most inbound bytes a single client may have buffered at once.
+     */
+    public int maxConnectionBuffer() {
+        return maxConnectionBuffer;
+    }
+
+    /**
+     * Most inbound bytes buffered across all clients, or {@code 0} when the
+     * total is unbounded.
+     */
+    public long maxBufferedBytes() {
+        return maxBufferedBytes;
+    }
+
+    /**
+     * Address the OpenMetrics endpoint listens on.
+     */
+    public String metricsHost() {
+        return metricsHost;
+    }
+
+    /**
+     * Port of the OpenMetrics endpoint, or {@code 0} when it is disabled.
+     */
+    public int metricsPort() {
+        return metricsPort;
+    }
+
+    /**
+     * File the access log is written to, relative to the plugin data
+     * directory unless absolute. When empty, session events are logged to the
+     * server log instead.
+     */
+    public Optional<String> accessLogFile() {
+        return accessLogFile;
+    }
+
+    /**
+     * Size in bytes at which the access log is rotated, or {@code 0} to never
+     * rotate it.
+     */
+    public long accessLogMaxBytes() {
+        return accessLogMaxBytes;
+    }
+
+    /**
+     * Rotated access log files kept next to the active one.
+     */
+    public int accessLogMaxFiles() {
+        return accessLogMaxFiles;
+    }
+
+    /**
+     * Access log records that may wait for the writer thread, rounded up to a
+     * power of two.
+     */
+    public int accessLogBuffer() {
+        return accessLogBuffer;
+    }
+
+    /**
+     * What sessions do when the access log buffer is full.
+     */
+    public HyRconAccessLogOverflow accessLogOverflow() {
+        return accessLogOverflow;
+    }
+
+    /**
+     * Directory holding the command audit journal, relative to the plugin
+     * data directory unless absolute. When empty, commands are not journaled.
+     */
+    public Optional<String> auditDir() {
+        return auditDir;
+    }
+
+    /**
+     * Size in bytes of each memory-mapped audit journal segment.
+     */
+    public int auditSegmentBytes() {
+        return auditSegmentBytes;
+    }
+
+    /**
+     * Days audit journal segments are kept once they are full, or {@code 0}
+     * to keep them forever.
+     */
+    public int auditRetentionDays() {
+        return auditRetentionDays;
+    }
+
+    /**
+     * Milliseconds between forcing the audit journal to disk, or {@code 0} to
+     * force it after every command.
+     */
+    public long auditSyncMillis() {
+        return auditSyncMillis;
+    }
+
+    /**
+     * Milliseconds a listener using {@link HyRconProtocol#AUTO} waits for the
+     * first bytes of a connection before greeting it as a HyRCON client.
+     */
+    public int detectTimeoutMillis() {
+        return detectTimeoutMillis;
+    }
+
+    /**
+     * TLS settings inherited by every listener.
+     */
+    public HyRconTlsConfiguration tls() {
+        return tls;
+    }
+
+    /**
+     * Milliseconds a client that has to send a password may stay connected
+     * without authenticating, or {@code 0} to wait forever.
+     */
+    public int authTimeoutMillis() {
+        return authTimeoutMillis;
+    }
+
+    /**
+     * Milliseconds a client may take to complete a frame once its first bytes
+     * arrived, or {@code 0} to wait forever.
+     */
+    public int frameTimeoutMillis() {
+        return frameTimeoutMillis;
+    }
+
+    /**
+     * Bytes per second a client has to average while sending a frame, or
+     * {@code 0} to accept any rate.
+     */
+    public int minInboundBytesPerSecond() {
+        return minInboundBytesPerSecond;
+    }
+
+    /**
+     * Milliseconds a connection may go without traffic while no command is
+     * running, or {@code 0} to keep idle connections open.
+     */
+    public int idleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Milliseconds written output may wait for the client to read it before
+     * the client is disconnected, or {@code 0} to wait forever.
+     */
+    public int writeTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    /**
+     * Milliseconds the answer to a client's first failed authentication is
+     * held back, doubling with every further failure from its address, or
+     * {@code 0} to answer at once.
+     */
+    public int authTarpitMillis() {
+        return authTarpitMillis;
+    }
+
+    /**
+     * Failed authentications after which an address is banned, or {@code 0}
+     * to never ban.
+     */
+    public int authBanFailures() {
+        return authBanFailures;
+    }
+
+    /**
+     * Seconds a ban lasts, which is also how long an address's failures are
+     * remembered.
+     */
+    public int authBanSeconds() {
+        return authBanSeconds;
+    }
+
+    /**
+     * Most client addresses whose failed authentications are remembered at a
+     * time.
+     */
+    public int authTrackedAddresses() {
+        return authTrackedAddresses;
+    }
+
+    /**
+     * Endpoints the server accepts clients on, in configuration order. When
+     * {@link #ENV_LISTENERS} is blank this is a single listener named
+     * {@link #DEFAULT_LISTENER_NAME} built from the top-level options.
+     */
+    public List<HyRconListenerConfiguration> listeners() {
+        return listeners;
+    }
+
     public boolean isPasswordRequired() {
         return password.isPresent();
     }
@@ -165,6 +958,76 @@ public final class HyRconConfiguration {
             port +
             ", protocol=" +
             protocol +
+            ", transport=" +
+            transport +
+            ", eventLoopThreads=" +
+            eventLoopThreads +
+            ", executionMode=" +
+            executionMode +
+            ", maxClients=" +
+            maxClients +
+            ", clientQueueDepth=" +
+            clientQueueDepth +
+            ", directBuffers=" +
+            directBuffers +
+            ", pipelineDepth=" +
+            pipelineDepth +
+            ", streamOutput=" +
+            streamOutput +
+            ", streamLingerMillis=" +
+            streamLingerMillis +
+            ", maxFrameSize=" +
+            maxFrameSize +
+            ", maxConnectionBuffer=" +
+            maxConnectionBuffer +
+            ", maxBufferedBytes=" +
+            maxBufferedBytes +
+            ", metricsHost=" +
+            metricsHost +
+            ", metricsPort=" +
+            metricsPort +
+            ", accessLogFile=" +
+            accessLogFile.orElse("<none>") +
+            ", accessLogMaxBytes=" +
+            accessLogMaxBytes +
+            ", accessLogMaxFiles=" +
+            accessLogMaxFiles +
+            ", accessLogBuffer=" +
+            accessLogBuffer +
+            ", accessLogOverflow=" +
+            accessLogOverflow +
+            ", auditDir=" +
+            auditDir.orElse("<none>") +
+            ", auditSegmentBytes=" +
+            auditSegmentBytes +
+            ", auditRetentionDays=" +
+            auditRetentionDays +
+            ", auditSyncMillis=" +
+            auditSyncMillis +
+            ", detectTimeoutMillis=" +
+            detectTimeoutMillis +
+            ", tls=" +
+            tls +
+            ", authTimeoutMillis=" +
+            authTimeoutMillis +
+            ", frameTimeoutMillis=" +
+            frameTimeoutMillis +
+            ", minInboundBytesPerSecond=" +
+            minInboundBytesPerSecond +
+            ", idleTimeoutMillis=" +
+            idleTimeoutMillis +
+            ", writeTimeoutMillis=" +
+            writeTimeoutMillis +
+            ", authTarpitMillis=" +
+            authTarpitMillis +
+            ", authBanFailures=" +
+            authBanFailures +
+            ", authBanSeconds=" +
+            authBanSeconds +
+            ", authTrackedAddresses=" +
+            authTrackedAddresses +
+            ", listeners=" +
+            listeners +
             ", password=" +
             password.map(HyRconConfiguration::mask).orElse("<none>") +
             '}'
@@ -236,7 +1099,134 @@ public final class HyRconConfiguration {
                     overrides.put(ENV_PROTOCOL, value);
                     overrides.put(LEGACY_ENV_PROTOCOL, value);
                     break;
+                case "transport":
+                    overrides.put(ENV_TRANSPORT, value);
+                    break;
+                case "event_loop_threads":
+                    overrides.put(ENV_EVENT_LOOP_THREADS, value);
+                    break;
+                case "execution_mode":
+                    overrides.put(ENV_EXECUTION_MODE, value);
+                    break;
+                case "max_clients":
+                    overrides.put(ENV_MAX_CLIENTS, value);
+                    break;
+                case "client_queue":
+                    overrides.put(ENV_CLIENT_QUEUE, value);
+                    break;
+                case "direct_buffers":
+                    overrides.put(ENV_DIRECT_BUFFERS, value);
+                    break;
+                case "pipeline_depth":
+                    overrides.put(ENV_PIPELINE_DEPTH, value);
+                    break;
+                case "stream_output":
+                    overrides.put(ENV_STREAM_OUTPUT, value);
+                    break;
+                case "stream_linger_ms":
+                    overrides.put(ENV_STREAM_LINGER_MS, value);
+                    break;
+                case "max_frame_size":
+                    overrides.put(ENV_MAX_FRAME_SIZE, value);
+                    break;
+                case "max_connection_buffer":
+                    overrides.put(ENV_MAX_CONNECTION_BUFFER, value);
+                    break;
+                case "max_buffered_bytes":
+                    overrides.put(ENV_MAX_BUFFERED_BYTES, value);
+                    break;
+                case "metrics_host":
+                    overrides.put(ENV_METRICS_HOST, value);
+                    break;
+                case "metrics_port":
+                    overrides.put(ENV_METRICS_PORT, value);
+                    break;
+                case "access_log_file":
+                    overrides.put(ENV_ACCESS_LOG_FILE, value);
+                    break;
+                case "access_log_max_bytes":
+                    overrides.put(ENV_ACCESS_LOG_MAX_BYTES, value);
+                    break;
+                case "access_log_max_files":
+                    overrides.put(ENV_ACCESS_LOG_MAX_FILES, value);
+                    break;
+                case "access_log_buffer":
+                    overrides.put(ENV_ACCESS_LOG_BUFFER, value);
+                    break;
+                case "access_log_overflow":
+                    overrides.put(ENV_ACCESS_LOG_OVERFLOW, value);
+                    break;
+                case "audit_dir":
+                    overrides.put(ENV_AUDIT_DIR, value);
+                    break;
+                case "audit_segment_bytes":
+                    overrides.put(ENV_AUDIT_SEGMENT_BYTES, value);
+                    break;
+                case "audit_retention_days":
+                    overrides.put(ENV_AUDIT_RETENTION_DAYS, value);
+                    break;
+                case "audit_sync_ms":
+                    overrides.put(ENV_AUDIT_SYNC_MS, value);
+                    break;
+                case "detect_timeout_ms":
+                    overrides.put(ENV_DETECT_TIMEOUT_MS, value);
+                    break;
+                case "tls_keystore":
+                    overrides.put(ENV_TLS_KEYSTORE, value);
+                    break;
+                case "tls_keystore_password":
+                    overrides.put(ENV_TLS_KEYSTORE_PASSWORD, value);
+                    break;
+                case "tls_client_auth":
+                    overrides.put(ENV_TLS_CLIENT_AUTH, value);
+                    break;
+                case "tls_truststore":
+                    overrides.put(ENV_TLS_TRUSTSTORE, value);
+                    break;
+                case "tls_truststore_password":
+                    overrides.put(ENV_TLS_TRUSTSTORE_PASSWORD, value);
+                    break;
+                case "tls_handshake_timeout_ms":
+                    overrides.put(ENV_TLS_HANDSHAKE_TIMEOUT_MS, value);
+                    break;
+                case "tls_session_timeout_seconds":
+                    overrides.put(ENV_TLS_SESSION_TIMEOUT_SECONDS, value);
+                    break;
+                case "auth_timeout_ms":
+                    overrides.put(ENV_AUTH_TIMEOUT_MS, value);
+                    break;
+                case "frame_timeout_ms":
+                    overrides.put(ENV_FRAME_TIMEOUT_MS, value);
+                    break;
+                case "min_inbound_bytes_per_second":
+                    overrides.put(ENV_MIN_INBOUND_BYTES_PER_SECOND, value);
+                    break;
+                case "idle_timeout_ms":
+                    overrides.put(ENV_IDLE_TIMEOUT_MS, value);
+                    break;
+                case "write_timeout_ms":
+                    overrides.put(ENV_WRITE_TIMEOUT_MS, value);
+                    break;
+                case "auth_tarpit_ms":
+                    overrides.put(ENV_AUTH_TARPIT_MS, value);
+                    break;
+                case "auth_ban_failures":
+                    overrides.put(ENV_AUTH_BAN_FAILURES, value);
+                    break;
+                case "auth_ban_seconds":
+                    overrides.put(ENV_AUTH_BAN_SECONDS, value);
+                    break;
+                case "auth_tracked_addresses":
+                    overrides.put(ENV_AUTH_TRACKED_ADDRESSES, value);
+                    break;
+                case "listeners":
+                    overrides.put(ENV_LISTENERS, value);
+                    break;
                 default:
+                    String listenerVariable = listenerVariable(key);
+                    if (listenerVariable != null) {
+                        overrides.put(listenerVariable, value);
+                    }
                     break;
             }
         }
@@ -287,7 +1277,7 @@ public final class HyRconConfiguration {
             .append(newline);
         builder.append("port: ").append(DEFAULT_PORT).append(newline);
         builder
-            .append("# Protocol to use: hyrcon (legacy) or source.")
+            .append("# Protocol to use: hyrcon (legacy), source, or auto to detect per client.")
             .append(newline);
         builder
             .append("protocol: \"")
@@ -300,86 +1290,391 @@ public final class HyRconConfiguration {
             )
             .append(newline);
         builder.append("password: \"\"").append(newline);
+        builder
+            .append(
+                "# Socket transport: blocking (thread per client) or nio (event loop)."
+            )
+            .append(newline);
+        builder
+            .append("transport: \"")
+            .append(DEFAULT_TRANSPORT.configToken())
+            .append('"')
+            .append(newline);
+        builder
+            .append("# Event loop threads for the nio transport; 0 picks a default.")
+            .append(newline);
+        builder
+            .append("event_loop_threads: ")
+            .append(DEFAULT_EVENT_LOOP_THREADS)
+            .append(newline);
+        builder
+            .append("# Client threads: platform or virtual.")
+            .append(newline);
+        builder
+            .append("execution_mode: \"")
+            .append(DEFAULT_EXECUTION_MODE.configToken())
+            .append('"')
+            .append(newline);
+        builder
+            .append("# Maximum concurrent clients; 0 means unbounded.")
+            .append(newline);
+        builder.append("max_clients: ").append(DEFAULT_MAX_CLIENTS).append(newline);
+        builder
+            .append("# Clients that may wait for a slot before being rejected as busy.")
+            .append(newline);
+        builder
+            .append("client_queue: ")
+            .append(DEFAULT_CLIENT_QUEUE)
+            .append(newline);
+        builder
+            .append("# Allocate socket and response buffers off-heap.")
+            .append(newline);
+        builder
+            .append("direct_buffers: ")
+            .append(DEFAULT_DIRECT_BUFFERS)
+            .append(newline);
+        builder
+            .append("# Source RCON commands a client may have in flight at once.")
+            .append(newline);
+        builder
+            .append("pipeline_depth: ")
+            .append(DEFAULT_PIPELINE_DEPTH)
+            .append(newline);
+        builder
+            .append("# Send command output while the command is still running.")
+            .append(newline);
+        builder
+            .append("stream_output: ")
+            .append(DEFAULT_STREAM_OUTPUT)
+            .append(newline);
+        builder
+            .append("# Milliseconds streamed output may wait for more lines.")
+            .append(newline);
+        builder
+            .append("stream_linger_ms: ")
+            .append(DEFAULT_STREAM_LINGER_MS)
+            .append(newline);
+        builder
+            .append("# Largest packet or command line a client may send, in bytes.")
+            .append(newline);
+        builder
+            .append("max_frame_size: ")
+            .append(DEFAULT_MAX_FRAME_SIZE)
+            .append(newline);
+        builder
+            .append("# Inbound bytes a single client may have buffered.")
+            .append(newline);
+        builder
+            .append("max_connection_buffer: ")
+            .append(DEFAULT_MAX_CONNECTION_BUFFER)
+            .append(newline);
+        builder
+            .append("# Inbound bytes buffered across all clients; 0 means unbounded.")
+            .append(newline);
+        builder
+            .append("max_buffered_bytes: ")
+            .append(DEFAULT_MAX_BUFFERED_BYTES)
+            .append(newline);
+        builder
+            .append("# Address of the OpenMetrics endpoint.")
+            .append(newline);
+        builder
+            .append("metrics_host: ")
+            .append(DEFAULT_METRICS_HOST)
+            .append(newline);
+        builder
+            .append("# Port serving OpenMetrics at /metrics; 0 disables the endpoint.")
+            .append(newline);
+        builder
+            .append("metrics_port: ")
+            .append(DEFAULT_METRICS_PORT)
+            .append(newline);
+        builder
+            .append("# JSON lines access log, relative to this directory; blank disables it.")
+            .append(newline);
+        builder.append("access_log_file: \"\"").append(newline);
+        builder
+            .append("# Rotate the access log at this many bytes; 0 never rotates.")
+            .append(newline);
+        builder
+            .append("access_log_max_bytes: ")
+            .append(DEFAULT_ACCESS_LOG_MAX_BYTES)
+            .append(newline);
+        builder
+            .append("# Rotated access log files to keep.")
+            .append(newline);
+        builder
+            .append("access_log_max_files: ")
+            .append(DEFAULT_ACCESS_LOG_MAX_FILES)
+            .append(newline);
+        builder
+            .append("# Access log records buffered for the writer thread.")
+            .append(newline);
+        builder
+            .append("access_log_buffer: ")
+            .append(DEFAULT_ACCESS_LOG_BUFFER)
+            .append(newline);
+        builder
+            .append("# When the access log buffer is full: drop (count and discard) or block.")
+            .append(newline);
+        builder
+            .append("access_log_overflow: \"")
+            .append(DEFAULT_ACCESS_LOG_OVERFLOW.configToken())
+            .append('"')
+            .append(newline);
+        builder
+            .append("# Directory for the binary command audit journal; blank disables it.")
+            .append(newline);
+        builder.append("audit_dir: \"\"").append(newline);
+        builder
+            .append("# Size of each audit journal segment file in bytes.")
+            .append(newline);
+        builder
+            .append("audit_segment_bytes: ")
+            .append(DEFAULT_AUDIT_SEGMENT_BYTES)
+            .append(newline);
+        builder
+            .append("# Days to keep audit journal segments; 0 keeps them forever.")
+            .append(newline);
+        builder
+            .append("audit_retention_days: ")
+            .append(DEFAULT_AUDIT_RETENTION_DAYS)
+            .append(newline);
+        builder
+            .append("# Milliseconds between syncing the audit journal to disk; 0 syncs every command.")
+            .append(newline);
+        builder
+            .append("audit_sync_ms: ")
+            .append(DEFAULT_AUDIT_SYNC_MS)
+            .append(newline);
+        builder
+            .append("# Milliseconds to wait for a client's first bytes when protocol is auto.")
+            .append(newline);
+        builder
+            .append("detect_timeout_ms: ")
+            .append(DEFAULT_DETECT_TIMEOUT_MS)
+            .append(newline);
+        builder
+            .append("# Key store (JKS or PKCS#12) relative to this directory; blank disables TLS.")
+            .append(newline);
+        builder.append("tls_keystore: \"\"").append(newline);
+        builder.append("tls_keystore_password: \"\"").append(newline);
+        builder
+            .append("# Ask clients for a certificate: none, optional or required.")
+            .append(newline);
+        builder
+            .append("# Clients with a trusted certificate skip the password.")
+            .append(newline);
+        builder
+            .append("tls_client_auth: \"")
+            .append(DEFAULT_TLS_CLIENT_AUTH.configToken())
+            .append('"')
+            .append(newline);
+        builder
+            .append("# Trust store client certificates are verified against.")
+            .append(newline);
+        builder.append("tls_truststore: \"\"").append(newline);
+        builder.append("tls_truststore_password: \"\"").append(newline);
+        builder
+            .append("# Milliseconds a client may take to complete the TLS handshake.")
+            .append(newline);
+        builder
+            .append("tls_handshake_timeout_ms: ")
+            .append(DEFAULT_TLS_HANDSHAKE_TIMEOUT_MS)
+            .append(newline);
+        builder
+            .append("# Seconds a reconnecting client may resume its TLS session.")
+            .append(newline);
+        builder
+            .append("tls_session_timeout_seconds: ")
+            .append(DEFAULT_TLS_SESSION_TIMEOUT_SECONDS)
+            .append(newline);
+        builder
+            .append("# Milliseconds a client may take to authenticate; 0 waits forever.")
+            .append(newline);
+        builder
+            .append("auth_timeout_ms: ")
+            .append(DEFAULT_AUTH_TIMEOUT_MS)
+            .append(newline);
+        builder
+            .append("# Milliseconds a client may take to send a whole frame; 0 waits forever.")
+            .append(newline);
+        builder
+            .append("frame_timeout_ms: ")
+            .append(DEFAULT_FRAME_TIMEOUT_MS)
+            .append(newline);
+        builder
+            .append("# Bytes per second a client must keep up while sending a frame; 0 disables.")
+            .append(newline);
+        builder
+            .append("min_inbound_bytes_per_second: ")
+            .append(DEFAULT_MIN_INBOUND_BYTES_PER_SECOND)
+            .append(newline);
+        builder
+            .append("# Milliseconds a connection may stay silent with no command running; 0 never.")
+            .append(newline);
+        builder
+            .append("idle_timeout_ms: ")
+            .append(DEFAULT_IDLE_TIMEOUT_MS)
+            .append(newline);
+        builder
+            .append("# Milliseconds a client may leave a response unread; 0 waits forever.")
+            .append(newline);
+        builder
+            .append("write_timeout_ms: ")
+            .append(DEFAULT_WRITE_TIMEOUT_MS)
+            .append(newline);
+        builder
+            .append("# Milliseconds the first failed login is held back, doubling per failure; 0 off.")
+            .append(newline);
+        builder
+            .append("auth_tarpit_ms: ")
+            .append(DEFAULT_AUTH_TARPIT_MS)
+            .append(newline);
+        builder
+            .append("# Failed logins after which an address is banned, such as 10; 0 never bans.")
+            .append(newline);
+        builder
+            .append("auth_ban_failures: ")
+            .append(DEFAULT_AUTH_BAN_FAILURES)
+            .append(newline);
+        builder
+            .append("# Seconds a ban lasts and failed logins are remembered.")
+            .append(newline);
+        builder
+            .append("auth_ban_seconds: ")
+            .append(DEFAULT_AUTH_BAN_SECONDS)
+            .append(newline);
+        builder
+            .append("# Most addresses whose failed logins are remembered at once.")
+            .append(newline);
+        builder
+            .append("auth_tracked_addresses: ")
+            .append(DEFAULT_AUTH_TRACKED_ADDRESSES)
+            .append(newline);
+        builder
+            .append("# Comma separated listener names to serve instead of the bind address above.")
+            .append(newline);
+        builder
+            .append("# Each listener reads listener.<name>.<option> keys for bind, host, port,")
+            .append(newline);
+        builder
+            .append("# socket, socket_permissions, password, protocol, pipeline_depth,")
+            .append(newline);
+        builder
+            .append("# max_frame_size, stream_output, detect_timeout_ms and the tls_ options,")
+            .append(newline);
+        builder
+            .append("# and inherits the value above for any it leaves unset. A socket path,")
+            .append(newline);
+        builder
+            .append("# relative to this directory, serves a Unix domain socket whose clients")
+            .append(newline);
+        builder.append("# skip AUTH.").append(newline);
+        builder.append("listeners: \"\"").append(newline);
+        builder
+            .append("# listener.local.bind: 127.0.0.1:25576")
+            .append(newline);
+        builder
+            .append("# listener.local.protocol: hyrcon")
+            .append(newline);
+        builder
+            .append("# listener.sidecar.socket: hyrcon.sock")
+            .append(newline);
+        builder
+            .append("# listener.sidecar.socket_permissions: rw-rw----")
+            .append(newline);
+        builder
+            .append("# listener.remote.tls_keystore: hyrcon.p12")
+            .append(newline);
+
+        String templateBody = builder.toString();
+        String versionLine =
+            "# configuration version: " +
+            computeTemplateVersion(templateBody) +
+            newline;
+        String content = versionLine + templateBody;
+
+        try {
+            Files.writeString(examplePath, content, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new IllegalStateException(
+                "Failed to write HyRCON example configuration file: " +
+                    examplePath,
+                ex
+            );
+        }
+    }
+
+    private static String computeTemplateVersion(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(
+                content.getBytes(StandardCharsets.UTF_8)
+            );
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return "sha256:" + hex.substring(0, 12);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(
+                "Failed to compute HyRCON config template hash",
+                ex
+            );
+        }
+    }
+
+    private static String stripInlineComment(String value) {
+        boolean inSingleQuotes = false;
+        boolean inDoubleQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'' && !inDoubleQuotes) {
+                inSingleQuotes = !inSingleQuotes;
+            } else if (c == '\"' && !inSingleQuotes) {
+                inDoubleQuotes = !inDoubleQuotes;
+            } else if (c == '#' && !inSingleQuotes && !inDoubleQuotes) {
+                if (i == 0 || Character.isWhitespace(value.charAt(i - 1))) {
+                    return value.substring(0, i).trim();
+                }
+            }
+        }
+        return value.trim();
+    }
+
+    private static String stripQuotes(String value) {
+        if (value.length() >= 2) {
+            char first = value.charAt(0);
+            char last = value.charAt(value.length() - 1);
+            if (
+                (first == '\"' && last == '\"') ||
+                (first == '\'' && last == '\'')
+            ) {
+                return value.substring(1, value.length() - 1);
+            }
+        }
+        return value;
+    }
+
+    private static boolean parseEnabled(String rawValue) {
+        return parseBoolean(rawValue, DEFAULT_ENABLED, ENABLED_ENV_NAMES);
+    }
+
+    private static boolean parseBoolean(
+        String rawValue,
+        boolean defaultValue,
+        String variableName
+    ) {
+        if (rawValue == null) {
+            return defaultValue;
+        }
+
+        String normalized = rawValue.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return defaultValue;
+        }
 
-        String templateBody = builder.toString();
-        String versionLine =
-            "# configuration version: " +
-            computeTemplateVersion(templateBody) +
-            newline;
-        String content = versionLine + templateBody;
-
-        try {
-            Files.writeString(examplePath, content, StandardCharsets.UTF_8);
-        } catch (IOException ex) {
-            throw new IllegalStateException(
-                "Failed to write HyRCON example configuration file: " +
-                    examplePath,
-                ex
-            );
-        }
-    }
-
-    private static String computeTemplateVersion(String content) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(
-                content.getBytes(StandardCharsets.UTF_8)
-            );
-            StringBuilder hex = new StringBuilder(hash.length * 2);
-            for (byte b : hash) {
-                hex.append(String.format("%02x", b));
-            }
-            return "sha256:" + hex.substring(0, 12);
-        } catch (NoSuchAlgorithmException ex) {
-            throw new IllegalStateException(
-                "Failed to compute HyRCON config template hash",
-                ex
-            );
-        }
-    }
-
-    private static String stripInlineComment(String value) {
-        boolean inSingleQuotes = false;
-        boolean inDoubleQuotes = false;
-        for (int i = 0; i < value.length(); i++) {
-            char c = value.charAt(i);
-            if (c == '\'' && !inDoubleQuotes) {
-                inSingleQuotes = !inSingleQuotes;
-            } else if (c == '\"' && !inSingleQuotes) {
-                inDoubleQuotes = !inDoubleQuotes;
-            } else if (c == '#' && !inSingleQuotes && !inDoubleQuotes) {
-                if (i == 0 || Character.isWhitespace(value.charAt(i - 1))) {
-                    return value.substring(0, i).trim();
-                }
-            }
-        }
-        return value.trim();
-    }
-
-    private static String stripQuotes(String value) {
-        if (value.length() >= 2) {
-            char first = value.charAt(0);
-            char last = value.charAt(value.length() - 1);
-            if (
-                (first == '\"' && last == '\"') ||
-                (first == '\'' && last == '\'')
-            ) {
-                return value.substring(1, value.length() - 1);
-            }
-        }
-        return value;
-    }
-
-    private static boolean parseEnabled(String rawValue) {
-        if (rawValue == null) {
-            return DEFAULT_ENABLED;
-        }
-
-        String normalized = rawValue.trim().toLowerCase(Locale.ROOT);
-        if (normalized.isEmpty()) {
-            return DEFAULT_ENABLED;
-        }
-
         switch (normalized) {
             case "1":
             case "true":
@@ -394,7 +1689,7 @@ public final class HyRconConfiguration {
             default:
                 throw new IllegalArgumentException(
                     "Unsupported boolean value for " +
-                        ENABLED_ENV_NAMES +
+                        variableName +
                         ": " +
                         rawValue
                 );
@@ -410,6 +1705,15 @@ public final class HyRconConfiguration {
         return trimmed.isEmpty() ? DEFAULT_HOST : trimmed;
     }
 
+    private static String sanitizeMetricsHost(String rawValue) {
+        if (rawValue == null) {
+            return DEFAULT_METRICS_HOST;
+        }
+
+        String trimmed = rawValue.trim();
+        return trimmed.isEmpty() ? DEFAULT_METRICS_HOST : trimmed;
+    }
+
     private static int parsePort(String rawValue) {
         return parsePort(rawValue, DEFAULT_PORT);
     }
@@ -452,9 +1756,24 @@ public final class HyRconConfiguration {
         return Optional.of(trimmed);
     }
 
+    private static Optional<String> sanitizeOptional(String rawValue) {
+        if (rawValue == null || rawValue.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(rawValue.trim());
+    }
+
     private static HyRconProtocol parseProtocol(String rawValue) {
+        return parseProtocol(rawValue, DEFAULT_PROTOCOL, PROTOCOL_ENV_NAMES);
+    }
+
+    private static HyRconProtocol parseProtocol(
+        String rawValue,
+        HyRconProtocol defaultProtocol,
+        String variableNames
+    ) {
         if (rawValue == null || rawValue.trim().isEmpty()) {
-            return DEFAULT_PROTOCOL;
+            return defaultProtocol;
         }
 
         try {
@@ -462,7 +1781,25 @@ public final class HyRconConfiguration {
         } catch (IllegalArgumentException ex) {
             throw new IllegalArgumentException(
                 "Unsupported protocol value for " +
-                    PROTOCOL_ENV_NAMES +
+                    variableNames +
+                    ": " +
+                    rawValue,
+                ex
+            );
+        }
+    }
+
+    private static HyRconTransport parseTransport(String rawValue) {
+        if (rawValue == null || rawValue.trim().isEmpty()) {
+            return DEFAULT_TRANSPORT;
+        }
+
+        try {
+            return HyRconTransport.fromToken(rawValue);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(
+                "Unsupported transport value for " +
+                    ENV_TRANSPORT +
                     ": " +
                     rawValue,
                 ex
@@ -470,6 +1807,467 @@ public final class HyRconConfiguration {
         }
     }
 
+    private static HyRconExecutionMode parseExecutionMode(String rawValue) {
+        if (rawValue == null || rawValue.trim().isEmpty()) {
+            return DEFAULT_EXECUTION_MODE;
+        }
+
+        try {
+            return HyRconExecutionMode.fromToken(rawValue);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(
+                "Unsupported execution mode value for " +
+                    ENV_EXECUTION_MODE +
+                    ": " +
+                    rawValue,
+                ex
+            );
+        }
+    }
+
+    private static HyRconAccessLogOverflow parseAccessLogOverflow(
+        String rawValue
+    ) {
+        if (rawValue == null || rawValue.trim().isEmpty()) {
+            return DEFAULT_ACCESS_LOG_OVERFLOW;
+        }
+
+        try {
+            return HyRconAccessLogOverflow.fromToken(rawValue);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(
+                "Unsupported access log overflow value for " +
+                    ENV_ACCESS_LOG_OVERFLOW +
+                    ": " +
+                    rawValue,
+                ex
+            );
+        }
+    }
+
+    private static int parseNonNegativeInt(
+        String rawValue,
+        int defaultValue,
+        String variableName
+    ) {
+        if (rawValue == null || rawValue.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        int value;
+        try {
+            value = Integer.parseInt(rawValue.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                "Invalid numeric value for " + variableName + ": " + rawValue,
+                ex
+            );
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException(
+                "Negative value for " + variableName + ": " + rawValue
+            );
+        }
+        return value;
+    }
+
+    private static long parseNonNegativeLong(
+        String rawValue,
+        long defaultValue,
+        String variableName
+    ) {
+        if (rawValue == null || rawValue.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        long value;
+        try {
+            value = Long.parseLong(rawValue.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                "Invalid numeric value for " + variableName + ": " + rawValue,
+                ex
+            );
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException(
+                "Negative value for " + variableName + ": " + rawValue
+            );
+        }
+        return value;
+    }
+
+    private static int resolveEventLoopThreads(int configured) {
+        if (configured > 0) {
+            return configured;
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(4, processors / 2));
+    }
+
+    private static List<HyRconListenerConfiguration> parseListeners(
+        Map<String, String> environment,
+        HyRconListenerConfiguration defaults,
+        int maxConnectionBuffer
+    ) {
+        String rawNames = environment.get(ENV_LISTENERS);
+        if (rawNames == null || rawNames.trim().isEmpty()) {
+            return List.of(defaults);
+        }
+
+        List<HyRconListenerConfiguration> listeners = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        Map<String, String> endpoints = new HashMap<>();
+        for (String rawName : rawNames.split(",")) {
+            String name = rawName.trim().toLowerCase(Locale.ROOT);
+            if (!isListenerName(name)) {
+                throw new IllegalArgumentException(
+                    "Invalid listener name in " + ENV_LISTENERS + ": " + rawName
+                );
+            }
+            if (!names.add(name)) {
+                throw new IllegalArgumentException(
+                    "Duplicate listener name in " + ENV_LISTENERS + ": " + name
+                );
+            }
+            HyRconListenerConfiguration listener = parseListener(
+                environment,
+                name,
+                defaults,
+                maxConnectionBuffer
+            );
+            String endpoint = listener
+                .socket()
+                .map(socket -> "unix:" + socket)
+                .orElse(listener.host() + ":" + listener.port());
+            String previous = endpoints.putIfAbsent(endpoint, name);
+            if (previous != null) {
+                throw new IllegalArgumentException(
+                    "Listeners " +
+                        previous +
+                        " and " +
+                        name +
+                        " both bind " +
+                        endpoint
+                );
+            }
+            listeners.add(listener);
+        }
+        return listeners;
+    }
+
+    private static HyRconListenerConfiguration parseListener(
+        Map<String, String> environment,
+        String name,
+        HyRconListenerConfiguration defaults,
+        int maxConnectionBuffer
+    ) {
+        String bindVariable = listenerVariable(name, "bind");
+        BindEndpoint bindEndpoint = parseBind(
+            environment.get(bindVariable),
+            bindVariable
+        );
+        String hostValue = environment.get(listenerVariable(name, "host"));
+        String host = bindEndpoint
+            .host()
+            .or(() -> sanitizeOptional(hostValue))
+            .orElse(defaults.host());
+        String portVariable = listenerVariable(name, "port");
+        String portValue = environment.get(portVariable);
+        int port = bindEndpoint
+            .port()
+            .orElseGet(() ->
+                portValue == null || portValue.trim().isEmpty()
+                    ? defaults.port()
+                    : parsePortValue(portValue.trim(), portVariable)
+            );
+        Optional<String> socket = sanitizeOptional(
+            environment.get(listenerVariable(name, "socket"))
+        );
+        String permissionsVariable = listenerVariable(
+            name,
+            "socket_permissions"
+        );
+        Set<PosixFilePermission> socketPermissions = parseSocketPermissions(
+            environment.get(permissionsVariable),
+            defaults.socketPermissions(),
+            permissionsVariable
+        );
+        String passwordVariable = listenerVariable(name, "password");
+        Optional<String> password = sanitizePassword(
+            environment.get(passwordVariable)
+        );
+        if (socket.isPresent()) {
+            // The socket file permissions decide who may connect.
+            if (password.isPresent()) {
+                throw new IllegalArgumentException(
+                    passwordVariable +
+                        " cannot be combined with a socket, whose clients" +
+                        " skip authentication"
+                );
+            }
+        } else {
+            // A blank password inherits rather than disables authentication.
+            password = password.or(defaults::password);
+        }
+        String protocolVariable = listenerVariable(name, "protocol");
+        HyRconProtocol protocol = parseProtocol(
+            environment.get(protocolVariable),
+            defaults.protocol(),
+            protocolVariable
+        );
+        String pipelineVariable = listenerVariable(name, "pipeline_depth");
+        int pipelineDepth = parseNonNegativeInt(
+            environment.get(pipelineVariable),
+            defaults.pipelineDepth(),
+            pipelineVariable
+        );
+        if (pipelineDepth < 1) {
+            throw new IllegalArgumentException(
+                pipelineVariable + " must be at least 1"
+            );
+        }
+        String frameVariable = listenerVariable(name, "max_frame_size");
+        int maxFrameSize = parseNonNegativeInt(
+            environment.get(frameVariable),
+            defaults.maxFrameSize(),
+            frameVariable
+        );
+        if (maxFrameSize < MIN_FRAME_SIZE) {
+            throw new IllegalArgumentException(
+                frameVariable + " must be at least " + MIN_FRAME_SIZE
+            );
+        }
+        if (maxFrameSize > maxConnectionBuffer) {
+            throw new IllegalArgumentException(
+                frameVariable +
+                    " must not be larger than " +
+                    ENV_MAX_CONNECTION_BUFFER
+            );
+        }
+        String streamVariable = listenerVariable(name, "stream_output");
+        boolean streamOutput = parseBoolean(
+            environment.get(streamVariable),
+            defaults.streamOutput(),
+            streamVariable
+        );
+        String detectVariable = listenerVariable(name, "detect_timeout_ms");
+        int detectTimeoutMillis = parseNonNegativeInt(
+            environment.get(detectVariable),
+            defaults.detectTimeoutMillis(),
+            detectVariable
+        );
+        if (detectTimeoutMillis == 0) {
+            throw new IllegalArgumentException(
+                detectVariable + " must be positive"
+            );
+        }
+        return new HyRconListenerConfiguration(
+            name,
+            host,
+            port,
+            password,
+            protocol,
+            pipelineDepth,
+            maxFrameSize,
+            streamOutput,
+            detectTimeoutMillis,
+            socket,
+            socketPermissions,
+            parseTls(
+                environment,
+                option -> listenerVariable(name, option),
+                // Local clients of a socket speak TLS only if asked to.
+                socket.isPresent()
+                    ? withoutKeystore(defaults.tls())
+                    : defaults.tls()
+            )
+        );
+    }
+
+    private static HyRconTlsConfiguration withoutKeystore(
+        HyRconTlsConfiguration tls
+    ) {
+        return new HyRconTlsConfiguration(
+            Optional.empty(),
+            Optional.empty(),
+            tls.clientAuth(),
+            tls.truststore(),
+            tls.truststorePassword(),
+            tls.handshakeTimeoutMillis(),
+            tls.sessionTimeoutSeconds()
+        );
+    }
+
+    /**
+     * Reads TLS settings from the variables {@code variables} maps option
+     * names such as {@code tls_keystore} to. Options left unset or blank take
+     * their value from {@code defaults}.
+     */
+    private static HyRconTlsConfiguration parseTls(
+        Map<String, String> environment,
+        UnaryOperator<String> variables,
+        HyRconTlsConfiguration defaults
+    ) {
+        Optional<String> keystore = sanitizeOptional(
+            environment.get(variables.apply("tls_keystore"))
+        ).or(defaults::keystore);
+        Optional<String> keystorePassword = sanitizePassword(
+            environment.get(variables.apply("tls_keystore_password"))
+        ).or(defaults::keystorePassword);
+        String clientAuthVariable = variables.apply("tls_client_auth");
+        HyRconTlsClientAuth clientAuth = parseTlsClientAuth(
+            environment.get(clientAuthVariable),
+            defaults.clientAuth(),
+            clientAuthVariable
+        );
+        String truststoreVariable = variables.apply("tls_truststore");
+        Optional<String> truststore = sanitizeOptional(
+            environment.get(truststoreVariable)
+        ).or(defaults::truststore);
+        Optional<String> truststorePassword = sanitizePassword(
+            environment.get(variables.apply("tls_truststore_password"))
+        ).or(defaults::truststorePassword);
+        String handshakeVariable = variables.apply("tls_handshake_timeout_ms");
+        int handshakeTimeoutMillis = parseNonNegativeInt(
+            environment.get(handshakeVariable),
+            defaults.handshakeTimeoutMillis(),
+            handshakeVariable
+        );
+        if (handshakeTimeoutMillis == 0) {
+            throw new IllegalArgumentException(
+                handshakeVariable + " must be positive"
+            );
+        }
+        String sessionVariable = variables.apply("tls_session_timeout_seconds");
+        int sessionTimeoutSeconds = parseNonNegativeInt(
+            environment.get(sessionVariable),
+            defaults.sessionTimeoutSeconds(),
+            sessionVariable
+        );
+        if (sessionTimeoutSeconds == 0) {
+            throw new IllegalArgumentException(
+                sessionVariable + " must be positive"
+            );
+        }
+        if (
+            keystore.isPresent() &&
+            clientAuth != HyRconTlsClientAuth.NONE &&
+            truststore.isEmpty()
+        ) {
+            throw new IllegalArgumentException(
+                truststoreVariable +
+                    " is required when " +
+                    clientAuthVariable +
+                    " is " +
+                    clientAuth.configToken()
+            );
+        }
+        return new HyRconTlsConfiguration(
+            keystore,
+            keystorePassword,
+            clientAuth,
+            truststore,
+            truststorePassword,
+            handshakeTimeoutMillis,
+            sessionTimeoutSeconds
+        );
+    }
+
+    private static HyRconTlsClientAuth parseTlsClientAuth(
+        String rawValue,
+        HyRconTlsClientAuth defaultValue,
+        String variableName
+    ) {
+        if (rawValue == null || rawValue.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        try {
+            return HyRconTlsClientAuth.fromToken(rawValue);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(
+                "Unsupported TLS client authentication value for " +
+                    variableName +
+                    ": " +
+                    rawValue,
+                ex
+            );
+        }
+    }
+
+    private static Set<PosixFilePermission> parseSocketPermissions(
+        String rawValue,
+        Set<PosixFilePermission> defaultValue,
+        String variableName
+    ) {
+        if (rawValue == null || rawValue.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        try {
+            return PosixFilePermissions.fromString(rawValue.trim());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(
+                "Invalid permissions for " +
+                    variableName +
+                    ", expected a form such as " +
+                    DEFAULT_SOCKET_PERMISSIONS +
+                    ": " +
+                    rawValue,
+                ex
+            );
+        }
+    }
+
+    /**
+     * Maps a {@code listener.<name>.<option>} configuration file key to the
+     * variable it overrides.
+     *
+     * @return the variable, or {@code null} if {@code key} does not configure
+     *     a listener
+     */
+    static String listenerVariable(String key) {
+        String normalized = key.toLowerCase(Locale.ROOT);
+        if (!normalized.startsWith(LISTENER_KEY_PREFIX)) {
+            return null;
+        }
+        int separator = normalized.lastIndexOf('.');
+        String name = normalized.substring(
+            LISTENER_KEY_PREFIX.length(),
+            Math.max(separator, LISTENER_KEY_PREFIX.length())
+        );
+        String option = normalized.substring(separator + 1);
+        if (!isListenerName(name) || !LISTENER_OPTIONS.contains(option)) {
+            return null;
+        }
+        return listenerVariable(name, option);
+    }
+
+    private static String listenerVariable(String name, String option) {
+        return (
+            ENV_LISTENER_PREFIX +
+            name.toUpperCase(Locale.ROOT) +
+            "_" +
+            option.toUpperCase(Locale.ROOT)
+        );
+    }
+
+    private static boolean isListenerName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean allowed =
+                (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static String firstValue(
         Map<String, String> environment,
         String... keys
@@ -484,6 +2282,13 @@ public final class HyRconConfiguration {
     }
 
     private static BindEndpoint parseBind(String rawValue) {
+        return parseBind(rawValue, BIND_ENV_NAMES);
+    }
+
+    private static BindEndpoint parseBind(
+        String rawValue,
+        String variableNames
+    ) {
         if (rawValue == null) {
             return BindEndpoint.empty();
         }
@@ -501,7 +2306,7 @@ public final class HyRconConfiguration {
             if (closing < 0) {
                 throw new IllegalArgumentException(
                     "Invalid bind format for " +
-                        BIND_ENV_NAMES +
+                        variableNames +
                         ": " +
                         rawValue
                 );
@@ -511,7 +2316,7 @@ public final class HyRconConfiguration {
                 if (trimmed.charAt(closing + 1) != ':') {
                     throw new IllegalArgumentException(
                         "Invalid bind format for " +
-                            BIND_ENV_NAMES +
+                            variableNames +
                             ": " +
                             rawValue
                     );
@@ -542,7 +2347,7 @@ public final class HyRconConfiguration {
         Integer normalizedPort = null;
         if (portPart != null && !portPart.trim().isEmpty()) {
             normalizedPort = Integer.valueOf(
-                parsePortValue(portPart.trim(), BIND_ENV_NAMES)
+                parsePortValue(portPart.trim(), variableNames)
             );
         }
 
@@ -587,7 +2392,7 @@ public final class HyRconConfiguration {
         return candidate;
     }
 
-    private static String mask(String value) {
+    static String mask(String value) {
         return "*".repeat(Math.min(value.length(), 8));
     }
 }
@@ -0,0 +1,126 @@
+package to.dstn.hytale.hyrcon;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events describing the RCON pipeline, so bursts of
+ * remote commands can be lined up with server stalls in JDK Mission Control.
+ *
+ * Every event is disabled by default and has to be switched on by the
+ * recording, for example with
+ * {@code -XX:StartFlightRecording:+hyrcon.CommandDispatch#enabled=true}. While
+ * disabled, {@link Event#begin()} and {@link Event#shouldCommit()} are no-ops
+ * that the JIT folds away, so call sites create the event unconditionally and
+ * only fill in its fields once {@link Event#shouldCommit()} returned
+ * {@code true}.
+ */
+final class HyRconEvents {
+
+    private static final String CATEGORY = "HyRCON";
+
+    private HyRconEvents() {}
+
+    @Name("hyrcon.ConnectionAccept")
+    @Label("RCON Connection Accept")
+    @Category(CATEGORY)
+    @Description("A client connected and was either admitted or shed as busy")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ConnectionAccept extends Event {
+
+        @Label("Protocol")
+        String protocol;
+
+        @Label("Remote Address")
+        String remoteAddress;
+
+        @Label("Admitted")
+        @Description("Whether a session was opened instead of answering busy")
+        boolean admitted;
+    }
+
+    @Name("hyrcon.Authentication")
+    @Label("RCON Authentication")
+    @Category(CATEGORY)
+    @Description("A client attempted to authenticate")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Authentication extends Event {
+
+        @Label("Protocol")
+        String protocol;
+
+        @Label("Remote Address")
+        String remoteAddress;
+
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name("hyrcon.PacketDecode")
+    @Label("RCON Packet Decode")
+    @Category(CATEGORY)
+    @Description(
+        "Decoding of one inbound frame, including replies the session " +
+            "answers without dispatching a command"
+    )
+    @Enabled(false)
+    @StackTrace(false)
+    static final class PacketDecode extends Event {
+
+        @Label("Protocol")
+        String protocol;
+
+        @Label("Frame Size")
+        @DataAmount
+        int frameBytes;
+    }
+
+    @Name("hyrcon.CommandDispatch")
+    @Label("RCON Command Dispatch")
+    @Category(CATEGORY)
+    @Description("Execution of one command, from dispatch until completion")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class CommandDispatch extends Event {
+
+        @Label("Verb")
+        @Description("First word of the command line")
+        String verb;
+
+        @Label("Outcome")
+        @Description("success, failure, timeout or error")
+        String outcome;
+
+        @Label("Output Lines")
+        int outputLines;
+
+        @Label("Output Size")
+        @Description("Characters of output, excluding line separators")
+        long outputChars;
+    }
+
+    @Name("hyrcon.ResponseFlush")
+    @Label("RCON Response Flush")
+    @Category(CATEGORY)
+    @Description("Encoding and writing the final response to a command")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ResponseFlush extends Event {
+
+        @Label("Protocol")
+        String protocol;
+
+        @Label("Response Size")
+        @Description("Bytes written, including previously streamed output")
+        @DataAmount
+        long responseBytes;
+    }
+}
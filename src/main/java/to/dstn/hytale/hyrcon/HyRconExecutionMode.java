@@ -0,0 +1,77 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Enumerates the kinds of threads HyRCON runs client work on.
+ *
+ * With the blocking transport every session occupies its thread for as long as
+ * the client stays connected, which makes platform threads expensive for large
+ * numbers of idle admin or bot connections. Virtual threads park cheaply while
+ * waiting on socket reads or command futures, so a single server can hold
+ * thousands of sessions. The NIO transport uses the same setting for its
+ * command dispatch threads.
+ */
+public enum HyRconExecutionMode {
+    /**
+     * Daemon platform threads from a cached pool.
+     */
+    PLATFORM("platform"),
+
+    /**
+     * One virtual thread per session (blocking transport) or per dispatched
+     * command (NIO transport).
+     */
+    VIRTUAL("virtual");
+
+    private final String configToken;
+
+    HyRconExecutionMode(String configToken) {
+        this.configToken = normalize(
+            Objects.requireNonNull(configToken, "configToken")
+        );
+    }
+
+    /**
+     * Returns the canonical token that should be used in configuration files or
+     * environment variables to select this execution mode.
+     *
+     * @return configuration token
+     */
+    public String configToken() {
+        return configToken;
+    }
+
+    /**
+     * Attempts to resolve an execution mode from a user-supplied token.
+     * Comparison is case-insensitive and falls back to platform threads if the
+     * input is {@code null} or blank.
+     *
+     * @param rawToken candidate token
+     * @return matching execution mode, never {@code null}
+     * @throws IllegalArgumentException if the token does not map to a mode
+     */
+    public static HyRconExecutionMode fromToken(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return PLATFORM;
+        }
+
+        String normalized = normalize(rawToken);
+        for (HyRconExecutionMode mode : values()) {
+            if (mode.configToken.equals(normalized)) {
+                return mode;
+            }
+        }
+
+        throw new IllegalArgumentException(
+            "Unknown HyRCON execution mode: " + rawToken
+        );
+    }
+
+    private static String normalize(String token) {
+        return Objects.requireNonNull(token, "token")
+            .trim()
+            .toLowerCase(Locale.ROOT);
+    }
+}
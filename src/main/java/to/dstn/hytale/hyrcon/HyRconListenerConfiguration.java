@@ -0,0 +1,179 @@
+package to.dstn.hytale.hyrcon;
+
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Settings of one endpoint the HyRCON server accepts clients on.
+ *
+ * Every listener is served by the same transport, executors and limits; only
+ * what a client sees differs between them. Options a listener does not set
+ * are inherited from the top-level configuration.
+ */
+public final class HyRconListenerConfiguration {
+
+    private final String name;
+    private final String host;
+    private final int port;
+    private final Optional<String> password;
+    private final HyRconProtocol protocol;
+    private final int pipelineDepth;
+    private final int maxFrameSize;
+    private final boolean streamOutput;
+    private final int detectTimeoutMillis;
+    private final Optional<String> socket;
+    private final Set<PosixFilePermission> socketPermissions;
+    private final HyRconTlsConfiguration tls;
+
+    HyRconListenerConfiguration(
+        String name,
+        String host,
+        int port,
+        Optional<String> password,
+        HyRconProtocol protocol,
+        int pipelineDepth,
+        int maxFrameSize,
+        boolean streamOutput,
+        int detectTimeoutMillis,
+        Optional<String> socket,
+        Set<PosixFilePermission> socketPermissions,
+        HyRconTlsConfiguration tls
+    ) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.host = Objects.requireNonNull(host, "host");
+        this.port = port;
+        this.password = Objects.requireNonNull(password, "password");
+        this.protocol = Objects.requireNonNull(protocol, "protocol");
+        this.pipelineDepth = pipelineDepth;
+        this.maxFrameSize = maxFrameSize;
+        this.streamOutput = streamOutput;
+        this.detectTimeoutMillis = detectTimeoutMillis;
+        this.socket = Objects.requireNonNull(socket, "socket");
+        this.socketPermissions = Set.copyOf(
+            Objects.requireNonNull(socketPermissions, "socketPermissions")
+        );
+        this.tls = Objects.requireNonNull(tls, "tls");
+    }
+
+    /**
+     * Name the listener is configured under, or
+     * {@link HyRconConfiguration#DEFAULT_LISTENER_NAME} for the listener
+     * built from the top-level options.
+     */
+    public String name() {
+        return name;
+    }
+
+    public String host() {
+        return host;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    public Optional<String> password() {
+        return password;
+    }
+
+    public HyRconProtocol protocol() {
+        return protocol;
+    }
+
+    /**
+     * Number of Source RCON commands a single client may have in flight at
+     * once; HyRCON clients always run one command at a time.
+     */
+    public int pipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * Largest inbound Source RCON packet or HyRCON command line, in bytes,
+     * that a client may send before it is disconnected.
+     */
+    public int maxFrameSize() {
+        return maxFrameSize;
+    }
+
+    /**
+     * Whether command output is sent to clients while the command is still
+     * running rather than once it has completed.
+     */
+    public boolean streamOutput() {
+        return streamOutput;
+    }
+
+    /**
+     * Milliseconds to wait for the first bytes of a connection when the
+     * protocol is {@link HyRconProtocol#AUTO}.
+     */
+    public int detectTimeoutMillis() {
+        return detectTimeoutMillis;
+    }
+
+    /**
+     * Path of the Unix domain socket this listener binds instead of
+     * {@link #host()} and {@link #port()}, relative to the server's data
+     * directory. Its clients never authenticate, so access is controlled by
+     * {@link #socketPermissions()} alone.
+     */
+    public Optional<String> socket() {
+        return socket;
+    }
+
+    /**
+     * Permissions applied to the {@link #socket()} file once it is bound.
+     */
+    public Set<PosixFilePermission> socketPermissions() {
+        return socketPermissions;
+    }
+
+    /**
+     * TLS settings of this listener. Clients of a listener with TLS enabled
+     * have to complete a handshake before they are greeted.
+     */
+    public HyRconTlsConfiguration tls() {
+        return tls;
+    }
+
+    public boolean isPasswordRequired() {
+        return password.isPresent();
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "HyRconListenerConfiguration{" +
+            "name=" +
+            name +
+            ", host='" +
+            host +
+            '\'' +
+            ", port=" +
+            port +
+            ", socket=" +
+            socket.orElse("<none>") +
+            ", socketPermissions=" +
+            PosixFilePermissions.toString(socketPermissions) +
+            ", protocol=" +
+            protocol +
+            ", pipelineDepth=" +
+            pipelineDepth +
+            ", maxFrameSize=" +
+            maxFrameSize +
+            ", streamOutput=" +
+            streamOutput +
+            ", detectTimeoutMillis=" +
+            detectTimeoutMillis +
+            ", tls=" +
+            tls +
+            ", password=" +
+            password.map(HyRconConfiguration::mask).orElse("<none>") +
+            '}'
+        );
+    }
+}
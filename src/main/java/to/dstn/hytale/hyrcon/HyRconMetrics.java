@@ -0,0 +1,821 @@
+package to.dstn.hytale.hyrcon;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process metrics of a {@link HyRconServer}.
+ *
+ * Connection counters are kept per server. Traffic and command metrics are
+ * broken down by protocol and, for commands, by verb: the first word of the
+ * command line. Every value is recorded into striped adders or
+ * {@link ConcurrentHistogram}s, so sessions never block each other while
+ * recording and reading a report never blocks a session. Reports are rendered
+ * for the {@code STATS} command and in the OpenMetrics text format.
+ */
+final class HyRconMetrics {
+
+    /** Verb that collects commands once {@link #MAX_VERBS} are tracked. */
+    static final String OTHER_VERB = "other";
+
+    private static final int MAX_VERBS = 32;
+    private static final int MAX_VERB_LENGTH = 32;
+
+    // Histogram bucket bounds exposed to OpenMetrics scrapers.
+    private static final long[] LATENCY_BOUNDS_NANOS = {
+        100_000L,
+        250_000L,
+        500_000L,
+        1_000_000L,
+        2_500_000L,
+        5_000_000L,
+        10_000_000L,
+        25_000_000L,
+        50_000_000L,
+        100_000_000L,
+        250_000_000L,
+        500_000_000L,
+        1_000_000_000L,
+        2_500_000_000L,
+        5_000_000_000L,
+        10_000_000_000L,
+    };
+    private static final long[] SIZE_BOUNDS = {
+        64,
+        256,
+        1024,
+        4096,
+        16_384,
+        65_536,
+        262_144,
+        1_048_576,
+    };
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final String[] LATENCY_LABELS = boundLabels(
+        LATENCY_BOUNDS_NANOS,
+        9
+    );
+    private static final String[] SIZE_LABELS = boundLabels(SIZE_BOUNDS, 0);
+
+    private final long startedNanos = System.nanoTime();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final LongAdder acceptedConnections = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+    private final LongAdder authFailures = new LongAdder();
+    private final LongAdder authBans = new LongAdder();
+    private final LongAdder bannedConnections = new LongAdder();
+    private final LongAdder tlsHandshakes = new LongAdder();
+    private final LongAdder tlsResumptions = new LongAdder();
+    private final LongAdder tlsHandshakeFailures = new LongAdder();
+    private final Map<EvictionReason, LongAdder> evictions = new EnumMap<>(
+        EvictionReason.class
+    );
+    private volatile LongSupplier commandTimeouts = () -> 0;
+    private volatile LongSupplier accessLogDrops = () -> 0;
+    private volatile LongSupplier trackedAuthAddresses = () -> 0;
+    private final Map<HyRconProtocol, ProtocolMetrics> protocols =
+        new EnumMap<>(HyRconProtocol.class);
+
+    HyRconMetrics() {
+        for (EvictionReason reason : EvictionReason.values()) {
+            evictions.put(reason, new LongAdder());
+        }
+        for (HyRconProtocol protocol : HyRconProtocol.values()) {
+            // Detecting listeners account each session to the wire protocol.
+            if (protocol != HyRconProtocol.AUTO) {
+                protocols.put(protocol, new ProtocolMetrics());
+            }
+        }
+    }
+
+    void sessionOpened() {
+        acceptedConnections.increment();
+        activeSessions.incrementAndGet();
+    }
+
+    void sessionClosed() {
+        activeSessions.decrementAndGet();
+    }
+
+    /**
+     * Counts a connection shed because the server is at capacity.
+     *
+     * @return number of connections rejected so far
+     */
+    long connectionRejected() {
+        rejectedConnections.increment();
+        return rejectedConnections.sum();
+    }
+
+    void authenticationFailed() {
+        authFailures.increment();
+    }
+
+    void addressBanned() {
+        authBans.increment();
+    }
+
+    /**
+     * Counts a connection refused because its address is banned.
+     */
+    void bannedConnectionRefused() {
+        bannedConnections.increment();
+    }
+
+    void connectionEvicted(EvictionReason reason) {
+        evictions.get(reason).increment();
+    }
+
+    /**
+     * Counts a completed TLS handshake.
+     *
+     * @param resumed whether the client resumed an earlier session
+     */
+    void tlsHandshakeCompleted(boolean resumed) {
+        tlsHandshakes.increment();
+        if (resumed) {
+            tlsResumptions.increment();
+        }
+    }
+
+    /**
+     * Counts a TLS client that failed or abandoned its handshake.
+     *
+     * @return number of failed handshakes so far
+     */
+    long tlsHandshakeFailed() {
+        tlsHandshakeFailures.increment();
+        return tlsHandshakeFailures.sum();
+    }
+
+    /**
+     * Reports command timeouts counted by {@code source}, typically a
+     * {@link DispatcherCommandExecutor}.
+     */
+    void trackCommandTimeouts(LongSupplier source) {
+        commandTimeouts = Objects.requireNonNull(source, "source");
+    }
+
+    /**
+     * Reports access log records lost as counted by {@code source}.
+     */
+    void trackAccessLogDrops(LongSupplier source) {
+        accessLogDrops = Objects.requireNonNull(source, "source");
+    }
+
+    /**
+     * Reports the number of addresses with remembered authentication failures
+     * as counted by {@code source}.
+     */
+    void trackAuthAddresses(LongSupplier source) {
+        trackedAuthAddresses = Objects.requireNonNull(source, "source");
+    }
+
+    void bytesIn(HyRconProtocol protocol, long bytes) {
+        protocols.get(protocol).bytesIn.add(bytes);
+    }
+
+    void bytesOut(HyRconProtocol protocol, long bytes) {
+        protocols.get(protocol).bytesOut.add(bytes);
+    }
+
+    /**
+     * Returns the metrics of commands whose verb matches {@code command}.
+     */
+    CommandMetrics command(HyRconProtocol protocol, String command) {
+        return protocols.get(protocol).command(verb(command));
+    }
+
+    /**
+     * Renders every metric as human readable lines for the {@code STATS}
+     * command. Durations are reported in milliseconds.
+     */
+    List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add(
+            String.format(
+                Locale.ROOT,
+                "uptime_seconds=%d active_sessions=%d accepted=%d rejected=%d auth_failures=%d command_timeouts=%d access_log_dropped=%d",
+                TimeUnit.NANOSECONDS.toSeconds(
+                    System.nanoTime() - startedNanos
+                ),
+                activeSessions.get(),
+                acceptedConnections.sum(),
+                rejectedConnections.sum(),
+                authFailures.sum(),
+                commandTimeouts.getAsLong(),
+                accessLogDrops.getAsLong()
+            )
+        );
+        long handshakes = tlsHandshakes.sum();
+        long handshakeFailures = tlsHandshakeFailures.sum();
+        if (handshakes != 0 || handshakeFailures != 0) {
+            lines.add(
+                String.format(
+                    Locale.ROOT,
+                    "tls handshakes=%d resumed=%d failures=%d",
+                    handshakes,
+                    tlsResumptions.sum(),
+                    handshakeFailures
+                )
+            );
+        }
+        long bans = authBans.sum();
+        long tracked = trackedAuthAddresses.getAsLong();
+        if (bans != 0 || tracked != 0) {
+            lines.add(
+                String.format(
+                    Locale.ROOT,
+                    "auth tracked_addresses=%d bans=%d banned_refused=%d",
+                    tracked,
+                    bans,
+                    bannedConnections.sum()
+                )
+            );
+        }
+        StringBuilder evicted = new StringBuilder("evictions");
+        long evictionTotal = 0;
+        for (EvictionReason reason : EvictionReason.values()) {
+            long count = evictions.get(reason).sum();
+            evictionTotal += count;
+            evicted
+                .append(' ')
+                .append(reason.metricLabel())
+                .append('=')
+                .append(count);
+        }
+        if (evictionTotal != 0) {
+            lines.add(evicted.toString());
+        }
+        for (HyRconProtocol protocolKey : protocols.keySet()) {
+            ProtocolMetrics metrics = protocols.get(protocolKey);
+            long bytesIn = metrics.bytesIn.sum();
+            long bytesOut = metrics.bytesOut.sum();
+            if (bytesIn == 0 && bytesOut == 0 && metrics.verbs.isEmpty()) {
+                continue;
+            }
+            String protocol = protocolKey.configToken();
+            lines.add(
+                String.format(
+                    Locale.ROOT,
+                    "%s bytes_in=%d bytes_out=%d",
+                    protocol,
+                    bytesIn,
+                    bytesOut
+                )
+            );
+            metrics.verbs
+                .entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(verb ->
+                    verb.getValue().report(protocol, verb.getKey(), lines)
+                );
+        }
+        return lines;
+    }
+
+    /**
+     * Appends every metric to {@code out} in the OpenMetrics text format,
+     * including the terminating {@code # EOF} line.
+     */
+    void writeOpenMetrics(StringBuilder out) {
+        gauge(out, "hyrcon_sessions", "Open client sessions.");
+        out
+            .append("hyrcon_sessions ")
+            .append(activeSessions.get())
+            .append('\n');
+        counter(
+            out,
+            "hyrcon_connections_accepted",
+            "Accepted client connections.",
+            acceptedConnections.sum()
+        );
+        counter(
+            out,
+            "hyrcon_connections_rejected",
+            "Connections shed because the server was at capacity.",
+            rejectedConnections.sum()
+        );
+        counter(
+            out,
+            "hyrcon_auth_failures",
+            "Failed authentication attempts.",
+            authFailures.sum()
+        );
+        counter(
+            out,
+            "hyrcon_auth_bans",
+            "Client addresses banned for failing to authenticate.",
+            authBans.sum()
+        );
+        counter(
+            out,
+            "hyrcon_connections_banned",
+            "Connections refused because their address was banned.",
+            bannedConnections.sum()
+        );
+        gauge(
+            out,
+            "hyrcon_auth_tracked_addresses",
+            "Client addresses with remembered authentication failures."
+        );
+        out
+            .append("hyrcon_auth_tracked_addresses ")
+            .append(trackedAuthAddresses.getAsLong())
+            .append('\n');
+        counter(
+            out,
+            "hyrcon_command_timeouts",
+            "Commands cancelled by the dispatcher timeout.",
+            commandTimeouts.getAsLong()
+        );
+        counter(
+            out,
+            "hyrcon_access_log_dropped",
+            "Access log records lost to a full buffer or a failed write.",
+            accessLogDrops.getAsLong()
+        );
+        counter(
+            out,
+            "hyrcon_tls_handshakes",
+            "Completed TLS handshakes.",
+            tlsHandshakes.sum()
+        );
+        counter(
+            out,
+            "hyrcon_tls_resumed_handshakes",
+            "TLS handshakes that resumed an earlier session.",
+            tlsResumptions.sum()
+        );
+        counter(
+            out,
+            "hyrcon_tls_handshake_failures",
+            "TLS handshakes that failed or timed out.",
+            tlsHandshakeFailures.sum()
+        );
+        family(
+            out,
+            "hyrcon_evictions",
+            "counter",
+            null,
+            "Clients disconnected for missing a connection deadline."
+        );
+        for (EvictionReason reason : EvictionReason.values()) {
+            out
+                .append("hyrcon_evictions_total{reason=\"")
+                .append(reason.metricLabel())
+                .append("\"} ")
+                .append(evictions.get(reason).sum())
+                .append('\n');
+        }
+
+        family(
+            out,
+            "hyrcon_received_bytes",
+            "counter",
+            "bytes",
+            "Bytes read from clients."
+        );
+        for (HyRconProtocol protocol : protocols.keySet()) {
+            sample(
+                out,
+                "hyrcon_received_bytes_total",
+                protocol,
+                null,
+                protocols.get(protocol).bytesIn.sum()
+            );
+        }
+        family(
+            out,
+            "hyrcon_sent_bytes",
+            "counter",
+            "bytes",
+            "Bytes written to clients."
+        );
+        for (HyRconProtocol protocol : protocols.keySet()) {
+            sample(
+                out,
+                "hyrcon_sent_bytes_total",
+                protocol,
+                null,
+                protocols.get(protocol).bytesOut.sum()
+            );
+        }
+
+        family(out, "hyrcon_commands", "counter", null, "Executed commands.");
+        forEachCommand((protocol, verb, metrics) ->
+            sample(
+                out,
+                "hyrcon_commands_total",
+                protocol,
+                verb,
+                metrics.commands.sum()
+            )
+        );
+        family(
+            out,
+            "hyrcon_command_failures",
+            "counter",
+            null,
+            "Commands that completed with a failure."
+        );
+        forEachCommand((protocol, verb, metrics) ->
+            sample(
+                out,
+                "hyrcon_command_failures_total",
+                protocol,
+                verb,
+                metrics.failures.sum()
+            )
+        );
+
+        secondsHistogram(
+            out,
+            "hyrcon_command_queue_seconds",
+            "Time commands waited before they started.",
+            metrics -> metrics.queueWait
+        );
+        secondsHistogram(
+            out,
+            "hyrcon_command_dispatch_seconds",
+            "Time the command executor took.",
+            metrics -> metrics.dispatch
+        );
+        secondsHistogram(
+            out,
+            "hyrcon_command_encode_seconds",
+            "Time spent encoding and writing responses.",
+            metrics -> metrics.encode
+        );
+        bytesHistogram(
+            out,
+            "hyrcon_command_request_bytes",
+            "Size of command requests.",
+            metrics -> metrics.requestBytes
+        );
+        bytesHistogram(
+            out,
+            "hyrcon_command_response_bytes",
+            "Size of command responses.",
+            metrics -> metrics.responseBytes
+        );
+        out.append("# EOF\n");
+    }
+
+    private void secondsHistogram(
+        StringBuilder out,
+        String name,
+        String help,
+        Function<CommandMetrics, ConcurrentHistogram> histogram
+    ) {
+        family(out, name, "histogram", "seconds", help);
+        forEachCommand((protocol, verb, metrics) -> {
+            ConcurrentHistogram.Snapshot snapshot = histogram
+                .apply(metrics)
+                .snapshot();
+            long[] cumulative = snapshot.cumulativeCounts(LATENCY_BOUNDS_NANOS);
+            for (int i = 0; i < LATENCY_BOUNDS_NANOS.length; i++) {
+                bucket(
+                    out,
+                    name,
+                    protocol,
+                    verb,
+                    LATENCY_LABELS[i],
+                    cumulative[i]
+                );
+            }
+            histogramTotals(
+                out,
+                name,
+                protocol,
+                verb,
+                snapshot.count(),
+                Double.toString(snapshot.sum() / NANOS_PER_SECOND)
+            );
+        });
+    }
+
+    private void bytesHistogram(
+        StringBuilder out,
+        String name,
+        String help,
+        Function<CommandMetrics, ConcurrentHistogram> histogram
+    ) {
+        family(out, name, "histogram", "bytes", help);
+        forEachCommand((protocol, verb, metrics) -> {
+            ConcurrentHistogram.Snapshot snapshot = histogram
+                .apply(metrics)
+                .snapshot();
+            long[] cumulative = snapshot.cumulativeCounts(SIZE_BOUNDS);
+            for (int i = 0; i < SIZE_BOUNDS.length; i++) {
+                bucket(
+                    out,
+                    name,
+                    protocol,
+                    verb,
+                    SIZE_LABELS[i],
+                    cumulative[i]
+                );
+            }
+            histogramTotals(
+                out,
+                name,
+                protocol,
+                verb,
+                snapshot.count(),
+                Long.toString(snapshot.sum())
+            );
+        });
+    }
+
+    /**
+     * Formats bounds, scaled down by {@code 10^scale}, as canonical
+     * OpenMetrics floats such as {@code 0.0001} or {@code 64.0}.
+     */
+    private static String[] boundLabels(long[] bounds, int scale) {
+        String[] labels = new String[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            String plain = BigDecimal.valueOf(bounds[i], scale)
+                .stripTrailingZeros()
+                .toPlainString();
+            labels[i] = plain.indexOf('.') < 0 ? plain + ".0" : plain;
+        }
+        return labels;
+    }
+
+    private void forEachCommand(CommandVisitor visitor) {
+        for (HyRconProtocol protocol : protocols.keySet()) {
+            protocols
+                .get(protocol)
+                .verbs.forEach((verb, metrics) ->
+                    visitor.visit(protocol, verb, metrics)
+                );
+        }
+    }
+
+    private static void family(
+        StringBuilder out,
+        String name,
+        String type,
+        String unit,
+        String help
+    ) {
+        out
+            .append("# TYPE ")
+            .append(name)
+            .append(' ')
+            .append(type)
+            .append('\n');
+        if (unit != null) {
+            out
+                .append("# UNIT ")
+                .append(name)
+                .append(' ')
+                .append(unit)
+                .append('\n');
+        }
+        out
+            .append("# HELP ")
+            .append(name)
+            .append(' ')
+            .append(help)
+            .append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help) {
+        family(out, name, "gauge", null, help);
+    }
+
+    private static void counter(
+        StringBuilder out,
+        String name,
+        String help,
+        long value
+    ) {
+        family(out, name, "counter", null, help);
+        out.append(name).append("_total ").append(value).append('\n');
+    }
+
+    private static void sample(
+        StringBuilder out,
+        String name,
+        HyRconProtocol protocol,
+        String verb,
+        long value
+    ) {
+        out.append(name);
+        labels(out, protocol, verb);
+        out.append('}').append(' ').append(value).append('\n');
+    }
+
+    private static void bucket(
+        StringBuilder out,
+        String name,
+        HyRconProtocol protocol,
+        String verb,
+        String bound,
+        long count
+    ) {
+        out.append(name).append("_bucket");
+        labels(out, protocol, verb);
+        out
+            .append(",le=\"")
+            .append(bound)
+            .append("\"} ")
+            .append(count)
+            .append('\n');
+    }
+
+    private static void histogramTotals(
+        StringBuilder out,
+        String name,
+        HyRconProtocol protocol,
+        String verb,
+        long count,
+        String sum
+    ) {
+        out.append(name).append("_bucket");
+        labels(out, protocol, verb);
+        out.append(",le=\"+Inf\"} ").append(count).append('\n');
+        out.append(name).append("_count");
+        labels(out, protocol, verb);
+        out.append("} ").append(count).append('\n');
+        out.append(name).append("_sum");
+        labels(out, protocol, verb);
+        out.append("} ").append(sum).append('\n');
+    }
+
+    /**
+     * Opens a label set; verbs only ever contain characters that need no
+     * escaping.
+     */
+    private static void labels(
+        StringBuilder out,
+        HyRconProtocol protocol,
+        String verb
+    ) {
+        out.append("{protocol=\"").append(protocol.configToken()).append('"');
+        if (verb != null) {
+            out.append(",verb=\"").append(verb).append('"');
+        }
+    }
+
+    @FunctionalInterface
+    private interface CommandVisitor {
+        void visit(
+            HyRconProtocol protocol,
+            String verb,
+            CommandMetrics metrics
+        );
+    }
+
+    /**
+     * Extracts the lower-cased first word of {@code command}, ignoring a
+     * leading slash. Words that do not look like a command name are reported
+     * as {@link #OTHER_VERB} so arbitrary input cannot create new entries.
+     */
+    static String verb(String command) {
+        int start = 0;
+        int length = command.length();
+        while (
+            start < length && Character.isWhitespace(command.charAt(start))
+        ) {
+            start++;
+        }
+        if (start < length && command.charAt(start) == '/') {
+            start++;
+        }
+        int end = start;
+        while (end < length && !Character.isWhitespace(command.charAt(end))) {
+            char c = command.charAt(end);
+            boolean valid =
+                (c >= 'a' && c <= 'z') ||
+                (c >= 'A' && c <= 'Z') ||
+                (c >= '0' && c <= '9') ||
+                c == '_' ||
+                c == '-' ||
+                c == ':' ||
+                c == '.';
+            if (!valid || end - start >= MAX_VERB_LENGTH) {
+                return OTHER_VERB;
+            }
+            end++;
+        }
+        return end == start
+            ? OTHER_VERB
+            : command.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static final class ProtocolMetrics {
+
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final Map<String, CommandMetrics> verbs =
+            new ConcurrentHashMap<>();
+
+        CommandMetrics command(String verb) {
+            CommandMetrics metrics = verbs.get(verb);
+            if (metrics != null) {
+                return metrics;
+            }
+            // Racing threads may overshoot the limit by a few entries.
+            if (verbs.size() >= MAX_VERBS) {
+                verb = OTHER_VERB;
+            }
+            return verbs.computeIfAbsent(verb, ignored ->
+                new CommandMetrics()
+            );
+        }
+    }
+
+    /**
+     * Metrics of a single command verb.
+     */
+    static final class CommandMetrics {
+
+        final LongAdder commands = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        /** Time from submission until the command starts, in nanoseconds. */
+        final ConcurrentHistogram queueWait = new ConcurrentHistogram();
+        /** Time the command executor took, in nanoseconds. */
+        final ConcurrentHistogram dispatch = new ConcurrentHistogram();
+        /** Time spent encoding and writing the response, in nanoseconds. */
+        final ConcurrentHistogram encode = new ConcurrentHistogram();
+        final ConcurrentHistogram requestBytes = new ConcurrentHistogram();
+        final ConcurrentHistogram responseBytes = new ConcurrentHistogram();
+
+        void completed(
+            CommandResponse response,
+            long queueNanos,
+            long dispatchNanos
+        ) {
+            commands.increment();
+            if (response.isFailure()) {
+                failures.increment();
+            }
+            queueWait.record(queueNanos);
+            dispatch.record(dispatchNanos);
+        }
+
+        private void report(String protocol, String verb, List<String> lines) {
+            lines.add(
+                String.format(
+                    Locale.ROOT,
+                    "%s %s commands=%d failures=%d",
+                    protocol,
+                    verb,
+                    commands.sum(),
+                    failures.sum()
+                )
+            );
+            lines.add(millis("  dispatch_ms", dispatch.snapshot()));
+            lines.add(millis("  queue_ms", queueWait.snapshot()));
+            lines.add(millis("  encode_ms", encode.snapshot()));
+            lines.add(bytes("  request_bytes", requestBytes.snapshot()));
+            lines.add(bytes("  response_bytes", responseBytes.snapshot()));
+        }
+
+        private static String millis(
+            String name,
+            ConcurrentHistogram.Snapshot snapshot
+        ) {
+            return String.format(
+                Locale.ROOT,
+                "%s p50=%.3f p90=%.3f p99=%.3f max=%.3f",
+                name,
+                snapshot.valueAtPercentile(50) / 1e6,
+                snapshot.valueAtPercentile(90) / 1e6,
+                snapshot.valueAtPercentile(99) / 1e6,
+                snapshot.max() / 1e6
+            );
+        }
+
+        private static String bytes(
+            String name,
+            ConcurrentHistogram.Snapshot snapshot
+        ) {
+            return String.format(
+                Locale.ROOT,
+                "%s p50=%d p90=%d p99=%d max=%d total=%d",
+                name,
+                snapshot.valueAtPercentile(50),
+                snapshot.valueAtPercentile(90),
+                snapshot.valueAtPercentile(99),
+                snapshot.max(),
+                snapshot.sum()
+            );
+        }
+    }
+}
@@ -9,7 +9,8 @@ import java.util.Objects;
  * HyRCON originally shipped with a simple line-oriented text protocol. To
  * support interoperability with existing tooling, we also expose a Source
  * compatible RCON mode that adheres to Valve's implementation. This enum allows
- * the server and configuration layers to choose between these behaviours.
+ * the server and configuration layers to choose between these behaviours, or
+ * to detect them per connection.
  */
 public enum HyRconProtocol {
     /**
@@ -22,7 +23,14 @@ public enum HyRconProtocol {
     /**
      * Source RCON protocol compatible with Valve's specification.
      */
-    SOURCE_RCON("source", 25575, true);
+    SOURCE_RCON("source", 25575, true),
+
+    /**
+     * Serves both protocols on one port, choosing per connection from the
+     * first bytes the client sends. Clients that stay silent are greeted with
+     * the HyRCON protocol, which speaks first.
+     */
+    AUTO("auto", 25575, false);
 
     private final String configToken;
     private final int defaultPort;
@@ -1,55 +1,123 @@
 package to.dstn.hytale.hyrcon;
 
 import com.hypixel.hytale.logger.HytaleLogger;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 public final class HyRconServer implements AutoCloseable {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-    private static final Charset SOURCE_CHARSET = StandardCharsets.ISO_8859_1;
-    private static final int SOURCE_MAX_PAYLOAD = 4096 - 2;
-    private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final int BLOCKING_BUFFER_SIZE = 8192;
+    // Virtual-thread sessions are meant to be numerous and mostly idle.
+    private static final int VIRTUAL_BUFFER_SIZE = 1024;
+    private static final int REJECTION_LOG_INTERVAL = 100;
+    private static final int POOLED_BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final ByteBuffer EMPTY_RESPONSE = ByteBuffer.allocate(0);
 
     private final HyRconConfiguration configuration;
     private final CommandExecutor commandExecutor;
-    private final Optional<String> requiredPassword;
-    private final HyRconProtocol protocol;
+    private final Path dataDirectory;
+    private final List<HyRconListenerConfiguration> listeners;
+    private final HyRconTransport transport;
+    private final HyRconExecutionMode executionMode;
+    private final int clientBufferSize;
+    private final boolean directBuffers;
+    private final ByteBufferPool bufferPool;
+    private final int maxConnectionBuffer;
+    private final long maxBufferedBytes;
     private final ExecutorService clientExecutor;
+    private final ExecutorService dispatchExecutor;
+    private final boolean inlineDispatch;
+    private final long streamLingerMillis;
+    private final ConnectionDeadlines deadlines;
+    private final AuthFailureTracker authFailures;
+    private final int admissionLimit;
+    private final Semaphore sessionPermits;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
-
-    private volatile ServerSocket serverSocket;
+    private final AtomicInteger admittedClients = new AtomicInteger();
+    private final HyRconMetrics metrics = new HyRconMetrics();
+    private final AtomicLong bufferedInboundBytes = new AtomicLong();
+    private final AtomicLong httpRequests = new AtomicLong();
+
+    private volatile Map<
+        ServerSocketChannel,
+        HyRconListenerConfiguration
+    > serverChannels = Map.of();
+    // Holds an entry for every listener that speaks TLS.
+    private volatile Map<
+        HyRconListenerConfiguration,
+        TlsContext
+    > tlsContexts = Map.of();
     private volatile Thread acceptThread;
+    private volatile NioTransport nioTransport;
+    private volatile OpenMetricsEndpoint metricsEndpoint;
+    private volatile AccessLog accessLog = AccessLog.serverLog();
+    // Null when no audit directory is configured or it could not be opened.
+    private volatile AuditJournal auditJournal;
+    // Null while stopped or when nothing is timed on it.
+    private volatile TimerWheel timers;
 
     public HyRconServer(
         HyRconConfiguration configuration,
         CommandExecutor commandExecutor
+    ) {
+        this(configuration, commandExecutor, Path.of(""));
+    }
+
+    /**
+     * @param dataDirectory directory relative file paths in the configuration
+     *     are resolved against
+     */
+    public HyRconServer(
+        HyRconConfiguration configuration,
+        CommandExecutor commandExecutor,
+        Path dataDirectory
     ) {
         this.configuration = Objects.requireNonNull(
             configuration,
@@ -59,9 +127,80 @@ public final class HyRconServer implements AutoCloseable {
             commandExecutor,
             "commandExecutor"
         );
-        this.requiredPassword = this.configuration.password();
-        this.protocol = this.configuration.protocol();
-        this.clientExecutor = createClientExecutor();
+        this.dataDirectory = Objects.requireNonNull(
+            dataDirectory,
+            "dataDirectory"
+        );
+        metrics.trackAccessLogDrops(() -> accessLog.droppedRecords());
+        this.listeners = this.configuration.listeners();
+        this.transport = this.configuration.transport();
+        this.executionMode = this.configuration.executionMode();
+        this.clientBufferSize =
+            executionMode == HyRconExecutionMode.VIRTUAL
+                ? VIRTUAL_BUFFER_SIZE
+                : BLOCKING_BUFFER_SIZE;
+        this.directBuffers = this.configuration.directBuffers();
+        this.bufferPool = new ByteBufferPool(
+            POOLED_BUFFER_SIZE,
+            MAX_POOLED_BUFFERS,
+            directBuffers
+        );
+        this.maxConnectionBuffer = this.configuration.maxConnectionBuffer();
+        this.maxBufferedBytes = this.configuration.maxBufferedBytes();
+        int maxClients = this.configuration.maxClients();
+        int queueDepth = this.configuration.clientQueueDepth();
+        boolean boundedSessionPool =
+            transport == HyRconTransport.BLOCKING &&
+            executionMode == HyRconExecutionMode.PLATFORM &&
+            maxClients > 0;
+        this.clientExecutor = createClientExecutor(
+            transport == HyRconTransport.NIO
+                ? "hyrcon-dispatch-"
+                : "hyrcon-client-",
+            executionMode,
+            boundedSessionPool ? maxClients : 0,
+            queueDepth
+        );
+        // Blocking sessions start commands inline unless a listener lets them
+        // pipeline; asynchronous completions are always delivered on the
+        // dispatch executor so the thread completing a command never writes
+        // to a socket.
+        this.streamLingerMillis = this.configuration.streamLingerMillis();
+        this.deadlines = new ConnectionDeadlines(this.configuration);
+        this.authFailures = new AuthFailureTracker(this.configuration);
+        metrics.trackAuthAddresses(authFailures::size);
+        this.inlineDispatch =
+            transport == HyRconTransport.BLOCKING &&
+            listeners
+                .stream()
+                .allMatch(
+                    listener ->
+                        listener.protocol() == HyRconProtocol.HYRCON ||
+                        listener.pipelineDepth() == 1
+                );
+        this.dispatchExecutor =
+            transport == HyRconTransport.NIO
+                ? clientExecutor
+                : createClientExecutor(
+                      "hyrcon-dispatch-",
+                      executionMode,
+                      0,
+                      0
+                  );
+
+        // Platform session pools are bounded by the executor itself. Virtual
+        // sessions queue on a semaphore, and NIO sessions only cost a key, so
+        // both are capped by counting admitted connections instead.
+        if (maxClients == 0 || boundedSessionPool) {
+            this.admissionLimit = 0;
+            this.sessionPermits = null;
+        } else if (transport == HyRconTransport.BLOCKING) {
+            this.admissionLimit = maxClients + queueDepth;
+            this.sessionPermits = new Semaphore(maxClients);
+        } else {
+            this.admissionLimit = maxClients;
+            this.sessionPermits = null;
+        }
     }
 
     public void start() {
@@ -79,40 +218,146 @@ public final class HyRconServer implements AutoCloseable {
             return;
         }
 
-        ServerSocket localSocket = null;
-        try {
-            localSocket = new ServerSocket();
-            localSocket.setReuseAddress(true);
-            localSocket.bind(
-                new InetSocketAddress(
-                    configuration.host(),
-                    configuration.port()
+        // Sessions arm their deadlines as soon as the transport opens them.
+        if (
+            deadlines.isEnabled() ||
+            authFailures.isEnabled() ||
+            listeners
+                .stream()
+                .anyMatch(
+                    listener ->
+                        listener.tls().isEnabled() ||
+                        listener.protocol() == HyRconProtocol.AUTO
                 )
+        ) {
+            timers = new TimerWheel(
+                "hyrcon-timer",
+                ConnectionDeadlines.TICK_MILLIS,
+                512
             );
-            serverSocket = localSocket;
+        }
+        Map<ServerSocketChannel, HyRconListenerConfiguration> channels =
+            new LinkedHashMap<>();
+        Selector acceptSelector = null;
+        // Null once every listener is bound.
+        HyRconListenerConfiguration binding = null;
+        try {
+            Map<HyRconListenerConfiguration, TlsContext> contexts =
+                new HashMap<>();
+            for (HyRconListenerConfiguration listener : listeners) {
+                if (listener.tls().isEnabled()) {
+                    contexts.put(
+                        listener,
+                        TlsContext.load(listener.tls(), dataDirectory)
+                    );
+                }
+            }
+            tlsContexts = contexts;
+
+            for (HyRconListenerConfiguration listener : listeners) {
+                binding = listener;
+                if (listener.socket().isPresent()) {
+                    ServerSocketChannel channel = ServerSocketChannel.open(
+                        StandardProtocolFamily.UNIX
+                    );
+                    channels.put(channel, listener);
+                    bindSocket(channel, listener);
+                    continue;
+                }
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                channels.put(channel, listener);
+                channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                channel.bind(
+                    new InetSocketAddress(listener.host(), listener.port())
+                );
+            }
+            binding = null;
+            serverChannels = channels;
+
+            if (transport == HyRconTransport.NIO) {
+                NioTransport localTransport = new NioTransport(
+                    this,
+                    channels,
+                    configuration.eventLoopThreads()
+                );
+                localTransport.start();
+                nioTransport = localTransport;
+            } else {
+                acceptSelector = Selector.open();
+                for (Map.Entry<
+                    ServerSocketChannel,
+                    HyRconListenerConfiguration
+                > entry : channels.entrySet()) {
+                    entry.getKey().configureBlocking(false);
+                    entry
+                        .getKey()
+                        .register(
+                            acceptSelector,
+                            SelectionKey.OP_ACCEPT,
+                            entry.getValue()
+                        );
+                }
+            }
         } catch (IOException ex) {
             running.set(false);
-            quietlyClose(localSocket);
-            LOGGER.atInfo().log(
-                "Unable to bind HyRCON server to %s:%d - %s",
-                configuration.host(),
-                configuration.port(),
-                ex.toString()
-            );
+            serverChannels = Map.of();
+            tlsContexts = Map.of();
+            if (timers != null) {
+                timers.close();
+                timers = null;
+            }
+            closeServerChannels(channels);
+            if (acceptSelector != null) {
+                try {
+                    acceptSelector.close();
+                } catch (IOException ignored) {}
+            }
+            if (binding != null) {
+                LOGGER.atInfo().log(
+                    "Unable to bind HyRCON server to %s - %s",
+                    endpoint(binding),
+                    ex.toString()
+                );
+            } else {
+                LOGGER.atInfo().log(
+                    "Unable to start HyRCON server - %s",
+                    ex.toString()
+                );
+            }
             shutdownExecutor();
             return;
         }
 
-        acceptThread = createAcceptThread();
-        acceptThread.start();
+        if (transport == HyRconTransport.BLOCKING) {
+            acceptThread = createAcceptThread(acceptSelector);
+            acceptThread.start();
+        }
 
-        LOGGER.atInfo().log(
-            "HyRCON server listening on %s:%d using %s protocol (password %s)",
-            configuration.host(),
-            configuration.port(),
-            protocol.name(),
-            requiredPassword.isPresent() ? "required" : "disabled"
-        );
+        if (configuration.accessLogFile().isPresent()) {
+            startAccessLog(configuration.accessLogFile().get());
+        }
+        if (configuration.auditDir().isPresent()) {
+            startAuditJournal(configuration.auditDir().get());
+        }
+        if (configuration.metricsPort() > 0) {
+            startMetricsEndpoint();
+        }
+
+        for (HyRconListenerConfiguration listener : listeners) {
+            LOGGER.atInfo().log(
+                "HyRCON server listening on %s using %s protocol over %s transport with %s threads (password %s, tls %s, listener %s)",
+                endpoint(listener),
+                listener.protocol().name(),
+                transport.configToken(),
+                executionMode.configToken(),
+                listener.isPasswordRequired() ? "required" : "disabled",
+                listener.tls().isEnabled()
+                    ? "client certificates " +
+                      listener.tls().clientAuth().configToken()
+                    : "disabled",
+                listener.name()
+            );
+        }
     }
 
     public void stop() {
@@ -121,11 +366,10 @@ public final class HyRconServer implements AutoCloseable {
             return;
         }
 
-        ServerSocket localSocket = serverSocket;
-        serverSocket = null;
-        if (localSocket != null && !localSocket.isClosed()) {
-            quietlyClose(localSocket);
-        }
+        Map<ServerSocketChannel, HyRconListenerConfiguration> localChannels =
+            serverChannels;
+        serverChannels = Map.of();
+        closeServerChannels(localChannels);
 
         Thread localAcceptThread = acceptThread;
         acceptThread = null;
@@ -138,7 +382,35 @@ public final class HyRconServer implements AutoCloseable {
             }
         }
 
+        NioTransport localTransport = nioTransport;
+        nioTransport = null;
+        if (localTransport != null) {
+            localTransport.close();
+        }
+
+        OpenMetricsEndpoint localEndpoint = metricsEndpoint;
+        metricsEndpoint = null;
+        if (localEndpoint != null) {
+            localEndpoint.stop();
+        }
+
         shutdownExecutor();
+
+        TimerWheel localTimers = timers;
+        timers = null;
+        if (localTimers != null) {
+            localTimers.close();
+        }
+
+        // Sessions closed by the executor shutdown have been logged by now.
+        AccessLog localAccessLog = accessLog;
+        accessLog = AccessLog.serverLog();
+        localAccessLog.close();
+        AuditJournal localJournal = auditJournal;
+        auditJournal = null;
+        if (localJournal != null) {
+            localJournal.close();
+        }
         LOGGER.atInfo().log("HyRCON server stopped");
     }
 
@@ -151,526 +423,1024 @@ public final class HyRconServer implements AutoCloseable {
         stop();
     }
 
-    private Thread createAcceptThread() {
-        Thread thread = new Thread(this::acceptLoop, "hyrcon-accept");
-        thread.setDaemon(true);
-        return thread;
+    /**
+     * Returns the pool that backs response encoding and queued NIO writes.
+     * Every buffer holds at least one full Source RCON packet.
+     */
+    ByteBufferPool bufferPool() {
+        return bufferPool;
     }
 
-    private void acceptLoop() {
-        LOGGER.atInfo().log("HyRCON accept loop started");
+    long streamLingerMillis() {
+        return streamLingerMillis;
+    }
 
-        while (running.get()) {
-            ServerSocket localSocket = serverSocket;
-            if (localSocket == null) {
-                break;
-            }
+    /**
+     * Runs {@code task} on the dispatch executor after {@code delayMillis}.
+     * Tasks scheduled while the server shuts down are silently dropped.
+     */
+    void schedule(Runnable task, long delayMillis) {
+        Executor executor =
+            delayMillis > 0
+                ? CompletableFuture.delayedExecutor(
+                      delayMillis,
+                      TimeUnit.MILLISECONDS,
+                      dispatchExecutor
+                  )
+                : dispatchExecutor;
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ignored) {}
+    }
 
-            try {
-                Socket clientSocket = localSocket.accept();
-                configureSocket(clientSocket);
-                submitClient(clientSocket);
-            } catch (SocketException ex) {
-                if (running.get()) {
-                    LOGGER.atInfo().log(
-                        "HyRCON accept loop socket error: %s",
-                        ex.toString()
-                    );
-                }
-                break;
-            } catch (IOException ex) {
-                LOGGER.atInfo().log(
-                    "HyRCON accept loop I/O error: %s",
-                    ex.toString()
-                );
+    HyRconMetrics metrics() {
+        return metrics;
+    }
+
+    AuthFailureTracker authFailures() {
+        return authFailures;
+    }
+
+    ConnectionDeadlines deadlines() {
+        return deadlines;
+    }
+
+    /**
+     * Returns the wheel that enforces connection deadlines, holds back failed
+     * logins and times TLS handshakes and protocol detection, or {@code null}
+     * if none of them happen or the server is not running.
+     */
+    TimerWheel timers() {
+        return timers;
+    }
+
+    AccessLog accessLog() {
+        return accessLog;
+    }
+
+    AuditJournal auditJournal() {
+        return auditJournal;
+    }
+
+    int maxConnectionBuffer() {
+        return maxConnectionBuffer;
+    }
+
+    /**
+     * Charges {@code bytes} of inbound buffer memory against the global budget.
+     *
+     * @return {@code false} if the reservation would exceed the budget
+     */
+    boolean reserveInboundBytes(int bytes) {
+        while (true) {
+            long current = bufferedInboundBytes.get();
+            long updated = current + bytes;
+            if (maxBufferedBytes > 0 && updated > maxBufferedBytes) {
+                return false;
+            }
+            if (bufferedInboundBytes.compareAndSet(current, updated)) {
+                return true;
             }
         }
+    }
 
-        LOGGER.atInfo().log("HyRCON accept loop terminated");
+    void releaseInboundBytes(int bytes) {
+        bufferedInboundBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Creates a session for a client of the first configured listener.
+     */
+    ClientSession createSession(ClientConnection connection) {
+        HyRconListenerConfiguration listener = listeners.get(0);
+        return createSession(connection, listener, listener.protocol());
     }
 
-    private void submitClient(Socket socket) {
+    /**
+     * Creates a session for a client of {@code listener} speaking
+     * {@code sessionProtocol}, which differs from the listener's protocol
+     * when it detects the protocol.
+     */
+    ClientSession createSession(
+        ClientConnection connection,
+        HyRconListenerConfiguration listener,
+        HyRconProtocol sessionProtocol
+    ) {
+        return switch (sessionProtocol) {
+            case HYRCON -> new LegacyClientSession(this, listener, connection);
+            case SOURCE_RCON -> new SourceClientSession(
+                this,
+                listener,
+                connection
+            );
+            default -> throw new IllegalStateException(
+                "Unhandled protocol: " + sessionProtocol
+            );
+        };
+    }
+
+    /**
+     * Executes {@code command} and hands the response to {@code callback}.
+     * The blocking transport already runs on a dedicated client thread and
+     * starts commands inline unless they are pipelined; the NIO transport
+     * must never block an event loop, so it starts them on the dispatch
+     * executor in case the command executor is synchronous. Either way no
+     * thread waits for an asynchronous command to finish.
+     *
+     * @param protocol protocol of the session, recorded with failures
+     * @param commandMetrics receives the queue wait and execution time
+     * @param output receives output lines while the command runs, or
+     *     {@code null} to deliver all output with the response
+     */
+    void submitCommand(
+        HyRconProtocol protocol,
+        String command,
+        HyRconMetrics.CommandMetrics commandMetrics,
+        Consumer<String> output,
+        Consumer<CommandResponse> callback
+    ) {
+        long submittedNanos = System.nanoTime();
+        if (inlineDispatch) {
+            startCommand(
+                protocol,
+                command,
+                commandMetrics,
+                submittedNanos,
+                output,
+                callback
+            );
+            return;
+        }
+
         try {
-            clientExecutor.execute(() -> handleClient(socket));
+            dispatchExecutor.execute(() ->
+                startCommand(
+                    protocol,
+                    command,
+                    commandMetrics,
+                    submittedNanos,
+                    output,
+                    callback
+                )
+            );
         } catch (RejectedExecutionException ex) {
-            LOGGER.atInfo().log(
-                "Rejecting HyRCON client %s - executor shutting down",
-                safeRemoteAddress(socket)
+            callback.accept(
+                CommandResponse.failure("HyRCON server is shutting down")
             );
-            quietlyClose(socket);
         }
     }
 
-    private void handleClient(Socket socket) {
-        String remote = safeRemoteAddress(socket);
-        LOGGER.atInfo().log(
-            "HyRCON[%s] client connected: %s",
-            protocol.configToken(),
-            remote
+    private void startCommand(
+        HyRconProtocol protocol,
+        String command,
+        HyRconMetrics.CommandMetrics commandMetrics,
+        long submittedNanos,
+        Consumer<String> output,
+        Consumer<CommandResponse> callback
+    ) {
+        long startedNanos = System.nanoTime();
+        CompletableFuture<CommandResponse> future = executeCommand(
+            protocol,
+            command,
+            output
         );
+        if (future.isDone()) {
+            CommandResponse response = future.join();
+            commandMetrics.completed(
+                response,
+                startedNanos - submittedNanos,
+                System.nanoTime() - startedNanos
+            );
+            callback.accept(response);
+            return;
+        }
+        future.thenAccept(response -> {
+            commandMetrics.completed(
+                response,
+                startedNanos - submittedNanos,
+                System.nanoTime() - startedNanos
+            );
+            try {
+                dispatchExecutor.execute(() -> callback.accept(response));
+            } catch (RejectedExecutionException ex) {
+                callback.accept(response);
+            }
+        });
+    }
 
-        try (socket) {
-            if (!running.get()) {
-                return;
+    /**
+     * Reserves a client slot for a freshly accepted connection.
+     *
+     * @return {@code false} if the configured client limit has been reached
+     */
+    boolean tryAdmitClient() {
+        while (true) {
+            int current = admittedClients.get();
+            if (admissionLimit > 0 && current >= admissionLimit) {
+                return false;
             }
-            switch (protocol) {
-                case HYRCON -> handleLegacyClient(socket);
-                case SOURCE_RCON -> handleSourceClient(socket);
-                default -> throw new IllegalStateException(
-                    "Unhandled protocol: " + protocol
-                );
+            if (admittedClients.compareAndSet(current, current + 1)) {
+                return true;
             }
-        } catch (IOException ex) {
-            if (running.get()) {
-                LOGGER.atInfo().log(
-                    "HyRCON[%s] client %s disconnected due to I/O error: %s",
-                    protocol.configToken(),
-                    remote,
-                    ex.toString()
-                );
-            }
-        } finally {
-            LOGGER.atInfo().log(
-                "HyRCON[%s] client disconnected: %s",
-                protocol.configToken(),
-                remote
-            );
         }
     }
 
-    private void handleLegacyClient(Socket socket) throws IOException {
-        try (
-            BufferedReader reader = new BufferedReader(
-                new InputStreamReader(
-                    socket.getInputStream(),
-                    StandardCharsets.UTF_8
-                )
-            );
-            BufferedWriter writer = new BufferedWriter(
-                new OutputStreamWriter(
-                    socket.getOutputStream(),
-                    StandardCharsets.UTF_8
-                )
-            )
-        ) {
-            greetLegacyClient(writer);
-
-            boolean authenticated = !requiredPassword.isPresent();
-            String line;
-
-            while (running.get() && (line = reader.readLine()) != null) {
-                String command = line.trim();
-                if (command.isEmpty()) {
-                    continue;
-                }
+    void releaseClient() {
+        admittedClients.decrementAndGet();
+    }
 
-                if (!authenticated) {
-                    authenticated = processLegacyAuthentication(
-                        command,
-                        writer
-                    );
-                    continue;
-                }
+    /**
+     * Closes a freshly accepted connection from a banned address before it
+     * takes a client slot or a thread. Refusals are only counted, so a banned
+     * bot reconnecting in a loop costs an accept and a close each time.
+     *
+     * @return whether the connection was refused
+     */
+    boolean refuseBanned(SocketChannel channel) {
+        if (!authFailures.isBanned(remoteInetAddress(channel))) {
+            return false;
+        }
+        metrics.bannedConnectionRefused();
+        discardUnsent(channel);
+        quietlyClose(channel);
+        return true;
+    }
 
-                if (isTerminateCommand(command)) {
-                    sendLegacyAndFlush(writer, "BYE");
-                    break;
-                }
+    /**
+     * Sheds a connection that cannot be served right now by writing a
+     * pre-encoded busy response without blocking and closing the socket. TLS
+     * clients expect a handshake first and would take the plain text response
+     * for a protocol error, so their connection is only closed.
+     */
+    void rejectBusy(
+        SocketChannel channel,
+        HyRconListenerConfiguration listener
+    ) {
+        HyRconProtocol protocol = listener.protocol();
+        long rejected = metrics.connectionRejected();
+        HyRconEvents.ConnectionAccept event =
+            new HyRconEvents.ConnectionAccept();
+        if (event.shouldCommit()) {
+            event.protocol = protocol.configToken();
+            event.remoteAddress = safeRemoteAddress(channel);
+            event.admitted = false;
+            event.commit();
+        }
+        // The server log only samples rejections; the access log keeps all.
+        if (
+            accessLog.isBuffered() ||
+            rejected == 1 ||
+            rejected % REJECTION_LOG_INTERVAL == 0
+        ) {
+            accessLog.record(
+                AccessLog.Kind.REJECTED,
+                protocol,
+                safeRemoteAddress(channel),
+                null,
+                "server busy (" + rejected + " rejected so far)"
+            );
+        }
 
-                if ("PING".equalsIgnoreCase(command)) {
-                    sendLegacyResponse(
-                        writer,
-                        CommandResponse.success("PONG"),
-                        command
-                    );
-                    continue;
+        if (listener.tls().isEnabled()) {
+            quietlyClose(channel);
+            return;
+        }
+        try {
+            channel.configureBlocking(false);
+            channel.write(
+                switch (protocol) {
+                    case HYRCON -> LegacyClientSession.busyResponse();
+                    case SOURCE_RCON -> SourceClientSession.busyResponse();
+                    // Nothing the client could parse before it has spoken.
+                    case AUTO -> EMPTY_RESPONSE;
                 }
+            );
+        } catch (IOException ignored) {}
+        quietlyClose(channel);
+    }
 
-                executeLegacyCommand(command, writer);
-            }
+    /**
+     * Records an HTTP request that reached a protocol-detecting listener. The
+     * transport answers it with {@link ProtocolSniffer#httpResponse()}.
+     */
+    void httpRequestRejected(
+        HyRconListenerConfiguration listener,
+        String remoteAddress
+    ) {
+        long requests = httpRequests.incrementAndGet();
+        // Health checks probing the port would otherwise flood the log.
+        if (
+            accessLog.isBuffered() ||
+            requests == 1 ||
+            requests % REJECTION_LOG_INTERVAL == 0
+        ) {
+            accessLog.record(
+                AccessLog.Kind.REJECTED,
+                listener.protocol(),
+                remoteAddress,
+                null,
+                "HTTP request (" + requests + " so far)"
+            );
         }
     }
 
-    private void handleSourceClient(Socket socket) throws IOException {
-        try (
-            InputStream input = new BufferedInputStream(
-                socket.getInputStream()
-            );
-            OutputStream output = new BufferedOutputStream(
-                socket.getOutputStream()
-            )
-        ) {
-            boolean authenticated = !requiredPassword.isPresent();
+    /**
+     * Returns the TLS state of {@code listener}, or {@code null} if it speaks
+     * plain text.
+     */
+    TlsContext tlsContext(HyRconListenerConfiguration listener) {
+        return tlsContexts.get(listener);
+    }
 
-            while (running.get()) {
-                SourceRconPacket packet = readSourcePacket(input);
-                if (packet == null) {
-                    break;
-                }
+    void tlsHandshakeCompleted(TlsChannel tls) {
+        metrics.tlsHandshakeCompleted(tls.isResumed());
+    }
 
-                switch (packet.type()) {
-                    case 3 -> {
-                        if (authenticated) {
-                            // Already authenticated: acknowledge immediately.
-                            writeSourcePacket(
-                                output,
-                                packet.requestId(),
-                                2,
-                                EMPTY_BYTES,
-                                0,
-                                0
-                            );
-                            output.flush();
-                            continue;
-                        }
-                        boolean success = requiredPassword
-                            .map(packet.payload()::equals)
-                            .orElse(true);
-                        if (success) {
-                            authenticated = true;
-                            writeSourcePacket(
-                                output,
-                                packet.requestId(),
-                                2,
-                                EMPTY_BYTES,
-                                0,
-                                0
-                            );
-                            output.flush();
-                        } else {
-                            LOGGER.atInfo().log(
-                                "HyRCON[%s] authentication failed",
-                                protocol.configToken()
-                            );
-                            writeSourcePacket(output, -1, 2, EMPTY_BYTES, 0, 0);
-                            output.flush();
-                        }
-                    }
-                    case 2 -> {
-                        if (!authenticated) {
-                            writeSourcePacket(output, -1, 2, EMPTY_BYTES, 0, 0);
-                            output.flush();
-                            continue;
-                        }
-                        String rawCommand =
-                            packet.payload() == null ? "" : packet.payload();
-                        String command = rawCommand.trim();
-                        if (command.isEmpty()) {
-                            CommandResponse response = CommandResponse.success(
-                                List.of()
-                            );
-                            sendSourceResponse(
-                                output,
-                                packet.requestId(),
-                                command,
-                                response
-                            );
-                            continue;
-                        }
-                        CommandResponse response = executeCommand(command);
-                        sendSourceResponse(
-                            output,
-                            packet.requestId(),
-                            command,
-                            response
-                        );
-                    }
-                    default -> {
-                        String message =
-                            "Unknown request " +
-                            Integer.toHexString(packet.type());
-                        writeSourcePacket(
-                            output,
-                            packet.requestId(),
-                            0,
-                            message.getBytes(SOURCE_CHARSET),
-                            0,
-                            message.getBytes(SOURCE_CHARSET).length
-                        );
-                        writeSourcePacket(
-                            output,
-                            packet.requestId(),
-                            0,
-                            EMPTY_BYTES,
-                            0,
-                            0
-                        );
-                        output.flush();
-                    }
-                }
-            }
+    /**
+     * Records a client of {@code listener} whose TLS handshake failed or timed
+     * out. The transport closes its connection.
+     */
+    void tlsHandshakeFailed(
+        HyRconListenerConfiguration listener,
+        String remoteAddress,
+        String reason
+    ) {
+        long failures = metrics.tlsHandshakeFailed();
+        // Port scanners and plain text clients would otherwise flood the log.
+        if (
+            accessLog.isBuffered() ||
+            failures == 1 ||
+            failures % REJECTION_LOG_INTERVAL == 0
+        ) {
+            accessLog.record(
+                AccessLog.Kind.REJECTED,
+                listener.protocol(),
+                remoteAddress,
+                null,
+                "TLS handshake failed: " + reason + " (" + failures + " so far)"
+            );
         }
     }
 
-    private void greetLegacyClient(BufferedWriter writer) throws IOException {
-        writer.write("HYRCON READY");
-        writer.newLine();
-        writer.write(
-            requiredPassword.isPresent() ? "AUTH REQUIRED" : "AUTH OPTIONAL"
-        );
-        writer.newLine();
-        writer.write(".");
-        writer.newLine();
-        writer.flush();
+    /**
+     * Records a client that did not finish its TLS handshake in time, both as
+     * a failed handshake and as an eviction.
+     */
+    void tlsHandshakeTimedOut(
+        HyRconListenerConfiguration listener,
+        String remoteAddress
+    ) {
+        metrics.connectionEvicted(EvictionReason.HANDSHAKE_TIMEOUT);
+        tlsHandshakeFailed(listener, remoteAddress, "timed out");
     }
 
-    private boolean processLegacyAuthentication(
-        String command,
-        BufferedWriter writer
+    /**
+     * Binds {@code channel} to the socket file of {@code listener} and
+     * restricts the file to the configured permissions. Clients that managed
+     * to connect before that are disconnected, since their access was never
+     * checked against the permissions.
+     */
+    private void bindSocket(
+        ServerSocketChannel channel,
+        HyRconListenerConfiguration listener
     ) throws IOException {
-        if (!command.regionMatches(true, 0, "AUTH", 0, 4)) {
-            writer.write("ERR Not authenticated");
-            writer.newLine();
-            writer.write(".");
-            writer.newLine();
-            writer.flush();
-            return false;
+        Path path = socketPath(listener);
+        Path parent = path.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        removeStaleSocket(path);
+        channel.bind(UnixDomainSocketAddress.of(path));
+        try {
+            Files.setPosixFilePermissions(path, listener.socketPermissions());
+        } catch (UnsupportedOperationException ex) {
+            // A socket left with the default permissions would let any local
+            // user connect, so the listener does not start.
+            quietlyClose(channel);
+            Files.deleteIfExists(path);
+            throw new IOException(
+                "Unable to restrict permissions of HyRCON socket " +
+                    path +
+                    " on this platform",
+                ex
+            );
+        }
+        channel.configureBlocking(false);
+        SocketChannel early;
+        while ((early = channel.accept()) != null) {
+            quietlyClose(early);
         }
+    }
+
+    /**
+     * Deletes a socket file left behind by a server that did not stop
+     * cleanly. A socket that still accepts connections belongs to a running
+     * server, so binding fails instead.
+     */
+    private static void removeStaleSocket(Path path) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(
+                path,
+                BasicFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS
+            );
+        } catch (NoSuchFileException ex) {
+            return;
+        }
+        if (!attributes.isOther()) {
+            // Binding reports anything else that is in the way.
+            return;
+        }
+        SocketChannel probe;
+        try {
+            probe = SocketChannel.open(UnixDomainSocketAddress.of(path));
+        } catch (ConnectException ex) {
+            Files.deleteIfExists(path);
+            return;
+        }
+        quietlyClose(probe);
+        throw new IOException("Socket " + path + " is already in use");
+    }
 
-        String candidate =
-            command.length() > 4 ? command.substring(4).trim() : "";
-        boolean success = requiredPassword.map(candidate::equals).orElse(true);
+    private Path socketPath(HyRconListenerConfiguration listener) {
+        return dataDirectory.resolve(listener.socket().orElseThrow());
+    }
 
-        writer.write(success ? "AUTH OK" : "AUTH FAIL");
-        writer.newLine();
-        writer.write(".");
-        writer.newLine();
-        writer.flush();
+    private String endpoint(HyRconListenerConfiguration listener) {
+        return listener.socket().isPresent()
+            ? "unix:" + socketPath(listener)
+            : listener.host() + ":" + listener.port();
+    }
 
-        if (!success) {
+    /**
+     * Closes listening channels and deletes the socket files of those bound
+     * to Unix domain sockets, which closing leaves behind.
+     */
+    private void closeServerChannels(
+        Map<ServerSocketChannel, HyRconListenerConfiguration> channels
+    ) {
+        for (Map.Entry<
+            ServerSocketChannel,
+            HyRconListenerConfiguration
+        > entry : channels.entrySet()) {
+            ServerSocketChannel channel = entry.getKey();
+            SocketAddress bound;
+            try {
+                bound = channel.getLocalAddress();
+            } catch (IOException ex) {
+                bound = null;
+            }
+            quietlyClose(channel);
+            if (bound instanceof UnixDomainSocketAddress) {
+                try {
+                    Files.deleteIfExists(socketPath(entry.getValue()));
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    /**
+     * Opens the access log. A failure leaves session events going to the
+     * server log.
+     */
+    private void startAccessLog(String file) {
+        Path path = dataDirectory.resolve(file);
+        try {
+            accessLog = AccessLog.open(
+                path,
+                configuration.accessLogMaxBytes(),
+                configuration.accessLogMaxFiles(),
+                configuration.accessLogBuffer(),
+                configuration.accessLogOverflow()
+            );
+        } catch (IOException ex) {
             LOGGER.atInfo().log(
-                "HyRCON[%s] authentication failed",
-                protocol.configToken()
+                "Unable to open HyRCON access log %s - %s",
+                path,
+                ex.toString()
             );
         }
-
-        return success;
     }
 
-    private void executeLegacyCommand(String command, BufferedWriter writer)
-        throws IOException {
-        CommandResponse response = executeCommand(command);
-        sendLegacyResponse(writer, response, command);
+    /**
+     * Opens the audit journal. A failure is logged and leaves commands
+     * unaudited.
+     */
+    private void startAuditJournal(String directory) {
+        Path path = dataDirectory.resolve(directory);
+        try {
+            auditJournal = AuditJournal.open(
+                path,
+                configuration.auditSegmentBytes(),
+                configuration.auditRetentionDays(),
+                configuration.auditSyncMillis()
+            );
+        } catch (IOException ex) {
+            LOGGER.atInfo().log(
+                "Unable to open HyRCON audit journal in %s - %s",
+                path,
+                ex.toString()
+            );
+        }
     }
 
-    private CommandResponse executeCommand(String command) {
+    /**
+     * Starts the OpenMetrics listener. A failure to bind is logged and leaves
+     * the RCON listener running.
+     */
+    private void startMetricsEndpoint() {
+        OpenMetricsEndpoint endpoint = new OpenMetricsEndpoint(
+            metrics,
+            configuration.metricsHost(),
+            configuration.metricsPort()
+        );
         try {
-            return commandExecutor.executeValidated(command);
-        } catch (RuntimeException ex) {
+            endpoint.start();
+            metricsEndpoint = endpoint;
+        } catch (IOException ex) {
+            endpoint.stop();
             LOGGER.atInfo().log(
-                "Exception while executing command \"%s\": %s",
-                command,
+                "Unable to bind HyRCON metrics endpoint to %s:%d - %s",
+                configuration.metricsHost(),
+                configuration.metricsPort(),
                 ex.toString()
             );
-            return CommandResponse.failure(
-                "Command execution failed: " + ex.getMessage()
-            );
         }
     }
 
-    private void sendLegacyResponse(
-        BufferedWriter writer,
-        CommandResponse response,
-        String command
-    ) throws IOException {
-        writer.write(response.isSuccess() ? "OK" : "ERR");
-        writer.newLine();
+    private Thread createAcceptThread(Selector selector) {
+        Thread thread = new Thread(
+            () -> acceptLoop(selector),
+            "hyrcon-accept"
+        );
+        thread.setDaemon(true);
+        return thread;
+    }
 
-        for (String line : toDisplayLines(command, response, true)) {
-            writer.write(line);
-            writer.newLine();
+    /**
+     * Accepts the clients of every listener on a single thread. The listening
+     * channels are non-blocking so one selector can wait on all of them, while
+     * accepted channels start out blocking as client threads expect.
+     */
+    private void acceptLoop(Selector selector) {
+        LOGGER.atInfo().log("HyRCON accept loop started");
+
+        try {
+            while (running.get()) {
+                selector.select();
+                Iterator<SelectionKey> iterator = selector
+                    .selectedKeys()
+                    .iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        acceptPending(
+                            (ServerSocketChannel) key.channel(),
+                            (HyRconListenerConfiguration) key.attachment()
+                        );
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException ex) {
+            if (running.get()) {
+                LOGGER.atInfo().log(
+                    "HyRCON accept loop socket error: %s",
+                    ex.toString()
+                );
+            }
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException ignored) {}
         }
 
-        writer.write(".");
-        writer.newLine();
-        writer.flush();
+        LOGGER.atInfo().log("HyRCON accept loop terminated");
     }
 
-    private void sendLegacyAndFlush(BufferedWriter writer, String line)
-        throws IOException {
-        writer.write(line);
-        writer.newLine();
-        writer.write(".");
-        writer.newLine();
-        writer.flush();
+    private void acceptPending(
+        ServerSocketChannel channel,
+        HyRconListenerConfiguration listener
+    ) {
+        while (true) {
+            SocketChannel clientChannel;
+            try {
+                clientChannel = channel.accept();
+            } catch (ClosedChannelException ex) {
+                return;
+            } catch (IOException ex) {
+                LOGGER.atInfo().log(
+                    "HyRCON accept loop I/O error: %s",
+                    ex.toString()
+                );
+                return;
+            }
+            if (clientChannel == null) {
+                return;
+            }
+            if (refuseBanned(clientChannel)) {
+                continue;
+            }
+            if (listener.socket().isEmpty()) {
+                configureChannel(clientChannel);
+            }
+            submitClient(clientChannel, listener);
+        }
     }
 
-    private void sendSourceResponse(
-        OutputStream output,
-        int requestId,
-        String command,
-        CommandResponse response
-    ) throws IOException {
-        List<String> lines = toDisplayLines(command, response, false);
-        String payload = String.join("\n", lines);
-        byte[] data = payload.getBytes(SOURCE_CHARSET);
-
-        if (data.length == 0) {
-            writeSourcePacket(output, requestId, 0, EMPTY_BYTES, 0, 0);
-            writeSourcePacket(output, requestId, 0, EMPTY_BYTES, 0, 0);
-            output.flush();
+    private void submitClient(
+        SocketChannel channel,
+        HyRconListenerConfiguration listener
+    ) {
+        if (!tryAdmitClient()) {
+            rejectBusy(channel, listener);
             return;
         }
 
-        int offset = 0;
-        while (offset < data.length) {
-            int chunk = Math.min(SOURCE_MAX_PAYLOAD, data.length - offset);
-            writeSourcePacket(output, requestId, 0, data, offset, chunk);
-            offset += chunk;
+        try {
+            clientExecutor.execute(() -> runAdmittedClient(channel, listener));
+        } catch (RejectedExecutionException ex) {
+            releaseClient();
+            if (!clientExecutor.isShutdown()) {
+                rejectBusy(channel, listener);
+                return;
+            }
+            LOGGER.atInfo().log(
+                "Rejecting HyRCON client %s - executor shutting down",
+                safeRemoteAddress(channel)
+            );
+            quietlyClose(channel);
         }
-
-        writeSourcePacket(output, requestId, 0, EMPTY_BYTES, 0, 0);
-        output.flush();
     }
 
-    private SourceRconPacket readSourcePacket(InputStream input)
-        throws IOException {
-        Integer lengthValue = readLittleEndianInt(input);
-        if (lengthValue == null) {
-            return null;
+    private void runAdmittedClient(
+        SocketChannel channel,
+        HyRconListenerConfiguration listener
+    ) {
+        try {
+            if (sessionPermits == null) {
+                handleClient(channel, listener);
+                return;
+            }
+            try {
+                sessionPermits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                quietlyClose(channel);
+                return;
+            }
+            try {
+                handleClient(channel, listener);
+            } finally {
+                sessionPermits.release();
+            }
+        } finally {
+            releaseClient();
         }
+    }
 
-        int length = lengthValue;
-        if (length < 10) {
-            throw new IOException("Invalid RCON packet length: " + length);
+    private void handleClient(
+        SocketChannel channel,
+        HyRconListenerConfiguration listener
+    ) {
+        TlsContext tlsContext = tlsContext(listener);
+        // Null for plain text listeners.
+        TlsChannel tls = null;
+        if (tlsContext != null) {
+            tls = tlsContext.open(channel);
+            if (!handshake(channel, tls, listener)) {
+                return;
+            }
         }
+        ReadableByteChannel input = tls != null ? tls : channel;
+        BlockingConnection connection = new BlockingConnection(
+            channel,
+            tls,
+            allocateClientBuffer()
+        );
+        ClientSession session;
+        if (listener.protocol() == HyRconProtocol.AUTO) {
+            session = detectSession(channel, input, connection, listener);
+            if (session == null) {
+                return;
+            }
+        } else {
+            session = createSession(connection, listener, listener.protocol());
+            session.open();
+        }
+        try {
+            ByteBuffer buffer = allocateClientBuffer();
+            while (session.isOpen()) {
+                connection.awaitReadable();
+                buffer.clear();
+                int read = input.read(buffer);
+                if (read < 0) {
+                    session.endOfStream();
+                    // Pipelined replies may still be in flight.
+                    session.awaitClosed();
+                    break;
+                }
+                buffer.flip();
+                session.receive(buffer);
+            }
+        } catch (IOException ex) {
+            session.fail(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            session.close();
+        }
+    }
 
-        byte[] buffer = new byte[length];
-        readFully(input, buffer, 0, length);
-
-        int requestId = decodeLittleEndianInt(buffer, 0);
-        int type = decodeLittleEndianInt(buffer, 4);
-        int payloadLength = length - 8;
-        int stringLength = Math.max(0, payloadLength - 2);
-
-        String payload =
-            stringLength == 0
-                ? ""
-                : new String(buffer, 8, stringLength, SOURCE_CHARSET);
-
-        return new SourceRconPacket(requestId, type, payload);
+    /**
+     * Completes the TLS handshake of a client, waiting on a selector for at
+     * most the listener's handshake timeout.
+     *
+     * @return whether the handshake completed; the connection has been closed
+     *     otherwise
+     */
+    private boolean handshake(
+        SocketChannel channel,
+        TlsChannel tls,
+        HyRconListenerConfiguration listener
+    ) {
+        String remote = safeRemoteAddress(channel);
+        long deadline =
+            System.nanoTime() +
+            TimeUnit.MILLISECONDS.toNanos(
+                listener.tls().handshakeTimeoutMillis()
+            );
+        try (Selector selector = Selector.open()) {
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, 0);
+            while (true) {
+                if (tls.handshake() < 0) {
+                    // Probes that connect and leave are not failures.
+                    quietlyClose(channel);
+                    return false;
+                }
+                boolean pending = tls.hasPendingOutput();
+                if (tls.isHandshakeComplete() && !pending) {
+                    break;
+                }
+                long remaining = TimeUnit.NANOSECONDS.toMillis(
+                    deadline - System.nanoTime()
+                );
+                if (remaining <= 0) {
+                    tlsHandshakeTimedOut(listener, remote);
+                    quietlyClose(tls);
+                    return false;
+                }
+                key.interestOps(
+                    pending ? SelectionKey.OP_WRITE : SelectionKey.OP_READ
+                );
+                selector.select(remaining);
+                selector.selectedKeys().clear();
+            }
+            key.cancel();
+            // Deregisters the channel so that it can block again.
+            selector.selectNow();
+            channel.configureBlocking(true);
+        } catch (IOException ex) {
+            tlsHandshakeFailed(listener, remote, ex.toString());
+            // Sends the alert the engine produced for the failure.
+            quietlyClose(tls);
+            return false;
+        }
+        tlsHandshakeCompleted(tls);
+        return true;
     }
 
-    private static Integer readLittleEndianInt(InputStream input)
-        throws IOException {
-        int b0 = input.read();
-        if (b0 == -1) {
+    /**
+     * Reads the first bytes of a connection on a protocol-detecting listener
+     * until {@link ProtocolSniffer} knows its protocol, then opens a session
+     * and hands it those bytes. Meanwhile the channel is non-blocking and
+     * waited on through a selector, because socket timeouts are not available
+     * for Unix domain sockets, and reads ask for no more bytes than detection
+     * can need.
+     *
+     * @return the opened session, or {@code null} if the connection has been
+     *     answered and closed without one
+     */
+    private ClientSession detectSession(
+        SocketChannel channel,
+        ReadableByteChannel input,
+        BlockingConnection connection,
+        HyRconListenerConfiguration listener
+    ) {
+        ProtocolSniffer sniffer = new ProtocolSniffer();
+        ProtocolSniffer.Detection detection = null;
+        ByteBuffer data = ByteBuffer.allocate(ProtocolSniffer.MAX_PREFIX);
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(
+            listener.detectTimeoutMillis()
+        );
+        long deadline = System.nanoTime() + timeoutNanos;
+        try (Selector selector = Selector.open()) {
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            while (detection == null) {
+                data.clear();
+                int read = readBefore(input, selector, data, deadline);
+                if (read <= 0) {
+                    // Nothing was read into the buffer this time around.
+                    data.limit(0);
+                }
+                if (read == 0) {
+                    // Silent clients are waiting for the HyRCON greeting.
+                    detection = ProtocolSniffer.Detection.HYRCON;
+                } else if (read < 0) {
+                    if (sniffer.isEmpty()) {
+                        connection.close();
+                        return null;
+                    }
+                    detection = sniffer.offer(ByteBuffer.allocate(0), true);
+                } else {
+                    data.flip();
+                    detection = sniffer.offer(data, false);
+                }
+            }
+
+            if (detection.protocol == null) {
+                httpRequestRejected(listener, connection.remoteAddress());
+                connection.write(ProtocolSniffer.httpResponse());
+                connection.flush();
+                channel.shutdownOutput();
+                // Closing with the request unread would reset the connection
+                // and could discard the response, so drain a bounded amount.
+                long drainDeadline = System.nanoTime() + timeoutNanos;
+                int discarded = 0;
+                int read;
+                while (
+                    discarded < listener.maxFrameSize() &&
+                    (read = readBefore(
+                        input,
+                        selector,
+                        data.clear(),
+                        drainDeadline
+                    )) > 0
+                ) {
+                    discarded += read;
+                }
+                connection.close();
+                return null;
+            }
+            key.cancel();
+            // Deregisters the channel so that it can block again.
+            selector.selectNow();
+            channel.configureBlocking(true);
+        } catch (IOException ex) {
+            connection.close();
             return null;
         }
-        int b1 = input.read();
-        int b2 = input.read();
-        int b3 = input.read();
-        if ((b1 | b2 | b3) < 0) {
-            throw new EOFException(
-                "Unexpected end of stream while reading 32-bit integer"
-            );
-        }
-        return (
-            (b0 & 0xFF) |
-            ((b1 & 0xFF) << 8) |
-            ((b2 & 0xFF) << 16) |
-            ((b3 & 0xFF) << 24)
+        ClientSession session = createSession(
+            connection,
+            listener,
+            detection.protocol
         );
+        session.open();
+        ByteBuffer carried = sniffer.carried();
+        if (carried != null) {
+            session.receive(carried);
+        }
+        if (data.hasRemaining()) {
+            session.receive(data);
+        }
+        return session;
     }
 
-    private static void readFully(
-        InputStream input,
-        byte[] buffer,
-        int offset,
-        int length
+    /**
+     * Reads from {@code channel}, whose socket is non-blocking and registered
+     * with {@code selector}, waiting for input until {@code deadline} at most.
+     *
+     * @return bytes read, {@code -1} at the end of the stream, or {@code 0}
+     *     if nothing arrived in time
+     */
+    private static int readBefore(
+        ReadableByteChannel channel,
+        Selector selector,
+        ByteBuffer buffer,
+        long deadline
     ) throws IOException {
-        int remaining = length;
-        while (remaining > 0) {
-            int read = input.read(buffer, offset, remaining);
-            if (read == -1) {
-                throw new EOFException(
-                    "Unexpected end of stream while reading RCON packet body"
-                );
+        while (true) {
+            int read = channel.read(buffer);
+            if (read != 0) {
+                return read;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(
+                deadline - System.nanoTime()
+            );
+            if (remaining <= 0) {
+                return 0;
             }
-            offset += read;
-            remaining -= read;
+            selector.select(remaining);
+            selector.selectedKeys().clear();
         }
     }
 
-    private void writeSourcePacket(
-        OutputStream output,
-        int requestId,
-        int type,
-        byte[] payload,
-        int offset,
-        int length
-    ) throws IOException {
-        int bodyLength = 4 + 4 + length + 2;
-        writeLittleEndianInt(output, bodyLength);
-        writeLittleEndianInt(output, requestId);
-        writeLittleEndianInt(output, type);
-        if (length > 0) {
-            output.write(payload, offset, length);
-        }
-        output.write(0);
-        output.write(0);
-    }
-
-    private static void writeLittleEndianInt(OutputStream output, int value)
-        throws IOException {
-        output.write(value & 0xFF);
-        output.write((value >>> 8) & 0xFF);
-        output.write((value >>> 16) & 0xFF);
-        output.write((value >>> 24) & 0xFF);
-    }
-
-    private static int decodeLittleEndianInt(byte[] buffer, int offset) {
-        return (
-            (buffer[offset] & 0xFF) |
-            ((buffer[offset + 1] & 0xFF) << 8) |
-            ((buffer[offset + 2] & 0xFF) << 16) |
-            ((buffer[offset + 3] & 0xFF) << 24)
-        );
+    private CompletableFuture<CommandResponse> executeCommand(
+        HyRconProtocol protocol,
+        String command,
+        Consumer<String> output
+    ) {
+        CompletionStage<CommandResponse> stage;
+        try {
+            stage =
+                output == null
+                    ? commandExecutor.executeValidatedAsync(command)
+                    : commandExecutor.executeStreaming(command, output);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.completedFuture(
+                commandFailure(protocol, command, ex)
+            );
+        }
+        return stage
+            .toCompletableFuture()
+            .exceptionally(ex ->
+                commandFailure(
+                    protocol,
+                    command,
+                    ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause()
+                        : ex
+                )
+            );
     }
 
-    private List<String> toDisplayLines(
+    private CommandResponse commandFailure(
+        HyRconProtocol protocol,
         String command,
-        CommandResponse response,
-        boolean includeSyntheticSuccess
+        Throwable ex
     ) {
-        List<String> lines = new ArrayList<>(response.lines());
+        accessLog.record(
+            AccessLog.Kind.COMMAND_ERROR,
+            protocol,
+            null,
+            command,
+            ex.toString()
+        );
+        return CommandResponse.failure(
+            "Command execution failed: " + ex.getMessage()
+        );
+    }
 
-        if (response.isFailure()) {
-            if (response.hasErrorMessage()) {
-                String errorLine = "ERROR " + response.errorMessage();
-                if (!lines.contains(errorLine)) {
-                    lines.add(errorLine);
-                }
-            }
-            if (lines.isEmpty()) {
-                lines.add("Command execution failed");
-            }
-        } else if (lines.isEmpty() && includeSyntheticSuccess) {
-            lines.add("Command executed: " + command);
-        }
+    private static void configureChannel(SocketChannel channel) {
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException ignored) {}
+    }
 
-        return lines;
+    /**
+     * Makes closing {@code channel} reset the connection, dropping whatever
+     * the client has not read yet instead of trickling it out to a client
+     * that is being evicted.
+     */
+    static void discardUnsent(SocketChannel channel) {
+        try {
+            channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+        } catch (IOException | UnsupportedOperationException ignored) {
+            // Unix domain sockets drop unread data when closed anyway.
+        }
     }
 
-    private static boolean isTerminateCommand(String command) {
-        return (
-            "QUIT".equalsIgnoreCase(command) || "EXIT".equalsIgnoreCase(command)
-        );
+    /**
+     * Returns the IP address of the client on {@code channel}, or
+     * {@code null} for Unix domain socket clients and closed channels.
+     */
+    static InetAddress remoteInetAddress(SocketChannel channel) {
+        try {
+            return channel.getRemoteAddress() instanceof
+                InetSocketAddress remote
+                ? remote.getAddress()
+                : null;
+        } catch (IOException ex) {
+            return null;
+        }
     }
 
-    private static void configureSocket(Socket socket) {
+    static String safeRemoteAddress(SocketChannel channel) {
         try {
-            socket.setTcpNoDelay(true);
-        } catch (SocketException ignored) {}
+            SocketAddress remote = channel.getRemoteAddress();
+            if (remote instanceof UnixDomainSocketAddress) {
+                // Clients of a Unix domain socket are unnamed.
+                return "unix:" + channel.getLocalAddress();
+            }
+            return remote == null ? "<unknown>" : remote.toString();
+        } catch (IOException ex) {
+            return "<unknown>";
+        }
     }
 
-    private static String safeRemoteAddress(Socket socket) {
-        return socket.getRemoteSocketAddress() == null
-            ? "<unknown>"
-            : socket.getRemoteSocketAddress().toString();
+    private ByteBuffer allocateClientBuffer() {
+        return directBuffers
+            ? ByteBuffer.allocateDirect(clientBufferSize)
+            : ByteBuffer.allocate(clientBufferSize);
     }
 
     private void shutdownExecutor() {
+        if (dispatchExecutor != clientExecutor) {
+            dispatchExecutor.shutdownNow();
+        }
         clientExecutor.shutdownNow();
         try {
             if (!clientExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -683,22 +1453,39 @@ public final class HyRconServer implements AutoCloseable {
         }
     }
 
-    private static void quietlyClose(ServerSocket socket) {
-        if (socket == null) {
+    private static void quietlyClose(ServerSocketChannel channel) {
+        if (channel == null) {
             return;
         }
         try {
-            socket.close();
+            channel.close();
         } catch (IOException ignored) {}
     }
 
-    private static void quietlyClose(Socket socket) {
+    private static void quietlyClose(TlsChannel channel) {
         try {
-            socket.close();
+            channel.close();
         } catch (IOException ignored) {}
     }
 
-    private static ExecutorService createClientExecutor() {
+    private static void quietlyClose(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    private static ExecutorService createClientExecutor(
+        String threadPrefix,
+        HyRconExecutionMode executionMode,
+        int maxThreads,
+        int queueDepth
+    ) {
+        if (executionMode == HyRconExecutionMode.VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(threadPrefix, 1).factory()
+            );
+        }
+
         ThreadFactory factory = new ThreadFactory() {
             private final AtomicInteger sequence = new AtomicInteger(1);
 
@@ -706,14 +1493,190 @@ public final class HyRconServer implements AutoCloseable {
             public Thread newThread(Runnable runnable) {
                 Thread thread = new Thread(
                     runnable,
-                    "hyrcon-client-" + sequence.getAndIncrement()
+                    threadPrefix + sequence.getAndIncrement()
                 );
                 thread.setDaemon(true);
                 return thread;
             }
         };
-        return Executors.newCachedThreadPool(factory);
+        if (maxThreads == 0) {
+            return Executors.newCachedThreadPool(factory);
+        }
+
+        BlockingQueue<Runnable> queue =
+            queueDepth == 0
+                ? new SynchronousQueue<>()
+                : new ArrayBlockingQueue<>(queueDepth);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            maxThreads,
+            maxThreads,
+            60L,
+            TimeUnit.SECONDS,
+            queue,
+            factory
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-    private record SourceRconPacket(int requestId, int type, String payload) {}
+    /**
+     * Connection used by the blocking transport. Output is buffered like a
+     * {@link java.io.BufferedOutputStream} and written on flush.
+     */
+    private static final class BlockingConnection implements ClientConnection {
+
+        private final SocketChannel channel;
+        // Null for plain text connections.
+        private final TlsChannel tls;
+        private final GatheringByteChannel out;
+        private final String remote;
+        // Null for Unix domain socket clients.
+        private final InetAddress address;
+        private final ByteBuffer output;
+        private final Object readLock = new Object();
+        private boolean readSuspended;
+        private boolean closed;
+        // Zero unless a writer is blocked on the socket.
+        private volatile long writeBlockedSince;
+
+        BlockingConnection(
+            SocketChannel channel,
+            TlsChannel tls,
+            ByteBuffer output
+        ) {
+            this.channel = channel;
+            this.tls = tls;
+            this.out = tls != null ? tls : channel;
+            this.remote = safeRemoteAddress(channel);
+            this.address = HyRconServer.remoteInetAddress(channel);
+            this.output = output;
+        }
+
+        @Override
+        public String remoteAddress() {
+            return remote;
+        }
+
+        @Override
+        public InetAddress remoteInetAddress() {
+            return address;
+        }
+
+        @Override
+        public String clientPrincipal() {
+            return tls != null ? tls.clientPrincipal() : null;
+        }
+
+        @Override
+        public synchronized void write(ByteBuffer data) throws IOException {
+            if (data.remaining() > output.remaining()) {
+                flushBuffer();
+            }
+            if (data.remaining() >= output.capacity()) {
+                writeFully(data);
+                return;
+            }
+            output.put(data);
+        }
+
+        @Override
+        public synchronized void write(ByteBuffer[] data) throws IOException {
+            long total = 0;
+            for (ByteBuffer buffer : data) {
+                total += buffer.remaining();
+            }
+            if (total > output.remaining()) {
+                flushBuffer();
+            }
+            if (total >= output.capacity()) {
+                // Header, payload and trailer leave in one gathering write.
+                writeBlockedSince = System.nanoTime();
+                try {
+                    while (total > 0) {
+                        total -= out.write(data);
+                    }
+                } finally {
+                    writeBlockedSince = 0;
+                }
+                return;
+            }
+            for (ByteBuffer buffer : data) {
+                output.put(buffer);
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            flushBuffer();
+        }
+
+        @Override
+        public void setReadInterest(boolean enabled) {
+            // Pipelined sessions pause the client thread between reads.
+            synchronized (readLock) {
+                readSuspended = !enabled;
+                readLock.notifyAll();
+            }
+        }
+
+        void awaitReadable() throws InterruptedException {
+            synchronized (readLock) {
+                while (readSuspended) {
+                    readLock.wait();
+                }
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                flushBuffer();
+            } catch (IOException ignored) {}
+            if (tls != null) {
+                try {
+                    tls.close();
+                } catch (IOException ignored) {}
+            }
+            quietlyClose(channel);
+            setReadInterest(true);
+        }
+
+        @Override
+        public void abort() {
+            // Closing the socket fails a writer blocked on it, which holds the
+            // connection lock, so the TLS channel is left unclosed.
+            discardUnsent(channel);
+            quietlyClose(channel);
+            setReadInterest(true);
+        }
+
+        @Override
+        public long writeBlockedSinceNanos() {
+            return writeBlockedSince;
+        }
+
+        private void flushBuffer() throws IOException {
+            output.flip();
+            try {
+                writeFully(output);
+            } finally {
+                output.clear();
+            }
+        }
+
+        private void writeFully(ByteBuffer data) throws IOException {
+            writeBlockedSince = System.nanoTime();
+            try {
+                while (data.hasRemaining()) {
+                    out.write(data);
+                }
+            } finally {
+                writeBlockedSince = 0;
+            }
+        }
+    }
 }
@@ -0,0 +1,79 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Enumerates whether clients of a TLS listener are asked for a certificate.
+ *
+ * A client whose certificate is verified against the listener's trust store is
+ * authenticated by the handshake and never has to send the listener password.
+ * Requesting a certificate without requiring one lets certificate holders skip
+ * the password while every other client still authenticates with it.
+ */
+public enum HyRconTlsClientAuth {
+    /**
+     * Never ask clients for a certificate.
+     */
+    NONE("none"),
+
+    /**
+     * Ask clients for a certificate but accept those that present none.
+     */
+    OPTIONAL("optional"),
+
+    /**
+     * Fail the handshake of clients that present no trusted certificate.
+     */
+    REQUIRED("required");
+
+    private final String configToken;
+
+    HyRconTlsClientAuth(String configToken) {
+        this.configToken = normalize(
+            Objects.requireNonNull(configToken, "configToken")
+        );
+    }
+
+    /**
+     * Returns the canonical token that should be used in configuration files or
+     * environment variables to select this mode.
+     *
+     * @return configuration token
+     */
+    public String configToken() {
+        return configToken;
+    }
+
+    /**
+     * Attempts to resolve a client authentication mode from a user-supplied
+     * token. Comparison is case-insensitive and falls back to not asking for
+     * certificates if the input is {@code null} or blank.
+     *
+     * @param rawToken candidate token
+     * @return matching mode, never {@code null}
+     * @throws IllegalArgumentException if the token does not map to a mode
+     */
+    public static HyRconTlsClientAuth fromToken(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return NONE;
+        }
+
+        String normalized = normalize(rawToken);
+        for (HyRconTlsClientAuth mode : values()) {
+            if (mode.configToken.equals(normalized)) {
+                return mode;
+            }
+        }
+
+        throw new IllegalArgumentException(
+            "Unknown HyRCON TLS client authentication mode: " + rawToken
+        );
+    }
+
+    private static String normalize(String token) {
+        return Objects.requireNonNull(token, "token")
+            .trim()
+            .toLowerCase(Locale.ROOT);
+    }
+}
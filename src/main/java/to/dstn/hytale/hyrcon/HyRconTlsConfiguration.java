@@ -0,0 +1,116 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * TLS settings of a listener.
+ *
+ * TLS is enabled by naming a key store; without one the listener speaks
+ * plain text and every other setting is ignored. Store paths are relative to
+ * the server's data directory unless absolute, and both JKS and PKCS#12 files
+ * are accepted.
+ */
+public final class HyRconTlsConfiguration {
+
+    private final Optional<String> keystore;
+    private final Optional<String> keystorePassword;
+    private final HyRconTlsClientAuth clientAuth;
+    private final Optional<String> truststore;
+    private final Optional<String> truststorePassword;
+    private final int handshakeTimeoutMillis;
+    private final int sessionTimeoutSeconds;
+
+    HyRconTlsConfiguration(
+        Optional<String> keystore,
+        Optional<String> keystorePassword,
+        HyRconTlsClientAuth clientAuth,
+        Optional<String> truststore,
+        Optional<String> truststorePassword,
+        int handshakeTimeoutMillis,
+        int sessionTimeoutSeconds
+    ) {
+        this.keystore = Objects.requireNonNull(keystore, "keystore");
+        this.keystorePassword = Objects.requireNonNull(
+            keystorePassword,
+            "keystorePassword"
+        );
+        this.clientAuth = Objects.requireNonNull(clientAuth, "clientAuth");
+        this.truststore = Objects.requireNonNull(truststore, "truststore");
+        this.truststorePassword = Objects.requireNonNull(
+            truststorePassword,
+            "truststorePassword"
+        );
+        this.handshakeTimeoutMillis = handshakeTimeoutMillis;
+        this.sessionTimeoutSeconds = sessionTimeoutSeconds;
+    }
+
+    /**
+     * Key store holding the server's private key and certificate chain.
+     */
+    public Optional<String> keystore() {
+        return keystore;
+    }
+
+    public Optional<String> keystorePassword() {
+        return keystorePassword;
+    }
+
+    public HyRconTlsClientAuth clientAuth() {
+        return clientAuth;
+    }
+
+    /**
+     * Trust store client certificates are verified against. Required unless
+     * {@link #clientAuth()} is {@link HyRconTlsClientAuth#NONE}.
+     */
+    public Optional<String> truststore() {
+        return truststore;
+    }
+
+    public Optional<String> truststorePassword() {
+        return truststorePassword;
+    }
+
+    /**
+     * Milliseconds a client may take to complete the handshake before it is
+     * disconnected.
+     */
+    public int handshakeTimeoutMillis() {
+        return handshakeTimeoutMillis;
+    }
+
+    /**
+     * Seconds a negotiated session may be resumed by a reconnecting client
+     * without a full handshake.
+     */
+    public int sessionTimeoutSeconds() {
+        return sessionTimeoutSeconds;
+    }
+
+    public boolean isEnabled() {
+        return keystore.isPresent();
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "HyRconTlsConfiguration{" +
+            "keystore=" +
+            keystore.orElse("<none>") +
+            ", clientAuth=" +
+            clientAuth +
+            ", truststore=" +
+            truststore.orElse("<none>") +
+            ", handshakeTimeoutMillis=" +
+            handshakeTimeoutMillis +
+            ", sessionTimeoutSeconds=" +
+            sessionTimeoutSeconds +
+            ", keystorePassword=" +
+            keystorePassword.map(HyRconConfiguration::mask).orElse("<none>") +
+            ", truststorePassword=" +
+            truststorePassword.map(HyRconConfiguration::mask).orElse("<none>") +
+            '}'
+        );
+    }
+}
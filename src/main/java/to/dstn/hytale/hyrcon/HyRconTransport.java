@@ -0,0 +1,76 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Enumerates the socket transports the HyRCON listener can run on.
+ *
+ * The blocking transport dedicates one client thread to every connection for
+ * the entire session, which is simple but scales poorly with many long-lived
+ * monitoring connections. The NIO transport multiplexes all sessions over a
+ * small number of selector threads and hands command dispatch off to a separate
+ * pool. Both transports drive the same protocol sessions and therefore produce
+ * identical bytes on the wire.
+ */
+public enum HyRconTransport {
+    /**
+     * Thread-per-connection transport backed by blocking socket channels.
+     */
+    BLOCKING("blocking"),
+
+    /**
+     * Selector-driven transport backed by non-blocking socket channels.
+     */
+    NIO("nio");
+
+    private final String configToken;
+
+    HyRconTransport(String configToken) {
+        this.configToken = normalize(
+            Objects.requireNonNull(configToken, "configToken")
+        );
+    }
+
+    /**
+     * Returns the canonical token that should be used in configuration files or
+     * environment variables to select this transport.
+     *
+     * @return configuration token
+     */
+    public String configToken() {
+        return configToken;
+    }
+
+    /**
+     * Attempts to resolve a transport from a user-supplied token. Comparison is
+     * case-insensitive and falls back to the blocking transport if the input is
+     * {@code null} or blank.
+     *
+     * @param rawToken candidate token
+     * @return matching transport, never {@code null}
+     * @throws IllegalArgumentException if the token does not map to a transport
+     */
+    public static HyRconTransport fromToken(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return BLOCKING;
+        }
+
+        String normalized = normalize(rawToken);
+        for (HyRconTransport transport : values()) {
+            if (transport.configToken.equals(normalized)) {
+                return transport;
+            }
+        }
+
+        throw new IllegalArgumentException(
+            "Unknown HyRCON transport: " + rawToken
+        );
+    }
+
+    private static String normalize(String token) {
+        return Objects.requireNonNull(token, "token")
+            .trim()
+            .toLowerCase(Locale.ROOT);
+    }
+}
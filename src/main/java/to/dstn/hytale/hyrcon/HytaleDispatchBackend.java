@@ -0,0 +1,90 @@
+package to.dstn.hytale.hyrcon;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandManager;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.console.ConsoleSender;
+import com.hypixel.hytale.server.core.util.MessageUtil;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches commands through the game's {@link CommandManager} as the
+ * console, mirroring every message to the real console as well.
+ */
+final class HytaleDispatchBackend implements DispatchBackend {
+
+    static final HytaleDispatchBackend INSTANCE = new HytaleDispatchBackend();
+
+    private HytaleDispatchBackend() {}
+
+    @Override
+    public CompletableFuture<Void> dispatch(
+        String command,
+        Consumer<CharSequence> output
+    ) {
+        return CommandManager.get().handleCommand(
+            new ForwardingCommandSender(ConsoleSender.INSTANCE, output),
+            command
+        );
+    }
+
+    private static final class ForwardingCommandSender
+        implements CommandSender
+    {
+
+        private final CommandSender delegate;
+        private final Consumer<CharSequence> output;
+
+        ForwardingCommandSender(
+            CommandSender delegate,
+            Consumer<CharSequence> output
+        ) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+            this.output = Objects.requireNonNull(output, "output");
+        }
+
+        @Override
+        public void sendMessage(Message message) {
+            if (message != null) {
+                output.accept(messageText(message));
+            }
+            delegate.sendMessage(message);
+        }
+
+        @Override
+        public String getDisplayName() {
+            return delegate.getDisplayName();
+        }
+
+        @Override
+        public UUID getUuid() {
+            return delegate.getUuid();
+        }
+
+        @Override
+        public boolean hasPermission(String permission) {
+            return delegate.hasPermission(permission);
+        }
+
+        @Override
+        public boolean hasPermission(String permission, boolean defaultValue) {
+            return delegate.hasPermission(permission, defaultValue);
+        }
+
+        private static CharSequence messageText(Message message) {
+            String ansiText = MessageUtil.toAnsiString(message).toString();
+            if (ansiText != null && !ansiText.isEmpty()) {
+                return ansiText;
+            }
+            String raw = message.getRawText();
+            if (raw != null && !raw.isEmpty()) {
+                return raw;
+            }
+            String fallback = message.toString();
+            return fallback != null ? fallback : "";
+        }
+    }
+}
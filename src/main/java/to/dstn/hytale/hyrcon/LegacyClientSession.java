@@ -0,0 +1,228 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Session implementing the line-oriented HyRCON protocol.
+ *
+ * Lines are decoded as UTF-8 and may be terminated by {@code \n}, {@code \r}
+ * or {@code \r\n}, mirroring {@link java.io.BufferedReader#readLine()}.
+ * Responses are terminated with the platform line separator followed by a
+ * lone {@code .} line. The upper-case {@code STATS} command is answered by the
+ * session with the server metrics.
+ */
+final class LegacyClientSession extends ClientSession {
+
+    private static final String NEWLINE = System.lineSeparator();
+    private static final ByteBuffer BUSY_RESPONSE = ByteBuffer.wrap(
+        ("ERR busy" + NEWLINE + "." + NEWLINE).getBytes(StandardCharsets.UTF_8)
+    ).asReadOnlyBuffer();
+
+    private final StringBuilder pending = new StringBuilder();
+    private boolean authenticated;
+    private boolean skipLineFeed;
+    // Bytes of the partial line at the input position already scanned for a
+    // terminator, so a line that arrives in pieces is scanned only once.
+    private int scannedLength;
+    // Whether streamed output of the current response has been sent already.
+    private boolean responseStarted;
+
+    LegacyClientSession(
+        HyRconServer server,
+        HyRconListenerConfiguration listener,
+        ClientConnection connection
+    ) {
+        super(server, listener, connection, HyRconProtocol.HYRCON);
+        this.authenticated = !isPasswordRequired();
+    }
+
+    /**
+     * Returns the frame written to clients that are shed under overload.
+     *
+     * @return read-only view positioned at the start of the frame
+     */
+    static ByteBuffer busyResponse() {
+        return BUSY_RESPONSE.duplicate();
+    }
+
+    @Override
+    protected void onOpen() throws IOException {
+        appendLine("HYRCON READY");
+        appendLine(
+            isPasswordRequired()
+                ? "AUTH REQUIRED"
+                : "AUTH OPTIONAL"
+        );
+        appendLine(".");
+        flushPending();
+    }
+
+    @Override
+    protected boolean processFrame(ByteBuffer input, boolean endOfInput)
+        throws IOException {
+        if (skipLineFeed && input.hasRemaining()) {
+            skipLineFeed = false;
+            if (input.get(input.position()) == '\n') {
+                input.position(input.position() + 1);
+            }
+        }
+
+        int start = input.position();
+        int limit = input.limit();
+        for (int index = start + scannedLength; index < limit; index++) {
+            byte value = input.get(index);
+            if (value == '\n' || value == '\r') {
+                checkLineLength(index - start);
+                String line = decode(input, start, index - start);
+                input.position(index + 1);
+                scannedLength = 0;
+                skipLineFeed = value == '\r';
+                handleLine(line);
+                return true;
+            }
+        }
+
+        checkLineLength(limit - start);
+        if (endOfInput && start < limit) {
+            String line = decode(input, start, limit - start);
+            input.position(limit);
+            scannedLength = 0;
+            handleLine(line);
+            return true;
+        }
+        scannedLength = limit - start;
+        return false;
+    }
+
+    private void handleLine(String line) throws IOException {
+        String command = line.trim();
+        if (command.isEmpty()) {
+            return;
+        }
+
+        if (!authenticated) {
+            authenticated = processAuthentication(command);
+            return;
+        }
+
+        if (isTerminateCommand(command)) {
+            appendLine("BYE");
+            appendLine(".");
+            flushPending();
+            close();
+            return;
+        }
+
+        if ("PING".equalsIgnoreCase(command)) {
+            sendResponse(CommandResponse.success("PONG"), command);
+            return;
+        }
+
+        if (command.equals(STATS_COMMAND)) {
+            sendResponse(statsResponse(), command);
+            return;
+        }
+
+        dispatch(
+            command,
+            response -> sendResponse(response, command),
+            this::streamOutput
+        );
+    }
+
+    private boolean processAuthentication(String command) throws IOException {
+        if (!command.regionMatches(true, 0, "AUTH", 0, 4)) {
+            appendLine("ERR Not authenticated");
+            appendLine(".");
+            flushPending();
+            return false;
+        }
+
+        String candidate =
+            command.length() > 4 ? command.substring(4).trim() : "";
+        boolean success = listener
+            .password()
+            .map(candidate::equals)
+            .orElse(true);
+
+        authenticationAttempted(success, () -> {
+            appendLine(success ? "AUTH OK" : "AUTH FAIL");
+            appendLine(".");
+            flushPending();
+        });
+
+        return success;
+    }
+
+    private void sendResponse(CommandResponse response, String command)
+        throws IOException {
+        boolean continued = responseStarted;
+        responseStarted = false;
+        if (!continued) {
+            appendLine(response.isSuccess() ? "OK" : "ERR");
+        }
+        for (String line : toDisplayLines(command, response, !continued)) {
+            appendLine(line);
+        }
+        appendLine(".");
+        flushPending();
+    }
+
+    /**
+     * Writes output of a still running command. The status line has to go
+     * first, so a streamed response always starts with {@code OK}; a failure
+     * is then reported by the {@code ERROR} line before the terminator.
+     */
+    private void streamOutput(List<String> lines) throws IOException {
+        if (!responseStarted) {
+            responseStarted = true;
+            appendLine("OK");
+        }
+        for (String line : lines) {
+            appendLine(line);
+        }
+        flushPending();
+    }
+
+    private void appendLine(String line) {
+        pending.append(line).append(NEWLINE);
+    }
+
+    private void flushPending() throws IOException {
+        byte[] encoded = pending.toString().getBytes(StandardCharsets.UTF_8);
+        pending.setLength(0);
+        connection.write(ByteBuffer.wrap(encoded));
+        connection.flush();
+    }
+
+    private void checkLineLength(int length) throws IOException {
+        if (length > listener.maxFrameSize()) {
+            throw new IOException(
+                "Command line exceeds limit of " +
+                    listener.maxFrameSize() +
+                    " bytes"
+            );
+        }
+    }
+
+    private static String decode(ByteBuffer input, int offset, int length) {
+        if (length == 0) {
+            return "";
+        }
+        return new String(
+            input.array(),
+            input.arrayOffset() + offset,
+            length,
+            StandardCharsets.UTF_8
+        );
+    }
+
+    private static boolean isTerminateCommand(String command) {
+        return (
+            "QUIT".equalsIgnoreCase(command) || "EXIT".equalsIgnoreCase(command)
+        );
+    }
+}
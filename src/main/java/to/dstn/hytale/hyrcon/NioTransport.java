@@ -0,0 +1,786 @@
+package to.dstn.hytale.hyrcon;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selector based transport that multiplexes every client session over a small,
+ * fixed number of event-loop threads.
+ *
+ * The first event loop also owns the listening channels and distributes
+ * accepted connections of every listener round-robin across all loops. Event
+ * loops only ever perform non-blocking reads and writes; command execution is
+ * handed off to the server's dispatch executor and responses are queued back
+ * onto the owning loop.
+ */
+final class NioTransport implements AutoCloseable {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final ByteBuffer EMPTY_INPUT = ByteBuffer.allocate(0);
+
+    private final HyRconServer server;
+    private final Map<
+        ServerSocketChannel,
+        HyRconListenerConfiguration
+    > serverChannels;
+    private final EventLoop[] loops;
+    private int nextLoop;
+
+    NioTransport(
+        HyRconServer server,
+        Map<ServerSocketChannel, HyRconListenerConfiguration> serverChannels,
+        int loopCount
+    ) throws IOException {
+        this.server = Objects.requireNonNull(server, "server");
+        this.serverChannels = Map.copyOf(
+            Objects.requireNonNull(serverChannels, "serverChannels")
+        );
+        if (loopCount < 1) {
+            throw new IllegalArgumentException("loopCount must be positive");
+        }
+
+        this.loops = new EventLoop[loopCount];
+        try {
+            for (int i = 0; i < loopCount; i++) {
+                loops[i] = new EventLoop(i);
+            }
+        } catch (IOException ex) {
+            for (EventLoop loop : loops) {
+                if (loop != null) {
+                    loop.selector.close();
+                }
+            }
+            throw ex;
+        }
+    }
+
+    void start() throws IOException {
+        for (Map.Entry<
+            ServerSocketChannel,
+            HyRconListenerConfiguration
+        > entry : serverChannels.entrySet()) {
+            entry.getKey().configureBlocking(false);
+            entry
+                .getKey()
+                .register(
+                    loops[0].selector,
+                    SelectionKey.OP_ACCEPT,
+                    entry.getValue()
+                );
+        }
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+        LOGGER.atInfo().log(
+            "HyRCON NIO transport started with %d event loop(s)",
+            loops.length
+        );
+    }
+
+    @Override
+    public void close() {
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                loop.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void acceptAll(
+        ServerSocketChannel serverChannel,
+        HyRconListenerConfiguration listener
+    ) {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException ex) {
+                if (server.isRunning()) {
+                    LOGGER.atInfo().log(
+                        "HyRCON accept loop I/O error: %s",
+                        ex.toString()
+                    );
+                }
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            if (server.refuseBanned(channel)) {
+                continue;
+            }
+            if (!server.tryAdmitClient()) {
+                server.rejectBusy(channel, listener);
+                continue;
+            }
+
+            try {
+                channel.configureBlocking(false);
+                if (listener.socket().isEmpty()) {
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+            } catch (IOException ex) {
+                quietlyClose(channel);
+                server.releaseClient();
+                continue;
+            }
+
+            EventLoop target = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+            target.execute(() -> target.register(channel, listener));
+        }
+    }
+
+    private static void quietlyClose(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(
+            READ_BUFFER_SIZE
+        );
+        private volatile boolean active = true;
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "hyrcon-event-loop-" + (index + 1));
+            this.thread.setDaemon(true);
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != thread) {
+                selector.wakeup();
+            }
+        }
+
+        boolean inEventLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        void shutdown() {
+            active = false;
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (active) {
+                    selector.select();
+                    processSelectedKeys();
+                    runTasks();
+                }
+            } catch (IOException | ClosedSelectorException ex) {
+                if (active && server.isRunning()) {
+                    LOGGER.atInfo().log(
+                        "HyRCON event loop %s failed: %s",
+                        thread.getName(),
+                        ex.toString()
+                    );
+                }
+            } finally {
+                closeAll();
+            }
+        }
+
+        private void processSelectedKeys() {
+            Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+            while (iterator.hasNext()) {
+                SelectionKey key = iterator.next();
+                iterator.remove();
+                try {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        acceptAll(
+                            (ServerSocketChannel) key.channel(),
+                            (HyRconListenerConfiguration) key.attachment()
+                        );
+                        continue;
+                    }
+                    NioConnection connection = (NioConnection) key.attachment();
+                    if (key.isWritable()) {
+                        connection.writePending();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        connection.readAvailable(readBuffer);
+                    }
+                } catch (CancelledKeyException ignored) {
+                    // The connection was closed while its events were pending.
+                }
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    LOGGER.atInfo().log(
+                        "HyRCON event loop task failed: %s",
+                        ex.toString()
+                    );
+                }
+            }
+        }
+
+        private void register(
+            SocketChannel channel,
+            HyRconListenerConfiguration listener
+        ) {
+            if (!active) {
+                quietlyClose(channel);
+                server.releaseClient();
+                return;
+            }
+            TlsContext tlsContext = server.tlsContext(listener);
+            NioConnection connection = new NioConnection(
+                this,
+                channel,
+                tlsContext != null ? tlsContext.open(channel) : null,
+                listener
+            );
+            try {
+                connection.key = channel.register(
+                    selector,
+                    SelectionKey.OP_READ,
+                    connection
+                );
+            } catch (IOException ex) {
+                connection.closeNow();
+                return;
+            }
+            if (connection.tls != null) {
+                // The session starts once the handshake completes.
+                connection.startTimeout(
+                    connection::handshakeTimedOut,
+                    listener.tls().handshakeTimeoutMillis()
+                );
+                return;
+            }
+            connection.startSession();
+        }
+
+        private void closeAll() {
+            List<SelectionKey> keys;
+            try {
+                keys = new ArrayList<>(selector.keys());
+            } catch (ClosedSelectorException ex) {
+                keys = List.of();
+            }
+            for (SelectionKey key : keys) {
+                if (key.attachment() instanceof NioConnection connection) {
+                    ClientSession session = connection.session;
+                    if (session != null) {
+                        session.close();
+                    }
+                    connection.closeNow();
+                }
+            }
+            // Registration tasks still queued own an admitted client slot.
+            runTasks();
+            try {
+                selector.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private final class NioConnection implements ClientConnection {
+
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        // Null for plain text connections.
+        private final TlsChannel tls;
+        // The TLS channel if there is one, otherwise the socket.
+        private final ByteChannel io;
+        private final HyRconListenerConfiguration listener;
+        private final String remote;
+        // Null for Unix domain socket clients.
+        private final InetAddress address;
+        private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        private SelectionKey key;
+        private boolean handshakeDone;
+        // Null until the sniffer has detected the protocol, if it has to.
+        private ClientSession session;
+        // Only set while the protocol of the connection is being detected.
+        private ProtocolSniffer sniffer;
+        private boolean closeRequested;
+        private boolean closed;
+        // Null unless the handshake, protocol detection or the draining of a
+        // rejected HTTP request is timed.
+        private TimerWheel.Timeout timeout;
+        // Bytes of a rejected HTTP request thrown away so far; -1 unless the
+        // connection is draining one before it closes.
+        private int discarded = -1;
+        // Zero unless output has been waiting for the client to read it.
+        private volatile long writeBlockedSince;
+
+        NioConnection(
+            EventLoop loop,
+            SocketChannel channel,
+            TlsChannel tls,
+            HyRconListenerConfiguration listener
+        ) {
+            this.loop = loop;
+            this.channel = channel;
+            this.tls = tls;
+            this.io = tls != null ? tls : channel;
+            this.listener = listener;
+            this.remote = HyRconServer.safeRemoteAddress(channel);
+            this.address = HyRconServer.remoteInetAddress(channel);
+        }
+
+        @Override
+        public String remoteAddress() {
+            return remote;
+        }
+
+        @Override
+        public InetAddress remoteInetAddress() {
+            return address;
+        }
+
+        @Override
+        public String clientPrincipal() {
+            return tls != null ? tls.clientPrincipal() : null;
+        }
+
+        @Override
+        public synchronized void write(ByteBuffer data) throws IOException {
+            if (closed || closeRequested) {
+                throw new IOException("Connection closed");
+            }
+            while (data.hasRemaining()) {
+                ByteBuffer tail = pending.peekLast();
+                if (tail == null || tail.limit() == tail.capacity()) {
+                    tail = server.bufferPool().acquire();
+                    tail.limit(0);
+                    pending.addLast(tail);
+                }
+                int offset = tail.limit();
+                int length = Math.min(
+                    tail.capacity() - offset,
+                    data.remaining()
+                );
+                tail.limit(offset + length);
+                tail.put(offset, data, data.position(), length);
+                data.position(data.position() + length);
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (loop.inEventLoop()) {
+                writePending();
+            } else {
+                loop.execute(this::writePending);
+            }
+        }
+
+        @Override
+        public void setReadInterest(boolean enabled) {
+            if (loop.inEventLoop()) {
+                readInterest(enabled);
+            } else {
+                loop.execute(() -> readInterest(enabled));
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closeRequested || closed) {
+                    return;
+                }
+                closeRequested = true;
+            }
+            flush();
+        }
+
+        @Override
+        public void abort() {
+            loop.execute(() -> {
+                HyRconServer.discardUnsent(channel);
+                closeNow();
+            });
+        }
+
+        @Override
+        public long writeBlockedSinceNanos() {
+            return writeBlockedSince;
+        }
+
+        /**
+         * Starts the session of the connection, or protocol detection on a
+         * detecting listener.
+         */
+        void startSession() {
+            if (listener.protocol() == HyRconProtocol.AUTO) {
+                sniffer = new ProtocolSniffer();
+                startTimeout(
+                    this::detectionTimedOut,
+                    listener.detectTimeoutMillis()
+                );
+                return;
+            }
+            session = server.createSession(this, listener, listener.protocol());
+            session.open();
+        }
+
+        void readAvailable(ByteBuffer buffer) {
+            if (tls == null) {
+                readOnce(buffer);
+                return;
+            }
+            if (!handshakeDone) {
+                continueHandshake();
+                return;
+            }
+            // Records already read from the socket will not make it readable
+            // again, so everything they hold is passed on now.
+            boolean progress;
+            do {
+                progress = readOnce(buffer);
+            } while (
+                progress && !closed && tls.hasBufferedInput() && isReading()
+            );
+            // Reads may have produced records, or let a stalled write go on.
+            writePending();
+        }
+
+        /**
+         * Takes the next handshake step and starts the session once the
+         * handshake completes.
+         */
+        private void continueHandshake() {
+            int progress;
+            try {
+                progress = tls.handshake();
+            } catch (IOException ex) {
+                server.tlsHandshakeFailed(listener, remote, ex.toString());
+                closeNow();
+                return;
+            }
+            if (progress < 0) {
+                // Probes that connect and leave are not failures.
+                closeNow();
+                return;
+            }
+            boolean flushing = tls.hasPendingOutput();
+            updateInterest(SelectionKey.OP_WRITE, flushing);
+            if (flushing || !tls.isHandshakeComplete()) {
+                return;
+            }
+            handshakeDone = true;
+            cancelTimeout();
+            server.tlsHandshakeCompleted(tls);
+            startSession();
+            resumeRead();
+        }
+
+        void handshakeTimedOut() {
+            if (!handshakeDone && !closed) {
+                server.tlsHandshakeTimedOut(listener, remote);
+                closeNow();
+            }
+        }
+
+        /**
+         * Runs {@code task} on the event loop once {@code delayMillis} have
+         * passed, unless the timeout is cancelled first.
+         */
+        void startTimeout(Runnable task, long delayMillis) {
+            cancelTimeout();
+            TimerWheel timers = server.timers();
+            // Null once the server is stopping, which closes the connection.
+            if (timers != null) {
+                timeout = timers.schedule(
+                    () -> loop.execute(task),
+                    delayMillis
+                );
+            }
+        }
+
+        private void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+
+        private void readInterest(boolean enabled) {
+            updateInterest(SelectionKey.OP_READ, enabled);
+            if (enabled && tls != null && handshakeDone) {
+                loop.execute(this::resumeRead);
+            }
+        }
+
+        /**
+         * Passes on input the TLS channel buffered while reading was
+         * suspended.
+         */
+        private void resumeRead() {
+            if (!closed && tls.hasBufferedInput() && isReading()) {
+                readAvailable(loop.readBuffer);
+            }
+        }
+
+        private boolean isReading() {
+            SelectionKey localKey = key;
+            return (
+                localKey != null &&
+                localKey.isValid() &&
+                (localKey.interestOps() & SelectionKey.OP_READ) != 0
+            );
+        }
+
+        /**
+         * Reads once and passes the bytes on.
+         *
+         * @return whether any bytes were read
+         */
+        private boolean readOnce(ByteBuffer buffer) {
+            if (discarded >= 0) {
+                return discard(buffer);
+            }
+            buffer.clear();
+            int read;
+            try {
+                read = io.read(buffer);
+            } catch (IOException ex) {
+                if (session != null) {
+                    session.fail(ex);
+                }
+                closeNow();
+                return false;
+            }
+            if (read < 0) {
+                updateInterest(SelectionKey.OP_READ, false);
+                if (session == null && !detect(EMPTY_INPUT, true)) {
+                    return false;
+                }
+                session.endOfStream();
+                return false;
+            }
+            if (read > 0) {
+                buffer.flip();
+                if (session == null && !detect(buffer, false)) {
+                    return true;
+                }
+                session.receive(buffer);
+            }
+            return read > 0;
+        }
+
+        /**
+         * Shows bytes read before the protocol is known to the sniffer and
+         * starts a session once it has detected the protocol.
+         *
+         * @return whether a session now exists to receive {@code data}
+         */
+        private boolean detect(ByteBuffer data, boolean endOfInput) {
+            if (endOfInput && sniffer.isEmpty()) {
+                // Port scans and probes get no session.
+                closeNow();
+                return false;
+            }
+            ProtocolSniffer.Detection detection = sniffer.offer(
+                data,
+                endOfInput
+            );
+            return detection != null && start(detection);
+        }
+
+        /**
+         * Greets a client that has stayed silent as a HyRCON client, since
+         * that protocol speaks first.
+         */
+        void detectionTimedOut() {
+            if (sniffer != null && channel.isOpen()) {
+                start(ProtocolSniffer.Detection.HYRCON);
+            }
+        }
+
+        private boolean start(ProtocolSniffer.Detection detection) {
+            ByteBuffer carried = sniffer.carried();
+            sniffer = null;
+            cancelTimeout();
+            if (detection.protocol == null) {
+                server.httpRequestRejected(listener, remote);
+                rejectHttp();
+                return false;
+            }
+            session = server.createSession(this, listener, detection.protocol);
+            session.open();
+            if (carried != null) {
+                session.receive(carried);
+            }
+            return true;
+        }
+
+        /**
+         * Answers an HTTP request and shuts down output once the answer is
+         * written. Closing with the request unread would reset the connection
+         * and could discard the response, so up to {@code maxFrameSize} bytes
+         * are read and thrown away until the client closes or the detection
+         * timeout passes again.
+         */
+        private void rejectHttp() {
+            try {
+                write(ProtocolSniffer.httpResponse());
+            } catch (IOException ignored) {}
+            discarded = 0;
+            startTimeout(this::closeNow, listener.detectTimeoutMillis());
+            writePending();
+        }
+
+        /**
+         * Reads and throws away input of a rejected HTTP request.
+         *
+         * @return whether any bytes were read
+         */
+        private boolean discard(ByteBuffer buffer) {
+            buffer.clear();
+            int read;
+            try {
+                read = channel.read(buffer);
+            } catch (IOException ex) {
+                closeNow();
+                return false;
+            }
+            if (read < 0) {
+                closeNow();
+                return false;
+            }
+            discarded += read;
+            if (discarded >= listener.maxFrameSize()) {
+                closeNow();
+            }
+            return read > 0;
+        }
+
+        void writePending() {
+            if (tls != null && !handshakeDone) {
+                if (!closed) {
+                    continueHandshake();
+                }
+                return;
+            }
+            IOException failure = null;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    boolean progress = false;
+                    while (!pending.isEmpty()) {
+                        ByteBuffer head = pending.peekFirst();
+                        progress |= io.write(head) > 0;
+                        if (head.hasRemaining()) {
+                            // The stall starts over while the client reads.
+                            if (progress || writeBlockedSince == 0) {
+                                writeBlockedSince = System.nanoTime();
+                            }
+                            // A TLS write that left no records behind waits
+                            // for the peer, which the next read notices.
+                            updateInterest(
+                                SelectionKey.OP_WRITE,
+                                tls == null || tls.hasPendingOutput()
+                            );
+                            return;
+                        }
+                        server.bufferPool().release(pending.removeFirst());
+                    }
+                    if (tls != null && !tls.flush()) {
+                        if (writeBlockedSince == 0) {
+                            writeBlockedSince = System.nanoTime();
+                        }
+                        updateInterest(SelectionKey.OP_WRITE, true);
+                        return;
+                    }
+                    writeBlockedSince = 0;
+                    updateInterest(SelectionKey.OP_WRITE, false);
+                    if (closeRequested) {
+                        closeNow();
+                    } else if (discarded >= 0) {
+                        channel.shutdownOutput();
+                    }
+                    return;
+                } catch (IOException ex) {
+                    failure = ex;
+                    closeNow();
+                }
+            }
+            // Report outside the connection lock; sessions lock before connections.
+            if (session != null) {
+                session.fail(failure);
+            }
+        }
+
+        synchronized void closeNow() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancelTimeout();
+            ByteBuffer chunk;
+            while ((chunk = pending.pollFirst()) != null) {
+                server.bufferPool().release(chunk);
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                io.close();
+            } catch (IOException ignored) {}
+            server.releaseClient();
+        }
+
+        private void updateInterest(int operation, boolean enabled) {
+            SelectionKey localKey = key;
+            if (localKey == null || !localKey.isValid()) {
+                return;
+            }
+            int ops = localKey.interestOps();
+            int updated = enabled ? ops | operation : ops & ~operation;
+            if (updated != ops) {
+                localKey.interestOps(updated);
+            }
+        }
+    }
+}
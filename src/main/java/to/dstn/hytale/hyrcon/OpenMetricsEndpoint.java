@@ -0,0 +1,108 @@
+package to.dstn.hytale.hyrcon;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal HTTP listener serving {@link HyRconMetrics} in the OpenMetrics text
+ * format at {@code /metrics}.
+ *
+ * Requests are handled one at a time on a dedicated daemon thread. Rendering
+ * only reads counters and histogram buckets, so a scrape never waits for a
+ * session and never holds up command processing.
+ */
+final class OpenMetricsEndpoint {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE =
+        "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private final HyRconMetrics metrics;
+    private final String host;
+    private final int port;
+    // Only touched by the single handler thread.
+    private final StringBuilder body = new StringBuilder(16 * 1024);
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    OpenMetricsEndpoint(HyRconMetrics metrics, String host, int port) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.host = Objects.requireNonNull(host, "host");
+        this.port = port;
+    }
+
+    void start() throws IOException {
+        HttpServer localServer = HttpServer.create(
+            new InetSocketAddress(host, port),
+            0
+        );
+        ExecutorService localExecutor = Executors.newSingleThreadExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "hyrcon-metrics");
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        localServer.createContext(PATH, this::handle);
+        localServer.setExecutor(localExecutor);
+        localServer.start();
+        server = localServer;
+        executor = localExecutor;
+        LOGGER.atInfo().log(
+            "HyRCON metrics available at http://%s:%d%s",
+            host,
+            port,
+            PATH
+        );
+    }
+
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equals(method);
+            if (!head && !"GET".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (!PATH.equals(exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            body.setLength(0);
+            metrics.writeOpenMetrics(body);
+            byte[] encoded = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, head ? -1 : encoded.length);
+            if (!head) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(encoded);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package to.dstn.hytale.hyrcon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, append-only log of output lines that any number of threads may
+ * append to and read from concurrently without locking.
+ *
+ * Writers claim a slot index with a single atomic increment and publish the
+ * line into a lazily allocated fixed-size chunk, so appending never copies
+ * previously captured lines. Readers walk slots from any offset and stop at
+ * the first slot that has been claimed but not yet published, which keeps
+ * every read a consistent prefix of the log. Lines appended once the capacity
+ * is reached are counted and reported through a truncation marker instead of
+ * being stored.
+ */
+final class OutputCaptureBuffer {
+
+    // Lines kept per command, whether captured for the response or streamed.
+    static final int DEFAULT_CAPACITY = 10_000;
+
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int capacity;
+    private final AtomicReferenceArray<AtomicReferenceArray<String>> chunks;
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    OutputCaptureBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.chunks = new AtomicReferenceArray<>(
+            (capacity + CHUNK_SIZE - 1) >>> CHUNK_SHIFT
+        );
+    }
+
+    /**
+     * Appends {@code line} to the log.
+     *
+     * @return {@code false} if the log is full and the line was dropped
+     */
+    boolean append(String line) {
+        int index = claimed.getAndUpdate(current ->
+            current < capacity ? current + 1 : current
+        );
+        if (index >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        chunk(index >>> CHUNK_SHIFT).set(index & CHUNK_MASK, line);
+        return true;
+    }
+
+    /**
+     * Copies every published line starting at {@code offset} into
+     * {@code target}.
+     *
+     * @return offset to pass to the next call to continue after the last line
+     *     copied
+     */
+    int read(int offset, List<? super String> target) {
+        int end = claimed.get();
+        int index = offset;
+        while (index < end) {
+            AtomicReferenceArray<String> chunk = chunks.get(
+                index >>> CHUNK_SHIFT
+            );
+            String line = chunk == null ? null : chunk.get(index & CHUNK_MASK);
+            if (line == null) {
+                // Claimed but not yet published by its writer.
+                break;
+            }
+            target.add(line);
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns every published line, followed by a truncation marker if lines
+     * had to be dropped.
+     */
+    List<String> snapshot() {
+        List<String> lines = new ArrayList<>(Math.min(claimed.get() + 1, 1024));
+        if (read(0, lines) == capacity) {
+            String marker = truncationMarker();
+            if (marker != null) {
+                lines.add(marker);
+            }
+        }
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Returns the line reporting how many lines were dropped so far, or
+     * {@code null} if none were.
+     */
+    String truncationMarker() {
+        int droppedLines = dropped.get();
+        if (droppedLines == 0) {
+            return null;
+        }
+        return "[output truncated: " + droppedLines + " more line(s) dropped]";
+    }
+
+    private AtomicReferenceArray<String> chunk(int chunkIndex) {
+        AtomicReferenceArray<String> chunk = chunks.get(chunkIndex);
+        if (chunk != null) {
+            return chunk;
+        }
+        AtomicReferenceArray<String> created = new AtomicReferenceArray<>(
+            CHUNK_SIZE
+        );
+        if (chunks.compareAndSet(chunkIndex, null, created)) {
+            return created;
+        }
+        return chunks.get(chunkIndex);
+    }
+}
@@ -2,7 +2,10 @@ package to.dstn.hytale.hyrcon;
 
 import com.hypixel.hytale.logger.HytaleLogger;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public final class PlaceholderCommandExecutor implements CommandExecutor {
 
@@ -49,4 +52,25 @@ public final class PlaceholderCommandExecutor implements CommandExecutor {
         }
         return executor.execute(command);
     }
+
+    @Override
+    public CompletionStage<CommandResponse> executeAsync(String command) {
+        CommandExecutor executor = delegate.get();
+        if (executor == null) {
+            return CompletableFuture.completedFuture(NOT_READY);
+        }
+        return executor.executeAsync(command);
+    }
+
+    @Override
+    public CompletionStage<CommandResponse> executeStreaming(
+        String command,
+        Consumer<String> output
+    ) {
+        CommandExecutor executor = delegate.get();
+        if (executor == null) {
+            return CompletableFuture.completedFuture(NOT_READY);
+        }
+        return executor.executeStreaming(command, output);
+    }
 }
@@ -0,0 +1,163 @@
+package to.dstn.hytale.hyrcon;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tells the protocol of a connection on a {@link HyRconProtocol#AUTO}
+ * listener from the first bytes its client sends.
+ *
+ * A Source RCON frame starts with a little-endian length that is far below
+ * 16 MiB, so one of its first four bytes is always {@code 0x00}, which never
+ * appears in a line of text. Text starting with an HTTP method followed by a
+ * request target is an HTTP request; any other text is a HyRCON command line.
+ * Bytes are inspected in place with absolute reads, and only when a read
+ * ends before the protocol is known are the few bytes seen so far kept until
+ * the next read. HyRCON clients may wait for the server's greeting before
+ * sending anything, so transports treat a client that stays silent until the
+ * detection timeout as a HyRCON client.
+ */
+final class ProtocolSniffer {
+
+    private static final byte[][] HTTP_PREFIXES = {
+        ascii("GET /"),
+        ascii("HEAD /"),
+        ascii("POST /"),
+        ascii("PUT /"),
+        ascii("DELETE /"),
+        ascii("OPTIONS /"),
+        ascii("OPTIONS *"),
+        ascii("PATCH /"),
+        ascii("TRACE /"),
+        // HTTP/2 connection preface.
+        ascii("PRI *"),
+    };
+    // Nothing is undecided after the longest HTTP prefix.
+    static final int MAX_PREFIX = 9;
+    private static final String HTTP_BODY =
+        "This port serves RCON clients, not HTTP.\r\n";
+    private static final ByteBuffer HTTP_RESPONSE = ByteBuffer.wrap(
+        ascii(
+            "HTTP/1.1 400 Bad Request\r\n" +
+                "Content-Type: text/plain; charset=utf-8\r\n" +
+                "Content-Length: " +
+                HTTP_BODY.length() +
+                "\r\n" +
+                "Connection: close\r\n" +
+                "\r\n" +
+                HTTP_BODY
+        )
+    ).asReadOnlyBuffer();
+
+    /** What a connection turned out to be. */
+    enum Detection {
+        HYRCON(HyRconProtocol.HYRCON),
+        SOURCE_RCON(HyRconProtocol.SOURCE_RCON),
+        HTTP(null);
+
+        // Null for clients that are answered without a session.
+        final HyRconProtocol protocol;
+
+        Detection(HyRconProtocol protocol) {
+            this.protocol = protocol;
+        }
+    }
+
+    private final byte[] prefix = new byte[MAX_PREFIX];
+    private int prefixLength;
+
+    /**
+     * Returns the response written to HTTP clients before closing their
+     * connection.
+     *
+     * @return read-only view positioned at the start of the response
+     */
+    static ByteBuffer httpResponse() {
+        return HTTP_RESPONSE.duplicate();
+    }
+
+    /**
+     * Looks at {@code data} following any bytes kept from earlier calls.
+     *
+     * If the protocol is known, {@code data} is left untouched and the kept
+     * bytes have to be handed to the session first, see {@link #carried()}.
+     * Otherwise {@code data} is consumed and kept.
+     *
+     * @param data bytes just read, in read mode
+     * @param endOfInput whether the peer will not send any more bytes
+     * @return detected protocol, or {@code null} if more bytes are required
+     */
+    Detection offer(ByteBuffer data, boolean endOfInput) {
+        Detection detection = detect(data, endOfInput);
+        if (detection == null) {
+            int length = data.remaining();
+            data.get(prefix, prefixLength, length);
+            prefixLength += length;
+        }
+        return detection;
+    }
+
+    /**
+     * Returns whether no byte has been kept yet.
+     */
+    boolean isEmpty() {
+        return prefixLength == 0;
+    }
+
+    /**
+     * Returns the bytes kept from calls that could not tell the protocol yet,
+     * or {@code null} if there are none.
+     */
+    ByteBuffer carried() {
+        return prefixLength == 0
+            ? null
+            : ByteBuffer.wrap(prefix, 0, prefixLength);
+    }
+
+    private Detection detect(ByteBuffer data, boolean endOfInput) {
+        int available = prefixLength + data.remaining();
+        int lengthBytes = Math.min(
+            available,
+            SourceRconCodec.LENGTH_FIELD_SIZE
+        );
+        for (int i = 0; i < lengthBytes; i++) {
+            if (byteAt(data, i) == 0) {
+                return Detection.SOURCE_RCON;
+            }
+        }
+        if (available < SourceRconCodec.LENGTH_FIELD_SIZE) {
+            return endOfInput ? Detection.HYRCON : null;
+        }
+
+        boolean partial = false;
+        for (byte[] method : HTTP_PREFIXES) {
+            int compared = Math.min(method.length, available);
+            if (matches(data, method, compared)) {
+                if (compared == method.length) {
+                    return Detection.HTTP;
+                }
+                partial = true;
+            }
+        }
+        return partial && !endOfInput ? null : Detection.HYRCON;
+    }
+
+    private boolean matches(ByteBuffer data, byte[] expected, int length) {
+        for (int i = 0; i < length; i++) {
+            if (byteAt(data, i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte byteAt(ByteBuffer data, int index) {
+        return index < prefixLength
+            ? prefix[index]
+            : data.get(data.position() + index - prefixLength);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
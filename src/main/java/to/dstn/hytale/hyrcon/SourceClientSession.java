@@ -0,0 +1,275 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Session implementing Valve's Source RCON protocol.
+ *
+ * Frames are decoded in place with {@link SourceRconCodec} and responses are
+ * encoded straight into pooled buffers, then handed to the connection as a
+ * gathering write of header, payload and trailer. Apart from the command
+ * string itself, answering a packet does not allocate. The upper-case
+ * {@code STATS} command is answered by the session with the server metrics.
+ *
+ * Like Valve's server, the session mirrors {@code SERVERDATA_RESPONSE_VALUE}
+ * packets it receives, in order with the other replies, so clients can mark
+ * the end of a multi-packet response with one instead of waiting for a read
+ * timeout.
+ */
+final class SourceClientSession extends ClientSession {
+
+    private static final ByteBuffer EMPTY_PAYLOAD = ByteBuffer.allocate(0);
+    private static final ByteBuffer BUSY_RESPONSE = SourceRconCodec.encodeFrame(
+        -1,
+        SourceRconCodec.TYPE_RESPONSE_VALUE,
+        "Server busy"
+    ).asReadOnlyBuffer();
+
+    private final ByteBuffer header = ByteBuffer.allocate(
+        SourceRconCodec.HEADER_SIZE
+    ).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer trailer = ByteBuffer.allocate(
+        SourceRconCodec.TRAILER_SIZE
+    );
+    private final ByteBuffer[] packet = new ByteBuffer[3];
+    private final byte[] passwordBytes;
+    private boolean authenticated;
+    // Whether streamed output of the current response has been sent already.
+    private boolean responseStarted;
+
+    SourceClientSession(
+        HyRconServer server,
+        HyRconListenerConfiguration listener,
+        ClientConnection connection
+    ) {
+        super(
+            server,
+            listener,
+            connection,
+            HyRconProtocol.SOURCE_RCON,
+            listener.pipelineDepth()
+        );
+        this.authenticated = !isPasswordRequired();
+        this.passwordBytes = listener
+            .password()
+            .map(SourceRconCodec::latin1OrNull)
+            .orElse(null);
+    }
+
+    /**
+     * Returns the {@code SERVERDATA_RESPONSE_VALUE} packet written to clients
+     * that are shed under overload.
+     *
+     * @return read-only view positioned at the start of the packet
+     */
+    static ByteBuffer busyResponse() {
+        return BUSY_RESPONSE.duplicate();
+    }
+
+    @Override
+    protected boolean processFrame(ByteBuffer input, boolean endOfInput)
+        throws IOException {
+        int size = SourceRconCodec.frameSize(
+            input,
+            endOfInput,
+            listener.maxFrameSize()
+        );
+        if (size == 0) {
+            return false;
+        }
+
+        int start = input.position();
+        try {
+            handleFrame(input);
+        } finally {
+            input.position(start + size);
+        }
+        return true;
+    }
+
+    private void handleFrame(ByteBuffer frame) throws IOException {
+        int requestId = SourceRconCodec.requestId(frame);
+        int type = SourceRconCodec.type(frame);
+        switch (type) {
+            case SourceRconCodec.TYPE_AUTH -> {
+                // Already authenticated clients are acknowledged immediately.
+                if (authenticated) {
+                    reply(() -> answerAuth(requestId, requestId));
+                    return;
+                }
+                authenticated =
+                    passwordBytes != null &&
+                    SourceRconCodec.payloadEquals(frame, passwordBytes);
+                int responseId = authenticated ? requestId : -1;
+                authenticationAttempted(authenticated, () ->
+                    answerAuth(requestId, responseId)
+                );
+            }
+            case SourceRconCodec.TYPE_RESPONSE_VALUE -> reply(() -> {
+                // End-of-response sentinel: the client sends an empty
+                // response value after a command and reads until it comes
+                // back, since replies are written in request order.
+                writeEmptyPacket(
+                    requestId,
+                    SourceRconCodec.TYPE_RESPONSE_VALUE
+                );
+                connection.flush();
+            });
+            case SourceRconCodec.TYPE_EXECCOMMAND -> {
+                if (!authenticated) {
+                    reply(() -> sendAuthResponse(-1));
+                    return;
+                }
+                String command = SourceRconCodec.payloadString(frame).trim();
+                if (command.isEmpty()) {
+                    reply(() ->
+                        sendResponse(
+                            requestId,
+                            command,
+                            CommandResponse.success(List.of())
+                        )
+                    );
+                    return;
+                }
+                if (command.equals(STATS_COMMAND)) {
+                    reply(() ->
+                        sendResponse(requestId, command, statsResponse())
+                    );
+                    return;
+                }
+                dispatch(
+                    command,
+                    response -> sendResponse(requestId, command, response),
+                    lines -> streamText(requestId, lines)
+                );
+            }
+            default -> reply(() -> {
+                sendText(
+                    requestId,
+                    List.of("Unknown request " + Integer.toHexString(type))
+                );
+                connection.flush();
+            });
+        }
+    }
+
+    private void answerAuth(int requestId, int responseId) throws IOException {
+        // Valve's server precedes every auth response with an empty response
+        // value, and some clients wait for it.
+        writeEmptyPacket(requestId, SourceRconCodec.TYPE_RESPONSE_VALUE);
+        sendAuthResponse(responseId);
+    }
+
+    private void sendAuthResponse(int responseId) throws IOException {
+        writeEmptyPacket(responseId, SourceRconCodec.TYPE_AUTH_RESPONSE);
+        connection.flush();
+    }
+
+    private void sendResponse(
+        int requestId,
+        String command,
+        CommandResponse response
+    ) throws IOException {
+        sendText(requestId, toDisplayLines(command, response, false));
+        connection.flush();
+    }
+
+    /**
+     * Writes {@code lines} joined by {@code \n} as a sequence of response
+     * packets of at most {@link SourceRconCodec#MAX_PAYLOAD} bytes, followed
+     * by the empty packet that terminates the response. An empty response is
+     * answered with two empty packets.
+     */
+    private void sendText(int requestId, List<String> lines)
+        throws IOException {
+        boolean continued = responseStarted;
+        responseStarted = false;
+        ByteBuffer body = server.bufferPool().acquire();
+        try {
+            appendLines(requestId, body, lines, continued);
+            if (body.position() > 0) {
+                writeBody(requestId, body);
+            } else if (!continued) {
+                writeEmptyPacket(
+                    requestId,
+                    SourceRconCodec.TYPE_RESPONSE_VALUE
+                );
+            }
+            writeEmptyPacket(requestId, SourceRconCodec.TYPE_RESPONSE_VALUE);
+        } finally {
+            server.bufferPool().release(body);
+        }
+    }
+
+    /**
+     * Writes output of a still running command as response packets without
+     * terminating the response. Clients concatenate the payloads, so later
+     * batches start with the line separator.
+     */
+    private void streamText(int requestId, List<String> lines)
+        throws IOException {
+        ByteBuffer body = server.bufferPool().acquire();
+        try {
+            appendLines(requestId, body, lines, responseStarted);
+            responseStarted = true;
+            if (body.position() > 0) {
+                writeBody(requestId, body);
+            }
+        } finally {
+            server.bufferPool().release(body);
+        }
+        connection.flush();
+    }
+
+    private void appendLines(
+        int requestId,
+        ByteBuffer body,
+        List<String> lines,
+        boolean continued
+    ) throws IOException {
+        body.limit(SourceRconCodec.MAX_PAYLOAD);
+        for (int i = 0; i < lines.size(); i++) {
+            if (continued || i > 0) {
+                appendText(requestId, body, "\n");
+            }
+            appendText(requestId, body, lines.get(i));
+        }
+    }
+
+    private void appendText(int requestId, ByteBuffer body, String text)
+        throws IOException {
+        int index = 0;
+        while (index < text.length()) {
+            if (!body.hasRemaining()) {
+                writeBody(requestId, body);
+            }
+            index = SourceRconCodec.encodeLatin1(text, index, body);
+        }
+    }
+
+    private void writeBody(int requestId, ByteBuffer body) throws IOException {
+        body.flip();
+        writePacket(requestId, SourceRconCodec.TYPE_RESPONSE_VALUE, body);
+        body.clear().limit(SourceRconCodec.MAX_PAYLOAD);
+    }
+
+    private void writeEmptyPacket(int requestId, int type) throws IOException {
+        writePacket(requestId, type, EMPTY_PAYLOAD);
+    }
+
+    private void writePacket(int requestId, int type, ByteBuffer payload)
+        throws IOException {
+        packet[0] = SourceRconCodec.encodeHeader(
+            header,
+            requestId,
+            type,
+            payload.remaining()
+        );
+        packet[1] = payload;
+        packet[2] = trailer.clear();
+        connection.write(packet);
+    }
+}
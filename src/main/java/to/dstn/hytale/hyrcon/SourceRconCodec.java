@@ -0,0 +1,225 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Allocation-free encoder and decoder for Source RCON frames.
+ *
+ * A frame is {@code length, requestId, type, payload, 0x00, 0x00} with every
+ * integer in little-endian order and {@code length} covering everything after
+ * itself. Decoding works on the frame at the current position of a
+ * little-endian buffer using absolute reads, so nothing is copied until the
+ * caller explicitly asks for the payload as a string. Encoding writes the
+ * header into a caller-owned buffer so header, payload and trailer can be
+ * handed to a gathering write without an intermediate copy.
+ */
+final class SourceRconCodec {
+
+    static final int LENGTH_FIELD_SIZE = 4;
+    static final int HEADER_SIZE = 12;
+    static final int TRAILER_SIZE = 2;
+    static final int MIN_BODY_LENGTH = 10;
+    static final int MAX_PAYLOAD = 4096 - TRAILER_SIZE;
+
+    static final int TYPE_RESPONSE_VALUE = 0;
+    static final int TYPE_EXECCOMMAND = 2;
+    static final int TYPE_AUTH_RESPONSE = 2;
+    static final int TYPE_AUTH = 3;
+
+    private static final byte UNMAPPABLE = '?';
+
+    private SourceRconCodec() {}
+
+    /**
+     * Returns the size in bytes of the frame at the current position of
+     * {@code input}, or {@code 0} if the frame has not been fully received.
+     *
+     * The length prefix is validated against {@code maxFrameSize} as soon as
+     * it arrives, so an oversized frame is rejected before its body is
+     * buffered.
+     *
+     * @param input little-endian buffer in read mode
+     * @param endOfInput whether no further bytes will arrive
+     * @param maxFrameSize largest accepted frame including the length field
+     * @return size of the complete frame including the length field, or
+     *     {@code 0} if more bytes are required
+     * @throws IOException if the frame is malformed, too large or truncated by
+     *     the peer
+     */
+    static int frameSize(ByteBuffer input, boolean endOfInput, int maxFrameSize)
+        throws IOException {
+        int available = input.remaining();
+        if (available < LENGTH_FIELD_SIZE) {
+            if (endOfInput && available > 0) {
+                throw new EOFException(
+                    "Unexpected end of stream while reading 32-bit integer"
+                );
+            }
+            return 0;
+        }
+
+        int length = input.getInt(input.position());
+        if (length < MIN_BODY_LENGTH) {
+            throw new IOException("Invalid RCON packet length: " + length);
+        }
+        if (length > maxFrameSize - LENGTH_FIELD_SIZE) {
+            throw new IOException(
+                "RCON packet length " +
+                    length +
+                    " exceeds limit of " +
+                    maxFrameSize +
+                    " bytes"
+            );
+        }
+        if (available - LENGTH_FIELD_SIZE < length) {
+            if (endOfInput) {
+                throw new EOFException(
+                    "Unexpected end of stream while reading RCON packet body"
+                );
+            }
+            return 0;
+        }
+        return LENGTH_FIELD_SIZE + length;
+    }
+
+    static int requestId(ByteBuffer frame) {
+        return frame.getInt(frame.position() + 4);
+    }
+
+    static int type(ByteBuffer frame) {
+        return frame.getInt(frame.position() + 8);
+    }
+
+    static int payloadLength(ByteBuffer frame) {
+        return Math.max(0, frame.getInt(frame.position()) - MIN_BODY_LENGTH);
+    }
+
+    /**
+     * Decodes the payload of the frame at the current position as ISO-8859-1.
+     */
+    static String payloadString(ByteBuffer frame) {
+        int length = payloadLength(frame);
+        if (length == 0) {
+            return "";
+        }
+        int offset = frame.position() + HEADER_SIZE;
+        if (frame.hasArray()) {
+            return new String(
+                frame.array(),
+                frame.arrayOffset() + offset,
+                length,
+                StandardCharsets.ISO_8859_1
+            );
+        }
+        byte[] copy = new byte[length];
+        frame.get(offset, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Compares the payload of the frame at the current position with
+     * {@code expected} without materialising it.
+     */
+    static boolean payloadEquals(ByteBuffer frame, byte[] expected) {
+        int length = payloadLength(frame);
+        if (length != expected.length) {
+            return false;
+        }
+        int offset = frame.position() + HEADER_SIZE;
+        for (int i = 0; i < length; i++) {
+            if (frame.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes {@code value} as ISO-8859-1 exactly like
+     * {@link String#getBytes(java.nio.charset.Charset)} would, or returns
+     * {@code null} if it contains characters that cannot be represented and
+     * therefore can never equal a decoded payload.
+     */
+    static byte[] latin1OrNull(String value) {
+        byte[] encoded = new byte[value.length()];
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > 0xFF) {
+                return null;
+            }
+            encoded[i] = (byte) c;
+        }
+        return encoded;
+    }
+
+    /**
+     * Writes a frame header for a payload of {@code payloadLength} bytes into
+     * {@code header} and flips it for writing.
+     */
+    static ByteBuffer encodeHeader(
+        ByteBuffer header,
+        int requestId,
+        int type,
+        int payloadLength
+    ) {
+        header.clear();
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(8 + payloadLength + TRAILER_SIZE);
+        header.putInt(requestId);
+        header.putInt(type);
+        return header.flip();
+    }
+
+    /**
+     * Encodes a whole frame carrying {@code payload} as ISO-8859-1 into a new
+     * buffer, flipped for writing. Meant for frames that are encoded once and
+     * written many times.
+     */
+    static ByteBuffer encodeFrame(int requestId, int type, String payload) {
+        ByteBuffer frame = ByteBuffer.allocate(
+            HEADER_SIZE + payload.length() + TRAILER_SIZE
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        frame.position(HEADER_SIZE);
+        encodeLatin1(payload, 0, frame);
+        // Surrogate pairs encode to a single byte.
+        int payloadLength = frame.position() - HEADER_SIZE;
+        frame.put((byte) 0).put((byte) 0);
+        frame.putInt(0, 8 + payloadLength + TRAILER_SIZE);
+        frame.putInt(4, requestId);
+        frame.putInt(8, type);
+        return frame.flip();
+    }
+
+    /**
+     * Encodes characters of {@code text} starting at {@code from} into
+     * {@code target} as ISO-8859-1 until either the text or the buffer is
+     * exhausted. Unmappable characters, including a surrogate pair, become a
+     * single {@code '?'} to match the JDK encoder.
+     *
+     * @return index of the first character that was not encoded
+     */
+    static int encodeLatin1(CharSequence text, int from, ByteBuffer target) {
+        int index = from;
+        int length = text.length();
+        while (index < length && target.hasRemaining()) {
+            char c = text.charAt(index++);
+            if (c <= 0xFF) {
+                target.put((byte) c);
+                continue;
+            }
+            if (
+                Character.isHighSurrogate(c) &&
+                index < length &&
+                Character.isLowSurrogate(text.charAt(index))
+            ) {
+                index++;
+            }
+            target.put(UNMAPPABLE);
+        }
+        return index;
+    }
+}
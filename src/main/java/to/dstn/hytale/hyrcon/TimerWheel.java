@@ -0,0 +1,166 @@
+package to.dstn.hytale.hyrcon;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel that runs the connection deadlines of every client on a
+ * single thread.
+ *
+ * Time advances in fixed ticks, and a timeout lands in the slot of the tick it
+ * expires in, counting the whole turns of the wheel it has to wait. Scheduling
+ * and cancelling only touch a lock-free queue and a flag, so they stay cheap
+ * for the thousands of deadlines that are armed and re-armed while clients
+ * talk, and a timeout fires at most one tick late. A cancelled timeout lets
+ * go of its task at once and is dropped when the wheel reaches its slot.
+ *
+ * Tasks run on the wheel thread and must not block.
+ */
+final class TimerWheel implements AutoCloseable {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final long tickNanos;
+    private final ArrayDeque<Timeout>[] slots;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean running = true;
+    // Only used by the wheel thread.
+    private long tick;
+
+    /**
+     * @param name name of the wheel thread
+     * @param tickMillis resolution of the wheel
+     * @param slotCount number of slots, rounded up to a power of two
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    TimerWheel(String name, long tickMillis, int slotCount) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.slots = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+        this.thread = new Thread(this::run, Objects.requireNonNull(name));
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Runs {@code task} on the wheel thread once {@code delayMillis} have
+     * passed. Tasks scheduled after the wheel closed never run.
+     *
+     * @return handle that cancels the task
+     */
+    Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(
+            Objects.requireNonNull(task, "task"),
+            System.nanoTime() +
+                TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis))
+        );
+        added.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long wait = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            transferAdded();
+            expire(slots[(int) (tick & mask)]);
+            tick++;
+        }
+        added.clear();
+        for (ArrayDeque<Timeout> slot : slots) {
+            slot.clear();
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.task == null) {
+                continue;
+            }
+            long ticks = Math.max(
+                tick,
+                Math.ceilDiv(timeout.deadlineNanos - startNanos, tickNanos)
+            );
+            timeout.rounds = (ticks - tick) / slots.length;
+            slots[(int) (ticks & mask)].addLast(timeout);
+        }
+    }
+
+    private void expire(ArrayDeque<Timeout> slot) {
+        for (int i = slot.size(); i > 0; i--) {
+            Timeout timeout = slot.pollFirst();
+            Runnable task = timeout.task;
+            if (task == null) {
+                continue;
+            }
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                slot.addLast(timeout);
+                continue;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                LOGGER.atInfo().log(
+                    "HyRCON timer task failed: %s",
+                    ex.toString()
+                );
+            }
+        }
+    }
+
+    /**
+     * Pending task of the wheel.
+     */
+    static final class Timeout {
+
+        // Null once cancelled, so the task no longer keeps what it refers to
+        // reachable.
+        private volatile Runnable task;
+        private final long deadlineNanos;
+        // Whole turns of the wheel left to wait; only used by its thread.
+        private long rounds;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Keeps the task from running if it has not started yet.
+         */
+        void cancel() {
+            task = null;
+        }
+    }
+}
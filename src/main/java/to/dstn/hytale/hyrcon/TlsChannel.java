@@ -0,0 +1,438 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+
+/**
+ * TLS connection of a single client, layered over its socket channel by an
+ * {@link SSLEngine}.
+ *
+ * Callers read and write plain bytes while records travel over the socket.
+ * Whether a call blocks follows the blocking mode of the socket channel, so
+ * the blocking transport uses this like a socket and the NIO transport drives
+ * it from its selector. Without blocking, a read returns {@code 0} while a
+ * record is incomplete, and a write may consume nothing while the handshake
+ * waits for the peer; {@link #hasPendingOutput()} tells that apart from a full
+ * socket. The handshake advances on whichever side of the connection has
+ * something to do, and delegated tasks such as certificate checks run on the
+ * calling thread.
+ *
+ * One thread may read while others write. Records leave the engine and enter
+ * the socket under a single lock, so handshake messages produced while reading
+ * never interleave with application data.
+ */
+final class TlsChannel implements ByteChannel, GatheringByteChannel {
+
+    private static final ByteBuffer[] NO_DATA = { ByteBuffer.allocate(0) };
+
+    private final SocketChannel channel;
+    private final SSLEngine engine;
+    private final long createdMillis = System.currentTimeMillis();
+    // Guards the outbound side of the engine and netOut.
+    private final Object writeLock = new Object();
+    // Records read from the socket but not yet unwrapped, in write mode.
+    private ByteBuffer netIn;
+    // Unwrapped bytes not yet returned by read, in read mode.
+    private ByteBuffer appIn;
+    // Wrapped records not yet written to the socket, in read mode.
+    private ByteBuffer netOut;
+    private volatile boolean handshakeComplete;
+    private boolean resumed;
+    // Null when the client presented no certificate.
+    private String clientPrincipal;
+
+    TlsChannel(SocketChannel channel, SSLEngine engine) {
+        this.channel = Objects.requireNonNull(channel, "channel");
+        this.engine = Objects.requireNonNull(engine, "engine");
+        SSLSession session = engine.getSession();
+        this.netIn = ByteBuffer.allocate(session.getPacketBufferSize());
+        this.appIn = ByteBuffer.allocate(
+            session.getApplicationBufferSize()
+        ).flip();
+        this.netOut = ByteBuffer.allocate(session.getPacketBufferSize()).flip();
+    }
+
+    /**
+     * Advances the handshake as far as the socket allows without waiting.
+     *
+     * @return {@code -1} if the peer closed the connection, otherwise
+     *     {@code 0}; {@link #isHandshakeComplete()} and
+     *     {@link #hasPendingOutput()} tell what is left to wait for
+     */
+    int handshake() throws IOException {
+        while (!handshakeComplete) {
+            int progress = unwrap();
+            if (progress <= 0) {
+                return progress;
+            }
+        }
+        flush();
+        return 0;
+    }
+
+    boolean isHandshakeComplete() {
+        return handshakeComplete;
+    }
+
+    /**
+     * Returns whether the completed handshake resumed a session negotiated
+     * with an earlier connection.
+     */
+    boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * Returns the subject of the certificate the client authenticated with,
+     * or {@code null} if it presented none.
+     */
+    String clientPrincipal() {
+        return clientPrincipal;
+    }
+
+    /**
+     * Returns whether bytes have been read from the socket that a read would
+     * return or unwrap without waiting for the socket again.
+     */
+    boolean hasBufferedInput() {
+        return appIn.hasRemaining() || netIn.position() > 0;
+    }
+
+    /**
+     * Returns whether wrapped records are waiting for the socket to accept
+     * them.
+     */
+    boolean hasPendingOutput() {
+        synchronized (writeLock) {
+            return netOut.hasRemaining();
+        }
+    }
+
+    /**
+     * Writes records a non-blocking call left behind and takes any handshake
+     * step that had to wait for them.
+     *
+     * @return whether nothing is left to write
+     */
+    boolean flush() throws IOException {
+        synchronized (writeLock) {
+            return (
+                flushOut() &&
+                driveHandshake(engine.getHandshakeStatus()) &&
+                flushOut()
+            );
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int progress = 1;
+        while (!appIn.hasRemaining() && progress > 0) {
+            progress = unwrap();
+        }
+        if (!appIn.hasRemaining()) {
+            return progress;
+        }
+        int length = Math.min(appIn.remaining(), dst.remaining());
+        dst.put(dst.position(), appIn, appIn.position(), length);
+        dst.position(dst.position() + length);
+        appIn.position(appIn.position() + length);
+        return length;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        return (int) write(new ByteBuffer[] { src }, 0, 1);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length)
+        throws IOException {
+        synchronized (writeLock) {
+            long consumed = 0;
+            while (flushOut() && hasRemaining(srcs, offset, length)) {
+                if (!handshakeComplete || isHandshaking()) {
+                    if (!driveHandshake(engine.getHandshakeStatus())) {
+                        break;
+                    }
+                    if (!handshakeComplete || isHandshaking()) {
+                        // Only the peer can move the handshake on.
+                        if (!channel.isBlocking()) {
+                            break;
+                        }
+                        awaitHandshake();
+                        continue;
+                    }
+                }
+                SSLEngineResult result = wrap(srcs, offset, length);
+                if (result.getStatus() == Status.CLOSED) {
+                    throw new ClosedChannelException();
+                }
+                consumed += result.bytesConsumed();
+                if (!driveHandshake(result.getHandshakeStatus())) {
+                    break;
+                }
+            }
+            return consumed;
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Sends {@code close_notify} if the socket takes it and closes the
+     * socket.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (writeLock) {
+                if (channel.isOpen() && !engine.isOutboundDone()) {
+                    engine.closeOutbound();
+                    try {
+                        if (flushOut()) {
+                            wrap(NO_DATA, 0, 1);
+                            flushOut();
+                        }
+                    } catch (IOException ignored) {}
+                }
+                writeLock.notifyAll();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Unwraps the next record, reading from the socket if no complete record
+     * is buffered, and takes the handshake step that follows it.
+     *
+     * @return {@code 1} after progress, {@code 0} if the socket has to become
+     *     readable or writable first, or {@code -1} at the end of the stream
+     */
+    private int unwrap() throws IOException {
+        if (engine.isInboundDone()) {
+            return -1;
+        }
+        if (!driveHandshake(engine.getHandshakeStatus())) {
+            return 0;
+        }
+        netIn.flip();
+        appIn.compact();
+        SSLEngineResult result;
+        try {
+            result = engine.unwrap(netIn, appIn);
+        } finally {
+            netIn.compact();
+            appIn.flip();
+        }
+        switch (result.getStatus()) {
+            case BUFFER_UNDERFLOW -> {
+                if (!netIn.hasRemaining()) {
+                    netIn.flip();
+                    netIn = enlarge(
+                        netIn,
+                        engine.getSession().getPacketBufferSize()
+                    ).compact();
+                }
+                int read = channel.read(netIn);
+                if (read < 0) {
+                    closeInbound();
+                    return -1;
+                }
+                return read == 0 ? 0 : 1;
+            }
+            case BUFFER_OVERFLOW -> {
+                appIn = enlarge(
+                    appIn,
+                    engine.getSession().getApplicationBufferSize()
+                );
+                return 1;
+            }
+            case CLOSED -> {
+                // The peer sent close_notify, which may need an answer.
+                driveHandshake(result.getHandshakeStatus());
+                closeInbound();
+                return -1;
+            }
+            default -> {
+                return driveHandshake(result.getHandshakeStatus()) ? 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Takes the handshake steps {@code status} calls for until the engine
+     * waits for the peer.
+     *
+     * @return {@code false} if wrapped records could not all be written
+     *     without blocking
+     */
+    private boolean driveHandshake(HandshakeStatus status) throws IOException {
+        while (true) {
+            switch (status) {
+                case NEED_TASK -> {
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    status = engine.getHandshakeStatus();
+                }
+                case NEED_WRAP -> {
+                    synchronized (writeLock) {
+                        if (!flushOut()) {
+                            return false;
+                        }
+                        SSLEngineResult result = wrap(NO_DATA, 0, 1);
+                        status = result.getHandshakeStatus();
+                        if (status == HandshakeStatus.FINISHED) {
+                            finished();
+                            status = engine.getHandshakeStatus();
+                        }
+                        if (!flushOut()) {
+                            return false;
+                        }
+                        if (result.getStatus() == Status.CLOSED) {
+                            return true;
+                        }
+                    }
+                }
+                case FINISHED -> {
+                    finished();
+                    status = engine.getHandshakeStatus();
+                }
+                default -> {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private void finished() {
+        if (!handshakeComplete) {
+            SSLSession session = engine.getSession();
+            // Resumed sessions were created by an earlier handshake.
+            resumed = session.getCreationTime() < createdMillis;
+            try {
+                clientPrincipal = session.getPeerPrincipal().getName();
+            } catch (SSLPeerUnverifiedException ex) {
+                clientPrincipal = null;
+            }
+            handshakeComplete = true;
+        }
+        synchronized (writeLock) {
+            writeLock.notifyAll();
+        }
+    }
+
+    private boolean isHandshaking() {
+        HandshakeStatus status = engine.getHandshakeStatus();
+        return (
+            status != HandshakeStatus.NOT_HANDSHAKING &&
+            status != HandshakeStatus.FINISHED
+        );
+    }
+
+    // Called holding writeLock by blocking writers.
+    private void awaitHandshake() throws IOException {
+        if (engine.isInboundDone() || !channel.isOpen()) {
+            throw new ClosedChannelException();
+        }
+        try {
+            writeLock.wait();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while waiting for the TLS handshake"
+            );
+        }
+    }
+
+    private void closeInbound() {
+        try {
+            engine.closeInbound();
+        } catch (SSLException ignored) {
+            // The peer closed the socket without close_notify.
+        }
+        synchronized (writeLock) {
+            writeLock.notifyAll();
+        }
+    }
+
+    // Called holding writeLock.
+    private SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int length)
+        throws IOException {
+        while (true) {
+            netOut.compact();
+            SSLEngineResult result;
+            try {
+                result = engine.wrap(srcs, offset, length, netOut);
+            } finally {
+                netOut.flip();
+            }
+            if (
+                result.getStatus() != Status.BUFFER_OVERFLOW ||
+                netOut.hasRemaining()
+            ) {
+                return result;
+            }
+            netOut = enlarge(
+                netOut,
+                engine.getSession().getPacketBufferSize()
+            );
+        }
+    }
+
+    // Called holding writeLock.
+    private boolean flushOut() throws IOException {
+        while (netOut.hasRemaining()) {
+            if (channel.write(netOut) == 0 && !channel.isBlocking()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasRemaining(
+        ByteBuffer[] buffers,
+        int offset,
+        int length
+    ) {
+        for (int i = offset; i < offset + length; i++) {
+            if (buffers[i].hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the remaining bytes of {@code buffer}, in read mode, into a new
+     * buffer in read mode with room for {@code space} more bytes.
+     */
+    private static ByteBuffer enlarge(ByteBuffer buffer, int space) {
+        ByteBuffer larger = ByteBuffer.allocate(buffer.remaining() + space);
+        return larger.put(buffer).flip();
+    }
+}
@@ -0,0 +1,139 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Optional;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Server side TLS state shared by every client of a listener.
+ *
+ * The context holds the listener's key material and trust anchors, and its
+ * session cache outlives individual connections: a client that reconnects
+ * within the session timeout resumes its earlier session, through a session
+ * ticket on TLS 1.3 or a cached session ID on TLS 1.2, and skips the
+ * certificate exchange and key agreement of a full handshake.
+ */
+final class TlsContext {
+
+    private static final String[] PROTOCOLS = { "TLSv1.3", "TLSv1.2" };
+
+    private final SSLContext context;
+    private final HyRconTlsClientAuth clientAuth;
+
+    private TlsContext(SSLContext context, HyRconTlsClientAuth clientAuth) {
+        this.context = context;
+        this.clientAuth = clientAuth;
+    }
+
+    /**
+     * Loads the stores named by {@code configuration}, resolving relative
+     * paths against {@code dataDirectory}.
+     *
+     * @throws IOException if a store cannot be read or holds unusable keys
+     */
+    static TlsContext load(
+        HyRconTlsConfiguration configuration,
+        Path dataDirectory
+    ) throws IOException {
+        Objects.requireNonNull(configuration, "configuration");
+        Path keystorePath = dataDirectory.resolve(
+            configuration.keystore().orElseThrow()
+        );
+        char[] keystorePassword = password(configuration.keystorePassword());
+        KeyStore keyStore = loadStore(keystorePath, keystorePassword);
+        try {
+            boolean hasKey = false;
+            for (String alias : Collections.list(keyStore.aliases())) {
+                hasKey |= keyStore.isKeyEntry(alias);
+            }
+            if (!hasKey) {
+                throw new IOException(
+                    "TLS key store " + keystorePath + " holds no private key"
+                );
+            }
+            KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(
+                KeyManagerFactory.getDefaultAlgorithm()
+            );
+            keyManagers.init(keyStore, keystorePassword);
+
+            TrustManager[] trustManagers = null;
+            if (configuration.truststore().isPresent()) {
+                Path truststorePath = dataDirectory.resolve(
+                    configuration.truststore().get()
+                );
+                TrustManagerFactory trust = TrustManagerFactory.getInstance(
+                    TrustManagerFactory.getDefaultAlgorithm()
+                );
+                trust.init(
+                    loadStore(
+                        truststorePath,
+                        password(configuration.truststorePassword())
+                    )
+                );
+                trustManagers = trust.getTrustManagers();
+            }
+
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keyManagers.getKeyManagers(), trustManagers, null);
+            context
+                .getServerSessionContext()
+                .setSessionTimeout(configuration.sessionTimeoutSeconds());
+            return new TlsContext(context, configuration.clientAuth());
+        } catch (GeneralSecurityException ex) {
+            throw new IOException(
+                "Unable to use TLS key store " + keystorePath + ": " + ex,
+                ex
+            );
+        }
+    }
+
+    /**
+     * Starts the TLS connection of a freshly accepted client.
+     */
+    TlsChannel open(SocketChannel channel) {
+        return new TlsChannel(channel, createEngine());
+    }
+
+    /**
+     * Creates the server side engine of a new connection.
+     */
+    SSLEngine createEngine() {
+        SSLEngine engine = context.createSSLEngine();
+        engine.setUseClientMode(false);
+        engine.setEnabledProtocols(PROTOCOLS);
+        switch (clientAuth) {
+            case OPTIONAL -> engine.setWantClientAuth(true);
+            case REQUIRED -> engine.setNeedClientAuth(true);
+            case NONE -> {}
+        }
+        return engine;
+    }
+
+    private static KeyStore loadStore(Path path, char[] password)
+        throws IOException {
+        try {
+            return KeyStore.getInstance(path.toFile(), password);
+        } catch (
+            IOException | GeneralSecurityException | IllegalArgumentException ex
+        ) {
+            throw new IOException(
+                "Unable to read TLS store " + path + ": " + ex.getMessage(),
+                ex
+            );
+        }
+    }
+
+    private static char[] password(Optional<String> password) {
+        return password.map(String::toCharArray).orElseGet(() -> new char[0]);
+    }
+}
@@ -0,0 +1,119 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class AnsiLineScannerTest {
+
+    // The split, replace and strip pipeline the scanner replaces.
+    private static final Pattern ANSI_PATTERN = Pattern.compile(
+        "\\u001B\\[[;\\d]*[ -/]*[@-~]"
+    );
+
+    private static final String[] FRAGMENTS = {
+        "a",
+        "Zz",
+        "42",
+        " ",
+        "\t",
+        " ",
+        " ",
+        "　",
+        "\n",
+        "\r",
+        "\r\n",
+        "\u000B",
+        "\f",
+        "\u0085",
+        " ",
+        " ",
+        "\u001B",
+        "\u001B[",
+        "\u001B[0m",
+        "\u001B[1;31m",
+        "\u001B[;m",
+        "\u001B[ !q",
+        "\u001B[12",
+        "\u001B[1;",
+        "\u001B[ ",
+        "\u001B]0;title\u0007",
+        "[",
+        ";",
+        "@",
+        "~",
+        "😀",
+        "\uD83D",
+        "\uDE00",
+        "é",
+    };
+
+    @Test
+    void matchesTheRegexPipeline() {
+        for (String text : List.of(
+            "",
+            "plain",
+            "  padded line  ",
+            "one\ntwo\r\nthree\rfour",
+            "\n\n\n",
+            "\u001B[32mgreen\u001B[0m and \u001B[1;4mbold\u001B[m",
+            "\u001B[32m  \u001B[0m\n \u001B[1m",
+            "unterminated \u001B[31",
+            "not a sequence \u001B(B",
+            "intermediate \u001B[ q bytes",
+            "\u001B\u001B[0mdouble escape",
+            "cr at end\r",
+            "emoji 😀 stays"
+        )) {
+            assertEquals(expected(text), scanned(text), text);
+        }
+    }
+
+    @Test
+    void matchesTheRegexPipelineOnRandomText() {
+        Random random = new Random(20_260_101L);
+        for (int round = 0; round < 20_000; round++) {
+            StringBuilder text = new StringBuilder();
+            int fragments = random.nextInt(24);
+            for (int i = 0; i < fragments; i++) {
+                text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertEquals(
+                expected(text.toString()),
+                scanned(text),
+                "round " + round
+            );
+        }
+    }
+
+    @Test
+    void scannerIsReusable() {
+        AnsiLineScanner scanner = new AnsiLineScanner();
+        List<String> lines = new ArrayList<>();
+        scanner.scan("first \u001B[1", lines::add);
+        scanner.scan("second\n", lines::add);
+
+        assertEquals(List.of("first \u001B[1", "second"), lines);
+    }
+
+    private static List<String> scanned(CharSequence text) {
+        List<String> lines = new ArrayList<>();
+        new AnsiLineScanner().scan(text, lines::add);
+        return lines;
+    }
+
+    private static List<String> expected(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String part : text.split("\\R", -1)) {
+            String line = ANSI_PATTERN.matcher(part).replaceAll("").strip();
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
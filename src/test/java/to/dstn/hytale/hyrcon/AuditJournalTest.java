@@ -0,0 +1,224 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AuditJournalTest {
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsRoundTrip() throws IOException {
+        Instant before = Instant.now();
+        AuditJournal journal = AuditJournal.open(
+            directory,
+            SEGMENT_BYTES,
+            0,
+            0
+        );
+        journal.append(
+            HyRconProtocol.SOURCE_RCON,
+            "/10.0.0.7:51234",
+            "say héllo",
+            true,
+            1_500_000
+        );
+        journal.append(
+            HyRconProtocol.HYRCON,
+            "/10.0.0.8:40000",
+            "stop",
+            false,
+            42
+        );
+        journal.close();
+
+        List<AuditJournalReader.Entry> entries = new ArrayList<>();
+        int damaged = scan(null, entries);
+
+        assertEquals(0, damaged);
+        assertEquals(2, entries.size());
+        AuditJournalReader.Entry first = entries.get(0);
+        assertEquals(HyRconProtocol.SOURCE_RCON, first.protocol());
+        assertEquals("/10.0.0.7:51234", first.remoteAddress());
+        assertEquals("say héllo", first.command());
+        assertTrue(first.success());
+        assertEquals(Duration.ofNanos(1_500_000), first.duration());
+        assertFalse(first.time().isBefore(before.minusMillis(1)));
+        AuditJournalReader.Entry second = entries.get(1);
+        assertEquals(HyRconProtocol.HYRCON, second.protocol());
+        assertEquals("stop", second.command());
+        assertFalse(second.success());
+        assertFalse(second.time().isBefore(first.time()));
+    }
+
+    @Test
+    void remoteFilterSelectsMatchingRecords() throws IOException {
+        AuditJournal journal = AuditJournal.open(
+            directory,
+            SEGMENT_BYTES,
+            0,
+            0
+        );
+        for (int i = 0; i < 10; i++) {
+            journal.append(
+                HyRconProtocol.HYRCON,
+                "/10.0.0." + (i % 2 == 0 ? "7" : "8") + ":1",
+                "command " + i,
+                true,
+                0
+            );
+        }
+        journal.close();
+
+        List<AuditJournalReader.Entry> entries = new ArrayList<>();
+        scan("10.0.0.8", entries);
+
+        assertEquals(5, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals("command " + (i * 2 + 1), entries.get(i).command());
+        }
+    }
+
+    @Test
+    void recordsSpanRotatedSegments() throws IOException {
+        AuditJournal journal = AuditJournal.open(
+            directory,
+            SEGMENT_BYTES,
+            0,
+            60_000
+        );
+        int count = 3000;
+        for (int i = 0; i < count; i++) {
+            journal.append(
+                HyRconProtocol.SOURCE_RCON,
+                "/127.0.0.1:1",
+                "command number " + i,
+                true,
+                i
+            );
+        }
+        journal.close();
+
+        List<AuditJournalReader.Entry> entries = new ArrayList<>();
+        scan(null, entries);
+
+        assertTrue(AuditJournalReader.segments(directory).size() > 1);
+        assertEquals(count, entries.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("command number " + i, entries.get(i).command());
+        }
+    }
+
+    @Test
+    void corruptRecordIsSkipped() throws IOException {
+        writeThreeRecords();
+        Path segment = AuditJournalReader.segments(directory).get(0);
+        withSegment(segment, buffer -> {
+            int second = secondRecord(buffer);
+            int command = second + AuditJournalReader.RECORD_HEADER_SIZE;
+            int remoteLength = Short.toUnsignedInt(
+                buffer.getShort(second + 26)
+            );
+            buffer.put(command + remoteLength, (byte) 'X');
+        });
+
+        List<AuditJournalReader.Entry> entries = new ArrayList<>();
+        int damaged = scan(null, entries);
+
+        assertEquals(1, damaged);
+        assertEquals(
+            List.of("first", "third"),
+            entries.stream().map(AuditJournalReader.Entry::command).toList()
+        );
+    }
+
+    @Test
+    void brokenFramingEndsTheSegment() throws IOException {
+        writeThreeRecords();
+        Path segment = AuditJournalReader.segments(directory).get(0);
+        withSegment(segment, buffer ->
+            buffer.putInt(secondRecord(buffer), Integer.MAX_VALUE)
+        );
+
+        List<AuditJournalReader.Entry> entries = new ArrayList<>();
+        int damaged = scan(null, entries);
+
+        assertEquals(1, damaged);
+        assertEquals(
+            List.of("first"),
+            entries.stream().map(AuditJournalReader.Entry::command).toList()
+        );
+    }
+
+    private void writeThreeRecords() throws IOException {
+        AuditJournal journal = AuditJournal.open(
+            directory,
+            SEGMENT_BYTES,
+            0,
+            0
+        );
+        for (String command : List.of("first", "second", "third")) {
+            journal.append(
+                HyRconProtocol.HYRCON,
+                "/127.0.0.1:1",
+                command,
+                true,
+                0
+            );
+        }
+        journal.close();
+    }
+
+    private int scan(String remoteFilter, List<AuditJournalReader.Entry> into)
+        throws IOException {
+        return AuditJournalReader.scan(
+            directory,
+            Instant.EPOCH,
+            Instant.MAX,
+            remoteFilter,
+            into::add
+        );
+    }
+
+    private static int secondRecord(ByteBuffer buffer) {
+        int first = AuditJournalReader.SEGMENT_HEADER_SIZE;
+        return first + 4 + buffer.getInt(first);
+    }
+
+    private static void withSegment(Path segment, SegmentEdit edit)
+        throws IOException {
+        try (
+            FileChannel channel = FileChannel.open(
+                segment,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            ByteBuffer buffer = channel
+                .map(FileChannel.MapMode.READ_WRITE, 0, channel.size())
+                .order(ByteOrder.LITTLE_ENDIAN);
+            edit.apply(buffer);
+        }
+    }
+
+    private interface SegmentEdit {
+        void apply(ByteBuffer buffer);
+    }
+}
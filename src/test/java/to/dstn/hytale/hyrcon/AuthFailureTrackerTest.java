@@ -0,0 +1,146 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class AuthFailureTrackerTest {
+
+    @Test
+    void delayDoublesUpToTheCap() throws UnknownHostException {
+        AuthFailureTracker tracker = tracker("100", "0", "60", "16");
+        InetAddress address = address(1);
+
+        assertEquals(100, tracker.failed(address).delayMillis());
+        assertEquals(200, tracker.failed(address).delayMillis());
+        assertEquals(400, tracker.failed(address).delayMillis());
+        for (int i = 0; i < 40; i++) {
+            tracker.failed(address);
+        }
+        AuthFailureTracker.Failure failure = tracker.failed(address);
+        assertEquals(
+            AuthFailureTracker.MAX_TARPIT_MILLIS,
+            failure.delayMillis()
+        );
+        assertEquals(44, failure.failures());
+        assertFalse(failure.banned());
+    }
+
+    @Test
+    void successForgetsFailures() throws UnknownHostException {
+        AuthFailureTracker tracker = tracker("100", "0", "60", "16");
+        InetAddress address = address(1);
+        tracker.failed(address);
+        tracker.failed(address);
+
+        tracker.succeeded(address);
+
+        assertEquals(0, tracker.size());
+        assertEquals(1, tracker.failed(address).failures());
+    }
+
+    @Test
+    void banExpires() throws Exception {
+        AuthFailureTracker tracker = tracker("0", "2", "1", "16");
+        InetAddress address = address(1);
+
+        assertFalse(tracker.failed(address).banned());
+        assertFalse(tracker.isBanned(address));
+        assertTrue(tracker.failed(address).banned());
+        assertTrue(tracker.isBanned(address));
+        // Failures on connections that were already open do not extend it.
+        assertFalse(tracker.failed(address).banned());
+        assertFalse(tracker.isBanned(address(2)));
+
+        Thread.sleep(1_100);
+
+        assertFalse(tracker.isBanned(address));
+    }
+
+    @Test
+    void trimDropsTheLeastRecentlyFailed() throws Exception {
+        int capacity = 8;
+        AuthFailureTracker tracker = tracker("100", "0", "60", "" + capacity);
+        for (int i = 1; i <= capacity + capacity / 8; i++) {
+            tracker.failed(address(i));
+            Thread.sleep(2);
+        }
+        assertEquals(capacity + capacity / 8, tracker.size());
+
+        tracker.failed(address(100));
+
+        assertEquals(capacity * 7 / 8, tracker.size());
+        // The newest addresses keep their count; the oldest start over.
+        assertEquals(2, tracker.failed(address(100)).failures());
+        assertEquals(2, tracker.failed(address(capacity)).failures());
+        assertEquals(1, tracker.failed(address(1)).failures());
+    }
+
+    @Test
+    void addresslessClientsAreNeverTracked() {
+        AuthFailureTracker tracker = tracker("100", "1", "60", "16");
+
+        assertEquals(0, tracker.failed(null).delayMillis());
+        assertFalse(tracker.isBanned(null));
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    void defaultsHoldBackFailuresWithoutBanning() throws UnknownHostException {
+        AuthFailureTracker tracker = new AuthFailureTracker(
+            HyRconConfiguration.fromEnvironment(Map.of())
+        );
+        InetAddress address = address(1);
+
+        assertEquals(
+            HyRconConfiguration.DEFAULT_AUTH_TARPIT_MS,
+            tracker.failed(address).delayMillis()
+        );
+        for (int i = 0; i < 50; i++) {
+            assertFalse(tracker.failed(address).banned());
+        }
+        assertFalse(tracker.isBanned(address));
+    }
+
+    @Test
+    void disabledTrackerRecordsNothing() throws UnknownHostException {
+        AuthFailureTracker tracker = tracker("0", "0", "60", "16");
+
+        assertFalse(tracker.isEnabled());
+        assertEquals(0, tracker.failed(address(1)).delayMillis());
+        assertEquals(0, tracker.size());
+    }
+
+    private static AuthFailureTracker tracker(
+        String tarpitMillis,
+        String banFailures,
+        String banSeconds,
+        String trackedAddresses
+    ) {
+        return new AuthFailureTracker(
+            HyRconConfiguration.fromEnvironment(
+                Map.of(
+                    HyRconConfiguration.ENV_AUTH_TARPIT_MS,
+                    tarpitMillis,
+                    HyRconConfiguration.ENV_AUTH_BAN_FAILURES,
+                    banFailures,
+                    HyRconConfiguration.ENV_AUTH_BAN_SECONDS,
+                    banSeconds,
+                    HyRconConfiguration.ENV_AUTH_TRACKED_ADDRESSES,
+                    trackedAddresses
+                )
+            )
+        );
+    }
+
+    private static InetAddress address(int host) throws UnknownHostException {
+        return InetAddress.getByAddress(
+            new byte[] { 10, 0, (byte) (host >>> 8), (byte) host }
+        );
+    }
+}
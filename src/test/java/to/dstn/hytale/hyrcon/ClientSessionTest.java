@@ -0,0 +1,231 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@Timeout(30)
+class ClientSessionTest {
+
+    private static final String SOCKET = "rcon.sock";
+    private static final int PIPELINE_DEPTH = 4;
+
+    @TempDir
+    Path directory;
+
+    private final BlockingQueue<Command> started = new LinkedBlockingQueue<>();
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocking", "nio" })
+    void pipelinedRepliesKeepRequestOrder(String transport) throws Exception {
+        try (
+            HyRconServer server = start(transport);
+            SourceRconTestClient client = connect()
+        ) {
+            for (int id = 1; id <= 3; id++) {
+                client.execute(id, "command " + id);
+            }
+            Map<String, Command> commands = nextStarted(3);
+
+            commands.get("command 3").complete();
+            commands.get("command 2").complete();
+            commands.get("command 1").complete();
+
+            for (int id = 1; id <= 3; id++) {
+                SourceRconTestClient.Packet reply = client.readResponse();
+                assertEquals(id, reply.requestId());
+                assertEquals("ran command " + id, reply.payload());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocking", "nio" })
+    void pipelineDepthBoundsCommandsInFlight(String transport)
+        throws Exception {
+        try (
+            HyRconServer server = start(transport);
+            SourceRconTestClient client = connect()
+        ) {
+            for (int id = 1; id <= PIPELINE_DEPTH + 1; id++) {
+                client.execute(id, "command " + id);
+            }
+            Map<String, Command> commands = nextStarted(PIPELINE_DEPTH);
+            Command first = commands.remove("command 1");
+            commands.values().forEach(Command::complete);
+            assertNull(started.poll(200, TimeUnit.MILLISECONDS));
+
+            first.complete();
+
+            nextStarted().complete();
+            for (int id = 1; id <= PIPELINE_DEPTH + 1; id++) {
+                assertEquals(id, client.readResponse().requestId());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocking", "nio" })
+    void streamedOutputArrivesWhileTheCommandRuns(String transport)
+        throws Exception {
+        try (
+            HyRconServer server = start(transport, true);
+            SourceRconTestClient client = connect()
+        ) {
+            client.execute(1, "long");
+            Command command = nextStarted();
+
+            command.output.accept("first line");
+            SourceRconTestClient.Packet first = client.readPacket();
+            assertEquals(1, first.requestId());
+            assertEquals("first line", first.payload());
+
+            command.output.accept("second line");
+            command.complete();
+            assertEquals(
+                "\nsecond line\nran long",
+                client.readResponse().payload()
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocking", "nio" })
+    void streamedOutputOfAQueuedReplyIsBounded(String transport)
+        throws Exception {
+        int capacity = OutputCaptureBuffer.DEFAULT_CAPACITY;
+        try (
+            HyRconServer server = start(transport, true);
+            SourceRconTestClient client = connect()
+        ) {
+            client.execute(1, "slow");
+            Command slow = nextStarted();
+            client.execute(2, "chatty");
+            Command chatty = nextStarted();
+
+            // Nothing of the second reply is written while the first runs.
+            for (int i = 0; i < capacity + 5; i++) {
+                chatty.output.accept("line " + i);
+            }
+            chatty.complete();
+            slow.complete();
+
+            assertEquals("ran slow", client.readResponse().payload());
+            String[] lines = client.readResponse().payload().split("\n");
+            assertEquals(capacity + 2, lines.length);
+            assertEquals("line " + (capacity - 1), lines[capacity - 1]);
+            assertEquals(
+                "[output truncated: 5 more line(s) dropped]",
+                lines[capacity]
+            );
+            assertEquals("ran chatty", lines[capacity + 1]);
+        }
+    }
+
+    private HyRconServer start(String transport) {
+        return start(transport, false);
+    }
+
+    private HyRconServer start(String transport, boolean streamOutput) {
+        Map<String, String> environment = new HashMap<>();
+        environment.put(HyRconConfiguration.ENV_ENABLED, "true");
+        environment.put(HyRconConfiguration.ENV_TRANSPORT, transport);
+        environment.put(HyRconConfiguration.ENV_LISTENERS, "local");
+        environment.put("HYRCON_LISTENER_LOCAL_SOCKET", SOCKET);
+        environment.put("HYRCON_LISTENER_LOCAL_PROTOCOL", "source");
+        environment.put(
+            "HYRCON_LISTENER_LOCAL_PIPELINE_DEPTH",
+            "" + PIPELINE_DEPTH
+        );
+        environment.put(
+            "HYRCON_LISTENER_LOCAL_STREAM_OUTPUT",
+            "" + streamOutput
+        );
+        HyRconServer server = new HyRconServer(
+            HyRconConfiguration.fromEnvironment(environment),
+            new RecordingExecutor(),
+            directory
+        );
+        server.start();
+        return server;
+    }
+
+    private SourceRconTestClient connect() throws IOException {
+        return SourceRconTestClient.connect(directory.resolve(SOCKET));
+    }
+
+    private Command nextStarted() throws InterruptedException {
+        Command command = started.poll(10, TimeUnit.SECONDS);
+        if (command == null) {
+            throw new AssertionError("No command was dispatched");
+        }
+        return command;
+    }
+
+    private Map<String, Command> nextStarted(int count)
+        throws InterruptedException {
+        // Pipelined commands may start in any order.
+        Map<String, Command> commands = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Command command = nextStarted();
+            commands.put(command.command, command);
+        }
+        return commands;
+    }
+
+    /** Hands every command to the test, which decides when it completes. */
+    private final class RecordingExecutor implements CommandExecutor {
+
+        @Override
+        public CommandResponse execute(String command) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletionStage<CommandResponse> executeAsync(String command) {
+            return executeStreaming(command, null);
+        }
+
+        @Override
+        public CompletionStage<CommandResponse> executeStreaming(
+            String command,
+            Consumer<String> output
+        ) {
+            Command pending = new Command(command, output);
+            started.add(pending);
+            return pending.response;
+        }
+    }
+
+    private static final class Command {
+
+        final String command;
+        // Null unless the listener streams output.
+        final Consumer<String> output;
+        final CompletableFuture<CommandResponse> response =
+            new CompletableFuture<>();
+
+        Command(String command, Consumer<String> output) {
+            this.command = command;
+            this.output = output;
+        }
+
+        void complete() {
+            response.complete(CommandResponse.success("ran " + command));
+        }
+    }
+}
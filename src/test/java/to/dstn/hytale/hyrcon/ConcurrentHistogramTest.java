@@ -0,0 +1,81 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentHistogramTest {
+
+    @Test
+    void smallValuesGetABucketEach() {
+        for (int value = 0; value < 32; value++) {
+            assertEquals(value, ConcurrentHistogram.bucketIndex(value));
+            assertEquals(value, ConcurrentHistogram.highestValue(value));
+        }
+    }
+
+    @Test
+    void bucketBoundsAreContiguous() {
+        for (int index = 1; index < maxIndex(); index++) {
+            long highest = ConcurrentHistogram.highestValue(index);
+            long previous = ConcurrentHistogram.highestValue(index - 1);
+            assertTrue(highest > previous, "bucket " + index);
+            assertEquals(index, ConcurrentHistogram.bucketIndex(highest));
+            assertEquals(index, ConcurrentHistogram.bucketIndex(previous + 1));
+        }
+    }
+
+    @Test
+    void bucketsHoldTheirValuesWithinRelativeError() {
+        for (long value = 1; value <= ConcurrentHistogram.MAX_VALUE; ) {
+            for (long probe : new long[] { value - 1, value, value + 1 }) {
+                if (probe > ConcurrentHistogram.MAX_VALUE) {
+                    continue;
+                }
+                int index = ConcurrentHistogram.bucketIndex(probe);
+                long highest = ConcurrentHistogram.highestValue(index);
+                long lowest =
+                    index == 0
+                        ? 0
+                        : ConcurrentHistogram.highestValue(index - 1) + 1;
+                assertTrue(lowest <= probe && probe <= highest, "" + probe);
+                assertTrue(highest - lowest <= Math.max(0, probe / 16));
+            }
+            value = value * 3 / 2 + 1;
+        }
+    }
+
+    @Test
+    void largestValueFillsTheLastBucket() {
+        assertEquals(
+            ConcurrentHistogram.MAX_VALUE,
+            ConcurrentHistogram.highestValue(maxIndex())
+        );
+    }
+
+    @Test
+    void recordedValuesAreClampedAndSummarized() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        ConcurrentHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(102, snapshot.count());
+        assertEquals(ConcurrentHistogram.MAX_VALUE, snapshot.max());
+        assertEquals(5050 + ConcurrentHistogram.MAX_VALUE, snapshot.sum());
+        long median = snapshot.valueAtPercentile(50);
+        assertTrue(50 <= median && median <= 53, "" + median);
+        assertEquals(
+            ConcurrentHistogram.MAX_VALUE,
+            snapshot.valueAtPercentile(100)
+        );
+    }
+
+    private static int maxIndex() {
+        return ConcurrentHistogram.bucketIndex(ConcurrentHistogram.MAX_VALUE);
+    }
+}
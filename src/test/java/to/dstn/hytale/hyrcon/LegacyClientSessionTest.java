@@ -0,0 +1,142 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@Timeout(30)
+class LegacyClientSessionTest {
+
+    private static final String SOCKET = "rcon.sock";
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocking", "nio" })
+    void onlyUpperCaseStatsIsAnsweredBySession(String transport)
+        throws Exception {
+        try (
+            HyRconServer server = start(transport);
+            SocketChannel channel = connect()
+        ) {
+            BufferedReader reader = reader(channel);
+            readResponse(reader);
+
+            send(channel, "stats\nSTATS\n");
+
+            assertEquals(List.of("OK", "ran stats"), readResponse(reader));
+            List<String> stats = readResponse(reader);
+            assertEquals("OK", stats.get(0));
+            assertTrue(stats.get(1).startsWith("uptime_seconds="));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocking", "nio" })
+    void linesArrivingInPiecesAreReassembled(String transport)
+        throws Exception {
+        String command = "say " + "x".repeat(8_000);
+        try (
+            HyRconServer server = start(transport);
+            SocketChannel channel = connect()
+        ) {
+            BufferedReader reader = reader(channel);
+            readResponse(reader);
+
+            int piece = 97;
+            for (int offset = 0; offset < command.length(); offset += piece) {
+                int end = Math.min(offset + piece, command.length());
+                send(channel, command.substring(offset, end));
+                Thread.sleep(1);
+            }
+            send(channel, "\r");
+            Thread.sleep(20);
+            send(channel, "\nPING\r\n");
+
+            assertEquals(
+                List.of("OK", "ran " + command),
+                readResponse(reader)
+            );
+            assertEquals(List.of("OK", "PONG"), readResponse(reader));
+        }
+    }
+
+    private HyRconServer start(String transport) {
+        HyRconServer server = new HyRconServer(
+            HyRconConfiguration.fromEnvironment(
+                Map.of(
+                    HyRconConfiguration.ENV_ENABLED,
+                    "true",
+                    HyRconConfiguration.ENV_TRANSPORT,
+                    transport,
+                    HyRconConfiguration.ENV_LISTENERS,
+                    "local",
+                    "HYRCON_LISTENER_LOCAL_SOCKET",
+                    SOCKET,
+                    "HYRCON_LISTENER_LOCAL_PROTOCOL",
+                    "hyrcon"
+                )
+            ),
+            command -> CommandResponse.success("ran " + command),
+            directory
+        );
+        server.start();
+        return server;
+    }
+
+    private SocketChannel connect() throws IOException {
+        return SocketChannel.open(
+            UnixDomainSocketAddress.of(directory.resolve(SOCKET))
+        );
+    }
+
+    private static void send(SocketChannel channel, String text)
+        throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(
+            text.getBytes(StandardCharsets.UTF_8)
+        );
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    private static BufferedReader reader(SocketChannel channel) {
+        return new BufferedReader(
+            new InputStreamReader(
+                Channels.newInputStream(channel),
+                StandardCharsets.UTF_8
+            )
+        );
+    }
+
+    /** Reads the lines of one response up to its lone {@code .} line. */
+    private static List<String> readResponse(BufferedReader reader)
+        throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while (!".".equals(line = reader.readLine())) {
+            if (line == null) {
+                throw new IOException("Server closed the connection");
+            }
+            lines.add(line);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,116 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class OutputCaptureBufferTest {
+
+    @Test
+    void linesBeyondCapacityAreDroppedAndReported() {
+        OutputCaptureBuffer buffer = new OutputCaptureBuffer(3);
+
+        assertTrue(buffer.append("one"));
+        assertTrue(buffer.append("two"));
+        assertTrue(buffer.append("three"));
+        assertFalse(buffer.append("four"));
+        assertFalse(buffer.append("five"));
+
+        assertEquals(
+            List.of(
+                "one",
+                "two",
+                "three",
+                "[output truncated: 2 more line(s) dropped]"
+            ),
+            buffer.snapshot()
+        );
+    }
+
+    @Test
+    void fullBufferWithoutDropsHasNoMarker() {
+        OutputCaptureBuffer buffer = new OutputCaptureBuffer(2);
+        buffer.append("one");
+        buffer.append("two");
+
+        assertEquals(List.of("one", "two"), buffer.snapshot());
+    }
+
+    @Test
+    void readContinuesFromTheReturnedOffset() {
+        // Spans several chunks.
+        OutputCaptureBuffer buffer = new OutputCaptureBuffer(200);
+        List<String> read = new ArrayList<>();
+        int offset = 0;
+        for (int i = 0; i < 150; i++) {
+            buffer.append("line " + i);
+            if (i % 7 == 0) {
+                offset = buffer.read(offset, read);
+            }
+        }
+        offset = buffer.read(offset, read);
+
+        assertEquals(150, offset);
+        assertEquals(150, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals("line " + i, read.get(i));
+        }
+        assertEquals(150, buffer.read(offset, read));
+        assertEquals(150, read.size());
+    }
+
+    @Test
+    void concurrentAppendsKeepEveryLineOnce() throws InterruptedException {
+        int threads = 4;
+        int perThread = 5_000;
+        int capacity = 12_000;
+        OutputCaptureBuffer buffer = new OutputCaptureBuffer(capacity);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String prefix = t + ":";
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    buffer.append(prefix + i);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<String> lines = buffer.snapshot();
+        assertEquals(capacity + 1, lines.size());
+        assertEquals(
+            "[output truncated: " +
+                (threads * perThread - capacity) +
+                " more line(s) dropped]",
+            lines.get(capacity)
+        );
+        Set<String> unique = new HashSet<>(lines.subList(0, capacity));
+        assertEquals(capacity, unique.size());
+    }
+
+    @Test
+    void rejectsEmptyCapacity() {
+        assertThrows(IllegalArgumentException.class, () ->
+            new OutputCaptureBuffer(0)
+        );
+    }
+}
@@ -0,0 +1,91 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@Timeout(30)
+class ProtocolDetectionTest {
+
+    private static final String SOCKET = "rcon.sock";
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocking", "nio" })
+    void httpRequestStillBeingSentGetsTheWholeResponse(String transport)
+        throws Exception {
+        try (
+            HyRconServer server = start(transport);
+            SocketChannel channel = SocketChannel.open(
+                UnixDomainSocketAddress.of(directory.resolve(SOCKET))
+            )
+        ) {
+            write(
+                channel,
+                ByteBuffer.wrap(
+                    "POST / HTTP/1.1\r\nContent-Length: 2000\r\n\r\n".getBytes(
+                        StandardCharsets.US_ASCII
+                    )
+                )
+            );
+            Thread.sleep(50);
+            // The rest of the body arrives after the response was written.
+            write(channel, ByteBuffer.allocate(2000));
+
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            ByteBuffer buffer = ByteBuffer.allocate(1024);
+            while (channel.read(buffer.clear()) >= 0) {
+                response.write(buffer.array(), 0, buffer.position());
+            }
+
+            ByteBuffer expected = ProtocolSniffer.httpResponse();
+            byte[] bytes = new byte[expected.remaining()];
+            expected.get(bytes);
+            assertArrayEquals(bytes, response.toByteArray());
+        }
+    }
+
+    private HyRconServer start(String transport) {
+        HyRconServer server = new HyRconServer(
+            HyRconConfiguration.fromEnvironment(
+                Map.of(
+                    HyRconConfiguration.ENV_ENABLED,
+                    "true",
+                    HyRconConfiguration.ENV_TRANSPORT,
+                    transport,
+                    HyRconConfiguration.ENV_DETECT_TIMEOUT_MS,
+                    "500",
+                    HyRconConfiguration.ENV_LISTENERS,
+                    "local",
+                    "HYRCON_LISTENER_LOCAL_SOCKET",
+                    SOCKET,
+                    "HYRCON_LISTENER_LOCAL_PROTOCOL",
+                    "auto"
+                )
+            ),
+            command -> CommandResponse.success("ran " + command),
+            directory
+        );
+        server.start();
+        return server;
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer data)
+        throws Exception {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class ProtocolSnifferTest {
+
+    @Test
+    void sourceFrameIsDetectedFromItsLength() {
+        ProtocolSniffer sniffer = new ProtocolSniffer();
+        ByteBuffer frame = SourceRconCodec.encodeFrame(1, 3, "secret");
+
+        assertEquals(
+            ProtocolSniffer.Detection.SOURCE_RCON,
+            sniffer.offer(frame, false)
+        );
+        // The detecting read is left for the session.
+        assertEquals(0, frame.position());
+        assertNull(sniffer.carried());
+    }
+
+    @Test
+    void sourceFrameSplitAcrossReads() {
+        ProtocolSniffer sniffer = new ProtocolSniffer();
+        ByteBuffer frame = SourceRconCodec.encodeFrame(1, 3, "secret");
+        ByteBuffer first = frame.duplicate().limit(1);
+        ByteBuffer rest = frame.duplicate().position(1);
+
+        assertNull(sniffer.offer(first, false));
+        assertFalse(first.hasRemaining());
+        assertEquals(
+            ProtocolSniffer.Detection.SOURCE_RCON,
+            sniffer.offer(rest, false)
+        );
+        assertEquals(1, rest.position());
+        assertEquals(frame.get(0), sniffer.carried().get(0));
+        assertEquals(1, sniffer.carried().remaining());
+    }
+
+    @Test
+    void commandLineIsHyRcon() {
+        ProtocolSniffer sniffer = new ProtocolSniffer();
+
+        assertEquals(
+            ProtocolSniffer.Detection.HYRCON,
+            sniffer.offer(ascii("AUTH secret\n"), false)
+        );
+    }
+
+    @Test
+    void httpRequestSplitAcrossReads() {
+        ProtocolSniffer sniffer = new ProtocolSniffer();
+
+        assertNull(sniffer.offer(ascii("GE"), false));
+        assertNull(sniffer.offer(ascii("T"), false));
+        assertEquals(
+            ProtocolSniffer.Detection.HTTP,
+            sniffer.offer(ascii(" /index.html HTTP/1.1\r\n"), false)
+        );
+        assertEquals("GET", text(sniffer.carried()));
+    }
+
+    @Test
+    void commandStartingLikeAMethodIsHyRcon() {
+        ProtocolSniffer sniffer = new ProtocolSniffer();
+
+        assertNull(sniffer.offer(ascii("GET"), false));
+        assertEquals(
+            ProtocolSniffer.Detection.HYRCON,
+            sniffer.offer(ascii("TIME\n"), false)
+        );
+    }
+
+    @Test
+    void partialPrefixIsCarriedAfterTimeout() {
+        ProtocolSniffer sniffer = new ProtocolSniffer();
+
+        assertNull(sniffer.offer(ascii("PO"), false));
+        assertFalse(sniffer.isEmpty());
+        // A timed out detection treats the client as HyRCON and hands the
+        // kept bytes to the session, which must see each byte once.
+        assertEquals("PO", text(sniffer.carried()));
+        assertEquals("PO", text(sniffer.carried()));
+    }
+
+    @Test
+    void endOfStreamDecidesPartialInput() {
+        ProtocolSniffer shortInput = new ProtocolSniffer();
+        assertNull(shortInput.offer(ascii("ab"), false));
+        assertEquals(
+            ProtocolSniffer.Detection.HYRCON,
+            shortInput.offer(ByteBuffer.allocate(0), true)
+        );
+
+        ProtocolSniffer partialMethod = new ProtocolSniffer();
+        assertNull(partialMethod.offer(ascii("OPTIONS"), false));
+        assertEquals(
+            ProtocolSniffer.Detection.HYRCON,
+            partialMethod.offer(ByteBuffer.allocate(0), true)
+        );
+        assertEquals("OPTIONS", text(partialMethod.carried()));
+    }
+
+    @Test
+    void nothingReceivedKeepsNothing() {
+        ProtocolSniffer sniffer = new ProtocolSniffer();
+
+        assertTrue(sniffer.isEmpty());
+        assertNull(sniffer.carried());
+        assertEquals(
+            ProtocolSniffer.Detection.HYRCON,
+            sniffer.offer(ByteBuffer.allocate(0), true)
+        );
+    }
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String text(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
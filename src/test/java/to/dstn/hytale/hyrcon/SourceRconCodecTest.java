@@ -0,0 +1,229 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class SourceRconCodecTest {
+
+    private static final int MAX_FRAME_SIZE = 4096;
+
+    @Test
+    void encodedFrameDecodesToItsFields() throws IOException {
+        ByteBuffer frame = SourceRconCodec.encodeFrame(
+            7,
+            SourceRconCodec.TYPE_EXECCOMMAND,
+            "status"
+        );
+
+        assertEquals(
+            frame.remaining(),
+            SourceRconCodec.frameSize(frame, false, MAX_FRAME_SIZE)
+        );
+        assertEquals(4 + 10 + 6, frame.remaining());
+        assertEquals(7, SourceRconCodec.requestId(frame));
+        assertEquals(
+            SourceRconCodec.TYPE_EXECCOMMAND,
+            SourceRconCodec.type(frame)
+        );
+        assertEquals(6, SourceRconCodec.payloadLength(frame));
+        assertEquals("status", SourceRconCodec.payloadString(frame));
+        assertTrue(
+            SourceRconCodec.payloadEquals(
+                frame,
+                "status".getBytes(StandardCharsets.ISO_8859_1)
+            )
+        );
+        assertTrue(hasTrailer(frame));
+    }
+
+    @Test
+    void emptyPayloadRoundTrips() throws IOException {
+        ByteBuffer frame = SourceRconCodec.encodeFrame(
+            3,
+            SourceRconCodec.TYPE_RESPONSE_VALUE,
+            ""
+        );
+
+        assertEquals(
+            4 + SourceRconCodec.MIN_BODY_LENGTH,
+            SourceRconCodec.frameSize(frame, true, MAX_FRAME_SIZE)
+        );
+        assertEquals("", SourceRconCodec.payloadString(frame));
+        assertTrue(hasTrailer(frame));
+    }
+
+    @Test
+    void busyResponseIsACompletePacket() throws IOException {
+        ByteBuffer busy = SourceClientSession.busyResponse().order(
+            ByteOrder.LITTLE_ENDIAN
+        );
+
+        assertEquals(
+            busy.remaining(),
+            SourceRconCodec.frameSize(busy, true, MAX_FRAME_SIZE)
+        );
+        assertEquals(-1, SourceRconCodec.requestId(busy));
+        assertEquals(
+            SourceRconCodec.TYPE_RESPONSE_VALUE,
+            SourceRconCodec.type(busy)
+        );
+        assertEquals("Server busy", SourceRconCodec.payloadString(busy));
+        assertTrue(hasTrailer(busy));
+
+        // Every rejected connection writes its own view.
+        busy.position(busy.limit());
+        assertEquals(
+            busy.limit(),
+            SourceClientSession.busyResponse().remaining()
+        );
+    }
+
+    @Test
+    void headerMatchesEncodedFrame() {
+        String payload = "say hello";
+        ByteBuffer header = SourceRconCodec.encodeHeader(
+            ByteBuffer.allocate(SourceRconCodec.HEADER_SIZE),
+            42,
+            SourceRconCodec.TYPE_RESPONSE_VALUE,
+            payload.length()
+        );
+        ByteBuffer gathered = ByteBuffer.allocate(
+            header.remaining() + payload.length() + SourceRconCodec.TRAILER_SIZE
+        );
+        gathered
+            .put(header)
+            .put(payload.getBytes(StandardCharsets.ISO_8859_1))
+            .put(new byte[SourceRconCodec.TRAILER_SIZE]);
+
+        assertArrayEquals(
+            gathered.array(),
+            bytes(
+                SourceRconCodec.encodeFrame(
+                    42,
+                    SourceRconCodec.TYPE_RESPONSE_VALUE,
+                    payload
+                )
+            )
+        );
+    }
+
+    @Test
+    void decodesFrameAtBufferPosition() throws IOException {
+        ByteBuffer first = SourceRconCodec.encodeFrame(1, 2, "first");
+        ByteBuffer second = SourceRconCodec.encodeFrame(2, 2, "second");
+        ByteBuffer input = ByteBuffer.allocate(
+            first.remaining() + second.remaining()
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        input.put(first).put(second).flip();
+
+        int size = SourceRconCodec.frameSize(input, false, MAX_FRAME_SIZE);
+        assertEquals("first", SourceRconCodec.payloadString(input));
+        input.position(input.position() + size);
+
+        assertEquals(2, SourceRconCodec.requestId(input));
+        assertEquals("second", SourceRconCodec.payloadString(input));
+    }
+
+    @Test
+    void incompleteFrameNeedsMoreInput() throws IOException {
+        ByteBuffer frame = SourceRconCodec.encodeFrame(1, 2, "status");
+
+        for (int split = 0; split < frame.remaining(); split++) {
+            ByteBuffer partial = frame
+                .duplicate()
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .limit(split);
+            assertEquals(
+                0,
+                SourceRconCodec.frameSize(partial, false, MAX_FRAME_SIZE)
+            );
+        }
+    }
+
+    @Test
+    void truncatedFrameAtEndOfInputFails() {
+        ByteBuffer frame = SourceRconCodec.encodeFrame(1, 2, "status");
+        ByteBuffer length = frame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        length.limit(2);
+        ByteBuffer body = frame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        body.limit(frame.limit() - 1);
+
+        assertThrows(EOFException.class, () ->
+            SourceRconCodec.frameSize(length, true, MAX_FRAME_SIZE)
+        );
+        assertThrows(EOFException.class, () ->
+            SourceRconCodec.frameSize(body, true, MAX_FRAME_SIZE)
+        );
+    }
+
+    @Test
+    void rejectsInvalidLengths() {
+        ByteBuffer tooShort = ByteBuffer.allocate(4)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .putInt(0, SourceRconCodec.MIN_BODY_LENGTH - 1);
+        ByteBuffer tooLong = ByteBuffer.allocate(4)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .putInt(0, MAX_FRAME_SIZE);
+
+        assertThrows(IOException.class, () ->
+            SourceRconCodec.frameSize(tooShort, false, MAX_FRAME_SIZE)
+        );
+        // Rejected from the length alone, before the body arrives.
+        assertThrows(IOException.class, () ->
+            SourceRconCodec.frameSize(tooLong, false, MAX_FRAME_SIZE)
+        );
+    }
+
+    @Test
+    void unmappableCharactersBecomeOneQuestionMark() {
+        ByteBuffer frame = SourceRconCodec.encodeFrame(
+            1,
+            SourceRconCodec.TYPE_RESPONSE_VALUE,
+            "café 😀 €"
+        );
+
+        assertEquals("café ? ?", SourceRconCodec.payloadString(frame));
+        assertEquals(
+            4 + 8 + "café ? ?".length() + SourceRconCodec.TRAILER_SIZE,
+            frame.remaining()
+        );
+        assertTrue(hasTrailer(frame));
+    }
+
+    @Test
+    void latin1OrNullRejectsWideCharacters() {
+        assertArrayEquals(
+            "päss".getBytes(StandardCharsets.ISO_8859_1),
+            SourceRconCodec.latin1OrNull("päss")
+        );
+        assertNull(SourceRconCodec.latin1OrNull("pass€"));
+        assertFalse(
+            SourceRconCodec.payloadEquals(
+                SourceRconCodec.encodeFrame(1, 3, "pass"),
+                "pas".getBytes(StandardCharsets.ISO_8859_1)
+            )
+        );
+    }
+
+    private static boolean hasTrailer(ByteBuffer frame) {
+        int end = frame.limit();
+        return frame.get(end - 2) == 0 && frame.get(end - 1) == 0;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,97 @@
+package to.dstn.hytale.hyrcon;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Blocking Source RCON client for tests that talk to a running server over a
+ * Unix domain socket listener, whose clients skip authentication.
+ */
+final class SourceRconTestClient implements AutoCloseable {
+
+    private final SocketChannel channel;
+
+    private SourceRconTestClient(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    static SourceRconTestClient connect(Path socket) throws IOException {
+        return new SourceRconTestClient(
+            SocketChannel.open(UnixDomainSocketAddress.of(socket))
+        );
+    }
+
+    void execute(int requestId, String command) throws IOException {
+        send(requestId, SourceRconCodec.TYPE_EXECCOMMAND, command);
+    }
+
+    void send(int requestId, int type, String payload) throws IOException {
+        ByteBuffer frame = SourceRconCodec.encodeFrame(
+            requestId,
+            type,
+            payload
+        );
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Reads the packets of one command response up to its empty terminating
+     * packet and joins their payloads.
+     */
+    Packet readResponse() throws IOException {
+        Packet first = readPacket();
+        StringBuilder payload = new StringBuilder(first.payload());
+        Packet next = first;
+        while (!next.payload().isEmpty()) {
+            next = readPacket();
+            if (next.requestId() != first.requestId()) {
+                throw new IOException(
+                    "Response " +
+                        first.requestId() +
+                        " interleaved with " +
+                        next.requestId()
+                );
+            }
+            payload.append(next.payload());
+        }
+        return new Packet(first.requestId(), first.type(), payload.toString());
+    }
+
+    Packet readPacket() throws IOException {
+        ByteBuffer length = readFully(ByteBuffer.allocate(4));
+        int size = length.order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+        ByteBuffer frame = ByteBuffer.allocate(4 + size).order(
+            ByteOrder.LITTLE_ENDIAN
+        );
+        frame.putInt(size);
+        readFully(frame).flip();
+        return new Packet(
+            SourceRconCodec.requestId(frame),
+            SourceRconCodec.type(frame),
+            SourceRconCodec.payloadString(frame)
+        );
+    }
+
+    private ByteBuffer readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Server closed the connection");
+            }
+        }
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    record Packet(int requestId, int type, String payload) {}
+}
@@ -0,0 +1,136 @@
+package to.dstn.hytale.hyrcon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+
+    private static final long TICK_MILLIS = 5;
+
+    @Test
+    void tasksRunInDeadlineOrder() throws InterruptedException {
+        Queue<Integer> fired = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(4);
+        try (TimerWheel wheel = new TimerWheel("test-timer", TICK_MILLIS, 8)) {
+            for (int delay : new int[] { 120, 20, 70, 0 }) {
+                wheel.schedule(
+                    () -> {
+                        fired.add(delay);
+                        done.countDown();
+                    },
+                    delay
+                );
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of(0, 20, 70, 120), List.copyOf(fired));
+    }
+
+    @Test
+    void tasksBeyondOneTurnWaitForTheirRound()
+        throws InterruptedException {
+        // Eight slots of five milliseconds turn the wheel every 40.
+        CountDownLatch done = new CountDownLatch(1);
+        long start = System.nanoTime();
+        long[] elapsed = new long[1];
+        try (TimerWheel wheel = new TimerWheel("test-timer", TICK_MILLIS, 8)) {
+            wheel.schedule(
+                () -> {
+                    elapsed[0] = System.nanoTime() - start;
+                    done.countDown();
+                },
+                150
+            );
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+
+        assertTrue(
+            elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(150),
+            elapsed[0] + "ns"
+        );
+    }
+
+    @Test
+    void cancelledTasksNeverRun() throws InterruptedException {
+        AtomicBoolean cancelledRan = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+        try (TimerWheel wheel = new TimerWheel("test-timer", TICK_MILLIS, 8)) {
+            TimerWheel.Timeout timeout = wheel.schedule(
+                () -> cancelledRan.set(true),
+                20
+            );
+            wheel.schedule(later::countDown, 60);
+            timeout.cancel();
+            assertTrue(later.await(5, TimeUnit.SECONDS));
+        }
+
+        assertFalse(cancelledRan.get());
+    }
+
+    @Test
+    void cancelledTaskIsReleasedBeforeItsDeadline()
+        throws InterruptedException {
+        try (TimerWheel wheel = new TimerWheel("test-timer", TICK_MILLIS, 8)) {
+            List<TimerWheel.Timeout> timeouts = new ArrayList<>();
+            WeakReference<Object> reference = scheduleHolding(wheel, timeouts);
+            // Let the wheel move the timeout into its slot.
+            Thread.sleep(30);
+            timeouts.get(0).cancel();
+
+            for (int i = 0; i < 50 && reference.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertNull(reference.get());
+        }
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheWheel() throws InterruptedException {
+        CountDownLatch later = new CountDownLatch(1);
+        try (TimerWheel wheel = new TimerWheel("test-timer", TICK_MILLIS, 8)) {
+            wheel.schedule(
+                () -> {
+                    throw new IllegalStateException("expected");
+                },
+                10
+            );
+            wheel.schedule(later::countDown, 30);
+            assertTrue(later.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closedWheelRunsNothing() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        TimerWheel wheel = new TimerWheel("test-timer", TICK_MILLIS, 8);
+        wheel.schedule(() -> ran.set(true), 20);
+        wheel.close();
+        wheel.schedule(() -> ran.set(true), 0);
+        Thread.sleep(60);
+
+        assertFalse(ran.get());
+    }
+
+    private static WeakReference<Object> scheduleHolding(
+        TimerWheel wheel,
+        List<TimerWheel.Timeout> timeouts
+    ) {
+        Object state = new Object();
+        timeouts.add(wheel.schedule(state::hashCode, 60_000));
+        return new WeakReference<>(state);
+    }
+}